@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.benchmark;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.neuroph.core.data.DataSetRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.makotojava.ncaabb.generation.DataCreator;
+import com.makotojava.ncaabb.model.NormalizedData;
+import com.makotojava.ncaabb.model.NormalizedFeatureStore;
+import com.makotojava.ncaabb.model.SeasonAnalytics;
+import com.makotojava.ncaabb.model.SeasonData;
+import com.makotojava.ncaabb.util.StatsUtils;
+
+/**
+ * Benchmarks for turning raw SeasonData into network input: the StatsUtils
+ * normalize methods, a single team's feature slice, and a whole row of input
+ * (the old way and the NormalizedFeatureStore way).
+ *
+ * @author J Steven Perry
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeatureBenchmark {
+
+  private SeasonAnalytics seasonAnalytics;
+  private List<SeasonData> teams;
+  private NormalizedFeatureStore featureStore;
+
+  private BigDecimal value;
+  private BigDecimal minValue;
+  private BigDecimal maxValue;
+
+  /**
+   * Walks through the teams, so each call works on a different matchup
+   */
+  private int teamIndex;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(2017);
+    seasonAnalytics = SyntheticData.createSeasonAnalytics(random);
+    teams = SyntheticData.createTeams(SyntheticData.NUMBER_OF_TOURNAMENT_TEAMS, random);
+    featureStore = new NormalizedFeatureStore(seasonAnalytics);
+    for (SeasonData team : teams) {
+      featureStore.getFeatureSlice(team);
+    }
+    value = seasonAnalytics.getMaxAvgPointsPg().subtract(BigDecimal.ONE);
+    minValue = seasonAnalytics.getMinAvgPointsPg();
+    maxValue = seasonAnalytics.getMaxAvgPointsPg();
+  }
+
+  @Benchmark
+  public BigDecimal normalizeBigDecimal() {
+    return StatsUtils.normalize(value, minValue, maxValue);
+  }
+
+  @Benchmark
+  public double normalizeDouble() {
+    return StatsUtils.normalize(value.doubleValue(), minValue.doubleValue(), maxValue.doubleValue());
+  }
+
+  @Benchmark
+  public double[] createFeatureSlice() {
+    return NormalizedData.createFeatureSlice(seasonAnalytics, nextTeam());
+  }
+
+  @Benchmark
+  public double[] normalizedDataAsInputAndOutput() {
+    return new NormalizedData(seasonAnalytics, nextTeam(), nextTeam()).asInputAndOutput();
+  }
+
+  @Benchmark
+  public DataSetRow processAsDataSetRowForSimulation() {
+    return DataCreator.processAsDataSetRowForSimulation(seasonAnalytics, nextTeam(), nextTeam());
+  }
+
+  @Benchmark
+  public double[] featureStoreCreateInput() {
+    return featureStore.createInput(nextTeam(), nextTeam());
+  }
+
+  private SeasonData nextTeam() {
+    teamIndex = (teamIndex + 1) % teams.size();
+    return teams.get(teamIndex);
+  }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.makotojava.ncaabb.model.NormalizedFeatureStore;
+import com.makotojava.ncaabb.model.SeasonData;
+import com.makotojava.ncaabb.simulation.CompiledNetwork;
+import com.makotojava.ncaabb.util.NetworkFixtures;
+import com.makotojava.ncaabb.util.NetworkUtils;
+
+/**
+ * Benchmarks for running a trained network: one row at a time through Neuroph
+ * (NetworkUtils.runNetwork()), and through the CompiledNetwork, one row at a
+ * time and a whole batch (one team against the rest of the field) at a time.
+ * The batch benchmark counts each row as an operation, so the numbers can be
+ * compared directly.
+ *
+ * @author J Steven Perry
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InferenceBenchmark {
+
+  /**
+   * The network layers (comma separated, input layer first)
+   */
+  @Param({ "46,46,2", "46,92,46,2" })
+  public String layers;
+
+  private MultiLayerPerceptron network;
+  private CompiledNetwork compiledNetwork;
+  private double[][] inputs;
+  private int row;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(2017);
+    String[] layerSizes = layers.split(",");
+    Integer[] neuronLayerDescriptor = new Integer[layerSizes.length];
+    for (int aa = 0; aa < layerSizes.length; aa++) {
+      neuronLayerDescriptor[aa] = Integer.valueOf(layerSizes[aa].trim());
+    }
+    network = NetworkFixtures.createNetwork(random, neuronLayerDescriptor);
+    compiledNetwork = CompiledNetwork.compile(network);
+    NormalizedFeatureStore featureStore = new NormalizedFeatureStore(SyntheticData.createSeasonAnalytics(random));
+    List<SeasonData> teams = SyntheticData.createTeams(SyntheticData.NUMBER_OF_TOURNAMENT_TEAMS, random);
+    List<double[]> rows = new ArrayList<>();
+    for (SeasonData opponent : teams) {
+      rows.add(featureStore.createInput(teams.get(0), opponent));
+    }
+    inputs = rows.toArray(new double[rows.size()][]);
+  }
+
+  @Benchmark
+  public double[] neurophSingle() {
+    return NetworkUtils.runNetwork(network, nextRow());
+  }
+
+  @Benchmark
+  public double[] compiledSingle() {
+    return compiledNetwork.calculate(nextRow());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SyntheticData.NUMBER_OF_TOURNAMENT_TEAMS)
+  public double[][] compiledBatch() {
+    return compiledNetwork.calculate(inputs);
+  }
+
+  private double[] nextRow() {
+    row = (row + 1) % inputs.length;
+    return inputs[row];
+  }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.makotojava.ncaabb.dao.SeasonDataDao;
+import com.makotojava.ncaabb.model.NormalizedFeatureStore;
+import com.makotojava.ncaabb.model.SeasonAnalytics;
+import com.makotojava.ncaabb.model.SeasonData;
+import com.makotojava.ncaabb.simulation.GameSimulationResult;
+import com.makotojava.ncaabb.simulation.MatchupPredictor;
+import com.makotojava.ncaabb.util.NetworkFixtures;
+
+/**
+ * Benchmark for a full pass of the tournament matrix: every team in a 68 team
+ * field against every team, with every network, on one thread and on several.
+ * This is everything TournamentMatrixPredictor does to write the matrix out
+ * (MatchupPredictor.predictMatrix()) once the data is out of the DB (normalizing
+ * included, the predictor, and so its cache and feature store, start out empty
+ * every time).
+ *
+ * @author J Steven Perry
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatrixBenchmark {
+
+  private static final Integer YEAR = 2017;
+
+  @Param({ "1", "4" })
+  public int threadCount;
+
+  @Param({ "10" })
+  public int numberOfNetworks;
+
+  private List<MultiLayerPerceptron> networks;
+  private Map<String, SeasonData> teams;
+  private SeasonAnalytics seasonAnalytics;
+  private ForkJoinPool pool;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(2017);
+    networks = new ArrayList<>();
+    for (int aa = 0; aa < numberOfNetworks; aa++) {
+      networks.add(NetworkFixtures.createNetwork(random, 46, 92, 2));
+    }
+    teams = new HashMap<>();
+    for (SeasonData team : SyntheticData.createTeams(SyntheticData.NUMBER_OF_TOURNAMENT_TEAMS, random)) {
+      teams.put(team.getTeamName(), team);
+    }
+    seasonAnalytics = SyntheticData.createSeasonAnalytics(random);
+    pool = new ForkJoinPool(threadCount);
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public Map<String, List<GameSimulationResult<MultiLayerPerceptron>>> computeMatrix() {
+    //
+    // Big enough to hold the whole matrix, like the default simulation.matchup.cache.size
+    MatchupPredictor matchupPredictor =
+        new MatchupPredictor(networks, new SyntheticSeasonDataDao(), null, teams.size() * teams.size(), false) {
+          @Override
+          protected NormalizedFeatureStore createFeatureStore(Integer year) {
+            return new NormalizedFeatureStore(seasonAnalytics);
+          }
+        };
+    return matchupPredictor.predictMatrix(YEAR, teams.keySet(), pool);
+  }
+
+  /**
+   * Serves the synthetic teams, in place of the DB.
+   */
+  private class SyntheticSeasonDataDao implements SeasonDataDao {
+
+    @Override
+    public List<SeasonData> fetchAllByYear(Integer year) {
+      return new ArrayList<>(teams.values());
+    }
+
+    @Override
+    public SeasonData fetchByYearAndTeamName(Integer year, String teamName) {
+      return teams.get(teamName);
+    }
+  }
+
+}
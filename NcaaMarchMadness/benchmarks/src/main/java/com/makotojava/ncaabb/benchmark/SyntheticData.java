@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.benchmark;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.neuroph.core.data.DataSet;
+
+import com.makotojava.ncaabb.model.NormalizedFeatureStore;
+import com.makotojava.ncaabb.model.SeasonAnalytics;
+import com.makotojava.ncaabb.model.SeasonData;
+
+/**
+ * Synthetic fixtures for the benchmarks, so they don't need the DB. Everything is
+ * generated from a Random, so the same seed always produces the same data.
+ * <p>
+ * The stats are all BigDecimal properties, so rather than calling 70 setters by
+ * hand, they are filled in by reflection: every SeasonAnalytics min is somewhere in
+ * [0, 30), every max in [70, 100), and every SeasonData stat in [0, 100), so most
+ * values land inside the min/max range and a few get clamped, like the real thing.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class SyntheticData {
+
+  /**
+   * The number of teams in the tournament (the First Four included)
+   */
+  public static final int NUMBER_OF_TOURNAMENT_TEAMS = 68;
+
+  private SyntheticData() {
+    // Utility class
+  }
+
+  public static SeasonAnalytics createSeasonAnalytics(Random random) {
+    SeasonAnalytics ret = new SeasonAnalytics();
+    ret.setYear(2017);
+    for (Method method : SeasonAnalytics.class.getMethods()) {
+      if (isBigDecimalSetter(method)) {
+        double value = (method.getName().startsWith("setMin")) ? random.nextDouble() * 30.0
+            : 70.0 + random.nextDouble() * 30.0;
+        invoke(method, ret, value);
+      }
+    }
+    return ret;
+  }
+
+  public static List<SeasonData> createTeams(int numberOfTeams, Random random) {
+    List<SeasonData> ret = new ArrayList<>();
+    for (int aa = 0; aa < numberOfTeams; aa++) {
+      SeasonData team = new SeasonData();
+      team.setYear(2017);
+      team.setTeamName(String.format("Team %03d", aa));
+      for (Method method : SeasonData.class.getMethods()) {
+        if (isBigDecimalSetter(method)) {
+          invoke(method, team, random.nextDouble() * 100.0);
+        }
+      }
+      ret.add(team);
+    }
+    return ret;
+  }
+
+  /**
+   * Creates training data that looks like DataCreator's: two rows (one each way)
+   * for each of the 67 games of a tournament, for the specified number of years.
+   */
+  public static DataSet createTrainingData(int numberOfYears, Random random) {
+    DataSet ret = new DataSet(NormalizedFeatureStore.NUMBER_OF_INPUTS, 2);
+    for (int year = 0; year < numberOfYears; year++) {
+      NormalizedFeatureStore featureStore = new NormalizedFeatureStore(createSeasonAnalytics(random));
+      List<SeasonData> teams = createTeams(NUMBER_OF_TOURNAMENT_TEAMS, random);
+      for (int game = 0; game < NUMBER_OF_TOURNAMENT_TEAMS - 1; game++) {
+        SeasonData winner = teams.get(game);
+        SeasonData loser = teams.get(game + 1);
+        double winnerScore = 0.5 + random.nextDouble() * 0.5;
+        double loserScore = winnerScore * random.nextDouble();
+        ret.addRow(featureStore.createInput(winner, loser), new double[] { winnerScore, loserScore });
+        ret.addRow(featureStore.createInput(loser, winner), new double[] { loserScore, winnerScore });
+      }
+    }
+    return ret;
+  }
+
+  private static boolean isBigDecimalSetter(Method method) {
+    return method.getName().startsWith("set") && method.getParameterCount() == 1
+        && method.getParameterTypes()[0] == BigDecimal.class;
+  }
+
+  private static void invoke(Method setter, Object target, double value) {
+    try {
+      setter.invoke(target, BigDecimal.valueOf(value).setScale(3, RoundingMode.HALF_UP));
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new RuntimeException("Could not call " + setter.getName(), e);
+    }
+  }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.neuroph.core.data.DataSet;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.nnet.learning.MomentumBackpropagation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.makotojava.ncaabb.generation.DenseMomentumBackpropagation;
+import com.makotojava.ncaabb.util.NetworkFixtures;
+
+/**
+ * Benchmark for a single training epoch (one pass through the training data)
+ * of a network, using either of the learning rules the trainer can use (Neuroph's
+ * MomentumBackpropagation, or the {@link DenseMomentumBackpropagation}). The weights
+ * are put back before every epoch, so every invocation does the same work.
+ *
+ * @author J Steven Perry
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrainingBenchmark {
+
+  /**
+   * The number of years of training data
+   */
+  @Param({ "1", "6" })
+  public int numberOfYears;
+
+  /**
+   * The learning rule: neuroph or dense
+   */
+  @Param({ "neuroph", "dense" })
+  public String learningRuleType;
+
+  private MultiLayerPerceptron network;
+  private double[] initialWeights;
+  private DataSet trainingData;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random random = new Random(2017);
+    trainingData = SyntheticData.createTrainingData(numberOfYears, random);
+    network = NetworkFixtures.createNetwork(random, 46, 92, 2);
+    Double[] weights = network.getWeights();
+    initialWeights = new double[weights.length];
+    for (int aa = 0; aa < weights.length; aa++) {
+      initialWeights[aa] = weights[aa];
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void resetNetwork() {
+    network.setWeights(initialWeights);
+    MomentumBackpropagation learningRule =
+        "dense".equals(learningRuleType) ? new DenseMomentumBackpropagation() : new MomentumBackpropagation();
+    learningRule.setMomentum(0.1);
+    learningRule.setLearningRate(0.1);
+    learningRule.setMaxIterations(1);
+    network.setLearningRule(learningRule);
+  }
+
+  @Benchmark
+  public MultiLayerPerceptron oneEpoch() {
+    network.learn(trainingData);
+    return network;
+  }
+
+}
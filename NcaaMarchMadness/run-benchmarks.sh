@@ -0,0 +1 @@
+src/main/script/run-benchmarks.sh
\ No newline at end of file
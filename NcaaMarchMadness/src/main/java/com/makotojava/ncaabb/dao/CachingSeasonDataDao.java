@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import com.makotojava.ncaabb.model.SeasonData;
+
+/**
+ * SeasonDataDao implementation that sits in front of another SeasonDataDao
+ * (normally the JDBC one) and keeps a snapshot of entire seasons in memory.
+ * <p>
+ * The first time a year is asked for, every {@link SeasonData} object for that
+ * year is loaded with a single call to {@link SeasonDataDao#fetchAllByYear(Integer)}
+ * and indexed by team name. Every request after that for the same year is served
+ * from memory. Only the <code>maxYears</code> most recently used years are kept
+ * around, the least recently used year is dropped when a new one is loaded.
+ * <p>
+ * The season data does not change once it is in the DB, so the cache is never
+ * refreshed. The {@link SeasonData} objects handed out are shared, so don't
+ * modify them.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class CachingSeasonDataDao implements SeasonDataDao {
+
+  private static final Logger log = Logger.getLogger(CachingSeasonDataDao.class);
+
+  /**
+   * Where the data really comes from
+   */
+  private SeasonDataDao delegate;
+
+  /**
+   * Year -> season snapshot, in least to most recently used order
+   */
+  private Map<Integer, YearSnapshot> yearSnapshots;
+
+  private AtomicLong hitCount = new AtomicLong();
+  private AtomicLong missCount = new AtomicLong();
+
+  /**
+   * Constructor.
+   *
+   * @param delegate
+   *          The SeasonDataDao to load entire years from.
+   * @param maxYears
+   *          The maximum number of years to keep in memory at one time.
+   */
+  public CachingSeasonDataDao(SeasonDataDao delegate, final int maxYears) {
+    if (maxYears < 1) {
+      throw new IllegalArgumentException("maxYears must be at least 1, was " + maxYears);
+    }
+    this.delegate = delegate;
+    this.yearSnapshots = new LinkedHashMap<Integer, YearSnapshot>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, YearSnapshot> eldest) {
+        boolean ret = size() > maxYears;
+        if (ret) {
+          log.info("Evicting season data for year " + eldest.getKey() + " from the cache.");
+        }
+        return ret;
+      }
+    };
+  }
+
+  @Override
+  public List<SeasonData> fetchAllByYear(Integer year) {
+    // Hand out a copy, so the caller can't mess up the snapshot
+    return new ArrayList<>(getYearSnapshot(year).allTeams);
+  }
+
+  @Override
+  public SeasonData fetchByYearAndTeamName(Integer year, String teamName) {
+    SeasonData ret = getYearSnapshot(year).teamsByName.get(teamName);
+    if (ret == null) {
+      log.warn("Requested team/year combination (" + teamName + "/" + year + ") does not exist in the DB!");
+    }
+    return ret;
+  }
+
+  /**
+   * @return long - the number of requests served from memory.
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * @return long - the number of requests that had to go to the delegate
+   *         (that is, one per year loaded).
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * Logs the cache hit/miss counts.
+   */
+  public void logStatistics() {
+    long hits = getHitCount();
+    long total = hits + getMissCount();
+    log.info("Season data cache: " + hits + " hits, " + getMissCount() + " misses ("
+        + ((total > 0) ? (hits * 100 / total) : 0) + "% hit rate)");
+  }
+
+  /**
+   * Returns the snapshot for the specified year, loading it from the delegate
+   * if it is not already in memory. The lock is held while loading, so
+   * concurrent callers asking for the same year wait for the one load rather
+   * than each going to the DB.
+   */
+  private synchronized YearSnapshot getYearSnapshot(Integer year) {
+    YearSnapshot ret = yearSnapshots.get(year);
+    if (ret != null) {
+      hitCount.incrementAndGet();
+    } else {
+      missCount.incrementAndGet();
+      log.info("Loading season data for year " + year + " into the cache...");
+      ret = new YearSnapshot(delegate.fetchAllByYear(year));
+      yearSnapshots.put(year, ret);
+    }
+    return ret;
+  }
+
+  /**
+   * All of the {@link SeasonData} for one year, in the order the delegate
+   * returned it, plus an index by team name.
+   */
+  private static class YearSnapshot {
+    private final List<SeasonData> allTeams;
+    private final Map<String, SeasonData> teamsByName;
+
+    private YearSnapshot(List<SeasonData> seasonData) {
+      this.allTeams = Collections.unmodifiableList(new ArrayList<>(seasonData));
+      this.teamsByName = new HashMap<>();
+      for (SeasonData teamSeasonData : seasonData) {
+        teamsByName.put(teamSeasonData.getTeamName(), teamSeasonData);
+      }
+    }
+  }
+
+}
@@ -15,6 +15,7 @@
  */
 package com.makotojava.ncaabb.generation;
 
+import com.makotojava.ncaabb.dao.CachingSeasonDataDao;
 import com.makotojava.ncaabb.dao.SeasonAnalyticsDao;
 import com.makotojava.ncaabb.dao.SeasonDataDao;
 import com.makotojava.ncaabb.dao.TournamentAnalyticsDao;
@@ -28,6 +29,7 @@ import com.makotojava.ncaabb.springconfig.ApplicationConfig;
 import com.makotojava.ncaabb.util.NetworkProperties;
 import com.makotojava.ncaabb.util.NetworkUtils;
 import com.makotojava.ncaabb.util.StatsUtils;
+import com.makotojava.ncaabb.util.TrainingDataFile;
 import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 import org.apache.log4j.Logger;
 import org.neuroph.core.data.DataSet;
@@ -35,7 +37,7 @@ import org.neuroph.core.data.DataSetRow;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
-import java.math.BigDecimal;
+import java.io.File;
 import java.util.Arrays;
 import java.util.List;
 
@@ -116,24 +118,18 @@ public class DataCreator {
     //
     // First, figure out which team is team1 in the tournament data
     String winningTeamName = tournamentResult.getWinningTeamName();
-    BigDecimal winningScore = BigDecimal.valueOf(tournamentResult.getWinningScore().longValue());
-    BigDecimal losingScore = BigDecimal.valueOf(tournamentResult.getLosingScore().longValue());
+    double winningScore = tournamentResult.getWinningScore().longValue();
+    double losingScore = tournamentResult.getLosingScore().longValue();
     //
     // Set the team scores based on who won the contest
-    BigDecimal team1Score = (winningTeamName.equals(team1SeasonData.getTeamName())) ? winningScore : losingScore;
-    BigDecimal team2Score = (winningTeamName.equals(team2SeasonData.getTeamName())) ? winningScore : losingScore;
+    double team1Score = (winningTeamName.equals(team1SeasonData.getTeamName())) ? winningScore : losingScore;
+    double team2Score = (winningTeamName.equals(team2SeasonData.getTeamName())) ? winningScore : losingScore;
     //
-    // Compute Team1's normalized score
-    BigDecimal team1NormalizedScore =
-      StatsUtils.normalize(team1Score, BigDecimal.valueOf(tournamentAnalytics.getMinScore()).setScale(5),
-        BigDecimal.valueOf(tournamentAnalytics.getMaxScore()).setScale(5));
-    BigDecimal team2NormalizedScore =
-      StatsUtils.normalize(team2Score, BigDecimal.valueOf(tournamentAnalytics.getMinScore()).setScale(5),
-        BigDecimal.valueOf(tournamentAnalytics.getMaxScore()).setScale(5));
-    //
-    // Set the scores in their places in the array
-    inputAndOutput[team1ScoreIndex] = team1NormalizedScore.doubleValue();
-    inputAndOutput[team2ScoreIndex] = team2NormalizedScore.doubleValue();
+    // Compute the normalized scores and set them in their places in the array
+    inputAndOutput[team1ScoreIndex] =
+      StatsUtils.normalize(team1Score, tournamentAnalytics.getMinScore(), tournamentAnalytics.getMaxScore());
+    inputAndOutput[team2ScoreIndex] =
+      StatsUtils.normalize(team2Score, tournamentAnalytics.getMinScore(), tournamentAnalytics.getMaxScore());
   }
 
   /**
@@ -274,11 +270,20 @@ public class DataCreator {
         }
       }
       log.info("*********** SAVING TRAINING DATA **************");
-      String filename = NetworkUtils.computeTrainingDataFileName(year);
-      trainingData.save(filename);
+      String filename;
+      if (NetworkProperties.getTrainingDataUseBinaryFormat()) {
+        filename = NetworkUtils.computeTrainingDataBinaryFileName(year);
+        TrainingDataFile.write(trainingData, new File(filename));
+      } else {
+        filename = NetworkUtils.computeTrainingDataFileName(year);
+        trainingData.save(filename);
+      }
       int numberOfRows = trainingData.getRows().size();
       log.info("Saved " + numberOfRows + " rows of training data '" + filename + "'");
     }
+    if (seasonDataDao instanceof CachingSeasonDataDao) {
+      ((CachingSeasonDataDao) seasonDataDao).logStatistics();
+    }
   }
 
   /**
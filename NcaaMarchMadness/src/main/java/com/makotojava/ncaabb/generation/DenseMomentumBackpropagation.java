@@ -0,0 +1,897 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.generation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+
+import org.neuroph.core.Connection;
+import org.neuroph.core.Layer;
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.Neuron;
+import org.neuroph.core.Weight;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.input.WeightedSum;
+import org.neuroph.core.transfer.Sigmoid;
+import org.neuroph.nnet.comp.neuron.BiasNeuron;
+import org.neuroph.nnet.comp.neuron.InputNeuron;
+import org.neuroph.nnet.learning.MomentumBackpropagation;
+
+import com.makotojava.ncaabb.util.PackedTrainingData;
+
+/**
+ * A drop-in replacement for Neuroph's {@link MomentumBackpropagation} learning rule that
+ * trains a MultiLayerPerceptron (Sigmoid neurons, weighted sum inputs, with or without
+ * bias neurons) using primitive arrays instead of Neuroph's object-per-neuron and
+ * object-per-connection graph.
+ * <p>
+ * Each layer's weights live in a contiguous, row-major matrix (one row per neuron, one
+ * column per neuron in the previous layer, bias neurons included), and the training
+ * data is packed into one contiguous array the first time it is seen. Each epoch is
+ * then just dense matrix-vector loops: forward pass, backward pass, momentum update.
+ * <p>
+ * Because it is a MomentumBackpropagation, everything else stays the same: the learning
+ * rate, momentum, max error, max iterations and batch mode are set (and read) the same
+ * way, learning events fire after every epoch, the total network error is the mean squared
+ * error Neuroph reports, and the trained weights end up in the network itself (so it
+ * can be saved as an .ann file, validated, run by the simulators, etc.).
+ * <p>
+ * The network's weights are copied in before each epoch and back out after it, so a
+ * listener that changes the weights (or momentum) between epochs works as expected.
+ * <p>
+ * A training run can be picked back up where it left off (see
+ * {@link #resumeFrom(double[], int[])}): given the last change made to each weight and the
+ * row order of the last epoch, along with the weights and the same random number generator,
+ * the next call to learn() carries on exactly as the interrupted run would have.
+ * <p>
+ * Besides Neuroph's online (a weight update after every row) and batch (one update per
+ * epoch, using the sum of the rows' gradients, as Neuroph does) modes, there is a mini-batch
+ * mode (see {@link #setBatchSize(int)}): the weights are updated once per batch of rows,
+ * using the average gradient over the batch, so the learning rate means the same thing
+ * whatever the batch size. Each
+ * batch is split into shards, and the gradients for the shards are computed on separate
+ * threads (see {@link #setWorkerCount(int)}), then added up (always in the same order,
+ * so a run can be repeated) before the weights are updated.
+ * <p>
+ * Given {@link PackedTrainingData} (see {@link #setTrainingData(PackedTrainingData, Random)}),
+ * the rows are read straight out of its (shared) buffers instead, in a new random order
+ * every epoch, and the DataSet passed to learn() is not used (an empty one will do).
+ * <p>
+ * The math is textbook backpropagation, where all of the errors are computed before any
+ * weights are changed. Neuroph changes each layer's weights before it computes the errors
+ * for the layer before it, so the two do not produce exactly the same weights.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class DenseMomentumBackpropagation extends MomentumBackpropagation {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final Logger log = Logger.getLogger(DenseMomentumBackpropagation.class);
+
+  /**
+   * The fewest rows worth giving a thread of its own when a batch is split into shards
+   */
+  private static final int MIN_ROWS_PER_WORKER = 16;
+
+  /**
+   * The number of neurons (including bias neurons) in each layer
+   */
+  private transient int[] layerSizes;
+
+  /**
+   * weights[layer][neuron * layerSizes[layer - 1] + previousLayerNeuron].
+   * weights[0] is not used (the input layer has no input connections).
+   */
+  private transient double[][] weights;
+
+  /**
+   * The last change made to each weight (for momentum), same layout as weights
+   */
+  private transient double[][] previousWeightChanges;
+
+  /**
+   * Whether each neuron in each layer is a bias neuron (always outputs 1)
+   */
+  private transient boolean[][] biasNeurons;
+
+  /**
+   * The Sigmoid slope of each neuron in each (non-input) layer
+   */
+  private transient double[][] slopes;
+
+  /**
+   * The network's Weight objects, and where each one lives in the weights arrays,
+   * for copying the weights in and out of the network
+   */
+  private transient Weight[] networkWeights;
+  private transient int[] networkWeightLayers;
+  private transient int[] networkWeightPositions;
+
+  /**
+   * Where each network input goes in the input layer, and where each network
+   * output comes from in the output layer
+   */
+  private transient int[] inputPositions;
+  private transient int[] outputPositions;
+
+  /**
+   * The gradient workers. The first one is used for online mode, and is the one the
+   * other workers' gradients are added into in (mini-)batch mode.
+   */
+  private transient GradientWorker[] workers;
+
+  /**
+   * Runs the gradient workers (other than the first one, which runs on the calling thread)
+   */
+  private transient ExecutorService executorService;
+
+  /**
+   * Mini-batch size (0 means use online or batch mode, as set by setBatchMode())
+   */
+  private int batchSize = 0;
+
+  /**
+   * The (maximum) number of threads to compute the gradients of each mini-batch on
+   */
+  private int workerCount = 1;
+
+  /**
+   * The training data, packed: rowCount rows of inputs, and rowCount rows of outputs
+   */
+  private transient DataSet packedDataSet;
+  private transient double[] packedInputs;
+  private transient double[] packedOutputs;
+
+  /**
+   * The (shared) packed training data to train from instead of the DataSet (if any),
+   * the random number generator used to shuffle it every epoch, and the order the rows
+   * are visited in (this epoch)
+   */
+  private transient PackedTrainingData trainingData;
+  private transient Random rowOrderRandom;
+  private transient int[] rowOrder;
+
+  /**
+   * The weight changes (in the network's weight order) and row order to start the next
+   * call to learn() with, if it is resuming a training run (see {@link #resumeFrom(double[], int[])})
+   */
+  private transient double[] resumeWeightChanges;
+  private transient int[] resumeRowOrder;
+
+  private transient double totalNetworkError;
+  private transient double previousEpochError;
+
+  /**
+   * The number of epochs in a row the network error has changed by no more than the min
+   * error change (see {@link #hasReachedStopCondition()})
+   */
+  private transient int minErrorChangeIterationsCount;
+
+  /**
+   * Epoch timing, for comparing against Neuroph's MomentumBackpropagation
+   */
+  private transient long totalEpochTime;
+  private transient int numberOfEpochs;
+
+  @Override
+  protected void onStart() {
+    super.onStart();
+    compile(getNeuralNetwork());
+    if (resumeWeightChanges != null) {
+      copyPreviousWeightChangesFrom(resumeWeightChanges);
+      resumeWeightChanges = null;
+    }
+    shutdownExecutorService();
+    if (workers.length > 1) {
+      executorService = Executors.newFixedThreadPool(workers.length - 1, runnable -> {
+        Thread ret = new Thread(runnable, "dense-backprop-worker");
+        ret.setDaemon(true);
+        return ret;
+      });
+    }
+    totalNetworkError = 0.0;
+    previousEpochError = 0.0;
+    minErrorChangeIterationsCount = 0;
+    totalEpochTime = 0;
+    numberOfEpochs = 0;
+  }
+
+  /**
+   * Done learning, however it ended (the stop condition, or a listener calling
+   * stopLearning()), so the worker threads are not needed any more.
+   */
+  @Override
+  protected void onStop() {
+    super.onStop();
+    shutdownExecutorService();
+  }
+
+  @Override
+  public void doLearningEpoch(DataSet trainingSet) {
+    try {
+      runLearningEpoch(trainingSet);
+    } catch (RuntimeException e) {
+      // learn() will not get to onStop(), so don't leave the worker threads behind
+      shutdownExecutorService();
+      throw e;
+    }
+  }
+
+  private void runLearningEpoch(DataSet trainingSet) {
+    long epochStartTime = System.nanoTime();
+    packTrainingData(trainingSet);
+    copyWeightsFromNetwork();
+    double momentum = getMomentum();
+    int rowCount = rowOrder.length;
+    int rowsPerBatch = (batchSize > 0) ? batchSize : (isBatchMode() ? rowCount : 0);
+    double totalSquaredError = 0.0;
+    if (rowsPerBatch == 0) {
+      GradientWorker worker = workers[0];
+      for (int aa = 0; aa < rowCount; aa++) {
+        int row = rowOrder[aa];
+        worker.forward(row);
+        totalSquaredError += worker.backward(row);
+        computeWeightChanges(worker, momentum);
+        updateWeights();
+      }
+    } else {
+      for (int batchStart = 0; batchStart < rowCount; batchStart += rowsPerBatch) {
+        int batchEnd = Math.min(rowCount, batchStart + rowsPerBatch);
+        totalSquaredError += computeBatchGradient(batchStart, batchEnd);
+        updateBatchWeights(momentum, batchEnd - batchStart);
+      }
+    }
+    //
+    // Same as Neuroph's MeanSquaredError
+    previousEpochError = totalNetworkError;
+    totalNetworkError = (rowCount == 0) ? 0.0 : totalSquaredError / (2 * rowCount);
+    copyWeightsToNetwork();
+    totalEpochTime += System.nanoTime() - epochStartTime;
+    numberOfEpochs++;
+  }
+
+  /**
+   * Neuroph's stop conditions: the max iterations (if there is one, 0 means no max), the
+   * max error, or the network error having changed by no more than the min error change for
+   * the min error change iterations limit. Neuroph checks its own copy of the network error,
+   * which this learning rule does not update, so the checks are made here.
+   */
+  @Override
+  protected boolean hasReachedStopCondition() {
+    return (getMaxIterations() > 0 && getCurrentIteration() >= getMaxIterations())
+        || totalNetworkError < getMaxError() || hasErrorChangeStalled();
+  }
+
+  private boolean hasErrorChangeStalled() {
+    if (Math.abs(previousEpochError - totalNetworkError) <= getMinErrorChange()) {
+      minErrorChangeIterationsCount++;
+      return minErrorChangeIterationsCount >= getMinErrorChangeIterationsLimit();
+    }
+    minErrorChangeIterationsCount = 0;
+    return false;
+  }
+
+  @Override
+  public double getTotalNetworkError() {
+    return totalNetworkError;
+  }
+
+  @Override
+  public double getPreviousEpochError() {
+    return previousEpochError;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Sets the mini-batch size: the number of rows whose (average) gradient is used
+   * for each weight update. 0 (the default) means online or batch mode, depending
+   * on {@link #isBatchMode()}.
+   */
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Trains from the specified packed training data, rather than packing (a copy of) the
+   * DataSet passed to learn(), which is not used (so it can be empty). The rows are visited
+   * in a new order every epoch, shuffled with the specified random number generator.
+   * 
+   * @param trainingData
+   *          The packed training data (null to go back to packing the DataSet).
+   * @param random
+   *          The random number generator to shuffle the rows with.
+   */
+  public void setTrainingData(PackedTrainingData trainingData, Random random) {
+    this.trainingData = trainingData;
+    this.rowOrderRandom = random;
+    this.rowOrder = null;
+  }
+
+  /**
+   * @return double[] - the last change made to each weight (what the momentum is applied to
+   *         next time), in the same order as the network's weights (see
+   *         {@link NeuralNetwork#getWeights()}).
+   */
+  public double[] getPreviousWeightChanges() {
+    double[] ret = new double[networkWeights.length];
+    for (int aa = 0; aa < networkWeights.length; aa++) {
+      ret[aa] = previousWeightChanges[networkWeightLayers[aa]][networkWeightPositions[aa]];
+    }
+    return ret;
+  }
+
+  /**
+   * @return int[] - the order the rows were visited in by the last epoch (a copy), or null
+   *         if none has been run yet.
+   */
+  public int[] getRowOrder() {
+    return (rowOrder == null) ? null : rowOrder.clone();
+  }
+
+  /**
+   * Picks an interrupted training run back up (say, from a checkpoint) the next time learn()
+   * is called: the weight changes start out as the specified ones (rather than all zero),
+   * and, with packed training data, the first epoch reshuffles the specified row order
+   * (rather than starting from a new one). The network's weights, the momentum and the
+   * random number generator must be put back, too.
+   * 
+   * @param previousWeightChanges
+   *          The last change made to each weight, in the same order as the network's
+   *          weights (see {@link #getPreviousWeightChanges()}).
+   * @param rowOrder
+   *          The row order of the last epoch (see {@link #getRowOrder()}), null for a new one.
+   */
+  public void resumeFrom(double[] previousWeightChanges, int[] rowOrder) {
+    this.resumeWeightChanges = previousWeightChanges.clone();
+    this.resumeRowOrder = (rowOrder == null) ? null : rowOrder.clone();
+  }
+
+  public int getWorkerCount() {
+    return workerCount;
+  }
+
+  /**
+   * Sets the (maximum) number of threads used to compute the gradient of each batch
+   * (including the thread calling learn()). Takes effect the next time learn() is called.
+   */
+  public void setWorkerCount(int workerCount) {
+    this.workerCount = workerCount;
+  }
+
+  /**
+   * @return boolean - whether the worker threads are running (only while learning).
+   */
+  boolean isExecutorServiceRunning() {
+    return executorService != null;
+  }
+
+  /**
+   * @return int - the number of epochs run (so far) by the current (or last) call to learn().
+   */
+  public int getNumberOfEpochs() {
+    return numberOfEpochs;
+  }
+
+  /**
+   * @return double - the average time (in milliseconds) of each epoch run by the current
+   *         (or last) call to learn(), 0 if none have been run yet.
+   */
+  public double getAverageEpochTime() {
+    return (numberOfEpochs == 0) ? 0.0 : totalEpochTime / 1000000.0 / numberOfEpochs;
+  }
+
+  /**
+   * Online mode: computes the change to every weight for the current row (the learning
+   * rate times the neuron's delta times its input, plus the momentum times the last
+   * change), remembering it for next time.
+   */
+  private void computeWeightChanges(GradientWorker worker, double momentum) {
+    double learningRate = getLearningRate();
+    for (int layerIndex = 1; layerIndex < layerSizes.length; layerIndex++) {
+      int layerSize = layerSizes[layerIndex];
+      int previousLayerSize = layerSizes[layerIndex - 1];
+      double[] previous = worker.activations[layerIndex - 1];
+      double[] layerDeltas = worker.deltas[layerIndex];
+      double[] layerChanges = previousWeightChanges[layerIndex];
+      boolean[] layerBiasNeurons = biasNeurons[layerIndex];
+      for (int neuronIndex = 0; neuronIndex < layerSize; neuronIndex++) {
+        if (layerBiasNeurons[neuronIndex]) {
+          continue;
+        }
+        double scaledDelta = learningRate * layerDeltas[neuronIndex];
+        int rowStart = neuronIndex * previousLayerSize;
+        for (int aa = 0; aa < previousLayerSize; aa++) {
+          layerChanges[rowStart + aa] = scaledDelta * previous[aa] + momentum * layerChanges[rowStart + aa];
+        }
+      }
+    }
+  }
+
+  /**
+   * (Mini-)batch mode: computes the gradient (the sum, over the rows, of each neuron's
+   * delta times its input) for the specified rows. The rows are split into shards, one
+   * for each worker, and the shards' gradients are added up into the first worker's.
+   *
+   * @return double - the sum of the squared output errors for the rows.
+   */
+  private double computeBatchGradient(int batchStart, int batchEnd) {
+    int rowCount = batchEnd - batchStart;
+    int numberOfShards = Math.max(1, Math.min(workers.length, rowCount / MIN_ROWS_PER_WORKER));
+    if (numberOfShards == 1) {
+      return workers[0].computeGradient(batchStart, batchEnd);
+    }
+    List<Future<Double>> futures = new ArrayList<>();
+    for (int shard = 1; shard < numberOfShards; shard++) {
+      GradientWorker worker = workers[shard];
+      int shardStart = batchStart + (int) ((long) rowCount * shard / numberOfShards);
+      int shardEnd = batchStart + (int) ((long) rowCount * (shard + 1) / numberOfShards);
+      futures.add(executorService.submit(() -> worker.computeGradient(shardStart, shardEnd)));
+    }
+    //
+    // The calling thread does the first shard, then adds in the others (in order)
+    double ret = workers[0].computeGradient(batchStart, batchStart + rowCount / numberOfShards);
+    try {
+      for (int shard = 1; shard < numberOfShards; shard++) {
+        ret += futures.get(shard - 1).get();
+        workers[0].addGradient(workers[shard]);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      String message = "Interrupted while waiting for the gradient workers to complete.";
+      log.error(message, e);
+      throw new RuntimeException(message, e);
+    } catch (ExecutionException e) {
+      String message = "A gradient worker failed: " + e.getCause().getLocalizedMessage();
+      log.error(message, e);
+      throw new RuntimeException(message, e.getCause());
+    }
+    return ret;
+  }
+
+  /**
+   * (Mini-)batch mode: applies the gradient computed for the batch (scaled by the learning
+   * rate, plus the momentum times the last change). In batch mode, the gradient is summed
+   * over the rows, the same as Neuroph's batch mode. In mini-batch mode, it is averaged.
+   */
+  private void updateBatchWeights(double momentum, int rowCount) {
+    double scale = (batchSize > 0) ? getLearningRate() / rowCount : getLearningRate();
+    for (int layerIndex = 1; layerIndex < layerSizes.length; layerIndex++) {
+      double[] layerChanges = previousWeightChanges[layerIndex];
+      double[] layerGradient = workers[0].gradients[layerIndex];
+      for (int aa = 0; aa < layerChanges.length; aa++) {
+        layerChanges[aa] = scale * layerGradient[aa] + momentum * layerChanges[aa];
+      }
+    }
+    updateWeights();
+  }
+
+  /**
+   * Adds the last weight changes to the weights.
+   */
+  private void updateWeights() {
+    for (int layerIndex = 1; layerIndex < layerSizes.length; layerIndex++) {
+      double[] layerWeights = weights[layerIndex];
+      double[] layerChanges = previousWeightChanges[layerIndex];
+      for (int aa = 0; aa < layerWeights.length; aa++) {
+        layerWeights[aa] += layerChanges[aa];
+      }
+    }
+  }
+
+  /**
+   * Packs the training data into contiguous arrays. Only done when the DataSet
+   * changes (normally once per call to learn()). With packed training data, its
+   * buffers are used as they are (and the DataSet is ignored), and the row order
+   * is shuffled (every epoch).
+   *
+   * @throws RuntimeException
+   *           If the packed training data does not have the network's number of inputs
+   *           and outputs.
+   */
+  private void packTrainingData(DataSet trainingSet) {
+    if (trainingData != null) {
+      if (trainingData.getInputSize() != inputPositions.length
+          || trainingData.getOutputSize() != outputPositions.length) {
+        throw new RuntimeException("Cannot train network: the training data has " + trainingData.getInputSize()
+            + " inputs and " + trainingData.getOutputSize() + " outputs, the network has " + inputPositions.length
+            + " and " + outputPositions.length);
+      }
+      packedDataSet = null;
+      packedInputs = trainingData.getInputs();
+      packedOutputs = trainingData.getOutputs();
+      if (resumeRowOrder != null) {
+        rowOrder = resumeRowOrder;
+        resumeRowOrder = null;
+      }
+      if (rowOrder == null || rowOrder.length != trainingData.getRowCount()) {
+        rowOrder = trainingData.createRowOrder(rowOrderRandom);
+      } else {
+        PackedTrainingData.shuffle(rowOrder, rowOrderRandom);
+      }
+      return;
+    }
+    resumeRowOrder = null;
+    if (trainingSet == packedDataSet && packedInputs.length == trainingSet.size() * inputPositions.length) {
+      return;
+    }
+    int inputSize = inputPositions.length;
+    int outputSize = outputPositions.length;
+    List<DataSetRow> rows = trainingSet.getRows();
+    packedInputs = new double[rows.size() * inputSize];
+    packedOutputs = new double[rows.size() * outputSize];
+    for (int row = 0; row < rows.size(); row++) {
+      System.arraycopy(rows.get(row).getInput(), 0, packedInputs, row * inputSize, inputSize);
+      System.arraycopy(rows.get(row).getDesiredOutput(), 0, packedOutputs, row * outputSize, outputSize);
+    }
+    //
+    // The DataSet's own order
+    rowOrder = new int[rows.size()];
+    for (int row = 0; row < rowOrder.length; row++) {
+      rowOrder[row] = row;
+    }
+    packedDataSet = trainingSet;
+  }
+
+  /**
+   * Builds the dense representation of the specified network: layer sizes, weight
+   * matrices (and where each of the network's weights goes in them), scratch buffers.
+   *
+   * @throws RuntimeException
+   *           If the network is not a layered, feed-forward network of Sigmoid neurons
+   *           with weighted sum inputs (which is what the trainer creates).
+   */
+  private void compile(NeuralNetwork<?> network) {
+    int numberOfLayers = network.getLayersCount();
+    layerSizes = new int[numberOfLayers];
+    weights = new double[numberOfLayers][];
+    previousWeightChanges = new double[numberOfLayers][];
+    biasNeurons = new boolean[numberOfLayers][];
+    slopes = new double[numberOfLayers][];
+    //
+    // Remember where each neuron lives, so the connections can be turned into matrix positions
+    Map<Neuron, Integer> neuronPositions = new IdentityHashMap<>();
+    Map<Neuron, Integer> neuronLayers = new IdentityHashMap<>();
+    for (int layerIndex = 0; layerIndex < numberOfLayers; layerIndex++) {
+      Layer layer = network.getLayerAt(layerIndex);
+      int layerSize = layer.getNeuronsCount();
+      layerSizes[layerIndex] = layerSize;
+      biasNeurons[layerIndex] = new boolean[layerSize];
+      for (int neuronIndex = 0; neuronIndex < layerSize; neuronIndex++) {
+        Neuron neuron = layer.getNeuronAt(neuronIndex);
+        neuronPositions.put(neuron, neuronIndex);
+        neuronLayers.put(neuron, layerIndex);
+        biasNeurons[layerIndex][neuronIndex] = neuron instanceof BiasNeuron;
+        if (layerIndex == 0 && !(neuron instanceof BiasNeuron) && !(neuron instanceof InputNeuron)) {
+          throw new RuntimeException("Cannot train network: unsupported neuron type in the input layer: "
+              + neuron.getClass().getName());
+        }
+      }
+    }
+    inputPositions = toPositions(network.getInputNeurons(), neuronPositions, neuronLayers, 0);
+    outputPositions = toPositions(network.getOutputNeurons(), neuronPositions, neuronLayers, numberOfLayers - 1);
+    List<Weight> weightList = new ArrayList<>();
+    List<Integer> weightLayerList = new ArrayList<>();
+    List<Integer> weightPositionList = new ArrayList<>();
+    for (int layerIndex = 1; layerIndex < numberOfLayers; layerIndex++) {
+      Layer layer = network.getLayerAt(layerIndex);
+      int layerSize = layerSizes[layerIndex];
+      int previousLayerSize = layerSizes[layerIndex - 1];
+      weights[layerIndex] = new double[layerSize * previousLayerSize];
+      previousWeightChanges[layerIndex] = new double[layerSize * previousLayerSize];
+      slopes[layerIndex] = new double[layerSize];
+      for (int neuronIndex = 0; neuronIndex < layerSize; neuronIndex++) {
+        Neuron neuron = layer.getNeuronAt(neuronIndex);
+        // Bias neurons always output 1, whatever they are connected to
+        if (neuron instanceof BiasNeuron) {
+          continue;
+        }
+        if (!(neuron.getInputFunction() instanceof WeightedSum) || !(neuron.getTransferFunction() instanceof Sigmoid)) {
+          throw new RuntimeException("Cannot train network: neuron #" + neuronIndex + " in layer #" + layerIndex
+              + " is not a Sigmoid neuron with a weighted sum input function.");
+        }
+        slopes[layerIndex][neuronIndex] = ((Sigmoid) neuron.getTransferFunction()).getSlope();
+        int rowStart = neuronIndex * previousLayerSize;
+        for (Connection connection : neuron.getInputConnections()) {
+          Neuron fromNeuron = connection.getFromNeuron();
+          Integer fromLayer = neuronLayers.get(fromNeuron);
+          if (fromLayer == null || fromLayer != layerIndex - 1) {
+            throw new RuntimeException("Cannot train network: neuron #" + neuronIndex + " in layer #" + layerIndex
+                + " is connected to a neuron that is not in the layer before it.");
+          }
+          weightList.add(connection.getWeight());
+          weightLayerList.add(layerIndex);
+          weightPositionList.add(rowStart + neuronPositions.get(fromNeuron));
+        }
+      }
+    }
+    networkWeights = weightList.toArray(new Weight[weightList.size()]);
+    networkWeightLayers = new int[networkWeights.length];
+    networkWeightPositions = new int[networkWeights.length];
+    for (int aa = 0; aa < networkWeights.length; aa++) {
+      networkWeightLayers[aa] = weightLayerList.get(aa);
+      networkWeightPositions[aa] = weightPositionList.get(aa);
+    }
+    workers = new GradientWorker[Math.max(1, workerCount)];
+    for (int aa = 0; aa < workers.length; aa++) {
+      workers[aa] = new GradientWorker();
+    }
+    packedDataSet = null;
+  }
+
+  private void shutdownExecutorService() {
+    if (executorService != null) {
+      executorService.shutdownNow();
+      executorService = null;
+    }
+  }
+
+  private void copyWeightsFromNetwork() {
+    for (int aa = 0; aa < networkWeights.length; aa++) {
+      weights[networkWeightLayers[aa]][networkWeightPositions[aa]] = networkWeights[aa].getValue();
+    }
+  }
+
+  /**
+   * @throws RuntimeException
+   *           If there is not one weight change for each of the network's weights.
+   */
+  private void copyPreviousWeightChangesFrom(double[] changes) {
+    if (changes.length != networkWeights.length) {
+      throw new RuntimeException("Cannot resume training: " + changes.length + " weight changes for a network with "
+          + networkWeights.length + " weights");
+    }
+    for (int aa = 0; aa < networkWeights.length; aa++) {
+      previousWeightChanges[networkWeightLayers[aa]][networkWeightPositions[aa]] = changes[aa];
+    }
+  }
+
+  private void copyWeightsToNetwork() {
+    for (int aa = 0; aa < networkWeights.length; aa++) {
+      networkWeights[aa].setValue(weights[networkWeightLayers[aa]][networkWeightPositions[aa]]);
+    }
+  }
+
+  /**
+   * Same as Neuroph's Sigmoid, including clamping large inputs (to avoid NaN).
+   */
+  private static double sigmoid(double netInput, double slope) {
+    double ret;
+    if (netInput > 100) {
+      ret = 1.0;
+    } else if (netInput < -100) {
+      ret = 0.0;
+    } else {
+      ret = 1d / (1 + Math.exp(-slope * netInput));
+    }
+    return ret;
+  }
+
+  /**
+   * Turns the specified List of neurons into their positions within the specified layer.
+   */
+  private static int[] toPositions(List<Neuron> neurons, Map<Neuron, Integer> neuronPositions,
+      Map<Neuron, Integer> neuronLayers, int layerIndex) {
+    int[] ret = new int[neurons.size()];
+    for (int aa = 0; aa < ret.length; aa++) {
+      Integer neuronLayer = neuronLayers.get(neurons.get(aa));
+      if (neuronLayer == null || neuronLayer != layerIndex) {
+        throw new RuntimeException("Cannot train network: network input/output neuron #" + aa
+            + " is not in layer #" + layerIndex);
+      }
+      ret[aa] = neuronPositions.get(neurons.get(aa));
+    }
+    return ret;
+  }
+
+  /**
+   * The scratch buffers (activations, deltas) for running rows forward and backward through
+   * the network, and the gradient accumulated over the rows, for one thread.
+   */
+  private final class GradientWorker {
+
+    /**
+     * The activations of each layer, and the error (delta) of each neuron in each layer
+     */
+    private final double[][] activations = new double[layerSizes.length][];
+    private final double[][] deltas = new double[layerSizes.length][];
+
+    /**
+     * The sum of the gradients of the rows run so far, same layout as the weights
+     */
+    private final double[][] gradients = new double[layerSizes.length][];
+
+    private GradientWorker() {
+      for (int layerIndex = 0; layerIndex < layerSizes.length; layerIndex++) {
+        activations[layerIndex] = new double[layerSizes[layerIndex]];
+        deltas[layerIndex] = new double[layerSizes[layerIndex]];
+        if (layerIndex > 0) {
+          gradients[layerIndex] = new double[weights[layerIndex].length];
+        }
+      }
+    }
+
+    /**
+     * Computes the gradient for the specified rows (positions in this epoch's row order),
+     * without changing the weights.
+     *
+     * @return double - the sum of the squared output errors for the rows.
+     */
+    private double computeGradient(int start, int end) {
+      for (int layerIndex = 1; layerIndex < layerSizes.length; layerIndex++) {
+        Arrays.fill(gradients[layerIndex], 0.0);
+      }
+      double ret = 0.0;
+      for (int aa = start; aa < end; aa++) {
+        int row = rowOrder[aa];
+        forward(row);
+        ret += backward(row);
+        accumulateGradient();
+      }
+      return ret;
+    }
+
+    /**
+     * Runs the forward pass for the specified row. Same
+     * as {@link com.makotojava.ncaabb.simulation.CompiledNetwork}, except the activations
+     * of every layer are kept for the backward pass.
+     */
+    private void forward(int row) {
+      int offset = row * inputPositions.length;
+      double[] inputLayer = activations[0];
+      boolean[] inputBiasNeurons = biasNeurons[0];
+      for (int aa = 0; aa < inputLayer.length; aa++) {
+        if (inputBiasNeurons[aa]) {
+          inputLayer[aa] = 1.0;
+        }
+      }
+      for (int aa = 0; aa < inputPositions.length; aa++) {
+        inputLayer[inputPositions[aa]] = packedInputs[offset + aa];
+      }
+      for (int layerIndex = 1; layerIndex < layerSizes.length; layerIndex++) {
+        int layerSize = layerSizes[layerIndex];
+        int previousLayerSize = layerSizes[layerIndex - 1];
+        double[] previous = activations[layerIndex - 1];
+        double[] current = activations[layerIndex];
+        double[] layerWeights = weights[layerIndex];
+        boolean[] layerBiasNeurons = biasNeurons[layerIndex];
+        double[] layerSlopes = slopes[layerIndex];
+        for (int neuronIndex = 0; neuronIndex < layerSize; neuronIndex++) {
+          if (layerBiasNeurons[neuronIndex]) {
+            current[neuronIndex] = 1.0;
+            continue;
+          }
+          double netInput = 0.0;
+          int rowStart = neuronIndex * previousLayerSize;
+          for (int aa = 0; aa < previousLayerSize; aa++) {
+            netInput += previous[aa] * layerWeights[rowStart + aa];
+          }
+          current[neuronIndex] = sigmoid(netInput, layerSlopes[neuronIndex]);
+        }
+      }
+    }
+
+    /**
+     * Computes the error (delta) of every neuron, from the output layer back, for the
+     * specified row (which must have just been run through forward()).
+     *
+     * @return double - the sum of the squared output errors for the row.
+     */
+    private double backward(int row) {
+      int offset = row * outputPositions.length;
+      double ret = 0.0;
+      int outputLayerIndex = layerSizes.length - 1;
+      double[] outputLayer = activations[outputLayerIndex];
+      double[] outputDeltas = deltas[outputLayerIndex];
+      double[] outputSlopes = slopes[outputLayerIndex];
+      for (int aa = 0; aa < outputPositions.length; aa++) {
+        int position = outputPositions[aa];
+        double output = outputLayer[position];
+        double error = packedOutputs[offset + aa] - output;
+        ret += error * error;
+        outputDeltas[position] = error * outputSlopes[position] * output * (1.0 - output);
+      }
+      for (int layerIndex = outputLayerIndex - 1; layerIndex > 0; layerIndex--) {
+        int layerSize = layerSizes[layerIndex];
+        int nextLayerSize = layerSizes[layerIndex + 1];
+        double[] layerActivations = activations[layerIndex];
+        double[] layerDeltas = deltas[layerIndex];
+        double[] nextLayerDeltas = deltas[layerIndex + 1];
+        double[] nextLayerWeights = weights[layerIndex + 1];
+        boolean[] layerBiasNeurons = biasNeurons[layerIndex];
+        boolean[] nextLayerBiasNeurons = biasNeurons[layerIndex + 1];
+        double[] layerSlopes = slopes[layerIndex];
+        Arrays.fill(layerDeltas, 0.0);
+        //
+        // Walk the next layer's weight matrix a row at a time (rather than down its
+        /// columns) so the weights are read in the order they are stored
+        for (int nextNeuronIndex = 0; nextNeuronIndex < nextLayerSize; nextNeuronIndex++) {
+          if (nextLayerBiasNeurons[nextNeuronIndex]) {
+            continue;
+          }
+          double nextDelta = nextLayerDeltas[nextNeuronIndex];
+          int rowStart = nextNeuronIndex * layerSize;
+          for (int neuronIndex = 0; neuronIndex < layerSize; neuronIndex++) {
+            layerDeltas[neuronIndex] += nextDelta * nextLayerWeights[rowStart + neuronIndex];
+          }
+        }
+        for (int neuronIndex = 0; neuronIndex < layerSize; neuronIndex++) {
+          if (layerBiasNeurons[neuronIndex]) {
+            layerDeltas[neuronIndex] = 0.0;
+          } else {
+            double output = layerActivations[neuronIndex];
+            layerDeltas[neuronIndex] *= layerSlopes[neuronIndex] * output * (1.0 - output);
+          }
+        }
+      }
+      return ret;
+    }
+
+    /**
+     * Adds each neuron's delta times its input (for the row just run) to the gradient.
+     */
+    private void accumulateGradient() {
+      for (int layerIndex = 1; layerIndex < layerSizes.length; layerIndex++) {
+        int layerSize = layerSizes[layerIndex];
+        int previousLayerSize = layerSizes[layerIndex - 1];
+        double[] previous = activations[layerIndex - 1];
+        double[] layerDeltas = deltas[layerIndex];
+        double[] layerGradient = gradients[layerIndex];
+        boolean[] layerBiasNeurons = biasNeurons[layerIndex];
+        for (int neuronIndex = 0; neuronIndex < layerSize; neuronIndex++) {
+          if (layerBiasNeurons[neuronIndex]) {
+            continue;
+          }
+          double delta = layerDeltas[neuronIndex];
+          int rowStart = neuronIndex * previousLayerSize;
+          for (int aa = 0; aa < previousLayerSize; aa++) {
+            layerGradient[rowStart + aa] += delta * previous[aa];
+          }
+        }
+      }
+    }
+
+    /**
+     * Adds the other worker's gradient to this one's.
+     */
+    private void addGradient(GradientWorker other) {
+      for (int layerIndex = 1; layerIndex < layerSizes.length; layerIndex++) {
+        double[] layerGradient = gradients[layerIndex];
+        double[] otherLayerGradient = other.gradients[layerIndex];
+        for (int aa = 0; aa < layerGradient.length; aa++) {
+          layerGradient[aa] += otherLayerGradient[aa];
+        }
+      }
+    }
+
+  }
+
+}
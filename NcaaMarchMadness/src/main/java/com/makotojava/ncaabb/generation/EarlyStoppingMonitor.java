@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.generation;
+
+import java.io.Serializable;
+
+/**
+ * Keeps track of how a training run is doing against the validation years (checked
+ * every so many epochs), and holds on to the weights of the best scoring check.
+ * <p>
+ * Once the score has gone <code>patience</code> checks in a row without getting any
+ * better, the network is not learning anything that helps it pick games (it is just
+ * memorizing the training data), so there is no point in going on. The best weights
+ * are then put back, so the network that gets validated (and maybe saved) is the best
+ * one seen during the run, not the last one.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class EarlyStoppingMonitor implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private double bestScore = Double.NEGATIVE_INFINITY;
+  private int bestEpoch;
+  private double bestNetworkError;
+  private double[] bestWeights;
+  private int lastEpoch;
+  private int checksWithoutImprovement;
+
+  /**
+   * Records a check.
+   *
+   * @param epoch
+   *          The epoch of the check.
+   * @param score
+   *          The validation score (higher is better).
+   * @param networkError
+   *          The network error at that epoch.
+   * @param weights
+   *          The network's weights at that epoch (copied only if this is the best
+   *          check so far).
+   *
+   * @return boolean - true if this is the best check so far.
+   */
+  public boolean addCheck(int epoch, double score, double networkError, Double[] weights) {
+    lastEpoch = epoch;
+    if (score > bestScore) {
+      bestScore = score;
+      bestEpoch = epoch;
+      bestNetworkError = networkError;
+      if (bestWeights == null || bestWeights.length != weights.length) {
+        bestWeights = new double[weights.length];
+      }
+      for (int aa = 0; aa < weights.length; aa++) {
+        bestWeights[aa] = weights[aa];
+      }
+      checksWithoutImprovement = 0;
+      return true;
+    }
+    checksWithoutImprovement++;
+    return false;
+  }
+
+  /**
+   * @return boolean - true if the score has not gotten any better for (at least)
+   *         the specified number of checks.
+   */
+  public boolean isOutOfPatience(int patience) {
+    return bestWeights != null && checksWithoutImprovement >= patience;
+  }
+
+  /**
+   * Forgets all of the checks (say, because a new training run is starting).
+   */
+  public void reset() {
+    bestScore = Double.NEGATIVE_INFINITY;
+    bestEpoch = 0;
+    bestNetworkError = 0.0;
+    bestWeights = null;
+    lastEpoch = 0;
+    checksWithoutImprovement = 0;
+  }
+
+  /**
+   * @return boolean - true if there has been at least one check.
+   */
+  public boolean hasBest() {
+    return bestWeights != null;
+  }
+
+  public double getBestScore() {
+    return bestScore;
+  }
+
+  public int getBestEpoch() {
+    return bestEpoch;
+  }
+
+  public double getBestNetworkError() {
+    return bestNetworkError;
+  }
+
+  /**
+   * @return double[] - the weights (in the same order as the network's
+   *         <code>getWeights()</code>) of the best check, or null if there have
+   *         been no checks.
+   */
+  public double[] getBestWeights() {
+    return bestWeights;
+  }
+
+  public int getLastEpoch() {
+    return lastEpoch;
+  }
+
+  public int getChecksWithoutImprovement() {
+    return checksWithoutImprovement;
+  }
+
+}
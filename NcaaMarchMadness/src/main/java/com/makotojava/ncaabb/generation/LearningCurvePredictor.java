@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.generation;
+
+import java.io.Serializable;
+
+/**
+ * Predicts where a training run's network error is headed, from the errors seen
+ * so far (normally, one per epoch break).
+ * <p>
+ * The error curve of a network being trained with backpropagation looks (more or
+ * less) like a power law: <code>error = a * epoch^b</code>, with b negative. Taking
+ * the log of both sides makes that a straight line, so the curve is fit with plain
+ * least squares on <code>(log(epoch), log(error))</code>, and projected out to
+ * whatever epoch we want to know about. A curve that is flat, or going up, is
+ * projected to stay where it is.
+ * <p>
+ * Keeps running sums only, so adding a point and projecting are both O(1).
+ *
+ * @author J Steven Perry
+ *
+ */
+public class LearningCurvePredictor implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private int numberOfPoints;
+  private double sumX;
+  private double sumY;
+  private double sumXX;
+  private double sumXY;
+  private double lastError;
+
+  /**
+   * Adds a point on the curve.
+   *
+   * @param epoch
+   *          The epoch (must be at least 1).
+   * @param error
+   *          The network error at that epoch. Points with no error (0, or less)
+   *          are ignored: there is nothing to predict.
+   */
+  public void addPoint(int epoch, double error) {
+    if (epoch < 1 || !(error > 0.0)) {
+      return;
+    }
+    double x = Math.log(epoch);
+    double y = Math.log(error);
+    numberOfPoints++;
+    sumX += x;
+    sumY += y;
+    sumXX += x * x;
+    sumXY += x * y;
+    lastError = error;
+  }
+
+  /**
+   * Forgets all of the points (say, because the weights were just randomized,
+   * and the run is starting over).
+   */
+  public void reset() {
+    numberOfPoints = 0;
+    sumX = 0.0;
+    sumY = 0.0;
+    sumXX = 0.0;
+    sumXY = 0.0;
+    lastError = 0.0;
+  }
+
+  public int getNumberOfPoints() {
+    return numberOfPoints;
+  }
+
+  /**
+   * Projects the network error at the specified epoch.
+   *
+   * @param epoch
+   *          The epoch.
+   *
+   * @return double - the projected error, or the last error seen if there are not
+   *         enough points yet (or the curve is not going down), or NaN if there are
+   *         no points at all.
+   */
+  public double projectError(int epoch) {
+    if (numberOfPoints == 0) {
+      return Double.NaN;
+    }
+    double denominator = numberOfPoints * sumXX - sumX * sumX;
+    if (numberOfPoints < 2 || denominator <= 0.0) {
+      return lastError;
+    }
+    double slope = (numberOfPoints * sumXY - sumX * sumY) / denominator;
+    if (slope >= 0.0) {
+      return lastError;
+    }
+    double intercept = (sumY - slope * sumX) / numberOfPoints;
+    return Math.exp(intercept + slope * Math.log(epoch));
+  }
+
+}
@@ -23,19 +23,30 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
+import org.neuroph.core.Layer;
 import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.Neuron;
 import org.neuroph.core.data.DataSet;
-import org.neuroph.core.data.DataSetRow;
 import org.neuroph.core.events.LearningEvent;
 import org.neuroph.core.events.LearningEventListener;
 import org.neuroph.core.input.WeightedSum;
 import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.nnet.comp.neuron.BiasNeuron;
 import org.neuroph.nnet.learning.BackPropagation;
 import org.neuroph.nnet.learning.MomentumBackpropagation;
 import org.neuroph.util.NeuronProperties;
@@ -43,15 +54,21 @@ import org.neuroph.util.TransferFunctionType;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
+import com.makotojava.ncaabb.dao.CachingSeasonDataDao;
 import com.makotojava.ncaabb.dao.SeasonAnalyticsDao;
 import com.makotojava.ncaabb.dao.SeasonDataDao;
 import com.makotojava.ncaabb.dao.TournamentResultDao;
+import com.makotojava.ncaabb.model.NormalizedFeatureStore;
 import com.makotojava.ncaabb.model.SeasonAnalytics;
 import com.makotojava.ncaabb.model.SeasonData;
 import com.makotojava.ncaabb.model.TournamentResult;
+import com.makotojava.ncaabb.simulation.CompiledNetwork;
 import com.makotojava.ncaabb.springconfig.ApplicationConfig;
 import com.makotojava.ncaabb.util.NetworkProperties;
 import com.makotojava.ncaabb.util.NetworkUtils;
+import com.makotojava.ncaabb.util.PackedTrainingData;
+import com.makotojava.ncaabb.util.SavedNetworkFile;
+import com.makotojava.ncaabb.util.TrainingDataFile;
 
 /**
  * Trains Multilayer Perceptron Networks. Saves the ones that perform above the threshold.
@@ -63,25 +80,82 @@ public class MlpNetworkTrainer implements LearningEventListener {
 
   private static final Logger log = Logger.getLogger(MlpNetworkTrainer.class);
 
+  /**
+   * The number of rows Neuroph's learning rule is timed on (see
+   * {@link #logDenseLearningRuleSpeedup(MultiLayerPerceptron, PackedTrainingData, NetworkMetrics)})
+   */
+  private static final int NEUROPH_EPOCH_TIMING_ROWS = 1000;
+
   /**
    * Use the Sigmoid firing function
    */
   public static final TransferFunctionType NEURON_PROPERTY_TRANSFER_FUNCTION = TransferFunctionType.SIGMOID;
 
+  /**
+   * Command line option: pick the sweep back up from the last checkpoint
+   */
+  public static final String RESUME_OPTION = "--resume";
+
   private SeasonDataDao seasonDataDao;
   private TournamentResultDao tournamentResultDao;
   private SeasonAnalyticsDao seasonAnalyticsDao;
 
   /**
-   * The network metrics cache
+   * The network metrics cache. Concurrent because worker threads register
+   * their own networks (and metrics) when training in parallel.
    */
   private Map<MultiLayerPerceptron, NetworkMetrics> networkMetricsCache =
-      new HashMap<MultiLayerPerceptron, NetworkMetrics>();
+      new ConcurrentHashMap<MultiLayerPerceptron, NetworkMetrics>();
 
   /**
    * The network cache
    */
-  private Map<List<Integer>, MultiLayerPerceptron> networkCache = new HashMap<>();
+  private Map<List<Integer>, MultiLayerPerceptron> networkCache = new ConcurrentHashMap<>();
+
+  /**
+   * The networks being trained as successive halving candidates, which are trained for
+   * exactly the epoch budget of their rung (see {@link #handleLearningEvent(LearningEvent)}).
+   */
+  private Set<NeuralNetwork<?>> halvingCandidates = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Sequence numbers (keyed by layer structure) used to keep saved network file
+   * names unique, no matter which thread saves the network.
+   */
+  private Map<String, AtomicInteger> networkSequenceNumbers = new ConcurrentHashMap<>();
+
+  /**
+   * Normalized team features, keyed by year. Every network validates against
+   * the same years, so each team only ever gets normalized once.
+   */
+  private Map<Integer, NormalizedFeatureStore> featureStoreCache = new ConcurrentHashMap<>();
+
+  /**
+   * The validation years' tournament games as network input, keyed by year. Used to
+   * check how a network is doing (quickly) while it is being trained.
+   */
+  private Map<Integer, ValidationSet> validationSetCache = new ConcurrentHashMap<>();
+
+  /**
+   * How long (in milliseconds) one Neuroph MomentumBackpropagation epoch takes, keyed by
+   * layer structure. Only used to report the speedup of the dense learning rule.
+   */
+  private Map<String, Double> neurophEpochTimeCache = new ConcurrentHashMap<>();
+
+  /**
+   * The weights of the saved networks used to warm-start training, keyed by network
+   * file path, so each one is only loaded once.
+   */
+  private Map<String, double[]> warmStartWeightsCache = new ConcurrentHashMap<>();
+
+  /**
+   * The sweep checkpoint (null if the sweep is not being checkpointed), the file it is
+   * written to, and the network being trained on the calling thread, whose weights go
+   * into the checkpoint every so many epochs (see {@link #canCheckpointInFlightNetwork()}).
+   */
+  private TrainingCheckpoint checkpoint;
+  private File checkpointFile;
+  private MultiLayerPerceptron inFlightNetwork;
 
   public SeasonData pullSeasonData(Integer year, String teamName) {
     return seasonDataDao.fetchByYearAndTeamName(year, teamName);
@@ -95,6 +169,29 @@ public class MlpNetworkTrainer implements LearningEventListener {
     return seasonAnalyticsDao.fetchByYear(year);
   }
 
+  /**
+   * Returns the feature store for the specified year, creating it (from that
+   * year's SeasonAnalytics) the first time it is asked for.
+   * 
+   * @param year
+   * @return
+   */
+  protected NormalizedFeatureStore fetchFeatureStore(Integer year) {
+    return featureStoreCache.computeIfAbsent(year, y -> new NormalizedFeatureStore(pullSeasonAnalytics(y)));
+  }
+
+  /**
+   * Returns the validation set for the specified year, creating it (from that year's
+   * tournament results and season data) the first time it is asked for.
+   * 
+   * @param year
+   * @return
+   */
+  protected ValidationSet fetchValidationSet(Integer year) {
+    return validationSetCache.computeIfAbsent(year, y -> ValidationSet.create(y, pullTournamentResults(y),
+        fetchFeatureStore(y), teamName -> pullSeasonData(y, teamName)));
+  }
+
   /**
    * Constructor. Uses Spring's ApplicationContext to feed this class
    * with the DAOs it needs to function.
@@ -130,12 +227,16 @@ public class MlpNetworkTrainer implements LearningEventListener {
    * @param args
    */
   public void go(String[] args) {
+    //
+    // The resume option can go anywhere on the command line
+    boolean resume = Arrays.asList(args).contains(RESUME_OPTION);
+    args = Arrays.stream(args).filter(arg -> !RESUME_OPTION.equals(arg)).toArray(String[]::new);
     Integer[] yearsForTrainingData = computeYearsToTrain(args);
     Integer[] yearsToSimulate = computeYearsToSimulate(args);
     //
     // Load the training data. It's the same for all networks, for all iterations,
     /// so just do it once.
-    DataSet trainingData = loadTrainingData(yearsForTrainingData);
+    PackedTrainingData trainingData = loadTrainingData(yearsForTrainingData);
     //
     // Setup the networks we will try out
     List<List<Integer>> networks = setupNetworksToTry();
@@ -144,9 +245,214 @@ public class MlpNetworkTrainer implements LearningEventListener {
       String layerStructure = NetworkUtils.generateLayerStructureString(network);
       log.info(layerStructure);
     }
+    if (resume || NetworkProperties.getTrainerCheckpoint()) {
+      if (NetworkProperties.getTrainerCheckpointInterval() > 0 && !canCheckpointInFlightNetwork()) {
+        String message = "trainer.checkpoint.interval is " + NetworkProperties.getTrainerCheckpointInterval()
+            + ", but only a serial sweep (no successive halving, trainer.thread.count of 1) using the dense "
+            + "learning rule can checkpoint the network being trained. Set trainer.checkpoint.interval to 0 "
+            + "to checkpoint between networks only.";
+        log.error(message);
+        throw new RuntimeException(message);
+      }
+      setupCheckpoint(yearsForTrainingData, yearsToSimulate, networks, resume);
+      if (checkpoint.isInFlight() && !canCheckpointInFlightNetwork()) {
+        log.warn("Only a serial sweep using the dense learning rule can resume training a network part of the way "
+            + "through. Starting CTV iteration " + checkpoint.getIterationNumber() + " of network "
+            + checkpoint.getNetworkIndex() + " over.");
+        checkpoint.clearInFlight();
+      }
+    }
+    trainNetworks(networks, trainingData, yearsForTrainingData, yearsToSimulate);
+    logFinalGeneratorStats();
+  }
+
+  /**
+   * Trains (and validates) the specified networks.
+   * 
+   * @param networks
+   *          The layer descriptors of the networks to try.
+   * @param trainingData
+   *          The data used to train the networks.
+   * @param yearsForTrainingData
+   *          The years the training data came from.
+   * @param yearsToSimulate
+   *          The years to simulate when validating the networks.
+   */
+  protected void trainNetworks(List<List<Integer>> networks, PackedTrainingData trainingData,
+      Integer[] yearsForTrainingData, Integer[] yearsToSimulate) {
+    //
+    // Sweep the networks with successive halving, train serially (the default), or spread
+    /// the CTV iterations across a pool of worker threads
+    if (NetworkProperties.getTrainerSweepSuccessiveHalving()) {
+      trainNetworksWithSuccessiveHalving(networks, trainingData, yearsForTrainingData, yearsToSimulate);
+    } else if (NetworkProperties.getTrainerThreadCount() > 1) {
+      trainNetworksInParallel(networks, trainingData, yearsForTrainingData, yearsToSimulate);
+    } else {
+      trainNetworksSerially(networks, trainingData, yearsForTrainingData, yearsToSimulate);
+    }
+  }
+
+  /**
+   * Sets up checkpointing for the sweep. When resuming, the last checkpoint is read, and
+   * the networks (and metrics) it holds are put back in the caches, so the sweep picks up
+   * where it left off. If there is no checkpoint, the sweep starts from the beginning.
+   * 
+   * @param yearsForTrainingData
+   *          The years the training data came from.
+   * @param yearsToSimulate
+   *          The years to simulate when validating the networks.
+   * @param networks
+   *          The layer descriptors of the networks to try.
+   * @param resume
+   *          Whether or not to resume from the last checkpoint.
+   */
+  private void setupCheckpoint(Integer[] yearsForTrainingData, Integer[] yearsToSimulate,
+      List<List<Integer>> networks, boolean resume) {
+    checkpointFile = new File(NetworkUtils.computeTrainerCheckpointFileName());
+    if (resume && checkpointFile.exists()) {
+      TrainingCheckpoint lastCheckpoint = TrainingCheckpoint.read(checkpointFile);
+      if (!lastCheckpoint.isForSweep(yearsForTrainingData, yearsToSimulate, networks)) {
+        String message = "Checkpoint file '" + checkpointFile.getPath()
+            + "' is for a different sweep (training years, simulation years or networks). "
+            + "Move it out of the way to start over.";
+        log.error(message);
+        throw new RuntimeException(message);
+      }
+      for (Map.Entry<List<Integer>, NetworkMetrics> entry : lastCheckpoint.getNetworkMetrics().entrySet()) {
+        NeuronProperties neuronProperties = createNeuronProperties();
+        MultiLayerPerceptron network = createCachedNetwork(entry.getKey(), neuronProperties);
+        entry.getValue().setNeuronProperties(neuronProperties);
+        networkMetricsCache.put(network, entry.getValue());
+      }
+      for (Map.Entry<String, Integer> entry : lastCheckpoint.getNetworkSequenceNumbers().entrySet()) {
+        networkSequenceNumbers.put(entry.getKey(), new AtomicInteger(entry.getValue()));
+      }
+      checkpoint = lastCheckpoint;
+      log.info("Resuming from checkpoint '" + checkpointFile.getPath() + "': CTV iteration "
+          + checkpoint.getIterationNumber() + ", network " + checkpoint.getNetworkIndex()
+          + (checkpoint.isInFlight() ? " (trained for " + checkpoint.getInFlightEpochs() + " epochs so far)" : ""));
+    } else {
+      if (resume) {
+        log.warn("No checkpoint file '" + checkpointFile.getPath() + "' to resume from. Starting from the beginning.");
+      }
+      checkpoint = new TrainingCheckpoint(yearsForTrainingData, yearsToSimulate, networks);
+    }
+  }
+
+  /**
+   * Returns whether the network being trained can be checkpointed part of the way through,
+   * and picked back up exactly where it left off. That takes a serial sweep (with one network
+   * in flight at a time, trained for its full epoch budget), and the dense learning rule:
+   * Neuroph's MomentumBackpropagation starts its momentum over every time learn() is called.
+   * 
+   * @return boolean - true if it can.
+   */
+  private static boolean canCheckpointInFlightNetwork() {
+    return !NetworkProperties.getTrainerSweepSuccessiveHalving() && NetworkProperties.getTrainerThreadCount() <= 1
+        && (NetworkProperties.getLearningRuleIsDense() || NetworkProperties.getLearningRuleBatchSize() > 0);
+  }
+
+  /**
+   * Writes a checkpoint (if the sweep is being checkpointed), with the specified CTV
+   * iteration as the next one to run.
+   * 
+   * @param iterationNumber
+   *          The next CTV iteration to run.
+   * @param networkIndex
+   *          The index of the next network to run. If it is past the last network, it
+   *          is the first network of the next CTV iteration.
+   */
+  private void writeCheckpoint(int iterationNumber, int networkIndex) {
+    if (checkpoint == null) {
+      return;
+    }
+    int numberOfNetworks = checkpoint.getNumberOfNetworks();
+    checkpoint.setIterationNumber(iterationNumber + networkIndex / numberOfNetworks);
+    checkpoint.setNetworkIndex(networkIndex % numberOfNetworks);
+    Map<List<Integer>, NetworkMetrics> networkMetrics = new LinkedHashMap<>();
+    for (Map.Entry<List<Integer>, MultiLayerPerceptron> entry : networkCache.entrySet()) {
+      networkMetrics.put(new ArrayList<>(entry.getKey()), networkMetricsCache.get(entry.getValue()));
+    }
+    checkpoint.setNetworkMetrics(networkMetrics);
+    Map<String, Integer> sequenceNumbers = new HashMap<>();
+    for (Map.Entry<String, AtomicInteger> entry : networkSequenceNumbers.entrySet()) {
+      sequenceNumbers.put(entry.getKey(), entry.getValue().get());
+    }
+    checkpoint.setNetworkSequenceNumbers(sequenceNumbers);
+    checkpoint.write(checkpointFile);
+    log.debug("Checkpoint written: next CTV iteration " + checkpoint.getIterationNumber() + ", network "
+        + checkpoint.getNetworkIndex() + (checkpoint.isInFlight() ? " (in flight)" : ""));
+  }
+
+  /**
+   * Writes a checkpoint with the weights (and learning rule state) of the network being
+   * trained right now, so a resumed sweep can pick up its training run where it left off.
+   * The random number generator the rows are shuffled with goes along in the network's metrics.
+   * 
+   * @param learningRule
+   *          The learning rule doing the training.
+   */
+  private void writeInFlightCheckpoint(DenseMomentumBackpropagation learningRule) {
+    NetworkMetrics metrics = networkMetricsCache.get(learningRule.getNeuralNetwork());
+    checkpoint.setInFlight(learningRule.getNeuralNetwork().getWeights(), learningRule.getPreviousWeightChanges(),
+        learningRule.getRowOrder(), computeEpoch(learningRule),
+        learningRule.getMaxIterations() + metrics.getResumedEpochs(), learningRule.getMomentum());
+    writeCheckpoint(checkpoint.getIterationNumber(), checkpoint.getNetworkIndex());
+    checkpoint.clearInFlight();
+  }
+
+  /**
+   * Gets the (cached) network with the specified layer structure ready to pick its training
+   * run back up from the in-flight network in the checkpoint. Its metrics (restored from the
+   * checkpoint) are already those of the CTV iteration in flight, so they are left alone.
+   * 
+   * @param neuronLayerDescriptor
+   *          The layer structure of the network in flight.
+   * 
+   * @return MultiLayerPerceptron - the network, ready to be trained.
+   */
+  private MultiLayerPerceptron resumeInFlightNetwork(List<Integer> neuronLayerDescriptor) {
+    MultiLayerPerceptron network = networkCache.get(neuronLayerDescriptor);
+    NetworkMetrics metrics = networkMetricsCache.get(network);
+    DenseMomentumBackpropagation learningRule = (DenseMomentumBackpropagation) network.getLearningRule();
+    learningRule.setMaxError(NetworkProperties.getMaxNetworkError());
+    learningRule.setMomentum(checkpoint.getInFlightMomentum());
+    learningRule.setLearningRate(NetworkProperties.getLearningRuleLearningRate());
+    learningRule.setBatchMode(NetworkProperties.getLearningRuleIsBatchMode());
+    learningRule.resumeFrom(checkpoint.getInFlightPreviousWeightChanges(), checkpoint.getInFlightRowOrder());
+    network.setWeights(checkpoint.getInFlightWeights());
     //
-    // Start at iteration #1
-    int iterationNumber = 1;
+    // Max iterations of 0 means no max to Neuroph, so always train for at least one more epoch
+    learningRule.setMaxIterations(
+        Math.max(1, checkpoint.getInFlightMaxIterations() - checkpoint.getInFlightEpochs()));
+    metrics.setResumedEpochs(checkpoint.getInFlightEpochs());
+    metrics.setIterationStartTime(System.currentTimeMillis());
+    metrics.setLearnStartTime(System.currentTimeMillis());
+    log.info("*********** RESUMING TRAINING OF NEURAL NETWORK (" + metrics.getLayerStructure() + ", iteration "
+        + metrics.getNumberOfIterationsSoFar() + ") AT EPOCH " + checkpoint.getInFlightEpochs() + " **************");
+    checkpoint.clearInFlight();
+    return network;
+  }
+
+  /**
+   * Runs the CTV (create/train/validate) cycle for each network, one after another, on the
+   * calling thread. Each network is reused (with new weights) from one iteration to the next.
+   * 
+   * @param networks
+   *          The layer descriptors of the networks to try.
+   * @param trainingData
+   *          The training data (shared by all networks, never modified).
+   * @param yearsForTrainingData
+   *          The years the training data came from (for logging).
+   * @param yearsToSimulate
+   *          The years to simulate when validating the networks.
+   */
+  private void trainNetworksSerially(List<List<Integer>> networks, PackedTrainingData trainingData,
+      Integer[] yearsForTrainingData, Integer[] yearsToSimulate) {
+    //
+    // Start at iteration #1 (or wherever the checkpoint left off)
+    int iterationNumber = (checkpoint == null) ? 1 : checkpoint.getIterationNumber();
+    int firstNetworkIndex = (checkpoint == null) ? 0 : checkpoint.getNetworkIndex();
     //
     // The MLP Network
     MultiLayerPerceptron network;
@@ -154,43 +460,390 @@ public class MlpNetworkTrainer implements LearningEventListener {
     // Iterate until max iterations is reached.
     while (iterationNumber <= NetworkProperties.getMaxNetworkIterations()) {
       //
-      for (List<Integer> neuronLayerDescriptor : networks) {
+      for (int networkIndex = firstNetworkIndex; networkIndex < networks.size(); networkIndex++) {
+        List<Integer> neuronLayerDescriptor = networks.get(networkIndex);
         //
         // Loop through the current network a bunch of times
         log.info("Training the network with DataSet from years " + Arrays.toString(yearsForTrainingData) + " and with "
-            + trainingData.size() + " rows...");
+            + trainingData.getRowCount() + " rows...");
         log.info("*********** CREATING NEURAL NETWORK **************");
         //
-        // Now create the network itself
-        network = createNetwork(neuronLayerDescriptor, yearsToSimulate);
-        //
-        // Now train the neural network
-        log.info("*********** TRAINING NEURAL NETWORK **************");
-        trainNetwork(trainingData, network);
-        //
-        // Training complete. Check to see if we're above the max error toleration. If so, abort.
-        if (network.getLearningRule().getTotalNetworkError() > NetworkProperties.getMaxNetworkError()) {
-          //
-          // Fetch the metrics
-          NetworkMetrics metrics = networkMetricsCache.get(network);
-          log.error("***** NETWORK ERROR (" + network.getLearningRule().getTotalNetworkError()
-              + ") HIGHER THAN THRESHOLD MAX ("
-              + BigDecimal.valueOf(NetworkProperties.getMaxNetworkError() * 100.0).setScale(2, RoundingMode.HALF_UP)
-                  .toString()
-              + "%). ABORTING! *****");
-          metrics.setNumberOfAbortedRuns(metrics.getNumberOfAbortedRuns() + 1);
+        // Now create the network itself (or pick up the one that was being trained when
+        /// the checkpoint was written)
+        if (checkpoint != null && checkpoint.isInFlight()) {
+          network = resumeInFlightNetwork(neuronLayerDescriptor);
         } else {
-          // We're good to go. Validate the trained network.
-          log.info("*********** VALIDATING NEURAL NETWORK **************");
-          validateNetwork(network);
+          network = createNetwork(neuronLayerDescriptor, yearsToSimulate, createRandom(iterationNumber, networkIndex));
+        }
+        if (checkpoint != null) {
+          checkpoint.setIterationNumber(iterationNumber);
+          checkpoint.setNetworkIndex(networkIndex);
+          inFlightNetwork = network;
         }
         //
+        // Train it, and validate it if training was successful
+        trainAndValidateNetwork(trainingData, network);
+        inFlightNetwork = null;
+        //
         // Log iterationStats
         logIterationStatsForNetwork(network);
+        writeCheckpoint(iterationNumber, networkIndex + 1);
       }
+      firstNetworkIndex = 0;
       iterationNumber++;
     }
-    logFinalGeneratorStats();
+  }
+
+  /**
+   * Sweeps the networks using a {@link SuccessiveHalvingScheduler}, once per iteration: every
+   * network is trained for a few epochs and validated, and only the best networks (by winning
+   * percentage) are trained further, until the survivors have been trained for the full
+   * {@link NetworkProperties#getMaxLearningIterations()}. Survivors keep their weights from
+   * one rung to the next. Each rung only scores the networks; once the sweep knows the last
+   * rung a network made it to, its stats are computed (and it is saved, if it meets the
+   * performance thresholds) once, as of that rung.
+   * <p>
+   * The candidates in each rung are trained <code>trainer.thread.count</code> at a time (each
+   * candidate is a different layer structure, so each has its own cached network). A candidate
+   * is trained for exactly its rung's epoch budget: if its error trends upward, its weights are
+   * not randomized (and its budget is not raised), since the rungs after it pick up from them.
+   * 
+   * @param networks
+   *          The layer descriptors of the networks to try.
+   * @param trainingData
+   *          The training data (shared by all networks, never modified).
+   * @param yearsForTrainingData
+   *          The years the training data came from (for logging).
+   * @param yearsToSimulate
+   *          The years to simulate when validating the networks.
+   */
+  private void trainNetworksWithSuccessiveHalving(List<List<Integer>> networks, PackedTrainingData trainingData,
+      Integer[] yearsForTrainingData, Integer[] yearsToSimulate) {
+    //
+    // Each network is a candidate once (and has one cached network to keep training)
+    List<List<Integer>> candidates = new ArrayList<>(new LinkedHashSet<>(networks));
+    int maxEpochs = NetworkProperties.getMaxLearningIterations();
+    SuccessiveHalvingScheduler scheduler =
+        new SuccessiveHalvingScheduler(Math.min(NetworkProperties.getTrainerSweepMinEpochs(), maxEpochs), maxEpochs,
+            NetworkProperties.getTrainerSweepReductionFactor());
+    log.info("Successive halving epoch budget for each rung: " + scheduler.computeRungBudgets());
+    int threadCount = NetworkProperties.getTrainerThreadCount();
+    ExecutorService executorService = (threadCount > 1) ? Executors.newFixedThreadPool(threadCount) : null;
+    try {
+      trainCandidatesWithSuccessiveHalving(scheduler, candidates, trainingData, yearsForTrainingData, yearsToSimulate,
+          executorService);
+    } finally {
+      if (executorService != null) {
+        executorService.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Runs the sweep iterations of {@link #trainNetworksWithSuccessiveHalving(List, PackedTrainingData, Integer[], Integer[])}.
+   * 
+   * @param scheduler
+   *          The successive halving scheduler.
+   * @param candidates
+   *          The layer descriptors of the networks to try (no duplicates).
+   * @param trainingData
+   *          The training data (shared by all networks, never modified).
+   * @param yearsForTrainingData
+   *          The years the training data came from (for logging).
+   * @param yearsToSimulate
+   *          The years to simulate when validating the networks.
+   * @param executorService
+   *          The threads to train each rung's candidates on (null to train them on the calling thread).
+   */
+  private void trainCandidatesWithSuccessiveHalving(SuccessiveHalvingScheduler scheduler,
+      List<List<Integer>> candidates, PackedTrainingData trainingData, Integer[] yearsForTrainingData,
+      Integer[] yearsToSimulate, ExecutorService executorService) {
+    int maxEpochs = NetworkProperties.getMaxLearningIterations();
+    int firstIterationNumber = (checkpoint == null) ? 1 : checkpoint.getIterationNumber();
+    for (int iterationNumber = firstIterationNumber; iterationNumber <= NetworkProperties.getMaxNetworkIterations();
+        iterationNumber++) {
+      int currentIterationNumber = iterationNumber;
+      log.info("Training the networks with DataSet from years " + Arrays.toString(yearsForTrainingData)
+          + " and with " + trainingData.getRowCount() + " rows (sweep iteration " + iterationNumber + ")...");
+      List<SuccessiveHalvingScheduler.Result> results =
+          scheduler.run(candidates.size(), (candidateIndex, fromEpochs, toEpochs) -> {
+            List<Integer> neuronLayerDescriptor = candidates.get(candidateIndex);
+            MultiLayerPerceptron network;
+            if (fromEpochs == 0) {
+              network = createNetwork(neuronLayerDescriptor, yearsToSimulate,
+                  createRandom(currentIterationNumber, candidateIndex));
+            } else {
+              //
+              // Survivor: pick up where it left off
+              network = networkCache.get(neuronLayerDescriptor);
+              NetworkMetrics metrics = networkMetricsCache.get(network);
+              // The iteration time carries over from the rungs before this one
+              metrics.setIterationStartTime(System.currentTimeMillis() - metrics.getIterationTime());
+              metrics.setLearnStartTime(System.currentTimeMillis());
+            }
+            halvingCandidates.add(network);
+            ((MomentumBackpropagation) network.getLearningRule()).setMaxIterations(toEpochs - fromEpochs);
+            return trainAndScoreNetwork(trainingData, network);
+          }, executorService);
+      //
+      // Every network is where the sweep left it (as of the last rung it made it to), so now
+      /// its stats can be computed, and it can be saved, once
+      log.info("Successive halving results for sweep iteration " + iterationNumber + " (best first):");
+      for (SuccessiveHalvingScheduler.Result result : results) {
+        List<Integer> neuronLayerDescriptor = candidates.get(result.getCandidateIndex());
+        log.info(NetworkUtils.generateLayerStructureString(neuronLayerDescriptor) + " --> " + result);
+        MultiLayerPerceptron network = networkCache.get(neuronLayerDescriptor);
+        finishScoredNetwork(network, result.getEpochs() == maxEpochs);
+        logIterationStatsForNetwork(network);
+      }
+      //
+      // A sweep iteration is checkpointed as a whole
+      writeCheckpoint(iterationNumber + 1, 0);
+    }
+  }
+
+  /**
+   * Trains the specified network, then validates it (whatever its error, just to score it),
+   * and returns its winning percentage. Its stats are not computed, and it is not saved, until
+   * {@link #finishScoredNetwork(MultiLayerPerceptron, boolean)} is called.
+   * 
+   * @param trainingData
+   *          The data used to train the network.
+   * @param network
+   *          The MLP network to be trained and scored.
+   * 
+   * @return double - the network's (validation) winning percentage.
+   */
+  private double trainAndScoreNetwork(PackedTrainingData trainingData, MultiLayerPerceptron network) {
+    log.info("*********** TRAINING NEURAL NETWORK **************");
+    trainNetwork(trainingData, network);
+    log.info("*********** VALIDATING NEURAL NETWORK (SCORING) **************");
+    runValidationSimulations(network);
+    NetworkMetrics metrics = networkMetricsCache.get(network);
+    return 100.0 * metrics.getNumberOfWinsThisIteration() / metrics.getNumberOfGamesThisIteration();
+  }
+
+  /**
+   * Finishes the CTV iteration of a network scored by
+   * {@link #trainAndScoreNetwork(DataSet, MultiLayerPerceptron)}, once it will not be trained
+   * any further. Same as the end of {@link #trainAndValidateNetwork(DataSet, MultiLayerPerceptron)},
+   * except that a network whose error is still above the max is only counted as an aborted
+   * run if it has had its full budget.
+   * 
+   * @param network
+   *          The MLP network that was scored.
+   * @param fullBudget
+   *          Whether or not the network was trained for its full budget.
+   */
+  private void finishScoredNetwork(MultiLayerPerceptron network, boolean fullBudget) {
+    if (computeTrainedNetworkError(network) > NetworkProperties.getMaxNetworkError()) {
+      log.info("Network error (" + computeTrainedNetworkError(network)
+          + ") higher than threshold max, the network was only scored.");
+      if (fullBudget) {
+        NetworkMetrics metrics = networkMetricsCache.get(network);
+        metrics.setNumberOfAbortedRuns(metrics.getNumberOfAbortedRuns() + 1);
+      }
+    } else {
+      computeStatsAndSaveNetworkIfNecessary(network);
+    }
+  }
+
+  /**
+   * Runs a single CTV (create/train/validate) cycle for the specified network, and returns
+   * its score (see {@link #trainAndScoreNetwork(DataSet, MultiLayerPerceptron)}).
+   * Safe to call from worker threads: the network is a worker network, merged into the
+   * caches when it is done.
+   * 
+   * @param neuronLayerDescriptor
+   *          The layer structure of the network.
+   * @param trainingData
+   *          The data used to train the network.
+   * @param yearsToSimulate
+   *          The years to simulate when validating the network.
+   * @param random
+   *          The random number generator for the network.
+   * 
+   * @return double - the network's (validation) winning percentage.
+   */
+  protected double trainAndScoreTopology(List<Integer> neuronLayerDescriptor, PackedTrainingData trainingData,
+      Integer[] yearsToSimulate, Random random) {
+    log.info("*********** CREATING NEURAL NETWORK (" + NetworkUtils.generateLayerStructureString(neuronLayerDescriptor)
+        + ") **************");
+    MultiLayerPerceptron network = createWorkerNetwork(neuronLayerDescriptor, yearsToSimulate, 1, random);
+    double ret = trainAndScoreNetwork(trainingData, network);
+    finishScoredNetwork(network, true);
+    synchronized (networkCache) {
+      logIterationStatsForNetwork(mergeWorkerNetwork(neuronLayerDescriptor, network));
+    }
+    return ret;
+  }
+
+  /**
+   * Runs the CTV (create/train/validate) cycle for every network and every iteration as
+   * independent tasks on a fixed-size pool of worker threads (see
+   * {@link NetworkProperties#getTrainerThreadCount()}).
+   * <p>
+   * Each task owns its network, its copy of the training data and its {@link NetworkMetrics}.
+   * When a task completes, its metrics are merged into the metrics for that layer structure,
+   * in the same order the serial run would have produced them. So, given the same
+   * <code>random.seed</code>, the results match those of a serial run.
+   * 
+   * @param networks
+   *          The layer descriptors of the networks to try.
+   * @param trainingData
+   *          The training data (shared by all workers, never modified).
+   * @param yearsForTrainingData
+   *          The years the training data came from (for logging).
+   * @param yearsToSimulate
+   *          The years to simulate when validating the networks.
+   */
+  private void trainNetworksInParallel(List<List<Integer>> networks, PackedTrainingData trainingData,
+      Integer[] yearsForTrainingData, Integer[] yearsToSimulate) {
+    int threadCount = NetworkProperties.getTrainerThreadCount();
+    log.info("Training " + networks.size() + " networks (" + NetworkProperties.getMaxNetworkIterations()
+        + " iterations each) with DataSet from years " + Arrays.toString(yearsForTrainingData) + " and with "
+        + trainingData.getRowCount() + " rows, using " + threadCount + " worker threads...");
+    ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+    try {
+      //
+      // Submit one task per iteration per network
+      List<Future<MultiLayerPerceptron>> futures = new ArrayList<>();
+      //
+      // Skip the tasks that were done before the checkpoint (if any)
+      int firstTaskIndex = (checkpoint == null) ? 0
+          : (checkpoint.getIterationNumber() - 1) * networks.size() + checkpoint.getNetworkIndex();
+      for (int iterationNumber = 1; iterationNumber <= NetworkProperties.getMaxNetworkIterations(); iterationNumber++) {
+        for (int networkIndex = 0; networkIndex < networks.size(); networkIndex++) {
+          if ((iterationNumber - 1) * networks.size() + networkIndex < firstTaskIndex) {
+            continue;
+          }
+          final List<Integer> neuronLayerDescriptor = networks.get(networkIndex);
+          final int taskIterationNumber = iterationNumber;
+          final Random random = createRandom(iterationNumber, networkIndex);
+          futures.add(executorService.submit(() -> {
+            log.info("*********** CREATING NEURAL NETWORK ("
+                + NetworkUtils.generateLayerStructureString(neuronLayerDescriptor) + ", iteration "
+                + taskIterationNumber + ") **************");
+            MultiLayerPerceptron network =
+                createWorkerNetwork(neuronLayerDescriptor, yearsToSimulate, taskIterationNumber, random);
+            trainAndValidateNetwork(trainingData, network);
+            return network;
+          }));
+        }
+      }
+      //
+      // Now gather the results, in submission order so the merged metrics are
+      /// the same as they would be for a serial run.
+      for (int aa = 0; aa < futures.size(); aa++) {
+        int taskIndex = firstTaskIndex + aa;
+        MultiLayerPerceptron workerNetwork = futures.get(aa).get();
+        MultiLayerPerceptron network = mergeWorkerNetwork(networks.get(taskIndex % networks.size()), workerNetwork);
+        logIterationStatsForNetwork(network);
+        writeCheckpoint(1, taskIndex + 1);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      String message = "Interrupted while waiting for the network training tasks to complete.";
+      log.error(message, e);
+      throw new RuntimeException(message, e);
+    } catch (ExecutionException e) {
+      String message = "A network training task failed: " + e.getCause().getLocalizedMessage();
+      log.error(message, e);
+      throw new RuntimeException(message, e.getCause());
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  /**
+   * Trains the specified network, then validates it (if training was successful).
+   * 
+   * @param trainingData
+   *          The data used to train the network.
+   * @param network
+   *          The MLP network to be trained and validated.
+   */
+  private void trainAndValidateNetwork(PackedTrainingData trainingData, MultiLayerPerceptron network) {
+    //
+    // Now train the neural network
+    log.info("*********** TRAINING NEURAL NETWORK **************");
+    trainNetwork(trainingData, network);
+    //
+    // Training complete. Check to see if we're above the max error toleration. If so, abort.
+    if (computeTrainedNetworkError(network) > NetworkProperties.getMaxNetworkError()) {
+      //
+      // Fetch the metrics
+      NetworkMetrics metrics = networkMetricsCache.get(network);
+      log.error("***** NETWORK ERROR (" + computeTrainedNetworkError(network)
+          + ") HIGHER THAN THRESHOLD MAX ("
+          + BigDecimal.valueOf(NetworkProperties.getMaxNetworkError() * 100.0).setScale(2, RoundingMode.HALF_UP)
+              .toString()
+          + "%). ABORTING! *****");
+      metrics.setNumberOfAbortedRuns(metrics.getNumberOfAbortedRuns() + 1);
+    } else {
+      // We're good to go. Validate the trained network.
+      log.info("*********** VALIDATING NEURAL NETWORK **************");
+      validateNetwork(network);
+    }
+  }
+
+  /**
+   * Merges the metrics of a network trained by a worker thread into the metrics of the
+   * network cached for the same layer structure. The first network to be merged for
+   * a layer structure becomes the cached network.
+   * 
+   * @param neuronLayerDescriptor
+   *          The layer structure of the worker network.
+   * @param workerNetwork
+   *          The network trained by the worker thread.
+   * 
+   * @return MultiLayerPerceptron - the cached network whose metrics now include the worker's.
+   */
+  private MultiLayerPerceptron mergeWorkerNetwork(List<Integer> neuronLayerDescriptor,
+      MultiLayerPerceptron workerNetwork) {
+    MultiLayerPerceptron ret = networkCache.putIfAbsent(neuronLayerDescriptor, workerNetwork);
+    if (ret == null) {
+      ret = workerNetwork;
+    } else {
+      NetworkMetrics workerMetrics = networkMetricsCache.remove(workerNetwork);
+      networkMetricsCache.get(ret).merge(workerMetrics);
+    }
+    return ret;
+  }
+
+  /**
+   * Returns the metrics (all CTV iterations so far) of the network with the specified
+   * layer structure.
+   *
+   * @param neuronLayerDescriptor
+   *          The complete layer structure of the network.
+   *
+   * @return NetworkMetrics - the metrics, or null if no such network has been trained.
+   */
+  NetworkMetrics getNetworkMetrics(List<Integer> neuronLayerDescriptor) {
+    MultiLayerPerceptron network = networkCache.get(neuronLayerDescriptor);
+    return (network == null) ? null : networkMetricsCache.get(network);
+  }
+
+  /**
+   * Creates the random number generator for the specified CTV iteration of a network. If
+   * <code>random.seed</code> is set, the generator is seeded from it, the iteration number
+   * and the network index, so the same network gets the same weights, momentum and
+   * training data order no matter which thread trains it.
+   * 
+   * @param iterationNumber
+   *          The CTV iteration number.
+   * @param networkIndex
+   *          The index of the network in the list of networks to try.
+   * 
+   * @return Random - the random number generator.
+   */
+  protected Random createRandom(int iterationNumber, int networkIndex) {
+    long seed = NetworkProperties.getRandomSeed();
+    if (seed == 0L) {
+      return new Random();
+    }
+    return new Random(31L * (31L * seed + iterationNumber) + networkIndex);
   }
 
   /**
@@ -259,45 +912,167 @@ public class MlpNetworkTrainer implements LearningEventListener {
    *          input layer and output layers)
    * 
    * @param yearsToSimulate
+   * @param random
+   *          The random number generator for this CTV iteration of the network.
    * @return
    */
   private MultiLayerPerceptron createNetwork(List<Integer> neuronLayerDescriptor,
-      Integer[] yearsToSimulate) {
+      Integer[] yearsToSimulate, Random random) {
     //
     // First create the NeuronProperties
+    NeuronProperties neuronProperties = createNeuronProperties();
+
+    MultiLayerPerceptron network = networkCache.get(neuronLayerDescriptor);
+    if (network == null) {
+      network = createCachedNetwork(neuronLayerDescriptor, neuronProperties);
+    }
+    configureNetwork(network, neuronLayerDescriptor, yearsToSimulate, neuronProperties, random);
+    return network;
+  }
+
+  /**
+   * Creates a brand new MultiLayerPerceptron network with the specified layer structure and
+   * puts it in the network cache.
+   * 
+   * @param neuronLayerDescriptor
+   *          The complete layer structure (includes both the
+   *          input layer and output layers)
+   * @param neuronProperties
+   *          The Neuroph neuron properties metadata object.
+   * 
+   * @return MultiLayerPerceptron - the network.
+   */
+  private MultiLayerPerceptron createCachedNetwork(List<Integer> neuronLayerDescriptor,
+      NeuronProperties neuronProperties) {
+    log.info("*********** CREATING NETWORK **************");
+    MultiLayerPerceptron network = new MultiLayerPerceptron(neuronLayerDescriptor, neuronProperties);
+    setLearningRule(network);
+    addLearningEventListener(network);
+    networkCache.put(neuronLayerDescriptor, network);
+    return network;
+  }
+
+  /**
+   * Creates a brand new MultiLayerPerceptron network for a worker thread. The network (and
+   * its {@link NetworkMetrics}) belong to that worker alone, so it is not placed in the
+   * network cache. See {@link #mergeWorkerNetwork(List, MultiLayerPerceptron)}.
+   * 
+   * @param neuronLayerDescriptor
+   *          The complete layer structure (includes both the
+   *          input layer and output layers)
+   * @param yearsToSimulate
+   *          The years to simulate when validating the network.
+   * @param iterationNumber
+   *          The CTV iteration this network is for.
+   * @param random
+   *          The random number generator for this CTV iteration of the network.
+   * 
+   * @return MultiLayerPerceptron - the network, ready to be trained.
+   */
+  private MultiLayerPerceptron createWorkerNetwork(List<Integer> neuronLayerDescriptor, Integer[] yearsToSimulate,
+      int iterationNumber, Random random) {
+    NeuronProperties neuronProperties = createNeuronProperties();
+    MultiLayerPerceptron network = new MultiLayerPerceptron(neuronLayerDescriptor, neuronProperties);
+    setLearningRule(network);
+    addLearningEventListener(network);
+    //
+    // The metrics start out as though the previous iterations already ran
+    NetworkMetrics metrics = new NetworkMetrics();
+    metrics.setNumberOfIterationsSoFar(iterationNumber - 1);
+    networkMetricsCache.put(network, metrics);
+    configureNetwork(network, neuronLayerDescriptor, yearsToSimulate, neuronProperties, random);
+    return network;
+  }
+
+  /**
+   * Creates the NeuronProperties used to create every network.
+   * 
+   * @return NeuronProperties - the Neuroph neuron properties metadata object.
+   */
+  private NeuronProperties createNeuronProperties() {
     NeuronProperties neuronProperties = new NeuronProperties();
     neuronProperties.setProperty("transferFunction", NEURON_PROPERTY_TRANSFER_FUNCTION);
     neuronProperties.setProperty("inputFunction", WeightedSum.class);
     neuronProperties.setProperty("useBias", NetworkProperties.getUseBiasNeurons());
+    return neuronProperties;
+  }
 
-    MultiLayerPerceptron network = networkCache.get(neuronLayerDescriptor);
-    if (network == null) {
-      log.info("*********** CREATING NETWORK **************");
-      network = new MultiLayerPerceptron(neuronLayerDescriptor, neuronProperties);
-      networkCache.put(neuronLayerDescriptor, network);
+  /**
+   * @return int - the number of networks trained at the same time (one per trainer thread).
+   */
+  protected int computeTrainerThreadCount() {
+    return (NetworkProperties.getTrainerThreadCount() > 1) ? NetworkProperties.getTrainerThreadCount() : 1;
+  }
+
+  /**
+   * Swaps the Neuroph MomentumBackpropagation learning rule of the specified (new) network
+   * for a {@link DenseMomentumBackpropagation}, if the system is configured to use it (or
+   * to train in mini-batches, which only the dense learning rule can do).
+   * Only done once per network, when it is created.
+   * 
+   * @param network
+   */
+  private void setLearningRule(MultiLayerPerceptron network) {
+    int batchSize = NetworkProperties.getLearningRuleBatchSize();
+    if (NetworkProperties.getLearningRuleIsDense() || batchSize > 0) {
+      DenseMomentumBackpropagation learningRule = new DenseMomentumBackpropagation();
+      learningRule.setBatchSize(batchSize);
+      int workerCount = NetworkProperties.getLearningRuleWorkerCount();
+      if (workerCount <= 0) {
+        //
+        // Each of the networks being trained at once gets its share of the processors
+        workerCount = Math.max(1, Runtime.getRuntime().availableProcessors() / computeTrainerThreadCount());
+      }
+      learningRule.setWorkerCount(workerCount);
+      network.setLearningRule(learningRule);
     }
-    MomentumBackpropagation learningRule = (MomentumBackpropagation) network.getLearningRule();
+  }
+
+  /**
+   * Registers this object as a listener for the specified network's learning events.
+   * Only done once per network, when it is created.
+   * 
+   * @param network
+   */
+  private void addLearningEventListener(MultiLayerPerceptron network) {
     //
     // Only use this callback if not in batch mode because Neuroph does not
     /// properly set the total network error, and we get NumberFormatExceptions
-    /// when executing that code.
-    if (NetworkProperties.getLearningRuleIsBatchMode() == false) {
-      learningRule.addListener(this);
+    /// when executing that code. The dense learning rule does set it.
+    if (NetworkProperties.getLearningRuleIsBatchMode() == false
+        || network.getLearningRule() instanceof DenseMomentumBackpropagation) {
+      network.getLearningRule().addListener(this);
     }
+  }
+
+  /**
+   * Sets up the learning rule, weights and metrics of the specified network for a new
+   * CTV iteration.
+   * 
+   * @param network
+   * @param neuronLayerDescriptor
+   * @param yearsToSimulate
+   * @param neuronProperties
+   * @param random
+   */
+  private void configureNetwork(MultiLayerPerceptron network, List<Integer> neuronLayerDescriptor,
+      Integer[] yearsToSimulate, NeuronProperties neuronProperties, Random random) {
+    MomentumBackpropagation learningRule = (MomentumBackpropagation) network.getLearningRule();
     learningRule.setMaxError(NetworkProperties.getMaxNetworkError());
-    learningRule.setMomentum(randomizeMomentum());
+    learningRule.setMomentum(randomizeMomentum(random));
     learningRule.setLearningRate(NetworkProperties.getLearningRuleLearningRate());
     learningRule.setBatchMode(NetworkProperties.getLearningRuleIsBatchMode());
-    randomizeNetworkWeights(network);
+    if (!warmStartNetworkWeights(network, neuronLayerDescriptor, yearsToSimulate, random)) {
+      randomizeNetworkWeights(network, random);
+    }
     learningRule.setMaxIterations(NetworkProperties.getMaxLearningIterations());
 
     //
     // Create the network metrics (used all over the place)
     NetworkMetrics metrics = createNetworkMetrics(network, yearsToSimulate, neuronLayerDescriptor, neuronProperties);
+    metrics.setRandom(random);
     log.info("* Layer structure of this network  --> " + metrics.getLayerStructure());
     log.info("* Iteration number for this network --> " + metrics.getNumberOfIterationsSoFar());
-
-    return network;
   }
 
   /**
@@ -338,6 +1113,7 @@ public class MlpNetworkTrainer implements LearningEventListener {
     metrics.setLayerStructure(neuronLayerDescriptorString);
     metrics.setNumberOfIterationsSoFar(metrics.getNumberOfIterationsSoFar() + 1);
     metrics.setSimulationYears(yearsToSimulate);
+    metrics.setResumedEpochs(0);
     return metrics;
   }
 
@@ -350,23 +1126,154 @@ public class MlpNetworkTrainer implements LearningEventListener {
    * @param network
    *          The MLP network to be trained.
    */
-  private void trainNetwork(DataSet trainingData, MultiLayerPerceptron network) {
+  private void trainNetwork(PackedTrainingData trainingData, MultiLayerPerceptron network) {
+    NetworkMetrics metrics = networkMetricsCache.get(network);
     //
-    // Shuffle the training data. Adds an element of randomness to the data.
-    trainingData.shuffle();
+    // Each run visits the (shared) training data in its own random order, drawn from the run's
+    /// own random number generator. The dense learning rule is given the packed training data,
+    /// and reads the rows straight out of its buffers, in a new order every epoch (so the DataSet
+    /// it learns from is just an empty one). Neuroph's gets the shared rows in a new List.
+    DataSet runTrainingData;
+    if (network.getLearningRule() instanceof DenseMomentumBackpropagation) {
+      ((DenseMomentumBackpropagation) network.getLearningRule()).setTrainingData(trainingData, metrics.getRandom());
+      runTrainingData = new DataSet(trainingData.getInputSize(), trainingData.getOutputSize());
+    } else {
+      runTrainingData = trainingData.createDataSet(trainingData.createRowOrder(metrics.getRandom()));
+    }
+    if (metrics.getResumedEpochs() == 0) {
+      //
+      // A new training run: new learning curve, no validation checks yet
+      metrics.getLearningCurve().reset();
+      metrics.getEarlyStoppingMonitor().reset();
+    }
     //
     // Now learn, you!
-    network.learn(trainingData);
+    network.learn(runTrainingData);
+    if (NetworkProperties.getValidationEarlyStopping()) {
+      restoreBestValidationWeights(network);
+    }
     //
     // Learning complete. Set metrics.
-    NetworkMetrics metrics = networkMetricsCache.get(network);
     metrics.setIterationLearnTime(System.currentTimeMillis() - metrics.getLearnStartTime());
+    if (network.getLearningRule() instanceof DenseMomentumBackpropagation) {
+      logDenseLearningRuleSpeedup(network, trainingData, metrics);
+    }
     metrics.setTotalLearnTime(metrics.getTotalLearnTime() + metrics.getIterationLearnTime());
     metrics.setNumberOfAsymmetricWinsThisIteration(0);
     metrics.setNumberOfSymmetricWinsThisIteration(0);
+    metrics.setNumberOfSymmetricLossesThisIteration(0);
+    metrics.setNumberOfWinsThisIteration(0);
     metrics.setNumberOfGamesThisIteration(0);
   }
 
+  /**
+   * Puts the weights of the best validation check (see
+   * {@link #checkValidationScore(MomentumBackpropagation)}) of the training run that just
+   * finished back into the network, so the network that gets validated (and maybe saved)
+   * is the best one seen during the run. The last epoch is checked first, if it was not
+   * already.
+   * 
+   * @param network
+   *          The network that was just trained.
+   */
+  private void restoreBestValidationWeights(MultiLayerPerceptron network) {
+    MomentumBackpropagation learningRule = (MomentumBackpropagation) network.getLearningRule();
+    EarlyStoppingMonitor earlyStoppingMonitor = networkMetricsCache.get(network).getEarlyStoppingMonitor();
+    if (earlyStoppingMonitor.getLastEpoch() != computeEpoch(learningRule)) {
+      checkValidationScore(learningRule);
+    }
+    if (earlyStoppingMonitor.getBestEpoch() != computeEpoch(learningRule)) {
+      log.info("Restoring the weights from epoch " + earlyStoppingMonitor.getBestEpoch()
+          + " (best validation winning percentage: "
+          + BigDecimal.valueOf(earlyStoppingMonitor.getBestScore()).setScale(2, RoundingMode.HALF_UP) + "%)");
+      network.setWeights(earlyStoppingMonitor.getBestWeights());
+    }
+  }
+
+  /**
+   * Returns the network error of the trained network: if its weights were restored
+   * from a validation check, the error at that epoch, otherwise the error at the last
+   * epoch.
+   * 
+   * @param network
+   *          The network that was just trained.
+   * 
+   * @return double - the network error.
+   */
+  private double computeTrainedNetworkError(MultiLayerPerceptron network) {
+    EarlyStoppingMonitor earlyStoppingMonitor = networkMetricsCache.get(network).getEarlyStoppingMonitor();
+    return earlyStoppingMonitor.hasBest() ? earlyStoppingMonitor.getBestNetworkError()
+        : network.getLearningRule().getTotalNetworkError();
+  }
+
+  /**
+   * Logs how long an epoch took using the {@link DenseMomentumBackpropagation} learning rule,
+   * compared to how long one takes using Neuroph's MomentumBackpropagation. The Neuroph
+   * epoch is timed once per layer structure (on a copy of the network, which is then
+   * thrown away), the first time a network with that structure is trained. It is timed on
+   * (a copy of) the first {@link #NEUROPH_EPOCH_TIMING_ROWS} rows, and scaled up to the
+   * whole training data, so the rows never have to be copied out of the packed buffers.
+   * 
+   * @param network
+   *          The network that was just trained.
+   * @param trainingData
+   *          The data it was trained with.
+   * @param metrics
+   *          The network's metrics.
+   */
+  private void logDenseLearningRuleSpeedup(MultiLayerPerceptron network, PackedTrainingData trainingData,
+      NetworkMetrics metrics) {
+    DenseMomentumBackpropagation learningRule = (DenseMomentumBackpropagation) network.getLearningRule();
+    double neurophEpochTime = neurophEpochTimeCache.computeIfAbsent(metrics.getLayerStructure(), layerStructure -> {
+      MultiLayerPerceptron neurophNetwork =
+          new MultiLayerPerceptron(createNeuronLayerDescriptor(network), metrics.getNeuronProperties());
+      double[] weights = new double[neurophNetwork.getWeights().length];
+      Double[] networkWeights = network.getWeights();
+      for (int aa = 0; aa < weights.length; aa++) {
+        weights[aa] = networkWeights[aa];
+      }
+      neurophNetwork.setWeights(weights);
+      MomentumBackpropagation neurophLearningRule = new MomentumBackpropagation();
+      neurophLearningRule.setLearningRate(learningRule.getLearningRate());
+      neurophLearningRule.setMomentum(learningRule.getMomentum());
+      neurophLearningRule.setMaxError(learningRule.getMaxError());
+      neurophLearningRule.setMaxIterations(1);
+      neurophNetwork.setLearningRule(neurophLearningRule);
+      DataSet timingData = trainingData.copyRows(0, Math.min(NEUROPH_EPOCH_TIMING_ROWS, trainingData.getRowCount()));
+      if (timingData.isEmpty()) {
+        return 0.0;
+      }
+      long startTime = System.nanoTime();
+      neurophNetwork.learn(timingData);
+      return (System.nanoTime() - startTime) / 1000000.0 * trainingData.getRowCount() / timingData.size();
+    });
+    double denseEpochTime = learningRule.getAverageEpochTime();
+    log.info("Dense learning rule: " + learningRule.getNumberOfEpochs() + " epochs, "
+        + BigDecimal.valueOf(denseEpochTime).setScale(3, RoundingMode.HALF_UP) + "ms per epoch (Neuroph: "
+        + BigDecimal.valueOf(neurophEpochTime).setScale(3, RoundingMode.HALF_UP) + "ms per epoch, speedup: "
+        + ((denseEpochTime > 0.0)
+            ? BigDecimal.valueOf(neurophEpochTime / denseEpochTime).setScale(1, RoundingMode.HALF_UP) + "x"
+            : "n/a")
+        + ")");
+  }
+
+  /**
+   * The number of neurons in each layer of the specified network, not counting bias neurons.
+   */
+  private static List<Integer> createNeuronLayerDescriptor(NeuralNetwork<?> network) {
+    List<Integer> ret = new ArrayList<>();
+    for (Layer layer : network.getLayers()) {
+      int neuronCount = 0;
+      for (Neuron neuron : layer.getNeurons()) {
+        if (!(neuron instanceof BiasNeuron)) {
+          neuronCount++;
+        }
+      }
+      ret.add(neuronCount);
+    }
+    return ret;
+  }
+
   /**
    * Loads training data for the specified years. The data is assumed to be at a location
    * specified by the {@link NetworkProperties} object (or <code>network.properties</code> file
@@ -376,10 +1283,13 @@ public class MlpNetworkTrainer implements LearningEventListener {
    *          The years for which training data is to be loaded. Each element
    *          should contain a separate year.
    * 
-   * @return Neuroph {@link DataSet} object containing all of the training data to be used.
+   * @return PackedTrainingData - all of the training data to be used, packed. The rows are
+   *         only copied out of it (as a DataSet) if a Neuroph learning rule needs them.
    */
-  protected DataSet loadTrainingData(Integer[] yearsForTrainingData) {
-    DataSet ret = new DataSet(NetworkProperties.getNumberOfInputs(), NetworkProperties.getNumberOfOutputs());
+  protected PackedTrainingData loadTrainingData(Integer[] yearsForTrainingData) {
+    if (NetworkProperties.getTrainingDataUseBinaryFormat()) {
+      return loadBinaryTrainingData(yearsForTrainingData);
+    }
     List<DataSet> dataSets = new ArrayList<>();
     //
     // Build out the expected file name based on the constants
@@ -395,16 +1305,49 @@ public class MlpNetworkTrainer implements LearningEventListener {
       dataSets.add(loadedDataSet);
     }
     //
-    // Now combine all of the data sets into one
-    for (DataSet dataSet : dataSets) {
-      for (DataSetRow row : dataSet.getRows()) {
-        ret.addRow(row);
+    // Now pack all of the data sets into one buffer. No need to shuffle: every
+    /// training run visits the rows in its own random order.
+    PackedTrainingData ret = PackedTrainingData.fromDataSets(dataSets, NetworkProperties.getNumberOfInputs(),
+        NetworkProperties.getNumberOfOutputs());
+    log.info("Combined " + dataSets.size() + " data sets, consisting of a total of " + ret.getRowCount() + " rows.");
+    return ret;
+  }
+
+  /**
+   * Same as {@link #loadTrainingData(Integer[])}, but for training data in the binary format
+   * (see {@link TrainingDataFile}). Each year's file is memory-mapped and its rows go straight
+   * into their slice of the packed training data. If a year has no binary file yet, but does
+   * have a DataSet file, the DataSet file is converted (once) and used.
+   * 
+   * @param yearsForTrainingData
+   *          The years for which training data is to be loaded.
+   * 
+   * @return PackedTrainingData - all of the training data to be used.
+   */
+  private PackedTrainingData loadBinaryTrainingData(Integer[] yearsForTrainingData) {
+    List<TrainingDataFile> trainingDataFiles = new ArrayList<>();
+    for (Integer year : yearsForTrainingData) {
+      File binaryFile = new File(NetworkUtils.computeTrainingDataBinaryFileName(year));
+      if (!binaryFile.exists()) {
+        String filename = NetworkUtils.computeTrainingDataFileName(year);
+        log.info("No binary training data for " + year + ", converting '" + filename + "'...");
+        TrainingDataFile.write(DataSet.load(filename), binaryFile);
+      }
+      log.info("Loading training data from file: '" + binaryFile + "'...");
+      TrainingDataFile trainingDataFile = TrainingDataFile.open(binaryFile);
+      if (trainingDataFile.getInputSize() != NetworkProperties.getNumberOfInputs()
+          || trainingDataFile.getOutputSize() != NetworkProperties.getNumberOfOutputs()) {
+        throw new RuntimeException("Training data file '" + binaryFile + "' has " + trainingDataFile.getInputSize()
+            + " inputs and " + trainingDataFile.getOutputSize() + " outputs, expected "
+            + NetworkProperties.getNumberOfInputs() + " and " + NetworkProperties.getNumberOfOutputs());
       }
+      trainingDataFiles.add(trainingDataFile);
+      log.info("Training data loaded: " + trainingDataFile.getRowCount() + " rows.");
     }
-    log.info("Combined " + dataSets.size() + " data sets, consisting of a total of " + ret.size() + " rows.");
-    //
-    log.info("Shuffling training data...");
-    ret.shuffle();
+    PackedTrainingData ret = PackedTrainingData.fromTrainingDataFiles(trainingDataFiles,
+        NetworkProperties.getNumberOfInputs(), NetworkProperties.getNumberOfOutputs());
+    log.info("Combined " + yearsForTrainingData.length + " data sets, consisting of a total of " + ret.getRowCount()
+        + " rows.");
     return ret;
   }
 
@@ -471,17 +1414,89 @@ public class MlpNetworkTrainer implements LearningEventListener {
    * @param network
    *          The network (must support BackPropagation learning rule) for which its weights
    *          are to be randomized.
+   * @param random
+   *          The random number generator to use.
    */
-  private void randomizeNetworkWeights(NeuralNetwork<BackPropagation> network) {
-    Random randWeight = new Random();
+  private void randomizeNetworkWeights(NeuralNetwork<BackPropagation> network, Random random) {
     double minWeight =
-        randWeight.nextDouble() * (NetworkProperties.getMinWeight() - NetworkProperties.getMinMinWeight())
+        random.nextDouble() * (NetworkProperties.getMinWeight() - NetworkProperties.getMinMinWeight())
             + NetworkProperties.getMinMinWeight();
     double maxWeight =
-        randWeight.nextDouble() * (NetworkProperties.getMaxWeight() - NetworkProperties.getMinMaxWeight())
+        random.nextDouble() * (NetworkProperties.getMaxWeight() - NetworkProperties.getMinMaxWeight())
             + NetworkProperties.getMinMaxWeight();
     log.info("Randomizing weights: min=" + minWeight + ", max=" + maxWeight);
-    network.randomizeWeights(minWeight, maxWeight);
+    //
+    // Same as Neuroph's RangeRandomizer, but using our random number generator
+    /// so the weights can be reproduced.
+    double[] weights = new double[network.getWeights().length];
+    for (int aa = 0; aa < weights.length; aa++) {
+      weights[aa] = minWeight + random.nextDouble() * (maxWeight - minWeight);
+    }
+    network.setWeights(weights);
+  }
+
+  /**
+   * Starts the specified network off with the weights of the best saved network (the
+   * highest winning percentage) in the network directory that has the same layer
+   * structure, bias setting and simulation years, plus a little (Gaussian) noise, so
+   * training fine-tunes a network that is already good rather than starting from scratch.
+   * Only done if <code>trainer.warm.start</code> is set.
+   * 
+   * @param network
+   *          The (new) network.
+   * @param neuronLayerDescriptor
+   *          The layer structure of the network.
+   * @param yearsToSimulate
+   *          The years to simulate when validating the network.
+   * @param random
+   *          The random number generator to use for the noise.
+   * 
+   * @return boolean - true if the network was warm-started, false if there is no saved
+   *         network to start it from (in which case its weights still need to be set).
+   */
+  private boolean warmStartNetworkWeights(MultiLayerPerceptron network, List<Integer> neuronLayerDescriptor,
+      Integer[] yearsToSimulate, Random random) {
+    if (!NetworkProperties.getTrainerWarmStart()) {
+      return false;
+    }
+    String layerStructure = NetworkUtils.generateLayerStructureString(neuronLayerDescriptor);
+    File[] networkFiles = new File(NetworkUtils.fetchNetworkDirectoryAndCreateIfNecessary()).listFiles();
+    SavedNetworkFile savedNetworkFile = (networkFiles == null) ? null
+        : SavedNetworkFile.findBest(networkFiles, layerStructure, NetworkProperties.getUseBiasNeurons(),
+            yearsToSimulate);
+    if (savedNetworkFile == null) {
+      log.info("No saved " + layerStructure + " network to warm-start from, randomizing weights.");
+      return false;
+    }
+    double[] savedWeights =
+        warmStartWeightsCache.computeIfAbsent(savedNetworkFile.getFile().getPath(), key -> {
+          MultiLayerPerceptron savedNetwork = NetworkUtils.loadNetwork(savedNetworkFile.getFile());
+          //
+          // A network that will not load is remembered as having no weights, so it is only tried once
+          double[] ret = new double[0];
+          if (savedNetwork != null) {
+            Double[] weights = savedNetwork.getWeights();
+            ret = new double[weights.length];
+            for (int aa = 0; aa < weights.length; aa++) {
+              ret[aa] = weights[aa];
+            }
+          }
+          return ret;
+        });
+    if (savedWeights.length != network.getWeights().length) {
+      log.warn("Saved network '" + savedNetworkFile.getFile().getName() + "' has " + savedWeights.length
+          + " weights, expected " + network.getWeights().length + ". Randomizing weights.");
+      return false;
+    }
+    double noise = NetworkProperties.getTrainerWarmStartNoise();
+    double[] weights = new double[savedWeights.length];
+    for (int aa = 0; aa < weights.length; aa++) {
+      weights[aa] = savedWeights[aa] + noise * random.nextGaussian();
+    }
+    network.setWeights(weights);
+    log.info("Warm-starting weights from '" + savedNetworkFile.getFile().getName() + "' (winning percentage "
+        + savedNetworkFile.getWinningPercentage() + "%), noise=" + noise);
+    return true;
   }
 
   /**
@@ -493,16 +1508,18 @@ public class MlpNetworkTrainer implements LearningEventListener {
    * 
    * Only randomize momentum if the system is configured to do so.
    * 
+   * @param random
+   *          The random number generator to use.
+   * 
    * @return The new momentum value.
    */
-  private double randomizeMomentum() {
+  private double randomizeMomentum(Random random) {
     double ret = NetworkProperties.getMomentumDefaultValue();
     //
     // If the system is configured to randomize momentum, then calculate
     /// a new random value between the MIN and MAX
     if (NetworkProperties.getRandomizeMomentum()) {
-      Random momentumRandomNg = new Random();
-      double momentum = momentumRandomNg.nextDouble()
+      double momentum = random.nextDouble()
           * (NetworkProperties.getLearningRuleMomentumMax() - NetworkProperties.getLearningRuleMomentumMin())
           + NetworkProperties.getLearningRuleMomentumMin();
       ret = momentum;
@@ -517,6 +1534,21 @@ public class MlpNetworkTrainer implements LearningEventListener {
    * @param network
    */
   private void validateNetwork(MultiLayerPerceptron network) {
+    runValidationSimulations(network);
+    //
+    // Calculate stats across all the simulated years and save the network
+    /// if the average over all games picked in those years exceeds the threshold.
+    computeStatsAndSaveNetworkIfNecessary(network);
+  }
+
+  /**
+   * Simulates the tournament games for each validation year using the specified network
+   * (see {@link ValidationSet}), and records the number of games and correct picks in its
+   * metrics.
+   * 
+   * @param network
+   */
+  private void runValidationSimulations(MultiLayerPerceptron network) {
     int numberOfWinners = 0;
     int numberOfGames = 0;
 
@@ -525,18 +1557,21 @@ public class MlpNetworkTrainer implements LearningEventListener {
     NetworkMetrics metrics = networkMetricsCache.get(network);
     log.info("********* BEGINNING VALIDATION FOR YEARS " + Arrays.toString(metrics.getSimulationYears())
         + " **************");
+    //
+    // Compile the network once, then run every simulation of every game for a year in one batch
+    CompiledNetwork compiledNetwork = CompiledNetwork.compile(network);
     for (Integer yearToSimulate : metrics.getSimulationYears()) {
       int numberOfWinnersThisYear = 0;
       int numberOfGamesThisYear = 0;
-      List<TournamentResult> tournamentResults = pullTournamentResults(yearToSimulate);
-      SeasonAnalytics seasonAnalytics = pullSeasonAnalytics(yearToSimulate);
+      ValidationSet validationSet = fetchValidationSet(yearToSimulate);
       //
-      // Let's test the network - winner (LHS) and loser (RHS)
+      // Let's test the network - each game with the winner as LHS, then as RHS
       log.debug("Testing the network with data from year..." + yearToSimulate);
-      //
-      // Simulate all games for the current yearToSimulate
-      for (TournamentResult tournamentResult : tournamentResults) {
-        numberOfWinnersThisYear += computeSimulatedGameCorrectPicks(network, seasonAnalytics, tournamentResult);
+      int[] correctPicksByGame = validationSet.countCorrectPicksByGame(compiledNetwork);
+      List<TournamentResult> tournamentResults = validationSet.getTournamentResults();
+      for (int game = 0; game < correctPicksByGame.length; game++) {
+        recordSimulatedGameCorrectPicks(metrics, tournamentResults.get(game), correctPicksByGame[game]);
+        numberOfWinnersThisYear += correctPicksByGame[game];
       }
       //
       // Each game is simulated twice
@@ -558,41 +1593,22 @@ public class MlpNetworkTrainer implements LearningEventListener {
     log.info("WINNING PERCENTAGE (TOTAL): " +
         BigDecimal.valueOf(numberOfWinners * 100.0 / numberOfGames).setScale(2, RoundingMode.HALF_UP) +
         "% (" + numberOfWinners + "/" + numberOfGames + ")");
-    //
-    // Calculate stats across all the simulated years and save the network
-    /// if the average over all games picked in those years exceeds the threshold.
-    computeStatsAndSaveNetworkIfNecessary(network);
   }
 
   /**
-   * Using the specified <em>trained</em> <code>network</code>, run a simulation of the two teams in the
-   * specified <code>tournamentResult</code>, to see what happens. For now, we're just trying to see how
-   * good the network is.
-   * 
-   * A single execution of this method represents a single simulation of a single historical
-   * tournament game, using a trained network.
-   * 
-   * @param network
-   *          The trained MLP network to run in the simulation.
-   * 
-   * @param seasonAnalytics
-   *          The {@link SeasonAnalytics} object, used to normalize the data.
+   * Records how many of the two simulations of the specified historical tournament game the
+   * network picked correctly in its metrics (as symmetric/asymmetric wins/losses), and keeps
+   * track of the game if it picked it wrong.
    * 
+   * @param metrics
+   *          The network's metrics.
    * @param tournamentResult
-   *          The historical tournament game that will be simulated. Since it
-   *          already happened, we know, well, what happened, which is exactly what we need when validating
-   *          the network.
-   * 
-   * @return int - The number of correct picks for this simulation.
+   *          The historical tournament game that was simulated.
+   * @param numberOfCorrectPicks
+   *          The number of simulations (0, 1 or 2) where the network picked the winner.
    */
-  protected int computeSimulatedGameCorrectPicks(MultiLayerPerceptron network,
-      SeasonAnalytics seasonAnalytics, TournamentResult tournamentResult) {
-    //
-    // Get the network metrics
-    NetworkMetrics metrics = networkMetricsCache.get(network);
-    //
-    // Now simulate a single historical tournament game and see how many picks were correct.
-    int numberOfCorrectPicks = simulateSingleHistoricalTournamentGame(network, seasonAnalytics, tournamentResult);
+  private void recordSimulatedGameCorrectPicks(NetworkMetrics metrics, TournamentResult tournamentResult,
+      int numberOfCorrectPicks) {
     //
     // Symmetric wins/losses are wins/losses where the same team wins/loses as both home (LHS) and away (RHS).
     /// This means the relationships in the network picked them as a winner/loser regardless of LHS/RHS,
@@ -602,131 +1618,26 @@ public class MlpNetworkTrainer implements LearningEventListener {
       // Increment number of Symmetric wins
       metrics.setNumberOfSymmetricWinsThisIteration(
           metrics.getNumberOfSymmetricWinsThisIteration() + numberOfCorrectPicks);
-      metrics.setTotalNumberOfSymmetricWins(metrics.getTotalNumberOfSymmetricWins() + numberOfCorrectPicks);
     } else if (numberOfCorrectPicks == 0) {
       // Increment number of symmetric losses
       metrics
           .setNumberOfSymmetricLossesThisIteration(
               metrics.getNumberOfSymmetricLossesThisIteration() + 2);
-      metrics.setTotalNumberOfSymmetricLosses(
-          metrics.getTotalNumberOfSymmetricLosses() + 2);
     } else {
       // Increment number of asymmetric wins
       metrics.setNumberOfAsymmetricWinsThisIteration(
           metrics.getNumberOfAsymmetricWinsThisIteration() + numberOfCorrectPicks);
-      metrics.setTotalNumberOfAsymmetricWins(metrics.getTotalNumberOfAsymmetricWins() + numberOfCorrectPicks);
     }
-    return numberOfCorrectPicks;
-  }
-
-  /**
-   * Simulate a single historical tournament game using the trained MLP network.
-   * 
-   * @param network
-   * @param seasonAnalytics
-   * @param tournamentResult
-   * 
-   * @return int The number of correct picks for this simulation.
-   */
-  private int simulateSingleHistoricalTournamentGame(MultiLayerPerceptron network,
-      SeasonAnalytics seasonAnalytics, TournamentResult tournamentResult) {
-    int numberOfCorrectPicks = 0;
-    //
-    // Get the winner and loser from the historical tournament game, and create an array
-    /// to hold their season data.
-    String winningTeamName = tournamentResult.getWinningTeamName();
-    String losingTeamName = tournamentResult.getLosingTeamName();
-    //
-    // Let's store the season data in such a way that we can blindly retrieve it
-    /// using the simulation index of the loop.
-    // Simulate the game twice, once with the home team as LHS, then with home
-    /// team as RHS. This is an attempt to eliminate positional bias in the network.
-    SeasonData[] seasonDataHomeTeam = new SeasonData[2];
-    SeasonData[] seasonDataAwayTeam = new SeasonData[2];
-    Integer yearToSimulate = tournamentResult.getYear();
-    for (int simulationIndex = 0; simulationIndex < 2; simulationIndex++) {
-      //
-      // Switch up the team order of every other game in this loop.
-      /// This presumes the numberOfSimulationsPerGame is an even number.
-      if (simulationIndex % 2 == 0) {
-        seasonDataHomeTeam[simulationIndex] = pullSeasonData(yearToSimulate, winningTeamName);
-        seasonDataAwayTeam[simulationIndex] = pullSeasonData(yearToSimulate, losingTeamName);
-      } else {
-        seasonDataHomeTeam[simulationIndex] = pullSeasonData(yearToSimulate, losingTeamName);
-        seasonDataAwayTeam[simulationIndex] = pullSeasonData(yearToSimulate, winningTeamName);
-      }
-      //
-      // Create the simulation data and validate the network's predictive capabilities
-      // If true is returned, the network predicted correctly.
-      //
-      // Get the normalized data for the home and away teams. Each iteration of the loop
-      /// the actual teams switch places to hopefully eliminate any positional bias in the network,
-      /// the idea being to get better picks.
-      DataSetRow dataSetRow =
-          DataCreator.processAsDataSetRowForSimulation(seasonAnalytics, seasonDataHomeTeam[simulationIndex],
-              seasonDataAwayTeam[simulationIndex]);
-      //
-      // Run the network and capture the output, which contains the win(index 0) and loss(index 1) percentages.
-      double[] networkOutput = runNetwork(network, dataSetRow.getInput());
-      //
-      // Check whether network predicted the outcome of this game correctly.
-      boolean networkPredictionIsCorrect = computeNetworkPrediction(network, tournamentResult, seasonDataHomeTeam,
-          seasonDataAwayTeam, simulationIndex, networkOutput);
-      //
-      // Increment number of correct picks if network prediction was correct
-      if (networkPredictionIsCorrect) {
-        numberOfCorrectPicks++;
-      }
-    }
-    return numberOfCorrectPicks;
-  }
-
-  /**
-   * Figure out (compute) what the network predicted for the specified simulated historical
-   * game. Returns true if the network predicted correctly, or false if it did not.
-   * 
-   * @param network
-   * @param tournamentResult
-   * @param seasonDataHomeTeam
-   * @param seasonDataAwayTeam
-   * @param simulationIndex
-   * @param networkOutput
-   * 
-   * @return - Returns true if the network predicted correctly, or false if it did not.
-   */
-  private boolean computeNetworkPrediction(MultiLayerPerceptron network, TournamentResult tournamentResult,
-      SeasonData[] seasonDataHomeTeam, SeasonData[] seasonDataAwayTeam, int simulationIndex, double[] networkOutput) {
-    boolean ret = false;
-    // Default to LHS (index 0 in the output array)
-    String predictedWinner = seasonDataHomeTeam[simulationIndex].getTeamName();
-    String predictedLoser = seasonDataAwayTeam[simulationIndex].getTeamName();
-    Double predictedWinningProbability = networkOutput[0];
-    Double predictedLosingProbability = networkOutput[1];
-    NetworkMetrics metrics = networkMetricsCache.get(network);
-    if (networkOutput[1] >= networkOutput[0]) {
-      // Unless RHS (index 1 in the output array) wins
-      predictedWinner = seasonDataAwayTeam[simulationIndex].getTeamName();
-      predictedLoser = seasonDataHomeTeam[simulationIndex].getTeamName();
-      predictedWinningProbability = networkOutput[1];
-      predictedLosingProbability = networkOutput[0];
-    }
-    //
-    // If the predicted winner is the actual winner, the network picked correctly.
-    if (predictedWinner.equalsIgnoreCase(tournamentResult.getWinningTeamName())) {
-      ret = true;
-    } else {
-      // Otherwise, the network did not pick correctly
+    if (numberOfCorrectPicks < 2) {
+      // The network did not pick correctly (at least once)
       metrics.getIncorrectPicks().add(tournamentResult);
     }
     if (log.isDebugEnabled()) {
-      log.debug(
-          "Predicted results: " + predictedWinner + " should defeat " + predictedLoser +
-              " (W/L Probabilities: " + predictedWinningProbability + " / " + predictedLosingProbability + "), " +
-              "Actual winner: " + tournamentResult.getWinningTeamName() + "(" + tournamentResult.getGameDate() +
-              ": def. " + tournamentResult.getLosingTeamName() + ": score " + tournamentResult.getWinningScore() + "-"
-              + tournamentResult.getLosingScore() + ")");
+      log.debug("Correct picks: " + numberOfCorrectPicks + " of 2, Actual winner: "
+          + tournamentResult.getWinningTeamName() + "(" + tournamentResult.getGameDate() + ": def. "
+          + tournamentResult.getLosingTeamName() + ": score " + tournamentResult.getWinningScore() + "-"
+          + tournamentResult.getLosingScore() + ")");
     }
-    return ret;
   }
 
   /**
@@ -742,6 +1653,12 @@ public class MlpNetworkTrainer implements LearningEventListener {
     metrics.setTotalIterationTime(metrics.getTotalIterationTime() + metrics.getIterationTime());
     metrics.setTotalNumberOfGames(metrics.getTotalNumberOfGames() + metrics.getNumberOfGamesThisIteration());
     metrics.setTotalNumberOfWins(metrics.getTotalNumberOfWins() + metrics.getNumberOfWinsThisIteration());
+    metrics.setTotalNumberOfSymmetricWins(
+        metrics.getTotalNumberOfSymmetricWins() + metrics.getNumberOfSymmetricWinsThisIteration());
+    metrics.setTotalNumberOfSymmetricLosses(
+        metrics.getTotalNumberOfSymmetricLosses() + metrics.getNumberOfSymmetricLossesThisIteration());
+    metrics.setTotalNumberOfAsymmetricWins(
+        metrics.getTotalNumberOfAsymmetricWins() + metrics.getNumberOfAsymmetricWinsThisIteration());
     //
     // Calculate winning percentage
     BigDecimal winningPercentage = BigDecimal
@@ -838,7 +1755,7 @@ public class MlpNetworkTrainer implements LearningEventListener {
     // String momentum = BigDecimal.valueOf(learningRule.getMomentum()).setScale(5,
     // RoundingMode.HALF_UP).toPlainString();
     String networkError =
-        BigDecimal.valueOf(100.0 * learningRule.getTotalNetworkError()).setScale(2, RoundingMode.HALF_UP)
+        BigDecimal.valueOf(100.0 * computeTrainedNetworkError(network)).setScale(2, RoundingMode.HALF_UP)
             .toPlainString();
     BigDecimal winningPercentage = BigDecimal
         .valueOf(100.0 * metrics.getNumberOfWinsThisIteration() / metrics.getNumberOfGamesThisIteration()).setScale(5,
@@ -865,7 +1782,7 @@ public class MlpNetworkTrainer implements LearningEventListener {
         // + "-Mom_" + momentum
         + "-Dt_" + date
         + "-TotErr_" + networkError
-        + "-winpct_" + winningPercentage + "_" + metrics.getNumberOfAcceptableNetworks()
+        + "-winpct_" + winningPercentage + "_" + nextNetworkSequenceNumber(metrics.getLayerStructure())
         + NetworkProperties.getNetworkFileExtension();
     log.info("*** PERFORMANCE THRESHOLD EXCEEDED ON ITERATION " + metrics.getNumberOfIterationsSoFar() + " ***");
     logNetworkInfo(metrics, neuronProperties, (MomentumBackpropagation) network.getLearningRule());
@@ -875,6 +1792,19 @@ public class MlpNetworkTrainer implements LearningEventListener {
     log.info("Network saved as: \n" + filename);
   }
 
+  /**
+   * Returns the next sequence number for a saved network with the specified layer structure
+   * (0 for the first one, then 1, and so on).
+   * 
+   * @param layerStructure
+   *          The NxNxN layer structure string of the network.
+   * 
+   * @return int - the sequence number.
+   */
+  private int nextNetworkSequenceNumber(String layerStructure) {
+    return networkSequenceNumbers.computeIfAbsent(layerStructure, key -> new AtomicInteger()).getAndIncrement();
+  }
+
   /**
    * Prints final stats for the network.
    */
@@ -883,6 +1813,9 @@ public class MlpNetworkTrainer implements LearningEventListener {
     for (MultiLayerPerceptron network : networkMetricsCache.keySet()) {
       logIterationStatsForNetwork(network);
     }
+    if (seasonDataDao instanceof CachingSeasonDataDao) {
+      ((CachingSeasonDataDao) seasonDataDao).logStatistics();
+    }
   }
 
   /**
@@ -896,6 +1829,9 @@ public class MlpNetworkTrainer implements LearningEventListener {
     log.info(
         "* Iteration duration              : " + (metrics.getIterationTime()) / 1000 + "s");
     log.info("* Number of aborted runs          : " + metrics.getNumberOfAbortedRuns());
+    log.info("* Number of early aborted runs    : " + metrics.getNumberOfEarlyAbortedRuns());
+    log.info("* Learn time saved by early aborts: " + metrics.getTotalSavedLearnTime() / 1000 + "s");
+    log.info("* Number of validation stopped runs: " + metrics.getNumberOfValidationStoppedRuns());
     log.info("* Best Performing network         : "
         + ((metrics.getBestNetworkWinPercentage() == 0.0) ? "N/A"
             : BigDecimal.valueOf(metrics.getBestNetworkWinPercentage()).setScale(2, RoundingMode.HALF_UP) + "%"));
@@ -990,45 +1926,6 @@ public class MlpNetworkTrainer implements LearningEventListener {
 
   }
 
-  /**
-   * Runs the specified network using the double array as input data. This data should
-   * be normalized or things will get real weird, real quick.
-   * 
-   * @param network
-   *          The MLP network to be run
-   * @param input
-   *          The normalized input data to use to run the network
-   * @return double[] - The network's "answers" from running the network. For the networks
-   *         CTV'd with input data created by DataCreator, this means two doubles, whose range is
-   *         between 0.0 and 1.0:
-   *         <ol>
-   *         <li>ret[0] - The probability the Home team wins (Away team loses)</li>
-   *         <li>ret[1] - The probability the Home team loses (Away team wins)</li>
-   *         </ol>
-   */
-  protected double[] runNetwork(MultiLayerPerceptron network, double[] input) {
-    double[] ret;
-    network.setInput(input);
-    network.calculate();
-    // Return value is the network's output
-    ret = network.getOutput();
-    if (log.isTraceEnabled()) {
-      StringBuilder sb = new StringBuilder();
-      sb.append("Comparison: Input to Output:\n");
-      sb.append("Input : ");
-      sb.append(Arrays.toString(input));
-      sb.append('\n');
-      sb.append("Output: ");
-      sb.append(Arrays.toString(ret));
-      log.trace(sb.toString());
-    }
-    if (log.isTraceEnabled()) {
-      log.trace("Network Input : " + Arrays.toString(input));
-      log.trace("Network Output: " + Arrays.toString(ret));
-    }
-    return ret;
-  }
-
   /**
    * Handles the Neuroph LearningEvent event triggered by the Neuroph framework.
    * After each epoch we need to determine what the network error is doing: is it getting
@@ -1043,32 +1940,37 @@ public class MlpNetworkTrainer implements LearningEventListener {
   public void handleLearningEvent(LearningEvent event) {
     MomentumBackpropagation mbp = (MomentumBackpropagation) event.getSource();
     double currentNetworkError = mbp.getTotalNetworkError();
-    if (mbp.getCurrentIteration() == 1) {
-      log.info("Epoch: " + mbp.getCurrentIteration() + " | Network error: " +
+    int epoch = computeEpoch(mbp);
+    if (epoch == 1) {
+      log.info("Epoch: " + epoch + " | Network error: " +
           BigDecimal.valueOf(currentNetworkError * 100.0).setScale(2, RoundingMode.HALF_UP) + "%");
       NetworkMetrics metrics = networkMetricsCache.get(mbp.getNeuralNetwork());
       metrics.setPreviousEpochBreakNetworkError(currentNetworkError);
+      metrics.getLearningCurve().addPoint(epoch, currentNetworkError);
     }
     if (event.getEventType().equals(LearningEvent.Type.LEARNING_STOPPED)) {
-      log.info("Epoch: " + mbp.getCurrentIteration() + " | Network error: " +
+      log.info("Epoch: " + epoch + " | Network error: " +
           BigDecimal.valueOf(currentNetworkError * 100.0).setScale(2, RoundingMode.HALF_UP) + "%");
-      log.info("Training completed in " + mbp.getCurrentIteration() + " Epochs");
+      log.info("Training completed in " + epoch + " Epochs");
     } else {
-      if (log.isTraceEnabled() && mbp.getCurrentIteration() % 100 == 0) {
-        log.trace("Epoch: " + mbp.getCurrentIteration() + " | Network error: " +
+      if (log.isTraceEnabled() && epoch % 100 == 0) {
+        log.trace("Epoch: " + epoch + " | Network error: " +
             BigDecimal.valueOf(currentNetworkError * 100.0).setScale(2, RoundingMode.HALF_UP) + "%");
       }
       //
       // Every epoch break, let's see what's going on
-      if (mbp.getCurrentIteration() % NetworkProperties.getEpochBreakIterationCount() == 0) {
+      if (epoch % NetworkProperties.getEpochBreakIterationCount() == 0) {
         NetworkMetrics metrics = networkMetricsCache.get(mbp.getNeuralNetwork());
         double networkErrorUptrend = currentNetworkError - metrics.getPreviousEpochBreakNetworkError();
         //
         // If the network error is going up, we will randomize the momentum and weights
         /// to nudge the network along (rather than just bailing on this CTV iteration)
+        /// (except for a successive halving candidate, which has a fixed budget, and whose
+        /// weights the next rung picks up from)
         if (metrics.getPreviousEpochBreakNetworkError() != 0.0 &&
             currentNetworkError > metrics.getPreviousEpochBreakNetworkError()
-            && (networkErrorUptrend >= NetworkProperties.getMaxNetworkErrorUptrend())) {
+            && (networkErrorUptrend >= NetworkProperties.getMaxNetworkErrorUptrend())
+            && !halvingCandidates.contains(mbp.getNeuralNetwork())) {
           log.warn("* Network error trending upwards: previous error: "
               + BigDecimal.valueOf(metrics.getPreviousEpochBreakNetworkError() * 100.0).setScale(2,
                   RoundingMode.HALF_UP)
@@ -1082,14 +1984,20 @@ public class MlpNetworkTrainer implements LearningEventListener {
           //
           // Alter the momentum to see if it helps get us out of this upward error trend,
           /// rather than just giving up on this CTV iteration
-          mbp.setMomentum(randomizeMomentum());
-          randomizeNetworkWeights(mbp.getNeuralNetwork());
+          mbp.setMomentum(randomizeMomentum(metrics.getRandom()));
+          randomizeNetworkWeights(mbp.getNeuralNetwork(), metrics.getRandom());
           log.info("Adding another 500 iterations to the max...");
           mbp.setMaxIterations(mbp.getMaxIterations() + 500);
+          //
+          // New weights, new learning curve
+          metrics.getLearningCurve().reset();
+        } else {
+          metrics.getLearningCurve().addPoint(epoch, currentNetworkError);
+          stopLearningIfLearningCurveSaysSo(mbp, metrics);
         }
         //
         // Log stats for the current "epoch break"
-        log.info("Epoch: " + mbp.getCurrentIteration() + " | " +
+        log.info("Epoch: " + epoch + " | " +
             "Current network error: " +
             BigDecimal.valueOf(currentNetworkError * 100.0).setScale(5, RoundingMode.HALF_UP) +
             // currentNetworkError * 100.0 +
@@ -1105,19 +2013,127 @@ public class MlpNetworkTrainer implements LearningEventListener {
             "%");
         metrics.setPreviousEpochBreakNetworkError(currentNetworkError);
       }
+      //
+      // Every so often, see how the network does on the validation years
+      if (NetworkProperties.getValidationEarlyStopping()
+          && epoch % NetworkProperties.getValidationEarlyStoppingInterval() == 0) {
+        checkValidationScore(mbp);
+      }
+      //
+      // Every so often, checkpoint the network being trained (serial sweeps with the dense
+      /// learning rule only, see canCheckpointInFlightNetwork())
+      if (mbp.getNeuralNetwork() == inFlightNetwork && NetworkProperties.getTrainerCheckpointInterval() > 0
+          && epoch % NetworkProperties.getTrainerCheckpointInterval() == 0) {
+        writeInFlightCheckpoint((DenseMomentumBackpropagation) mbp);
+      }
     }
   }
 
+  /**
+   * Checks how the network being trained does on the validation years (using the
+   * {@link ValidationSet}s, so it is cheap enough to do while training), and keeps its
+   * weights if that is the best it has done so far. If the winning percentage has not
+   * gotten any better for the configured number of checks (the patience), stops training.
+   * 
+   * @param mbp
+   *          The learning rule doing the training.
+   */
+  private void checkValidationScore(MomentumBackpropagation mbp) {
+    MultiLayerPerceptron network = (MultiLayerPerceptron) mbp.getNeuralNetwork();
+    NetworkMetrics metrics = networkMetricsCache.get(network);
+    EarlyStoppingMonitor earlyStoppingMonitor = metrics.getEarlyStoppingMonitor();
+    CompiledNetwork compiledNetwork = CompiledNetwork.compile(network);
+    int numberOfWinners = 0;
+    int numberOfGames = 0;
+    for (Integer yearToSimulate : metrics.getSimulationYears()) {
+      ValidationSet validationSet = fetchValidationSet(yearToSimulate);
+      numberOfWinners += validationSet.countCorrectPicks(compiledNetwork);
+      // Each game is simulated twice
+      numberOfGames += validationSet.getNumberOfGames() * 2;
+    }
+    double winningPercentage = 100.0 * numberOfWinners / numberOfGames;
+    boolean isBest = earlyStoppingMonitor.addCheck(computeEpoch(mbp), winningPercentage,
+        mbp.getTotalNetworkError(), network.getWeights());
+    log.info("Epoch: " + computeEpoch(mbp) + " | Validation winning percentage: "
+        + BigDecimal.valueOf(winningPercentage).setScale(2, RoundingMode.HALF_UP) + "% ("
+        + numberOfWinners + "/" + numberOfGames + ")" + (isBest ? " (best so far)"
+            : ", no better for " + earlyStoppingMonitor.getChecksWithoutImprovement() + " check(s)"));
+    if (!mbp.isStopped()
+        && earlyStoppingMonitor.isOutOfPatience(NetworkProperties.getValidationEarlyStoppingPatience())) {
+      log.warn("* Validation winning percentage has not gotten any better since epoch "
+          + earlyStoppingMonitor.getBestEpoch() + ". Stopping training at epoch " + computeEpoch(mbp) + ".");
+      metrics.setNumberOfValidationStoppedRuns(metrics.getNumberOfValidationStoppedRuns() + 1);
+      mbp.stopLearning();
+    }
+  }
+
+  /**
+   * Projects (using the learning curve so far) what the network error will be once all
+   * of the epochs have been used up, and, if there is no way it will be below the max,
+   * stops training now rather than wasting the rest of the epochs. The run then counts
+   * as an aborted run (the network error is above the max), and the learn time saved
+   * (estimated from the average epoch time so far) is added to the metrics.
+   * <p>
+   * Only done when the system is configured to do so, once there are enough points on
+   * the learning curve, and only for regular (full epoch budget) training runs: a sweep
+   * rung is there to score the network, not to get it below the max error.
+   * 
+   * @param mbp
+   *          The learning rule doing the training.
+   * @param metrics
+   *          The network's metrics (with the learning curve).
+   */
+  private void stopLearningIfLearningCurveSaysSo(MomentumBackpropagation mbp, NetworkMetrics metrics) {
+    LearningCurvePredictor learningCurve = metrics.getLearningCurve();
+    int maxIterations = mbp.getMaxIterations() + metrics.getResumedEpochs();
+    if (!NetworkProperties.getLearningCurveEarlyAbort()
+        || maxIterations < NetworkProperties.getMaxLearningIterations()
+        || learningCurve.getNumberOfPoints() < NetworkProperties.getLearningCurveMinPoints()) {
+      return;
+    }
+    int currentIteration = computeEpoch(mbp);
+    double projectedNetworkError = learningCurve.projectError(maxIterations);
+    double abortNetworkError = NetworkProperties.getMaxNetworkError() * NetworkProperties.getLearningCurveAbortMargin();
+    log.info("Learning curve: projected network error at epoch " + maxIterations + ": "
+        + BigDecimal.valueOf(projectedNetworkError * 100.0).setScale(5, RoundingMode.HALF_UP) + "% (abort above "
+        + BigDecimal.valueOf(abortNetworkError * 100.0).setScale(5, RoundingMode.HALF_UP) + "%)");
+    if (projectedNetworkError > abortNetworkError) {
+      long learnTimeSoFar = System.currentTimeMillis() - metrics.getLearnStartTime();
+      long savedLearnTime = learnTimeSoFar * (maxIterations - currentIteration) / mbp.getCurrentIteration();
+      log.warn("* Learning curve says the network error will not get below the max ("
+          + BigDecimal.valueOf(NetworkProperties.getMaxNetworkError() * 100.0).setScale(2, RoundingMode.HALF_UP)
+          + "%) in " + maxIterations + " epochs. Stopping training at epoch " + currentIteration
+          + ", saving about " + savedLearnTime / 1000 + "s.");
+      metrics.setNumberOfEarlyAbortedRuns(metrics.getNumberOfEarlyAbortedRuns() + 1);
+      metrics.setTotalSavedLearnTime(metrics.getTotalSavedLearnTime() + savedLearnTime);
+      mbp.stopLearning();
+    }
+  }
+
+  /**
+   * Returns the epoch the specified learning rule is on, counting the epochs the network was
+   * trained for before its training run was resumed from a checkpoint (if it was).
+   * 
+   * @param mbp
+   *          The learning rule doing the training.
+   * 
+   * @return int - the epoch.
+   */
+  private int computeEpoch(MomentumBackpropagation mbp) {
+    return mbp.getCurrentIteration() + networkMetricsCache.get(mbp.getNeuralNetwork()).getResumedEpochs();
+  }
+
   /**
    * Usage message. Pretty self-explanatory.
    */
   protected static void usage() {
     System.out.println("Usage: ");
     System.out.println("\t" + MlpNetworkTrainer.class.getSimpleName()
-        + " TRAINING_YEAR_1, TRAINING_YEAR_2, ..., TRAINING_YEAR_N SIMULATED_YEAR");
+        + " [" + RESUME_OPTION + "] TRAINING_YEAR_1, TRAINING_YEAR_2, ..., TRAINING_YEAR_N SIMULATED_YEAR");
     System.out.println("\t Where:");
     System.out.println("\t TRAINING_YEAR_x is the year for which training data is to be loaded");
     System.out.println("\t SIMULATED_YEAR is the year for which the sumlation is to run (to build the network)");
+    System.out.println("\t " + RESUME_OPTION + " picks the sweep back up from the last checkpoint (if there is one)");
   }
 
 }
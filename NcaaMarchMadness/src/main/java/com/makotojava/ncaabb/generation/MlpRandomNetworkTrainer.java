@@ -15,7 +15,9 @@
  */
 package com.makotojava.ncaabb.generation;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -25,6 +27,8 @@ import org.springframework.context.annotation.AnnotationConfigApplicationContext
 
 import com.makotojava.ncaabb.springconfig.ApplicationConfig;
 import com.makotojava.ncaabb.util.NetworkProperties;
+import com.makotojava.ncaabb.util.NetworkUtils;
+import com.makotojava.ncaabb.util.PackedTrainingData;
 
 /**
  * Just a little experiment. Trying to figure out the perfect
@@ -35,6 +39,9 @@ import com.makotojava.ncaabb.util.NetworkProperties;
  * There are general guidelines, but they can always be
  * changed. See {@link #randomizeNetwork()} comments for more info.
  * 
+ * With <code>trainer.evolution</code> set, the random networks are just the first
+ * generation, and a {@link TopologyEvolver} takes it from there.
+ * 
  * ***************************
  * **** WARNING ****
  * **** EXPERIMENTAL CODE ****
@@ -77,12 +84,70 @@ public class MlpRandomNetworkTrainer extends MlpNetworkTrainer {
   protected List<List<Integer>> setupNetworksToTry() {
     List<List<Integer>> ret = new ArrayList<>();
     log.info("*** RANDOMIZING NETWORKS ***");
-    for (int aa = 0; aa < MAX_RANDOM_NETWORKS; aa++) {
+    int numberOfNetworks =
+        NetworkProperties.getTrainerEvolution() ? NetworkProperties.getTrainerEvolutionPopulationSize()
+            : MAX_RANDOM_NETWORKS;
+    for (int aa = 0; aa < numberOfNetworks; aa++) {
       ret.add(randomizeNetwork());
     }
     return ret;
   }
 
+  @Override
+  protected void trainNetworks(List<List<Integer>> networks, PackedTrainingData trainingData,
+      Integer[] yearsForTrainingData, Integer[] yearsToSimulate) {
+    if (!NetworkProperties.getTrainerEvolution()) {
+      super.trainNetworks(networks, trainingData, yearsForTrainingData, yearsToSimulate);
+      return;
+    }
+    evolveNetworks(networks, trainingData, yearsForTrainingData, yearsToSimulate);
+  }
+
+  @Override
+  protected int computeTrainerThreadCount() {
+    if (!NetworkProperties.getTrainerEvolution()) {
+      return super.computeTrainerThreadCount();
+    }
+    return NetworkProperties.getTrainerThreadCount() > 1 ? NetworkProperties.getTrainerThreadCount()
+        : Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Evolves the network topology, starting from the specified (random) networks. Each
+   * topology is trained and validated once (however many times evolution comes up with
+   * it), on as many worker threads as <code>trainer.thread.count</code> says, or on every
+   * core if it does not say more than one. The leaderboard is written after every generation.
+   * 
+   * @param networks
+   *          The layer descriptors of the first generation.
+   * @param trainingData
+   *          The data used to train the networks.
+   * @param yearsForTrainingData
+   *          The years the training data came from.
+   * @param yearsToSimulate
+   *          The years to simulate when validating the networks.
+   */
+  private void evolveNetworks(List<List<Integer>> networks, PackedTrainingData trainingData,
+      Integer[] yearsForTrainingData, Integer[] yearsToSimulate) {
+    int threadCount = computeTrainerThreadCount();
+    int numberOfGenerations = NetworkProperties.getTrainerEvolutionGenerations();
+    File leaderboardFile = new File(NetworkUtils.computeTrainerEvolutionLeaderboardFileName());
+    log.info("Evolving " + networks.size() + " networks for " + numberOfGenerations
+        + " generations with DataSet from years " + Arrays.toString(yearsForTrainingData) + " and with "
+        + trainingData.getRowCount() + " rows, using " + threadCount + " worker threads...");
+    TopologyEvolver evolver = new TopologyEvolver(NetworkProperties.getNumberOfInputs(),
+        NetworkProperties.getNumberOfOutputs(), MAX_HIDDEN_LAYERS, NetworkProperties.getTrainerEvolutionMaxNeurons(),
+        NetworkProperties.getTrainerEvolutionMutationRate(), createRandom(0, 0));
+    List<TopologyEvolver.Entry> leaderboard = evolver.evolve(networks, numberOfGenerations,
+        (neuronLayerDescriptor, generation, candidateIndex) -> trainAndScoreTopology(neuronLayerDescriptor,
+            trainingData, yearsToSimulate, createRandom(generation + 1, candidateIndex)),
+        threadCount, leaderboardFile);
+    log.info("**** TOPOLOGY LEADERBOARD (" + leaderboardFile.getPath() + ") ****");
+    for (int aa = 0; aa < leaderboard.size() && aa < MAX_RANDOM_NETWORKS; aa++) {
+      log.info((aa + 1) + ". " + leaderboard.get(aa));
+    }
+  }
+
   /**
    * Randomize, well, pretty much everything about the hidden layers,
    * including the number of hidden layers, and the number of neurons
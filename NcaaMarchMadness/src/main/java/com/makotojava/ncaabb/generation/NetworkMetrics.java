@@ -15,7 +15,9 @@
  */
 package com.makotojava.ncaabb.generation;
 
+import java.io.Serializable;
 import java.util.Comparator;
+import java.util.Random;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -41,15 +43,19 @@ import com.makotojava.ncaabb.model.TournamentResult;
  * @author J Steven Perry
  *
  */
-public class NetworkMetrics implements Comparator<NetworkMetrics> {
+public class NetworkMetrics implements Comparator<NetworkMetrics>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
   /**
    * Keep track of the incorrect picks. All CTV iterations.
    */
   private Set<TournamentResult> incorrectPicks;
   /**
-   * The Neuroph NeuronProperties metadata object
+   * The Neuroph NeuronProperties metadata object. Set again for every
+   * CTV iteration, so it is not part of a {@link TrainingCheckpoint}.
    */
-  private NeuronProperties neuronProperties;
+  private transient NeuronProperties neuronProperties;
   /**
    * String representation of the network structure of the network
    */
@@ -193,6 +199,36 @@ public class NetworkMetrics implements Comparator<NetworkMetrics> {
    * rather than try and keep training the current network.
    */
   private int numberOfAbortedRuns = 0;
+  /**
+   * Number of runs that were stopped before using up all of their epochs,
+   * because the learning curve said they were never going to make it.
+   */
+  private int numberOfEarlyAbortedRuns = 0;
+  /**
+   * The (estimated) learn time saved by stopping those runs early,
+   * in milliseconds.
+   */
+  private long totalSavedLearnTime = 0;
+  /**
+   * The learning curve of the current CTV iteration's training run.
+   */
+  private LearningCurvePredictor learningCurve;
+  /**
+   * Number of runs that were stopped before using up all of their epochs,
+   * because their validation score had stopped getting better.
+   */
+  private int numberOfValidationStoppedRuns = 0;
+  /**
+   * The validation checks (and best weights) of the current CTV iteration's
+   * training run.
+   */
+  private EarlyStoppingMonitor earlyStoppingMonitor;
+  /**
+   * The number of epochs the current CTV iteration's network had already been
+   * trained for when its training run was resumed (from a {@link TrainingCheckpoint}),
+   * or 0 if it was not.
+   */
+  private int resumedEpochs = 0;
   /**
    * Number of rows of training data used to train the networks.
    * This is the same for all networks.
@@ -203,6 +239,68 @@ public class NetworkMetrics implements Comparator<NetworkMetrics> {
    * see how the network training is progressing.
    */
   private double previousEpochBreakNetworkError = 0.0;
+  /**
+   * The random number generator for the current CTV iteration.
+   * Used for the weights, momentum and training data order, so that
+   * a seeded run can be reproduced.
+   */
+  private Random random;
+
+  /**
+   * Merges the metrics of another CTV iteration of the same network (trained
+   * on a different thread, with its own metrics) into this object. The
+   * all-iterations metrics are combined, and the current iteration metrics
+   * become those of the merged iteration.
+   * 
+   * @param other
+   *          The metrics of the CTV iteration to merge into this object.
+   */
+  public void merge(NetworkMetrics other) {
+    //
+    // All CTV iterations
+    numberOfIterationsSoFar = Math.max(numberOfIterationsSoFar, other.numberOfIterationsSoFar);
+    numberOfAcceptableNetworks += other.numberOfAcceptableNetworks;
+    bestNetworkWinPercentage = Math.max(bestNetworkWinPercentage, other.bestNetworkWinPercentage);
+    worstNetworkWinPercentage = Math.min(worstNetworkWinPercentage, other.worstNetworkWinPercentage);
+    totalNumberOfAsymmetricWins += other.totalNumberOfAsymmetricWins;
+    totalNumberOfSymmetricWins += other.totalNumberOfSymmetricWins;
+    totalNumberOfSymmetricLosses += other.totalNumberOfSymmetricLosses;
+    totalNumberOfWins += other.totalNumberOfWins;
+    totalNumberOfGames += other.totalNumberOfGames;
+    bestLearnTime = Math.min(bestLearnTime, other.bestLearnTime);
+    worstLearnTime = Math.max(worstLearnTime, other.worstLearnTime);
+    totalLearnTime += other.totalLearnTime;
+    bestIterationTime = Math.min(bestIterationTime, other.bestIterationTime);
+    worstIterationTime = Math.max(worstIterationTime, other.worstIterationTime);
+    totalIterationTime += other.totalIterationTime;
+    numberOfAbortedRuns += other.numberOfAbortedRuns;
+    numberOfEarlyAbortedRuns += other.numberOfEarlyAbortedRuns;
+    totalSavedLearnTime += other.totalSavedLearnTime;
+    numberOfValidationStoppedRuns += other.numberOfValidationStoppedRuns;
+    getIncorrectPicks().addAll(other.getIncorrectPicks());
+    //
+    // Current CTV iteration
+    numberOfGamesThisIteration = other.numberOfGamesThisIteration;
+    numberOfAsymmetricWinsThisIteration = other.numberOfAsymmetricWinsThisIteration;
+    numberOfSymmetricWinsThisIteration = other.numberOfSymmetricWinsThisIteration;
+    numberOfSymmetricLossesThisIteration = other.numberOfSymmetricLossesThisIteration;
+    numberOfWinsThisIteration = other.numberOfWinsThisIteration;
+    iterationStartTime = other.iterationStartTime;
+    learnStartTime = other.learnStartTime;
+    iterationLearnTime = other.iterationLearnTime;
+    iterationTime = other.iterationTime;
+    previousEpochBreakNetworkError = other.previousEpochBreakNetworkError;
+    learningCurve = other.learningCurve;
+    earlyStoppingMonitor = other.earlyStoppingMonitor;
+    resumedEpochs = other.resumedEpochs;
+    random = other.random;
+    //
+    // Network description
+    neuronProperties = other.neuronProperties;
+    layerStructure = other.layerStructure;
+    simulationYears = other.simulationYears;
+    numberOfTrainingDataRows = other.numberOfTrainingDataRows;
+  }
   
   
   public int getNumberOfAcceptableNetworks() {
@@ -447,5 +545,69 @@ public class NetworkMetrics implements Comparator<NetworkMetrics> {
   public void setPreviousEpochBreakNetworkError(double previousEpochBreakNetworkError) {
     this.previousEpochBreakNetworkError = previousEpochBreakNetworkError;
   }
-  
-}
\ No newline at end of file
+
+  public int getNumberOfEarlyAbortedRuns() {
+    return numberOfEarlyAbortedRuns;
+  }
+
+  public void setNumberOfEarlyAbortedRuns(int numberOfEarlyAbortedRuns) {
+    this.numberOfEarlyAbortedRuns = numberOfEarlyAbortedRuns;
+  }
+
+  public long getTotalSavedLearnTime() {
+    return totalSavedLearnTime;
+  }
+
+  public void setTotalSavedLearnTime(long totalSavedLearnTime) {
+    this.totalSavedLearnTime = totalSavedLearnTime;
+  }
+
+  public LearningCurvePredictor getLearningCurve() {
+    if (learningCurve == null) {
+      learningCurve = new LearningCurvePredictor();
+    }
+    return learningCurve;
+  }
+
+  public void setLearningCurve(LearningCurvePredictor learningCurve) {
+    this.learningCurve = learningCurve;
+  }
+
+  public int getNumberOfValidationStoppedRuns() {
+    return numberOfValidationStoppedRuns;
+  }
+
+  public void setNumberOfValidationStoppedRuns(int numberOfValidationStoppedRuns) {
+    this.numberOfValidationStoppedRuns = numberOfValidationStoppedRuns;
+  }
+
+  public EarlyStoppingMonitor getEarlyStoppingMonitor() {
+    if (earlyStoppingMonitor == null) {
+      earlyStoppingMonitor = new EarlyStoppingMonitor();
+    }
+    return earlyStoppingMonitor;
+  }
+
+  public void setEarlyStoppingMonitor(EarlyStoppingMonitor earlyStoppingMonitor) {
+    this.earlyStoppingMonitor = earlyStoppingMonitor;
+  }
+
+  public int getResumedEpochs() {
+    return resumedEpochs;
+  }
+
+  public void setResumedEpochs(int resumedEpochs) {
+    this.resumedEpochs = resumedEpochs;
+  }
+
+  public Random getRandom() {
+    if (random == null) {
+      random = new Random();
+    }
+    return random;
+  }
+
+  public void setRandom(Random random) {
+    this.random = random;
+  }
+}
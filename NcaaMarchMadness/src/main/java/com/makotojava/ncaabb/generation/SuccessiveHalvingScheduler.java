@@ -0,0 +1,261 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.generation;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Successive halving scheduler for sweeps over a bunch of candidates (network
+ * layer structures, normally).
+ * <p>
+ * Rather than giving every candidate the full epoch budget, every candidate is
+ * trained with a small budget (the first "rung"), and the candidates are ranked
+ * by their score (validation winning percentage, normally). Only the best
+ * <code>1/reductionFactor</code> of them move on to the next rung, where they get
+ * <code>reductionFactor</code> times the epochs, and so on, until the survivors
+ * have had the full budget. Survivors pick up where they left off, so a candidate
+ * that makes it all the way is trained for the full budget exactly once.
+ * <p>
+ * The training itself is up to the {@link CandidateTrainer}. The candidates in a rung
+ * can be trained at the same time, on the threads of an ExecutorService (see
+ * {@link #run(int, CandidateTrainer, ExecutorService)}), since each one only depends
+ * on how far it got in the rungs before.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class SuccessiveHalvingScheduler {
+
+  private static final Logger log = Logger.getLogger(SuccessiveHalvingScheduler.class);
+
+  /**
+   * Trains (and scores) a single candidate.
+   */
+  @FunctionalInterface
+  public interface CandidateTrainer {
+    /**
+     * Trains the specified candidate from <code>fromEpochs</code> (0 means it has not
+     * been trained yet) up to <code>toEpochs</code> epochs, and scores it.
+     *
+     * @return double - the candidate's score (higher is better).
+     */
+    double train(int candidateIndex, int fromEpochs, int toEpochs);
+  }
+
+  /**
+   * How far a candidate got, and how it scored when it got there.
+   */
+  public static class Result {
+    private final int candidateIndex;
+    private int epochs;
+    private double score = Double.NEGATIVE_INFINITY;
+    private int rung = -1;
+
+    private Result(int candidateIndex) {
+      this.candidateIndex = candidateIndex;
+    }
+
+    public int getCandidateIndex() {
+      return candidateIndex;
+    }
+
+    /**
+     * @return int - the number of epochs the candidate was trained for.
+     */
+    public int getEpochs() {
+      return epochs;
+    }
+
+    /**
+     * @return double - the candidate's score at the last rung it made it to.
+     */
+    public double getScore() {
+      return score;
+    }
+
+    /**
+     * @return int - the last rung the candidate made it to (0 is the first).
+     */
+    public int getRung() {
+      return rung;
+    }
+
+    @Override
+    public String toString() {
+      return "Candidate #" + candidateIndex + ": rung " + rung + ", " + epochs + " epochs, score "
+          + (Double.isInfinite(score) ? "n/a" : BigDecimal.valueOf(score).setScale(2, RoundingMode.HALF_UP));
+    }
+  }
+
+  private final int minEpochs;
+  private final int maxEpochs;
+  private final int reductionFactor;
+
+  /**
+   * Constructor.
+   *
+   * @param minEpochs
+   *          The epoch budget for the first rung.
+   * @param maxEpochs
+   *          The full epoch budget (the budget for the last rung).
+   * @param reductionFactor
+   *          How much the number of candidates goes down (and the epoch budget
+   *          goes up) from one rung to the next. Must be at least 2.
+   */
+  public SuccessiveHalvingScheduler(int minEpochs, int maxEpochs, int reductionFactor) {
+    if (minEpochs < 1 || maxEpochs < minEpochs || reductionFactor < 2) {
+      throw new IllegalArgumentException("Invalid successive halving settings: minEpochs=" + minEpochs
+          + ", maxEpochs=" + maxEpochs + ", reductionFactor=" + reductionFactor);
+    }
+    this.minEpochs = minEpochs;
+    this.maxEpochs = maxEpochs;
+    this.reductionFactor = reductionFactor;
+  }
+
+  /**
+   * @return List - the epoch budget for each rung, from the first to the last.
+   */
+  public List<Integer> computeRungBudgets() {
+    List<Integer> ret = new ArrayList<>();
+    long budget = minEpochs;
+    while (budget < maxEpochs) {
+      ret.add((int) budget);
+      budget *= reductionFactor;
+    }
+    ret.add(maxEpochs);
+    return ret;
+  }
+
+  /**
+   * Runs the sweep over the specified number of candidates.
+   *
+   * @param numberOfCandidates
+   *          The number of candidates.
+   * @param candidateTrainer
+   *          Trains and scores the candidates.
+   *
+   * @return List - the results for all of the candidates, best first: the ones that
+   *         made it furthest, and within those, the ones that scored highest.
+   */
+  public List<Result> run(int numberOfCandidates, CandidateTrainer candidateTrainer) {
+    return run(numberOfCandidates, candidateTrainer, null);
+  }
+
+  /**
+   * Runs the sweep over the specified number of candidates, training the candidates in
+   * each rung on the threads of the specified ExecutorService. The results are the same
+   * as for a serial run, as long as the candidates are trained independently of each other.
+   *
+   * @param numberOfCandidates
+   *          The number of candidates.
+   * @param candidateTrainer
+   *          Trains and scores the candidates. Called from the ExecutorService's threads.
+   * @param executorService
+   *          The threads to train the candidates on (null to train them one after another,
+   *          on the calling thread).
+   *
+   * @return List - the results for all of the candidates, best first: the ones that
+   *         made it furthest, and within those, the ones that scored highest.
+   *
+   * @throws RuntimeException
+   *           If the thread is interrupted, or training a candidate fails.
+   */
+  public List<Result> run(int numberOfCandidates, CandidateTrainer candidateTrainer,
+      ExecutorService executorService) {
+    List<Result> ret = new ArrayList<>();
+    for (int candidateIndex = 0; candidateIndex < numberOfCandidates; candidateIndex++) {
+      ret.add(new Result(candidateIndex));
+    }
+    Comparator<Result> bestFirst = Comparator.comparingInt(Result::getRung).reversed()
+        .thenComparing(Comparator.comparingDouble(Result::getScore).reversed())
+        .thenComparingInt(Result::getCandidateIndex);
+    List<Result> survivors = new ArrayList<>(ret);
+    List<Integer> rungBudgets = computeRungBudgets();
+    long epochsUsed = 0;
+    for (int rung = 0; rung < rungBudgets.size() && !survivors.isEmpty(); rung++) {
+      int budget = rungBudgets.get(rung);
+      log.info("Successive halving rung " + rung + ": training " + survivors.size() + " candidate(s) to " + budget
+          + " epochs...");
+      double[] scores = trainRung(survivors, budget, candidateTrainer, executorService);
+      for (int aa = 0; aa < survivors.size(); aa++) {
+        Result result = survivors.get(aa);
+        epochsUsed += budget - result.epochs;
+        result.epochs = budget;
+        result.score = Double.isNaN(scores[aa]) ? Double.NEGATIVE_INFINITY : scores[aa];
+        result.rung = rung;
+      }
+      survivors.sort(bestFirst);
+      int numberOfSurvivors = (survivors.size() + reductionFactor - 1) / reductionFactor;
+      log.info("Successive halving rung " + rung + " results (best first): " + survivors);
+      survivors = new ArrayList<>(survivors.subList(0, numberOfSurvivors));
+    }
+    ret.sort(bestFirst);
+    log.info("Successive halving used " + epochsUsed + " epochs, versus "
+        + (long) numberOfCandidates * maxEpochs + " to train every candidate to " + maxEpochs + " epochs.");
+    return ret;
+  }
+
+  /**
+   * Trains the candidates in a rung (on the ExecutorService's threads, if there is one), and
+   * returns their scores, in the same order as the candidates.
+   */
+  private double[] trainRung(List<Result> candidates, int budget, CandidateTrainer candidateTrainer,
+      ExecutorService executorService) {
+    double[] ret = new double[candidates.size()];
+    if (executorService == null) {
+      for (int aa = 0; aa < candidates.size(); aa++) {
+        Result result = candidates.get(aa);
+        ret[aa] = candidateTrainer.train(result.candidateIndex, result.epochs, budget);
+      }
+      return ret;
+    }
+    List<Future<Double>> futures = new ArrayList<>();
+    for (Result result : candidates) {
+      int candidateIndex = result.candidateIndex;
+      int fromEpochs = result.epochs;
+      futures.add(executorService.submit(() -> candidateTrainer.train(candidateIndex, fromEpochs, budget)));
+    }
+    try {
+      for (int aa = 0; aa < futures.size(); aa++) {
+        ret[aa] = futures.get(aa).get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      String message = "Interrupted while waiting for the successive halving candidates to be trained.";
+      log.error(message, e);
+      throw new RuntimeException(message, e);
+    } catch (ExecutionException e) {
+      String message = "Training a successive halving candidate failed: " + e.getCause().getLocalizedMessage();
+      log.error(message, e);
+      throw new RuntimeException(message, e.getCause());
+    } finally {
+      for (Future<Double> future : futures) {
+        future.cancel(true);
+      }
+    }
+    return ret;
+  }
+
+}
@@ -0,0 +1,403 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.generation;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+
+import com.makotojava.ncaabb.util.NetworkUtils;
+
+/**
+ * Evolutionary search for a good network topology (the number of hidden layers, and
+ * the number of neurons in each).
+ * <p>
+ * Each generation, every topology in the population is scored (trained and validated,
+ * normally) by the {@link FitnessFunction}, on a pool of worker threads. The best
+ * topologies (the elite) make it into the next generation as they are, and the rest
+ * of the next generation are children: two parents are picked (the better of two
+ * random topologies, twice), their hidden layers are crossed over, and the child is
+ * mutated (layers grow, shrink, appear and disappear).
+ * <p>
+ * Every score is kept in a fitness cache, keyed by topology, so a topology is only
+ * ever scored once, no matter how many times evolution comes up with it. The cache,
+ * best first, is the leaderboard.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class TopologyEvolver {
+
+  private static final Logger log = Logger.getLogger(TopologyEvolver.class);
+
+  /**
+   * How many times to try to come up with a child that has not been scored yet
+   * before settling for one that has.
+   */
+  private static final int MAX_CHILD_ATTEMPTS = 10;
+
+  /**
+   * Scores a single topology.
+   */
+  @FunctionalInterface
+  public interface FitnessFunction {
+    /**
+     * Scores the specified topology. Called from the worker threads.
+     *
+     * @param neuronLayerDescriptor
+     *          The complete layer structure (input layer, hidden layers, output layer).
+     * @param generation
+     *          The generation (0 is the first).
+     * @param candidateIndex
+     *          The index of the topology in the generation's population.
+     *
+     * @return double - the topology's fitness (higher is better).
+     */
+    double evaluate(List<Integer> neuronLayerDescriptor, int generation, int candidateIndex);
+  }
+
+  /**
+   * A topology and its score: one line of the leaderboard.
+   */
+  public static class Entry {
+    private final List<Integer> neuronLayerDescriptor;
+    private final double fitness;
+    private final int generation;
+
+    private Entry(List<Integer> neuronLayerDescriptor, double fitness, int generation) {
+      this.neuronLayerDescriptor = neuronLayerDescriptor;
+      this.fitness = fitness;
+      this.generation = generation;
+    }
+
+    public List<Integer> getNeuronLayerDescriptor() {
+      return neuronLayerDescriptor;
+    }
+
+    public double getFitness() {
+      return fitness;
+    }
+
+    /**
+     * @return int - the generation the topology was scored in.
+     */
+    public int getGeneration() {
+      return generation;
+    }
+
+    @Override
+    public String toString() {
+      return NetworkUtils.generateLayerStructureString(neuronLayerDescriptor) + ": "
+          + (Double.isInfinite(fitness) ? "n/a" : BigDecimal.valueOf(fitness).setScale(2, RoundingMode.HALF_UP))
+          + " (generation " + generation + ")";
+    }
+  }
+
+  private final int numberOfInputs;
+  private final int numberOfOutputs;
+  private final int maxHiddenLayers;
+  private final int maxNeuronsPerLayer;
+  private final double mutationRate;
+  private final Random random;
+
+  /**
+   * The fitness cache: topology -> score
+   */
+  private final Map<List<Integer>, Entry> fitnessCache = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param numberOfInputs
+   *          The number of neurons in the input layer (fixed).
+   * @param numberOfOutputs
+   *          The number of neurons in the output layer (fixed).
+   * @param maxHiddenLayers
+   *          The most hidden layers a topology can have.
+   * @param maxNeuronsPerLayer
+   *          The most neurons a hidden layer can have.
+   * @param mutationRate
+   *          The chance (0.0 to 1.0) of each mutation happening to a child.
+   * @param random
+   *          The random number generator used to evolve the topologies.
+   */
+  public TopologyEvolver(int numberOfInputs, int numberOfOutputs, int maxHiddenLayers, int maxNeuronsPerLayer,
+      double mutationRate, Random random) {
+    if (maxHiddenLayers < 1 || maxNeuronsPerLayer < 1 || mutationRate < 0.0 || mutationRate > 1.0) {
+      throw new IllegalArgumentException("Invalid topology evolution settings: maxHiddenLayers=" + maxHiddenLayers
+          + ", maxNeuronsPerLayer=" + maxNeuronsPerLayer + ", mutationRate=" + mutationRate);
+    }
+    this.numberOfInputs = numberOfInputs;
+    this.numberOfOutputs = numberOfOutputs;
+    this.maxHiddenLayers = maxHiddenLayers;
+    this.maxNeuronsPerLayer = maxNeuronsPerLayer;
+    this.mutationRate = mutationRate;
+    this.random = random;
+  }
+
+  /**
+   * Evolves the specified population.
+   *
+   * @param initialPopulation
+   *          The topologies of the first generation (its size is the population size).
+   * @param numberOfGenerations
+   *          The number of generations to score.
+   * @param fitnessFunction
+   *          Scores the topologies.
+   * @param threadCount
+   *          The number of worker threads to score the topologies on.
+   * @param leaderboardFile
+   *          Where to write the leaderboard after each generation (null to not write it).
+   *
+   * @return List - the leaderboard: every topology that was scored, best first.
+   */
+  public List<Entry> evolve(List<List<Integer>> initialPopulation, int numberOfGenerations,
+      FitnessFunction fitnessFunction, int threadCount, File leaderboardFile) {
+    for (List<Integer> neuronLayerDescriptor : initialPopulation) {
+      if (neuronLayerDescriptor.size() < 3) {
+        throw new IllegalArgumentException("Every topology needs at least one hidden layer: "
+            + NetworkUtils.generateLayerStructureString(neuronLayerDescriptor));
+      }
+    }
+    List<List<Integer>> population = new ArrayList<>(initialPopulation);
+    ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, threadCount));
+    try {
+      for (int generation = 0; generation < numberOfGenerations; generation++) {
+        log.info("Topology evolution generation " + generation + ": " + population.size() + " topologies, "
+            + fitnessCache.size() + " scored so far...");
+        List<Entry> scored = score(population, generation, fitnessFunction, executorService);
+        scored.sort(bestFirst());
+        log.info("Topology evolution generation " + generation + " results (best first): " + scored);
+        if (leaderboardFile != null) {
+          writeLeaderboard(leaderboardFile);
+        }
+        if (generation < numberOfGenerations - 1) {
+          population = breed(scored, initialPopulation.size());
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      String message = "Interrupted while waiting for the topologies to be scored.";
+      log.error(message, e);
+      throw new RuntimeException(message, e);
+    } catch (ExecutionException e) {
+      String message = "Scoring a topology failed: " + e.getCause().getLocalizedMessage();
+      log.error(message, e);
+      throw new RuntimeException(message, e.getCause());
+    } finally {
+      executorService.shutdownNow();
+    }
+    return getLeaderboard();
+  }
+
+  /**
+   * @return List - every topology scored so far, best first.
+   */
+  public List<Entry> getLeaderboard() {
+    List<Entry> ret = new ArrayList<>(fitnessCache.values());
+    ret.sort(bestFirst());
+    return ret;
+  }
+
+  /**
+   * Writes the leaderboard to the specified (text) file: one line per topology, best first.
+   * Written under a temporary name first, then renamed, so a reader never sees half a file.
+   *
+   * @param file
+   *          The leaderboard file.
+   */
+  public void writeLeaderboard(File file) {
+    Path target = file.toPath();
+    Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+    try {
+      try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
+        writer.write("# Rank, Fitness, Layer Structure, Generation");
+        writer.newLine();
+        int rank = 1;
+        for (Entry entry : getLeaderboard()) {
+          writer.write(rank++ + "," + entry.getFitness() + ","
+              + NetworkUtils.generateLayerStructureString(entry.getNeuronLayerDescriptor()) + ","
+              + entry.getGeneration());
+          writer.newLine();
+        }
+      }
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      String message = "Could not write leaderboard file '" + file.getPath() + "': " + e.getMessage();
+      log.error(message, e);
+      throw new RuntimeException(message, e);
+    }
+  }
+
+  /**
+   * Scores the population. Topologies that are already in the fitness cache (or show up
+   * more than once in the population) are not scored again.
+   *
+   * @return List - the score of each (distinct) topology in the population.
+   */
+  private List<Entry> score(List<List<Integer>> population, int generation, FitnessFunction fitnessFunction,
+      ExecutorService executorService) throws InterruptedException, ExecutionException {
+    Map<List<Integer>, Future<Double>> futures = new LinkedHashMap<>();
+    for (int candidateIndex = 0; candidateIndex < population.size(); candidateIndex++) {
+      List<Integer> neuronLayerDescriptor = population.get(candidateIndex);
+      if (!fitnessCache.containsKey(neuronLayerDescriptor) && !futures.containsKey(neuronLayerDescriptor)) {
+        final int index = candidateIndex;
+        futures.put(neuronLayerDescriptor,
+            executorService.submit(() -> fitnessFunction.evaluate(neuronLayerDescriptor, generation, index)));
+      }
+    }
+    for (Map.Entry<List<Integer>, Future<Double>> future : futures.entrySet()) {
+      double fitness = future.getValue().get();
+      fitnessCache.put(future.getKey(),
+          new Entry(future.getKey(), Double.isNaN(fitness) ? Double.NEGATIVE_INFINITY : fitness, generation));
+    }
+    List<Entry> ret = new ArrayList<>();
+    for (List<Integer> neuronLayerDescriptor : new LinkedHashSet<>(population)) {
+      ret.add(fitnessCache.get(neuronLayerDescriptor));
+    }
+    log.info("Topology evolution generation " + generation + ": scored " + futures.size() + " new topologies ("
+        + (population.size() - futures.size()) + " from the fitness cache)");
+    return ret;
+  }
+
+  /**
+   * Breeds the next generation from the scored (best first) topologies of this one.
+   */
+  List<List<Integer>> breed(List<Entry> scored, int populationSize) {
+    Set<List<Integer>> ret = new LinkedHashSet<>();
+    //
+    // The elite make it as they are
+    int eliteCount = Math.max(1, populationSize / 5);
+    for (int aa = 0; aa < eliteCount && aa < scored.size(); aa++) {
+      ret.add(scored.get(aa).getNeuronLayerDescriptor());
+    }
+    //
+    // And the rest are children. Try not to waste a slot on a topology that has already been scored.
+    while (ret.size() < populationSize) {
+      List<Integer> child = null;
+      for (int attempt = 0; attempt < MAX_CHILD_ATTEMPTS; attempt++) {
+        child = mutate(crossover(select(scored), select(scored)));
+        if (!fitnessCache.containsKey(child) && !ret.contains(child)) {
+          break;
+        }
+      }
+      if (!ret.add(child)) {
+        //
+        // Nothing new came up: let a brand new random topology have the slot
+        ret.add(createRandomTopology());
+      }
+    }
+    return new ArrayList<>(ret);
+  }
+
+  /**
+   * Tournament selection: the better of two random topologies.
+   */
+  private List<Integer> select(List<Entry> scored) {
+    Entry first = scored.get(random.nextInt(scored.size()));
+    Entry second = scored.get(random.nextInt(scored.size()));
+    return (first.getFitness() >= second.getFitness() ? first : second).getNeuronLayerDescriptor();
+  }
+
+  /**
+   * One-point crossover of the hidden layers: the first hidden layers of one parent, followed
+   * by the last hidden layers of the other.
+   */
+  List<Integer> crossover(List<Integer> firstParent, List<Integer> secondParent) {
+    List<Integer> firstHiddenLayers = firstParent.subList(1, firstParent.size() - 1);
+    List<Integer> secondHiddenLayers = secondParent.subList(1, secondParent.size() - 1);
+    List<Integer> hiddenLayers = new ArrayList<>();
+    hiddenLayers.addAll(firstHiddenLayers.subList(0, 1 + random.nextInt(firstHiddenLayers.size())));
+    hiddenLayers.addAll(secondHiddenLayers.subList(random.nextInt(secondHiddenLayers.size() + 1),
+        secondHiddenLayers.size()));
+    return createTopology(hiddenLayers);
+  }
+
+  /**
+   * Mutates the hidden layers: each one may grow or shrink (by up to half), and a hidden
+   * layer may be added or taken away.
+   */
+  List<Integer> mutate(List<Integer> neuronLayerDescriptor) {
+    List<Integer> hiddenLayers = new ArrayList<>(neuronLayerDescriptor.subList(1, neuronLayerDescriptor.size() - 1));
+    for (int aa = 0; aa < hiddenLayers.size(); aa++) {
+      if (random.nextDouble() < mutationRate) {
+        hiddenLayers.set(aa, (int) Math.round(hiddenLayers.get(aa) * (0.5 + random.nextDouble())));
+      }
+    }
+    if (random.nextDouble() < mutationRate) {
+      if (random.nextBoolean() && hiddenLayers.size() > 1) {
+        hiddenLayers.remove(random.nextInt(hiddenLayers.size()));
+      } else {
+        int position = random.nextInt(hiddenLayers.size() + 1);
+        hiddenLayers.add(position, hiddenLayers.get(Math.min(position, hiddenLayers.size() - 1)));
+      }
+    }
+    return createTopology(hiddenLayers);
+  }
+
+  /**
+   * @return List - a random topology (within the limits).
+   */
+  List<Integer> createRandomTopology() {
+    List<Integer> hiddenLayers = new ArrayList<>();
+    int numberOfHiddenLayers = 1 + random.nextInt(maxHiddenLayers);
+    for (int aa = 0; aa < numberOfHiddenLayers; aa++) {
+      hiddenLayers.add(1 + random.nextInt(maxNeuronsPerLayer));
+    }
+    return createTopology(hiddenLayers);
+  }
+
+  /**
+   * Puts the input and output layers around the specified hidden layers, keeping them
+   * within the limits.
+   */
+  private List<Integer> createTopology(List<Integer> hiddenLayers) {
+    List<Integer> ret = new ArrayList<>();
+    ret.add(numberOfInputs);
+    for (Integer neuronCount : hiddenLayers.subList(0, Math.min(hiddenLayers.size(), maxHiddenLayers))) {
+      ret.add(Math.max(1, Math.min(maxNeuronsPerLayer, neuronCount)));
+    }
+    ret.add(numberOfOutputs);
+    return Collections.unmodifiableList(ret);
+  }
+
+  private static Comparator<Entry> bestFirst() {
+    return Comparator.comparingDouble(Entry::getFitness).reversed()
+        .thenComparing(entry -> NetworkUtils.generateLayerStructureString(entry.getNeuronLayerDescriptor()));
+  }
+
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.generation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Everything needed to pick a training sweep back up where it left off: which CTV
+ * (create/train/validate) iteration is next, the {@link NetworkMetrics} of every layer
+ * structure so far, and (optionally) the network that was being trained when the
+ * checkpoint was written, along with its learning rule's state: the momentum, the last
+ * change made to each weight, and the row order of the last epoch (see
+ * {@link DenseMomentumBackpropagation#resumeFrom(double[], int[])}).
+ * <p>
+ * The sweep itself (the training years, the simulation years and the layer structures)
+ * is recorded too, so a checkpoint is never used to resume a different sweep.
+ * <p>
+ * Written with plain Java serialization (like Neuroph does with networks), under a
+ * temporary name first, then renamed, so a crash while writing a checkpoint leaves
+ * the previous one intact.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class TrainingCheckpoint implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final Logger log = Logger.getLogger(TrainingCheckpoint.class);
+
+  private final Integer[] yearsForTrainingData;
+  private final Integer[] yearsToSimulate;
+  private final List<List<Integer>> networks;
+
+  /**
+   * The next CTV iteration to run (or the one in flight)
+   */
+  private int iterationNumber = 1;
+  /**
+   * The index (in the list of networks) of the next network to run (or the one in flight)
+   */
+  private int networkIndex = 0;
+
+  /**
+   * Layer descriptor -> metrics
+   */
+  private Map<List<Integer>, NetworkMetrics> networkMetrics = new LinkedHashMap<>();
+  /**
+   * Layer structure string -> next saved network sequence number
+   */
+  private Map<String, Integer> networkSequenceNumbers = new HashMap<>();
+
+  /**
+   * The network being trained when the checkpoint was written, if any
+   */
+  private double[] inFlightWeights;
+  private double[] inFlightPreviousWeightChanges;
+  private int[] inFlightRowOrder;
+  private int inFlightEpochs;
+  private int inFlightMaxIterations;
+  private double inFlightMomentum;
+
+  /**
+   * Constructor.
+   *
+   * @param yearsForTrainingData
+   *          The years the training data comes from.
+   * @param yearsToSimulate
+   *          The years simulated when validating the networks.
+   * @param networks
+   *          The layer descriptors of the networks being swept.
+   */
+  public TrainingCheckpoint(Integer[] yearsForTrainingData, Integer[] yearsToSimulate,
+      List<List<Integer>> networks) {
+    this.yearsForTrainingData = yearsForTrainingData.clone();
+    this.yearsToSimulate = yearsToSimulate.clone();
+    this.networks = new ArrayList<>();
+    for (List<Integer> network : networks) {
+      this.networks.add(new ArrayList<>(network));
+    }
+  }
+
+  /**
+   * @return boolean - true if this checkpoint is for the specified sweep.
+   */
+  public boolean isForSweep(Integer[] yearsForTrainingData, Integer[] yearsToSimulate,
+      List<List<Integer>> networks) {
+    return Arrays.equals(this.yearsForTrainingData, yearsForTrainingData)
+        && Arrays.equals(this.yearsToSimulate, yearsToSimulate) && this.networks.equals(networks);
+  }
+
+  /**
+   * Reads the checkpoint in the specified file.
+   *
+   * @param file
+   *          The checkpoint file.
+   *
+   * @return TrainingCheckpoint - the checkpoint.
+   */
+  public static TrainingCheckpoint read(File file) {
+    try (ObjectInputStream inputStream =
+        new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      return (TrainingCheckpoint) inputStream.readObject();
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      String message = "Could not read training checkpoint file '" + file.getPath() + "': " + e.getMessage();
+      log.error(message, e);
+      throw new RuntimeException(message, e);
+    }
+  }
+
+  /**
+   * Writes this checkpoint to the specified file (atomically, see above).
+   *
+   * @param file
+   *          The checkpoint file.
+   */
+  public void write(File file) {
+    Path target = file.toPath();
+    Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+    try {
+      try (ObjectOutputStream outputStream =
+          new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temp.toFile())))) {
+        outputStream.writeObject(this);
+      }
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      String message = "Could not write training checkpoint file '" + file.getPath() + "': " + e.getMessage();
+      log.error(message, e);
+      throw new RuntimeException(message, e);
+    }
+  }
+
+  /**
+   * Records the network being trained right now.
+   *
+   * @param weights
+   *          The network's weights.
+   * @param previousWeightChanges
+   *          The last change made to each weight (same order as the weights).
+   * @param rowOrder
+   *          The order the rows were visited in by the last epoch (null if there is none).
+   * @param epochs
+   *          The number of epochs it has been trained for so far.
+   * @param maxIterations
+   *          The number of epochs it is to be trained for, all told.
+   * @param momentum
+   *          The learning rule's momentum.
+   */
+  public void setInFlight(Double[] weights, double[] previousWeightChanges, int[] rowOrder, int epochs,
+      int maxIterations, double momentum) {
+    inFlightWeights = new double[weights.length];
+    for (int aa = 0; aa < weights.length; aa++) {
+      inFlightWeights[aa] = weights[aa];
+    }
+    inFlightPreviousWeightChanges = previousWeightChanges.clone();
+    inFlightRowOrder = (rowOrder == null) ? null : rowOrder.clone();
+    inFlightEpochs = epochs;
+    inFlightMaxIterations = maxIterations;
+    inFlightMomentum = momentum;
+  }
+
+  /**
+   * Forgets the network being trained (say, because it is done).
+   */
+  public void clearInFlight() {
+    inFlightWeights = null;
+    inFlightPreviousWeightChanges = null;
+    inFlightRowOrder = null;
+    inFlightEpochs = 0;
+    inFlightMaxIterations = 0;
+    inFlightMomentum = 0.0;
+  }
+
+  /**
+   * @return boolean - true if a network was being trained when the checkpoint was written.
+   */
+  public boolean isInFlight() {
+    return inFlightWeights != null;
+  }
+
+  public double[] getInFlightWeights() {
+    return inFlightWeights;
+  }
+
+  public double[] getInFlightPreviousWeightChanges() {
+    return inFlightPreviousWeightChanges;
+  }
+
+  public int[] getInFlightRowOrder() {
+    return inFlightRowOrder;
+  }
+
+  public int getInFlightEpochs() {
+    return inFlightEpochs;
+  }
+
+  public int getInFlightMaxIterations() {
+    return inFlightMaxIterations;
+  }
+
+  public double getInFlightMomentum() {
+    return inFlightMomentum;
+  }
+
+  /**
+   * @return int - the number of networks (layer descriptors) in the sweep.
+   */
+  public int getNumberOfNetworks() {
+    return networks.size();
+  }
+
+  public int getIterationNumber() {
+    return iterationNumber;
+  }
+
+  public void setIterationNumber(int iterationNumber) {
+    this.iterationNumber = iterationNumber;
+  }
+
+  public int getNetworkIndex() {
+    return networkIndex;
+  }
+
+  public void setNetworkIndex(int networkIndex) {
+    this.networkIndex = networkIndex;
+  }
+
+  public Map<List<Integer>, NetworkMetrics> getNetworkMetrics() {
+    return networkMetrics;
+  }
+
+  public void setNetworkMetrics(Map<List<Integer>, NetworkMetrics> networkMetrics) {
+    this.networkMetrics = networkMetrics;
+  }
+
+  public Map<String, Integer> getNetworkSequenceNumbers() {
+    return networkSequenceNumbers;
+  }
+
+  public void setNetworkSequenceNumbers(Map<String, Integer> networkSequenceNumbers) {
+    this.networkSequenceNumbers = networkSequenceNumbers;
+  }
+
+}
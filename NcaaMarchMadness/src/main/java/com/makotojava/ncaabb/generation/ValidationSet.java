@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.generation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import com.makotojava.ncaabb.model.NormalizedFeatureStore;
+import com.makotojava.ncaabb.model.SeasonData;
+import com.makotojava.ncaabb.model.TournamentResult;
+import com.makotojava.ncaabb.simulation.CompiledNetwork;
+
+/**
+ * The tournament games for a single validation year, turned into network input
+ * once, so a network can be validated against them with one batched run of its
+ * {@link CompiledNetwork} rather than a trip through the DAOs (and Neuroph) for
+ * every game.
+ * <p>
+ * Each game is simulated twice, to get rid of any positional bias: row
+ * <code>2 * game</code> has the winner as the home team (LHS), and row
+ * <code>2 * game + 1</code> has the winner as the away team (RHS). Each row is
+ * labeled with the network output that should win (0 for LHS, 1 for RHS).
+ *
+ * @author J Steven Perry
+ *
+ */
+public class ValidationSet {
+
+  private final Integer year;
+  private final List<TournamentResult> tournamentResults;
+  /**
+   * One row of network input per simulation (two per game)
+   */
+  private final double[][] inputs;
+  /**
+   * For each row, the network output (0 for LHS, 1 for RHS) of the actual winner
+   */
+  private final int[] winningOutputs;
+
+  /**
+   * Constructor.
+   *
+   * @param year
+   *          The year.
+   * @param tournamentResults
+   *          The year's tournament games.
+   * @param inputs
+   *          The network input for each simulation of each game (two per game, see above).
+   */
+  ValidationSet(Integer year, List<TournamentResult> tournamentResults, double[][] inputs) {
+    if (inputs.length != tournamentResults.size() * 2) {
+      throw new IllegalArgumentException("Expected " + tournamentResults.size() * 2 + " rows of input for "
+          + tournamentResults.size() + " games, but got " + inputs.length);
+    }
+    this.year = year;
+    this.tournamentResults = Collections.unmodifiableList(new ArrayList<>(tournamentResults));
+    this.inputs = inputs;
+    this.winningOutputs = new int[inputs.length];
+    for (int row = 0; row < inputs.length; row++) {
+      winningOutputs[row] = row % 2;
+    }
+  }
+
+  /**
+   * Creates the validation set for the specified year's tournament games.
+   *
+   * @param year
+   *          The year.
+   * @param tournamentResults
+   *          The year's tournament games.
+   * @param featureStore
+   *          The year's normalized team features.
+   * @param seasonDataByTeamName
+   *          Looks up the year's SeasonData for a team (by name).
+   *
+   * @return ValidationSet - the validation set.
+   */
+  public static ValidationSet create(Integer year, List<TournamentResult> tournamentResults,
+      NormalizedFeatureStore featureStore, Function<String, SeasonData> seasonDataByTeamName) {
+    double[][] inputs = new double[tournamentResults.size() * 2][];
+    for (int game = 0; game < tournamentResults.size(); game++) {
+      TournamentResult tournamentResult = tournamentResults.get(game);
+      SeasonData winner = seasonDataByTeamName.apply(tournamentResult.getWinningTeamName());
+      SeasonData loser = seasonDataByTeamName.apply(tournamentResult.getLosingTeamName());
+      inputs[2 * game] = featureStore.createInput(winner, loser);
+      inputs[2 * game + 1] = featureStore.createInput(loser, winner);
+    }
+    return new ValidationSet(year, tournamentResults, inputs);
+  }
+
+  public Integer getYear() {
+    return year;
+  }
+
+  public List<TournamentResult> getTournamentResults() {
+    return tournamentResults;
+  }
+
+  /**
+   * @return int - the number of games (the number of simulations is twice this).
+   */
+  public int getNumberOfGames() {
+    return tournamentResults.size();
+  }
+
+  /**
+   * Runs the network over every simulation of every game.
+   *
+   * @param compiledNetwork
+   *          The network.
+   *
+   * @return boolean[] - for each simulation (two per game, see above), whether or not
+   *         the network picked the winner.
+   */
+  public boolean[] computeCorrectPicks(CompiledNetwork compiledNetwork) {
+    double[][] outputs = compiledNetwork.calculate(inputs);
+    boolean[] ret = new boolean[outputs.length];
+    for (int row = 0; row < outputs.length; row++) {
+      //
+      // The RHS team wins ties
+      int predictedWinningOutput = (outputs[row][1] >= outputs[row][0]) ? 1 : 0;
+      ret[row] = predictedWinningOutput == winningOutputs[row];
+    }
+    return ret;
+  }
+
+  /**
+   * Runs the network over every simulation of every game.
+   *
+   * @param compiledNetwork
+   *          The network.
+   *
+   * @return int[] - for each game, the number of simulations (0, 1 or 2) where the
+   *         network picked the winner. 2 is a "symmetric" win (the winner was picked
+   *         both as LHS and as RHS), 0 a symmetric loss, and 1 an asymmetric win.
+   */
+  public int[] countCorrectPicksByGame(CompiledNetwork compiledNetwork) {
+    boolean[] correctPicks = computeCorrectPicks(compiledNetwork);
+    int[] ret = new int[tournamentResults.size()];
+    for (int row = 0; row < correctPicks.length; row++) {
+      if (correctPicks[row]) {
+        ret[row / 2]++;
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * @return int - the number of simulations (two per game) where the network picked
+   *         the winner.
+   */
+  public int countCorrectPicks(CompiledNetwork compiledNetwork) {
+    int ret = 0;
+    for (boolean correctPick : computeCorrectPicks(compiledNetwork)) {
+      if (correctPick) {
+        ret++;
+      }
+    }
+    return ret;
+  }
+
+}
@@ -15,6 +15,8 @@
  */
 package com.makotojava.ncaabb.model;
 
+import java.math.BigDecimal;
+
 import org.apache.commons.lang3.tuple.Pair;
 
 import com.makotojava.ncaabb.util.StatsUtils;
@@ -28,16 +30,22 @@ import com.makotojava.ncaabb.util.StatsUtils;
 public class NormalizedData {
 
   /**
-   * Commons lang3 Pair object to hold the pair of SeasonData objects containing
-   * normalized data.
+   * The number of normalized values for a single team. A row of network input
+   * holds two teams' worth, interleaved (LHS, RHS, LHS, RHS, ...).
+   */
+  public static final int NUMBER_OF_FEATURES = 23;
+
+  /**
+   * Commons lang3 Pair object to hold the pair of normalized feature slices
+   * (LHS, RHS).
    */
-  private Pair<SeasonData, SeasonData> seasonDataPair;
+  private Pair<double[], double[]> featureSlicePair;
 
-  private Pair<SeasonData, SeasonData> getSeasonDataPair() {
-    if (seasonDataPair == null) {
-      throw new RuntimeException("Configuration Error! The seasonDataPair object cannot be null!");
+  private Pair<double[], double[]> getFeatureSlicePair() {
+    if (featureSlicePair == null) {
+      throw new RuntimeException("Configuration Error! The featureSlicePair object cannot be null!");
     }
-    return seasonDataPair;
+    return featureSlicePair;
   }
   
   /**
@@ -56,89 +64,92 @@ public class NormalizedData {
    */
   public NormalizedData(SeasonAnalytics seasonAnalytics, SeasonData team1, SeasonData team2) {
     //
-    // Create the Pair object
-    seasonDataPair = Pair.of(new SeasonData(), new SeasonData());
-
-    //
-    // Normalize the left-hand data
-    normalizeData(seasonAnalytics, getSeasonDataPair().getLeft(), team1);
-    //
-    // Normalize the right-hand data
-    normalizeData(seasonAnalytics, getSeasonDataPair().getRight(), team2);
+    // Normalize the left-hand and right-hand data
+    featureSlicePair = Pair.of(createFeatureSlice(seasonAnalytics, team1), createFeatureSlice(seasonAnalytics, team2));
   }
 
   /**
-   * Performs the normalization. This class seems like the place to encapsulate that
-   * logic.
+   * Normalizes a single team's {@link SeasonData} and returns it as a feature slice,
+   * that is, the team's half of a row of network input. Two slices are combined into
+   * a row with {@link #interleave(double[], double[], double[])}.
+   * <p>
+   * The values are in the order the network expects them. Uses the primitive
+   * (double) versions of the StatsUtils normalize methods, which produce the same
+   * values as the BigDecimal versions, only a lot faster.
    * 
    * @param seasonAnalytics
-   *          Needed to perform the normalization.
-   * @param normalized
-   *          The SeasonData object where the normalized data goes (i.e., the destination)
+   *          The SeasonAnalytics object needed to normalize the data.
    * @param raw
-   *          The SeasonData object where the source data comes from (i.e., the source)
+   *          The SeasonData object with raw values (un-normalized)
+   * 
+   * @return double[] - the {@link #NUMBER_OF_FEATURES} normalized values for the team.
+   */
+  public static double[] createFeatureSlice(SeasonAnalytics seasonAnalytics, SeasonData raw) {
+    double[] ret = {
+        // Defense
+        normalizeInverted(raw.getAvgOpponentPointsPerGame(), seasonAnalytics.getMinAvgOpponentPointsPg(),
+            seasonAnalytics.getMaxAvgOpponentPointsPg()),
+        normalize(raw.getBlocksPerGame(), seasonAnalytics.getMinBlocksPg(), seasonAnalytics.getMaxBlocksPg()),
+        normalizeInverted(raw.getNumOpp3pAttemptsPerGame(), seasonAnalytics.getMinNumOpp3pAttemptsPg(),
+            seasonAnalytics.getMaxNumOpp3pAttemptsPg()),
+        normalizeInverted(raw.getOpp3pPercentage(), seasonAnalytics.getMinOpp3pPercentage(),
+            seasonAnalytics.getMaxOpp3pPercentage()),
+        normalizeInverted(raw.getNumOppFgAttemptsPerGame(), seasonAnalytics.getMinNumOppFgAttemptsPg(),
+            seasonAnalytics.getMaxNumOppFgAttemptsPg()),
+        normalizeInverted(raw.getOppFgPercentage(), seasonAnalytics.getMinOppFgPercentage(),
+            seasonAnalytics.getMaxOppFgPercentage()),
+        normalizeInverted(raw.getTurnoversPerGame(), seasonAnalytics.getMinTurnoversPg(),
+            seasonAnalytics.getMaxTurnoversPg()),
+        normalize(raw.getReboundMargin(), seasonAnalytics.getMinReboundMargin(),
+            seasonAnalytics.getMaxReboundMargin()),
+        normalize(raw.getStealsPerGame(), seasonAnalytics.getMinStealsPg(), seasonAnalytics.getMaxStealsPg()),
+        // Errors
+        normalizeInverted(raw.getFoulsPerGame(), seasonAnalytics.getMinFoulsPg(), seasonAnalytics.getMaxFoulsPg()),
+        normalizeInverted(raw.getNumDq(), seasonAnalytics.getMinNumDq(), seasonAnalytics.getMaxNumDq()),
+        normalize(raw.getOppTurnoversPerGame(), seasonAnalytics.getMinOppTurnoversPg(),
+            seasonAnalytics.getMaxOppTurnoversPg()),
+        // Offense
+        normalize(raw.getAvgPointsPerGame(), seasonAnalytics.getMinAvgPointsPg(),
+            seasonAnalytics.getMaxAvgPointsPg()),
+        normalize(raw.getScoringMarginPerGame(), seasonAnalytics.getMinScoringMarginPg(),
+            seasonAnalytics.getMaxScoringMarginPg()),
+        normalize(raw.getNumFgAttemptsPerGame(), seasonAnalytics.getMinNumFgAttemptsPg(),
+            seasonAnalytics.getMaxNumFgAttemptsPg()),
+        normalize(raw.getFgPercentage(), seasonAnalytics.getMinFgPercentage(),
+            seasonAnalytics.getMaxFgPercentage()),
+        normalize(raw.getNumFtAttemptsPerGame(), seasonAnalytics.getMinNumFtAttemptsPg(),
+            seasonAnalytics.getMaxNumFtAttemptsPg()),
+        normalize(raw.getFtPercentage(), seasonAnalytics.getMinFtPercentage(),
+            seasonAnalytics.getMaxFtPercentage()),
+        normalize(raw.getNum3pAttemptsPerGame(), seasonAnalytics.getMinNum3pAttemptsPg(),
+            seasonAnalytics.getMaxNum3pAttemptsPg()),
+        normalize(raw.getNum3pPerGame(), seasonAnalytics.getMinNum3pPerGame(),
+            seasonAnalytics.getMaxNum3pPerGame()),
+        normalize(raw.getT3pPercentage(), seasonAnalytics.getMinT3pPercentage(),
+            seasonAnalytics.getMaxT3pPercentage()),
+        normalize(raw.getAssistsPerGame(), seasonAnalytics.getMinAssistsPg(), seasonAnalytics.getMaxAssistsPg()),
+        normalize(raw.getAtoRatio(), seasonAnalytics.getMinAtoRatio(), seasonAnalytics.getMaxAtoRatio())
+    };
+    return ret;
+  }
+
+  /**
+   * Interleaves the LHS and RHS feature slices into the specified destination
+   * array, which must be at least 2 * {@link #NUMBER_OF_FEATURES} long. Anything
+   * in <code>dest</code> past that (like the outputs) is left alone.
+   * 
+   * @param left
+   *          The LHS team's feature slice.
+   * @param right
+   *          The RHS team's feature slice.
+   * @param dest
+   *          Where the interleaved values go.
    */
-  private void normalizeData(SeasonAnalytics seasonAnalytics, SeasonData normalized, SeasonData raw) {
-    normalized.setTeamName(raw.getTeamName());
-    normalized
-        .setAvgPointsPerGame(StatsUtils.normalize(raw.getAvgPointsPerGame(), seasonAnalytics.getMinAvgPointsPg(),
-            seasonAnalytics.getMaxAvgPointsPg()));
-    normalized.setScoringMarginPerGame(StatsUtils.normalize(raw.getScoringMarginPerGame(),
-        seasonAnalytics.getMinScoringMarginPg(), seasonAnalytics.getMaxScoringMarginPg()));
-    normalized.setNumFgAttemptsPerGame(StatsUtils.normalize(raw.getNumFgAttemptsPerGame(),
-        seasonAnalytics.getMinNumFgAttemptsPg(), seasonAnalytics.getMaxNumFgAttemptsPg()));
-    normalized
-        .setFgPercentage(StatsUtils.normalize(raw.getFgPercentage(), seasonAnalytics.getMinFgPercentage(),
-            seasonAnalytics.getMaxFgPercentage()));
-    normalized.setNumFtAttemptsPerGame(StatsUtils.normalize(raw.getNumFtAttemptsPerGame(),
-        seasonAnalytics.getMinNumFtAttemptsPg(), seasonAnalytics.getMaxNumFtAttemptsPg()));
-    normalized
-        .setFtPercentage(StatsUtils.normalize(raw.getFtPercentage(), seasonAnalytics.getMinFtPercentage(),
-            seasonAnalytics.getMaxFtPercentage()));
-    normalized.setNum3pAttemptsPerGame(StatsUtils.normalize(raw.getNum3pAttemptsPerGame(),
-        seasonAnalytics.getMinNum3pAttemptsPg(), seasonAnalytics.getMaxNum3pAttemptsPg()));
-    normalized
-        .setNum3pPerGame(StatsUtils.normalize(raw.getNum3pPerGame(), seasonAnalytics.getMinNum3pPerGame(),
-            seasonAnalytics.getMaxNum3pPerGame()));
-    normalized
-        .setT3pPercentage(StatsUtils.normalize(raw.getT3pPercentage(), seasonAnalytics.getMinT3pPercentage(),
-            seasonAnalytics.getMaxT3pPercentage()));
-    normalized
-        .setAssistsPerGame(StatsUtils.normalize(raw.getAssistsPerGame(), seasonAnalytics.getMinAssistsPg(),
-            seasonAnalytics.getMaxAssistsPg()));
-    normalized.setAtoRatio(
-        StatsUtils.normalize(raw.getAtoRatio(), seasonAnalytics.getMinAtoRatio(), seasonAnalytics.getMaxAtoRatio()));
-    normalized
-        .setAvgOpponentPointsPerGame(StatsUtils.normalizeInverted(raw.getAvgOpponentPointsPerGame(),
-            seasonAnalytics.getMinAvgOpponentPointsPg(), seasonAnalytics.getMaxAvgOpponentPointsPg()));
-    normalized.setBlocksPerGame(
-        StatsUtils.normalize(raw.getBlocksPerGame(), seasonAnalytics.getMinBlocksPg(),
-            seasonAnalytics.getMaxBlocksPg()));
-    normalized
-        .setNumOpp3pAttemptsPerGame(StatsUtils.normalizeInverted(raw.getNumOpp3pAttemptsPerGame(),
-            seasonAnalytics.getMinNumOpp3pAttemptsPg(), seasonAnalytics.getMaxNumOpp3pAttemptsPg()));
-    normalized
-        .setNumOppFgAttemptsPerGame(StatsUtils.normalizeInverted(raw.getNumOppFgAttemptsPerGame(),
-            seasonAnalytics.getMinNumOppFgAttemptsPg(), seasonAnalytics.getMaxNumOppFgAttemptsPg()));
-    normalized.setOpp3pPercentage(StatsUtils.normalizeInverted(raw.getOpp3pPercentage(),
-        seasonAnalytics.getMinOpp3pPercentage(), seasonAnalytics.getMaxOpp3pPercentage()));
-    normalized.setOppFgPercentage(StatsUtils.normalizeInverted(raw.getOppFgPercentage(),
-        seasonAnalytics.getMinOppFgPercentage(), seasonAnalytics.getMaxOppFgPercentage()));
-    normalized.setOppTurnoversPerGame(StatsUtils.normalize(raw.getOppTurnoversPerGame(),
-        seasonAnalytics.getMinOppTurnoversPg(), seasonAnalytics.getMaxOppTurnoversPg()));
-    normalized
-        .setReboundMargin(StatsUtils.normalize(raw.getReboundMargin(), seasonAnalytics.getMinReboundMargin(),
-            seasonAnalytics.getMaxReboundMargin()));
-    normalized.setStealsPerGame(
-        StatsUtils.normalize(raw.getStealsPerGame(), seasonAnalytics.getMinStealsPg(),
-            seasonAnalytics.getMaxStealsPg()));
-    normalized
-        .setFoulsPerGame(StatsUtils.normalizeInverted(raw.getFoulsPerGame(), seasonAnalytics.getMinFoulsPg(),
-            seasonAnalytics.getMaxFoulsPg()));
-    normalized.setNumDq(
-        StatsUtils.normalizeInverted(raw.getNumDq(), seasonAnalytics.getMinNumDq(), seasonAnalytics.getMaxNumDq()));
-    normalized.setTurnoversPerGame(StatsUtils.normalizeInverted(raw.getTurnoversPerGame(),
-        seasonAnalytics.getMinTurnoversPg(), seasonAnalytics.getMaxTurnoversPg()));
+  public static void interleave(double[] left, double[] right, double[] dest) {
+    for (int aa = 0; aa < NUMBER_OF_FEATURES; aa++) {
+      dest[2 * aa] = left[aa];
+      dest[2 * aa + 1] = right[aa];
+    }
   }
 
   /**
@@ -149,44 +160,30 @@ public class NormalizedData {
    */
   public double[] asInputAndOutput() {
     //
-    // Create the training data line
-    SeasonData left = getSeasonDataPair().getLeft();
-    SeasonData right = getSeasonDataPair().getRight();
-    double[] ret = {
-        // Defense
-        left.getAvgOpponentPointsPerGame().doubleValue(), right.getAvgOpponentPointsPerGame().doubleValue(),
-        left.getBlocksPerGame().doubleValue(), right.getBlocksPerGame().doubleValue(),
-        left.getNumOpp3pAttemptsPerGame().doubleValue(), right.getNumOpp3pAttemptsPerGame().doubleValue(),
-        left.getOpp3pPercentage().doubleValue(), right.getOpp3pPercentage().doubleValue(),
-        left.getNumOppFgAttemptsPerGame().doubleValue(), right.getNumOppFgAttemptsPerGame().doubleValue(),
-        left.getOppFgPercentage().doubleValue(), right.getOppFgPercentage().doubleValue(),
-        left.getTurnoversPerGame().doubleValue(), right.getTurnoversPerGame().doubleValue(),
-        left.getReboundMargin().doubleValue(), right.getReboundMargin().doubleValue(),
-        left.getStealsPerGame().doubleValue(), right.getStealsPerGame().doubleValue(),
-        // Errors
-        left.getFoulsPerGame().doubleValue(), right.getFoulsPerGame().doubleValue(),
-        left.getNumDq().doubleValue(), right.getNumDq().doubleValue(),
-        left.getOppTurnoversPerGame().doubleValue(), right.getOppTurnoversPerGame().doubleValue(),
-        // Offense
-        left.getAvgPointsPerGame().doubleValue(), right.getAvgPointsPerGame().doubleValue(),
-        left.getScoringMarginPerGame().doubleValue(), right.getScoringMarginPerGame().doubleValue(),
-        left.getNumFgAttemptsPerGame().doubleValue(), right.getNumFgAttemptsPerGame().doubleValue(),
-        left.getFgPercentage().doubleValue(), right.getFgPercentage().doubleValue(),
-        left.getNumFtAttemptsPerGame().doubleValue(), right.getNumFtAttemptsPerGame().doubleValue(),
-        left.getFtPercentage().doubleValue(), right.getFtPercentage().doubleValue(),
-        left.getNum3pAttemptsPerGame().doubleValue(), right.getNum3pAttemptsPerGame().doubleValue(),
-        left.getNum3pPerGame().doubleValue(), right.getNum3pPerGame().doubleValue(),
-        left.getT3pPercentage().doubleValue(), right.getT3pPercentage().doubleValue(),
-        left.getAssistsPerGame().doubleValue(), right.getAssistsPerGame().doubleValue(),
-        left.getAtoRatio().doubleValue(), right.getAtoRatio().doubleValue(),
-        //
-        // The outputs are at the end
-        0.0, 0.0
-    };
+    // Create the training data line. The outputs are at the end, and are zero.
+    double[] ret = new double[2 * NUMBER_OF_FEATURES + 2];
+    interleave(getFeatureSlicePair().getLeft(), getFeatureSlicePair().getRight(), ret);
     //
     // Return the line
     return ret;
+  }
+
+  /**
+   * Unwraps the BigDecimal values and runs them through {@link StatsUtils#normalize(double, double, double)}.
+   * A missing (null) value is treated as the min value, same as the BigDecimal version does.
+   */
+  private static double normalize(BigDecimal value, BigDecimal minValue, BigDecimal maxValue) {
+    return StatsUtils.normalize((value == null) ? minValue.doubleValue() : value.doubleValue(),
+        minValue.doubleValue(), maxValue.doubleValue());
+  }
 
+  /**
+   * Unwraps the BigDecimal values and runs them through
+   * {@link StatsUtils#normalizeInverted(double, double, double)}.
+   */
+  private static double normalizeInverted(BigDecimal value, BigDecimal minValue, BigDecimal maxValue) {
+    return StatsUtils.normalizeInverted((value == null) ? minValue.doubleValue() : value.doubleValue(),
+        minValue.doubleValue(), maxValue.doubleValue());
   }
 
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the normalized feature slice for every team seen so far in a single
+ * year (that is, for a single {@link SeasonAnalytics}).
+ * <p>
+ * Each team is normalized the first time it is asked for, and the slice is
+ * kept from then on, so building a row of network input for a matchup is just
+ * a matter of interleaving two arrays. Safe to share between threads.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class NormalizedFeatureStore {
+
+  /**
+   * The number of network inputs for a single matchup
+   */
+  public static final int NUMBER_OF_INPUTS = 2 * NormalizedData.NUMBER_OF_FEATURES;
+
+  private final SeasonAnalytics seasonAnalytics;
+
+  /**
+   * Team name -> normalized feature slice
+   */
+  private final Map<String, double[]> featureSlices = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param seasonAnalytics
+   *          The SeasonAnalytics (min/max values) for the year
+   *          whose teams will be stored here.
+   */
+  public NormalizedFeatureStore(SeasonAnalytics seasonAnalytics) {
+    this.seasonAnalytics = seasonAnalytics;
+  }
+
+  public SeasonAnalytics getSeasonAnalytics() {
+    return seasonAnalytics;
+  }
+
+  /**
+   * Returns the normalized feature slice for the specified team, normalizing
+   * it if this is the first time it has been asked for.
+   * <p>
+   * The array is shared. Don't modify it.
+   *
+   * @param teamSeasonData
+   *          The team's raw (un-normalized) SeasonData.
+   *
+   * @return double[] - the team's normalized feature slice.
+   */
+  public double[] getFeatureSlice(SeasonData teamSeasonData) {
+    return featureSlices.computeIfAbsent(teamSeasonData.getTeamName(),
+        teamName -> NormalizedData.createFeatureSlice(seasonAnalytics, teamSeasonData));
+  }
+
+  /**
+   * Creates the network input for the specified matchup.
+   *
+   * @param team1SeasonData
+   *          The LHS team's SeasonData.
+   * @param team2SeasonData
+   *          The RHS team's SeasonData.
+   *
+   * @return double[] - the {@link #NUMBER_OF_INPUTS} network inputs.
+   */
+  public double[] createInput(SeasonData team1SeasonData, SeasonData team2SeasonData) {
+    double[] ret = new double[NUMBER_OF_INPUTS];
+    fillInput(team1SeasonData, team2SeasonData, ret);
+    return ret;
+  }
+
+  /**
+   * Same as {@link #createInput(SeasonData, SeasonData)}, but writes the network
+   * input into an array you provide (so it can be reused).
+   *
+   * @param team1SeasonData
+   *          The LHS team's SeasonData.
+   * @param team2SeasonData
+   *          The RHS team's SeasonData.
+   * @param input
+   *          Where the network inputs go. Must be at least {@link #NUMBER_OF_INPUTS} long.
+   */
+  public void fillInput(SeasonData team1SeasonData, SeasonData team2SeasonData, double[] input) {
+    NormalizedData.interleave(getFeatureSlice(team1SeasonData), getFeatureSlice(team2SeasonData), input);
+  }
+
+}
@@ -15,6 +15,7 @@
  */
 package com.makotojava.ncaabb.model;
 
+import java.io.Serializable;
 import java.util.Date;
 
 /**
@@ -42,7 +43,9 @@ import java.util.Date;
  *         Indexes:
  *         "tournament_results_pkey" PRIMARY KEY, btree (id)
  */
-public class TournamentResult implements Comparable<TournamentResult> {
+public class TournamentResult implements Comparable<TournamentResult>, Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private Integer id;
   private Integer year;
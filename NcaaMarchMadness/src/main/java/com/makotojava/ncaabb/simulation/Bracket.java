@@ -0,0 +1,262 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.simulation;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+import com.opencsv.CSVReader;
+
+/**
+ * A seeded tournament bracket: four regions of 16 seeds, where a seed can be shared
+ * by two teams who play each other first (the "First Four"), which is how 68 teams fit
+ * into a 64-team bracket.
+ * <p>
+ * The bracket file is a CSV file, one team per line:
+ *
+ * <pre>
+ * REGION,SEED,TEAM NAME
+ * </pre>
+ *
+ * Blank lines, and lines starting with #, are ignored. The regions meet in the Final
+ * Four in the order they first show up in the file: the first region against the
+ * second, and the third against the fourth. Team names must match the team names in
+ * the DB.
+ * <p>
+ * Within a region, the teams are slotted in the usual order (1 vs. 16, 8 vs. 9, 5 vs. 12,
+ * and so on), so the winners of neighboring slots meet in the next round all the way
+ * down to the championship game (see {@link #getSlotTeams()}).
+ *
+ * @author J Steven Perry
+ *
+ */
+public class Bracket {
+
+  private static final Logger log = Logger.getLogger(Bracket.class);
+
+  public static final int NUMBER_OF_REGIONS = 4;
+
+  public static final int NUMBER_OF_SEEDS = 16;
+
+  /**
+   * The number of slots in the bracket (after the First Four)
+   */
+  public static final int NUMBER_OF_SLOTS = NUMBER_OF_REGIONS * NUMBER_OF_SEEDS;
+
+  /**
+   * The seeds of a region, in slot order
+   */
+  private static final int[] SEED_ORDER = { 1, 16, 8, 9, 5, 12, 4, 13, 6, 11, 3, 14, 7, 10, 2, 15 };
+
+  /**
+   * Team index -> team name (in the order they show up in the file)
+   */
+  private final List<String> teamNames;
+
+  private final List<String> regionNames;
+
+  /**
+   * Slot -> team index
+   */
+  private final int[] slotTeams;
+
+  /**
+   * Slot -> team index of the team who plays slotTeams[slot] for the slot, or -1
+   * if the slot has only one team
+   */
+  private final int[] slotPlayInTeams;
+
+  private Bracket(List<String> teamNames, List<String> regionNames, int[] slotTeams, int[] slotPlayInTeams) {
+    this.teamNames = teamNames;
+    this.regionNames = regionNames;
+    this.slotTeams = slotTeams;
+    this.slotPlayInTeams = slotPlayInTeams;
+  }
+
+  /**
+   * Reads the specified bracket file.
+   *
+   * @param bracketFile
+   *          The bracket file (see the class comment for its format).
+   *
+   * @return Bracket - the bracket.
+   */
+  public static Bracket fromFile(File bracketFile) {
+    List<String[]> lines = new ArrayList<>();
+    try (CSVReader csvReader = new CSVReader(new BufferedReader(new FileReader(bracketFile)))) {
+      String[] line;
+      while ((line = csvReader.readNext()) != null) {
+        lines.add(line);
+      }
+    } catch (IOException e) {
+      String message = "IOException occurred while reading the bracket file => " + bracketFile;
+      log.error(message, e);
+      throw new RuntimeException(message, e);
+    }
+    Bracket ret = fromLines(lines);
+    log.info("Read bracket file " + bracketFile + ": " + ret.getNumberOfTeams() + " teams in regions "
+        + ret.getRegionNames());
+    return ret;
+  }
+
+  /**
+   * Creates a bracket from the (already parsed) lines of a bracket file.
+   *
+   * @param lines
+   *          The lines of the bracket file, each one { REGION, SEED, TEAM NAME }.
+   *
+   * @return Bracket - the bracket.
+   */
+  public static Bracket fromLines(List<String[]> lines) {
+    List<String> teamNames = new ArrayList<>();
+    List<String> regionNames = new ArrayList<>();
+    int[] slotTeams = new int[NUMBER_OF_SLOTS];
+    int[] slotPlayInTeams = new int[NUMBER_OF_SLOTS];
+    Arrays.fill(slotTeams, -1);
+    Arrays.fill(slotPlayInTeams, -1);
+    for (String[] line : lines) {
+      if (StringUtils.isBlank(StringUtils.join(line)) || StringUtils.strip(line[0]).startsWith("#")) {
+        continue;
+      }
+      if (line.length < 3) {
+        throw new IllegalArgumentException("Expected REGION,SEED,TEAM NAME in bracket line: " + Arrays.toString(line));
+      }
+      String regionName = StringUtils.strip(line[0]);
+      String teamName = StringUtils.strip(line[2]);
+      int seed;
+      try {
+        seed = Integer.parseInt(StringUtils.strip(line[1]));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Bad seed in bracket line: " + Arrays.toString(line), e);
+      }
+      if (seed < 1 || seed > NUMBER_OF_SEEDS) {
+        throw new IllegalArgumentException("Seed must be 1 to " + NUMBER_OF_SEEDS + " in bracket line: "
+            + Arrays.toString(line));
+      }
+      if (teamNames.contains(teamName)) {
+        throw new IllegalArgumentException("Team " + teamName + " is in the bracket more than once");
+      }
+      int regionIndex = regionNames.indexOf(regionName);
+      if (regionIndex < 0) {
+        if (regionNames.size() == NUMBER_OF_REGIONS) {
+          throw new IllegalArgumentException("More than " + NUMBER_OF_REGIONS + " regions in the bracket: "
+              + regionNames + " and " + regionName);
+        }
+        regionIndex = regionNames.size();
+        regionNames.add(regionName);
+      }
+      int slot = regionIndex * NUMBER_OF_SEEDS + computeSlotInRegion(seed);
+      int teamIndex = teamNames.size();
+      teamNames.add(teamName);
+      if (slotTeams[slot] < 0) {
+        slotTeams[slot] = teamIndex;
+      } else if (slotPlayInTeams[slot] < 0) {
+        slotPlayInTeams[slot] = teamIndex;
+      } else {
+        throw new IllegalArgumentException("More than two teams are seeded #" + seed + " in region " + regionName);
+      }
+    }
+    for (int slot = 0; slot < NUMBER_OF_SLOTS; slot++) {
+      if (slotTeams[slot] < 0) {
+        throw new IllegalArgumentException("No team is seeded #" + SEED_ORDER[slot % NUMBER_OF_SEEDS] + " in region "
+            + (slot / NUMBER_OF_SEEDS < regionNames.size() ? regionNames.get(slot / NUMBER_OF_SEEDS)
+                : "#" + (slot / NUMBER_OF_SEEDS + 1)));
+      }
+    }
+    return new Bracket(Collections.unmodifiableList(teamNames), Collections.unmodifiableList(regionNames),
+        slotTeams, slotPlayInTeams);
+  }
+
+  private static int computeSlotInRegion(int seed) {
+    for (int aa = 0; aa < SEED_ORDER.length; aa++) {
+      if (SEED_ORDER[aa] == seed) {
+        return aa;
+      }
+    }
+    throw new IllegalArgumentException("Bad seed: " + seed);
+  }
+
+  public int getNumberOfTeams() {
+    return teamNames.size();
+  }
+
+  /**
+   * @return List<String> - the team names. A team's index in the List is its team index.
+   */
+  public List<String> getTeamNames() {
+    return teamNames;
+  }
+
+  /**
+   * @return List<String> - the region names, in Final Four order.
+   */
+  public List<String> getRegionNames() {
+    return regionNames;
+  }
+
+  /**
+   * @return int[] - the team index of the (first) team in each of the {@link #NUMBER_OF_SLOTS}
+   *         slots, in bracket order. Shared: do not modify.
+   */
+  public int[] getSlotTeams() {
+    return slotTeams;
+  }
+
+  /**
+   * @return int[] - the team index of the team who plays the team in {@link #getSlotTeams()}
+   *         for each slot (in the First Four), or -1 if the slot has only one team. Shared: do
+   *         not modify.
+   */
+  public int[] getSlotPlayInTeams() {
+    return slotPlayInTeams;
+  }
+
+  /**
+   * @return int - the slot the specified team starts out in.
+   */
+  public int getSlot(int teamIndex) {
+    for (int slot = 0; slot < NUMBER_OF_SLOTS; slot++) {
+      if (slotTeams[slot] == teamIndex || slotPlayInTeams[slot] == teamIndex) {
+        return slot;
+      }
+    }
+    throw new IllegalArgumentException("No such team index: " + teamIndex);
+  }
+
+  /**
+   * @return int - the specified team's seed.
+   */
+  public int getSeed(int teamIndex) {
+    return SEED_ORDER[getSlot(teamIndex) % NUMBER_OF_SEEDS];
+  }
+
+  /**
+   * @return String - the name of the specified team's region.
+   */
+  public String getRegionName(int teamIndex) {
+    return regionNames.get(getSlot(teamIndex) / NUMBER_OF_SEEDS);
+  }
+
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Fills out a bracket to get the highest expected score in a pool, for a given scoring
+ * table (the points for picking the winner of a game in each round).
+ * <p>
+ * Whether a pick is right does not depend on the other picks, so the expected score of a
+ * bracket is just the sum, over every game, of the points for the game's round times the
+ * probability that the team picked to win it does (see {@link BracketProbabilityEngine}).
+ * The only catch is that the picks have to be consistent: the team picked to win a game
+ * must have been picked to win its games before that. So the best bracket is found a
+ * subtree at a time, from the First Four up: for each game and each team who could win it,
+ * the best expected score for that part of the bracket if the team is picked to win the
+ * game is the points for picking it times the probability it wins, plus the best score for
+ * its side with it picked to win there, plus the best score for the other side with
+ * <em>anybody</em> picked to win there. Each subtree's best scores are kept (memoised), so
+ * every subtree is only searched once, and the whole (exact) search takes milliseconds.
+ * <p>
+ * The regions do not depend on each other until the Final Four, so each region is searched
+ * by its own task, on the executor you provide.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class BracketOptimizer {
+
+  private static final Logger log = Logger.getLogger(BracketOptimizer.class);
+
+  private static final int NUMBER_OF_ROUNDS = BracketSimulationResult.NUMBER_OF_ROUNDS;
+
+  /**
+   * The round the regional finals send the winners to (the Final Four)
+   */
+  private static final int REGION_ROUND = 4;
+
+  private final BracketProbabilityEngine bracketProbabilityEngine;
+
+  private final double[] roundPoints;
+
+  /**
+   * Constructor.
+   *
+   * @param bracketProbabilityEngine
+   *          The engine with each team's odds of making it to each round (including any
+   *          what-if edits).
+   * @param roundPoints
+   *          The points for picking the winner of a game, by the round the winner makes it
+   *          to (see {@link BracketSimulationResult#ROUND_NAMES}): the First Four, then the
+   *          Round of 64, and so on up to the championship game.
+   */
+  public BracketOptimizer(BracketProbabilityEngine bracketProbabilityEngine, double[] roundPoints) {
+    if (roundPoints.length != NUMBER_OF_ROUNDS) {
+      throw new IllegalArgumentException("Expected points for " + NUMBER_OF_ROUNDS + " rounds, not "
+          + roundPoints.length + ": " + Arrays.toString(roundPoints));
+    }
+    this.bracketProbabilityEngine = bracketProbabilityEngine;
+    this.roundPoints = roundPoints.clone();
+  }
+
+  /**
+   * Parses a scoring table (comma-separated points, one per round, see
+   * {@link #BracketOptimizer(BracketProbabilityEngine, double[])}).
+   *
+   * @param scoring
+   *          The scoring table, for example "0,10,20,40,80,160,320".
+   *
+   * @return double[] - the points for each round.
+   */
+  public static double[] parseRoundPoints(String scoring) {
+    String[] values = StringUtils.split(scoring, ',');
+    double[] ret = new double[values.length];
+    for (int aa = 0; aa < values.length; aa++) {
+      try {
+        ret[aa] = Double.parseDouble(StringUtils.strip(values[aa]));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Bad scoring table: " + scoring, e);
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Finds the picks with the highest expected score.
+   *
+   * @param executorService
+   *          The ExecutorService to search the regions on.
+   *
+   * @return BracketPicks - the best picks, and their expected score.
+   */
+  public BracketPicks optimize(ExecutorService executorService) {
+    long start = System.nanoTime();
+    Bracket bracket = bracketProbabilityEngine.getBracket();
+    //
+    // The engine is not thread safe, so get all of the odds up front
+    double[][] odds = bracketProbabilityEngine.computeAdvancementProbabilities();
+    //
+    // [round][game] -> [team index] -> the best expected score for the part of the
+    /// bracket under (and including) the game, with the team picked to win it
+    double[][][] bestScores = new double[NUMBER_OF_ROUNDS][][];
+    for (int round = 0; round < NUMBER_OF_ROUNDS; round++) {
+      bestScores[round] = new double[Bracket.NUMBER_OF_SLOTS >> round][];
+    }
+    //
+    // Each region on its own
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int region = 0; region < Bracket.NUMBER_OF_SLOTS >> REGION_ROUND; region++) {
+      final int regionGame = region;
+      tasks.add(() -> {
+        computeBestScores(REGION_ROUND, regionGame, odds, bestScores);
+        return null;
+      });
+    }
+    try {
+      for (Future<Void> future : executorService.invokeAll(tasks)) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while optimizing the bracket", e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Error optimizing the bracket: " + e.getCause().getMessage(), e.getCause());
+    }
+    //
+    // Then the Final Four (whose subtrees are all memoised by now)
+    computeBestScores(NUMBER_OF_ROUNDS - 1, 0, odds, bestScores);
+    //
+    // Now pick the champion, and work back down the bracket
+    int[][] picks = new int[NUMBER_OF_ROUNDS][];
+    double[][] pickProbabilities = new double[NUMBER_OF_ROUNDS][];
+    for (int round = 0; round < NUMBER_OF_ROUNDS; round++) {
+      picks[round] = new int[Bracket.NUMBER_OF_SLOTS >> round];
+      pickProbabilities[round] = new double[Bracket.NUMBER_OF_SLOTS >> round];
+    }
+    int champion = findBestPick(bestScores[NUMBER_OF_ROUNDS - 1][0]);
+    double expectedScore = bestScores[NUMBER_OF_ROUNDS - 1][0][champion];
+    fillInPicks(NUMBER_OF_ROUNDS - 1, 0, champion, odds, bestScores, picks, pickProbabilities);
+    BracketPicks ret = new BracketPicks(bracket, picks, pickProbabilities, expectedScore);
+    log.info("Optimized the bracket in " + (System.nanoTime() - start) / 1000000 + " ms: champion "
+        + ret.getChampion() + ", expected score " + expectedScore);
+    return ret;
+  }
+
+  /**
+   * Computes (and memoises) the best scores for the specified game, and every game under
+   * it that is not memoised yet.
+   */
+  private double[] computeBestScores(int round, int game, double[][] odds, double[][][] bestScores) {
+    double[] ret = bestScores[round][game];
+    if (ret != null) {
+      return ret;
+    }
+    Bracket bracket = bracketProbabilityEngine.getBracket();
+    ret = new double[odds.length];
+    Arrays.fill(ret, Double.NEGATIVE_INFINITY);
+    if (round == 0) {
+      //
+      // The slot: one team, or the First Four game
+      int team1 = bracket.getSlotTeams()[game];
+      int team2 = bracket.getSlotPlayInTeams()[game];
+      ret[team1] = roundPoints[0] * odds[team1][0];
+      if (team2 >= 0) {
+        ret[team2] = roundPoints[0] * odds[team2][0];
+      }
+    } else {
+      double[] left = computeBestScores(round - 1, 2 * game, odds, bestScores);
+      double[] right = computeBestScores(round - 1, 2 * game + 1, odds, bestScores);
+      double bestLeft = left[findBestPick(left)];
+      double bestRight = right[findBestPick(right)];
+      for (int teamIndex = 0; teamIndex < odds.length; teamIndex++) {
+        if (left[teamIndex] != Double.NEGATIVE_INFINITY) {
+          ret[teamIndex] = roundPoints[round] * odds[teamIndex][round] + left[teamIndex] + bestRight;
+        } else if (right[teamIndex] != Double.NEGATIVE_INFINITY) {
+          ret[teamIndex] = roundPoints[round] * odds[teamIndex][round] + right[teamIndex] + bestLeft;
+        }
+      }
+    }
+    bestScores[round][game] = ret;
+    return ret;
+  }
+
+  /**
+   * Fills in the pick for the specified game, then works down the bracket: the pick's side
+   * has to be won by the pick, and the other side by whoever is best there.
+   */
+  private void fillInPicks(int round, int game, int pick, double[][] odds, double[][][] bestScores, int[][] picks,
+      double[][] pickProbabilities) {
+    picks[round][game] = pick;
+    pickProbabilities[round][game] = odds[pick][round];
+    if (round == 0) {
+      return;
+    }
+    int pickGame = bracketProbabilityEngine.getBracket().getSlot(pick) >> (round - 1);
+    int otherGame = (pickGame == 2 * game) ? 2 * game + 1 : 2 * game;
+    fillInPicks(round - 1, pickGame, pick, odds, bestScores, picks, pickProbabilities);
+    fillInPicks(round - 1, otherGame, findBestPick(bestScores[round - 1][otherGame]), odds, bestScores, picks,
+        pickProbabilities);
+  }
+
+  /**
+   * @return int - the team index with the best score (ties go to the lowest team index).
+   */
+  private static int findBestPick(double[] scores) {
+    int ret = -1;
+    for (int teamIndex = 0; teamIndex < scores.length; teamIndex++) {
+      if (scores[teamIndex] != Double.NEGATIVE_INFINITY && (ret < 0 || scores[teamIndex] > scores[ret])) {
+        ret = teamIndex;
+      }
+    }
+    return ret;
+  }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.simulation;
+
+/**
+ * A filled-out bracket: the team picked to win every game (see {@link BracketOptimizer}),
+ * and the score the picks are expected to get.
+ * <p>
+ * The games are numbered the same way as in {@link BracketProbabilityEngine}: the game at
+ * level <code>round</code> (1 is the Round of 64, up to 6, the championship game; 0 is the
+ * First Four) and node <code>game</code> is played between the winners of games
+ * <code>2 * game</code> and <code>2 * game + 1</code> of the level below it, and its winner
+ * makes it to round <code>round</code> (see {@link BracketSimulationResult#ROUND_NAMES}).
+ *
+ * @author J Steven Perry
+ *
+ */
+public class BracketPicks {
+
+  private final Bracket bracket;
+
+  /**
+   * [round][game] -> the team index of the team picked to win the game
+   */
+  private final int[][] picks;
+
+  /**
+   * [round][game] -> the probability the picked team wins the game
+   */
+  private final double[][] pickProbabilities;
+
+  private final double expectedScore;
+
+  /**
+   * Constructor.
+   *
+   * @param bracket
+   *          The bracket.
+   * @param picks
+   *          [round][game] -> the team index of the team picked to win the game.
+   * @param pickProbabilities
+   *          [round][game] -> the probability the picked team wins the game.
+   * @param expectedScore
+   *          The expected score of the picks.
+   */
+  public BracketPicks(Bracket bracket, int[][] picks, double[][] pickProbabilities, double expectedScore) {
+    this.bracket = bracket;
+    this.picks = picks;
+    this.pickProbabilities = pickProbabilities;
+    this.expectedScore = expectedScore;
+  }
+
+  public Bracket getBracket() {
+    return bracket;
+  }
+
+  public double getExpectedScore() {
+    return expectedScore;
+  }
+
+  /**
+   * @return int - the number of games in the specified round.
+   */
+  public int getNumberOfGames(int round) {
+    return picks[round].length;
+  }
+
+  /**
+   * @return int - the team index of the team picked to win the specified game.
+   */
+  public int getPick(int round, int game) {
+    return picks[round][game];
+  }
+
+  /**
+   * @return double - the probability that the team picked to win the specified game does.
+   */
+  public double getPickProbability(int round, int game) {
+    return pickProbabilities[round][game];
+  }
+
+  /**
+   * @return String - the champion's name.
+   */
+  public String getChampion() {
+    return bracket.getTeamNames().get(picks[picks.length - 1][0]);
+  }
+
+}
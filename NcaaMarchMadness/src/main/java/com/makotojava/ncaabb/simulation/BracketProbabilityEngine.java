@@ -0,0 +1,318 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Computes (exactly, no sampling) the probability that each team in a {@link Bracket}
+ * makes it to each round, from the pairwise win probabilities in the tournament matrix.
+ * <p>
+ * The bracket is a tree: the {@link Bracket#NUMBER_OF_SLOTS} slots at the bottom (level 0,
+ * where the First Four is played), and each game above them (level 1 is the Round of 64,
+ * and so on up to level 6, the championship game). The probability that a team wins the
+ * game at a node is the probability that it won its side of the node (its child node),
+ * times the sum, over every team who could come out of the other side, of the probability
+ * that team comes out of the other side times the probability of beating it. That is
+ * O(teams<sup>2</sup>) over the whole of each level, so O(teams<sup>2</sup> &middot; rounds)
+ * for the whole bracket.
+ * <p>
+ * Every node's probabilities are kept (memoised). What-if edits, like forcing a team to
+ * win a game ({@link #forceWin(int, int)}) or changing the odds of a matchup
+ * ({@link #setWinProbability(int, int, double)}), only throw away the nodes on the path
+ * from the edited game up to the championship game, so only those are recomputed (the
+ * next time a probability is asked for), which is what makes re-running it interactively
+ * cheap.
+ * <p>
+ * Not safe to share between threads (it is meant to be driven by one user at a time).
+ *
+ * @author J Steven Perry
+ *
+ */
+public class BracketProbabilityEngine {
+
+  /**
+   * The number of levels in the tree (the slots, plus one per round of games)
+   */
+  private static final int NUMBER_OF_LEVELS = BracketSimulationResult.NUMBER_OF_ROUNDS;
+
+  private final Bracket bracket;
+
+  private final int numberOfTeams;
+
+  /**
+   * [team1][team2] -> the probability team1 beats team2 (a copy, so it can be edited)
+   */
+  private final double[][] winProbabilities;
+
+  /**
+   * Team index -> slot
+   */
+  private final int[] teamSlots;
+
+  /**
+   * [level][node] -> the team indexes of every team who could win the node
+   */
+  private final int[][][] nodeTeams;
+
+  /**
+   * [level][node] -> the probability of each team (by team index) winning the node, or
+   * null if it needs to be (re)computed
+   */
+  private final double[][][] nodeProbabilities;
+
+  /**
+   * [level][node] -> the team index of the team forced to win the node, or -1
+   */
+  private final int[][] forcedWinners;
+
+  /**
+   * The number of times a node has been computed (so you can tell how much was recomputed)
+   */
+  private long numberOfNodesComputed;
+
+  /**
+   * Constructor.
+   *
+   * @param bracket
+   *          The bracket.
+   * @param winProbabilities
+   *          [team1][team2] -> the probability (0 to 1) that team1 beats team2, by
+   *          bracket team index (see {@link BracketSimulator#createWinProbabilities(Bracket, java.util.function.BiFunction)}).
+   */
+  public BracketProbabilityEngine(Bracket bracket, double[][] winProbabilities) {
+    this.bracket = bracket;
+    this.numberOfTeams = bracket.getNumberOfTeams();
+    if (winProbabilities.length != numberOfTeams) {
+      throw new IllegalArgumentException("Expected win probabilities for " + numberOfTeams + " teams, not "
+          + winProbabilities.length);
+    }
+    this.winProbabilities = new double[numberOfTeams][];
+    for (int team1 = 0; team1 < numberOfTeams; team1++) {
+      this.winProbabilities[team1] = winProbabilities[team1].clone();
+    }
+    //
+    // Where each team starts out
+    this.teamSlots = new int[numberOfTeams];
+    int[] slotTeams = bracket.getSlotTeams();
+    int[] slotPlayInTeams = bracket.getSlotPlayInTeams();
+    for (int slot = 0; slot < Bracket.NUMBER_OF_SLOTS; slot++) {
+      teamSlots[slotTeams[slot]] = slot;
+      if (slotPlayInTeams[slot] >= 0) {
+        teamSlots[slotPlayInTeams[slot]] = slot;
+      }
+    }
+    //
+    // Who could win each node: everyone who starts out in a slot under it
+    this.nodeTeams = new int[NUMBER_OF_LEVELS][][];
+    this.nodeProbabilities = new double[NUMBER_OF_LEVELS][][];
+    this.forcedWinners = new int[NUMBER_OF_LEVELS][];
+    for (int level = 0; level < NUMBER_OF_LEVELS; level++) {
+      int numberOfNodes = Bracket.NUMBER_OF_SLOTS >> level;
+      int[] nodeSizes = new int[numberOfNodes];
+      for (int teamIndex = 0; teamIndex < numberOfTeams; teamIndex++) {
+        nodeSizes[teamSlots[teamIndex] >> level]++;
+      }
+      nodeTeams[level] = new int[numberOfNodes][];
+      for (int node = 0; node < numberOfNodes; node++) {
+        nodeTeams[level][node] = new int[nodeSizes[node]];
+        nodeSizes[node] = 0;
+      }
+      for (int teamIndex = 0; teamIndex < numberOfTeams; teamIndex++) {
+        int node = teamSlots[teamIndex] >> level;
+        nodeTeams[level][node][nodeSizes[node]++] = teamIndex;
+      }
+      nodeProbabilities[level] = new double[numberOfNodes][];
+      forcedWinners[level] = new int[numberOfNodes];
+      Arrays.fill(forcedWinners[level], -1);
+    }
+  }
+
+  public Bracket getBracket() {
+    return bracket;
+  }
+
+  /**
+   * @return double - the probability (0 to 1) that the specified team makes it to the
+   *         specified round (see {@link BracketSimulationResult#ROUND_NAMES}).
+   */
+  public double getAdvancementProbability(int teamIndex, int round) {
+    return computeNode(round, teamSlots[teamIndex] >> round)[teamIndex];
+  }
+
+  /**
+   * @return double[][] - [team index][round] -> the probability (0 to 1) that the team
+   *         makes it to the round.
+   */
+  public double[][] computeAdvancementProbabilities() {
+    double[][] ret = new double[numberOfTeams][NUMBER_OF_LEVELS];
+    for (int teamIndex = 0; teamIndex < numberOfTeams; teamIndex++) {
+      for (int round = 0; round < NUMBER_OF_LEVELS; round++) {
+        ret[teamIndex][round] = getAdvancementProbability(teamIndex, round);
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * What if: the specified team makes it to the specified round, no matter what (it wins
+   * every game up to then). A forced win that the new one rules out (someone else from the
+   * same part of the bracket forced to make it further) is dropped.
+   *
+   * @param teamIndex
+   *          The team.
+   * @param round
+   *          The round it makes it to (see {@link BracketSimulationResult#ROUND_NAMES}).
+   */
+  public void forceWin(int teamIndex, int round) {
+    int slot = teamSlots[teamIndex];
+    for (int level = 0; level <= round; level++) {
+      forcedWinners[level][slot >> level] = teamIndex;
+    }
+    //
+    // Anyone forced further along this path has to have gone through a node that is now
+    /// forced to this team, if they are in the same part of the bracket up to this round
+    for (int level = round + 1; level < NUMBER_OF_LEVELS; level++) {
+      int forcedWinner = forcedWinners[level][slot >> level];
+      if (forcedWinner >= 0 && forcedWinner != teamIndex && (teamSlots[forcedWinner] >> round) == (slot >> round)) {
+        forcedWinners[level][slot >> level] = -1;
+      }
+    }
+    invalidatePath(0, slot);
+  }
+
+  /**
+   * Drops every forced win (see {@link #forceWin(int, int)}).
+   */
+  public void clearForcedWins() {
+    for (int level = 0; level < NUMBER_OF_LEVELS; level++) {
+      for (int node = 0; node < forcedWinners[level].length; node++) {
+        if (forcedWinners[level][node] >= 0) {
+          forcedWinners[level][node] = -1;
+          invalidatePath(level, node);
+        }
+      }
+    }
+  }
+
+  /**
+   * What if: the specified team beats the other one with the specified probability (and
+   * loses with 1 minus that).
+   *
+   * @param team1
+   *          The team.
+   * @param team2
+   *          The opponent.
+   * @param winProbability
+   *          The probability (0 to 1) that team1 beats team2.
+   */
+  public void setWinProbability(int team1, int team2, double winProbability) {
+    winProbabilities[team1][team2] = winProbability;
+    winProbabilities[team2][team1] = 1.0 - winProbability;
+    //
+    // The only game they could play each other in is where their paths meet
+    int slot1 = teamSlots[team1];
+    int slot2 = teamSlots[team2];
+    int level = 0;
+    while ((slot1 >> level) != (slot2 >> level)) {
+      level++;
+    }
+    invalidatePath(level, slot1 >> level);
+  }
+
+  /**
+   * @return long - the number of times a node has been computed (recomputing a node after
+   *         an edit counts again).
+   */
+  public long getNumberOfNodesComputed() {
+    return numberOfNodesComputed;
+  }
+
+  /**
+   * Throws away the probabilities of the specified node, and every node above it.
+   */
+  private void invalidatePath(int level, int node) {
+    for (; level < NUMBER_OF_LEVELS; level++, node >>= 1) {
+      nodeProbabilities[level][node] = null;
+    }
+  }
+
+  /**
+   * Returns the probability of each team winning the specified node, computing it (and
+   * any nodes under it that need to be) if it is not memoised.
+   */
+  private double[] computeNode(int level, int node) {
+    double[] ret = nodeProbabilities[level][node];
+    if (ret != null) {
+      return ret;
+    }
+    ret = new double[numberOfTeams];
+    int forcedWinner = forcedWinners[level][node];
+    if (forcedWinner >= 0) {
+      ret[forcedWinner] = 1.0;
+      //
+      // Still need the nodes under it, so they are there for getAdvancementProbability()
+      if (level > 0) {
+        computeNode(level - 1, 2 * node);
+        computeNode(level - 1, 2 * node + 1);
+      }
+    } else if (level == 0) {
+      //
+      // The slot: one team, or the First Four game
+      int team1 = bracket.getSlotTeams()[node];
+      int team2 = bracket.getSlotPlayInTeams()[node];
+      if (team2 < 0) {
+        ret[team1] = 1.0;
+      } else {
+        ret[team1] = winProbabilities[team1][team2];
+        ret[team2] = winProbabilities[team2][team1];
+      }
+    } else {
+      //
+      // Whoever comes out of each side plays whoever comes out of the other side
+      int leftNode = 2 * node;
+      int rightNode = 2 * node + 1;
+      double[] left = computeNode(level - 1, leftNode);
+      double[] right = computeNode(level - 1, rightNode);
+      addWinProbabilities(nodeTeams[level - 1][leftNode], left, nodeTeams[level - 1][rightNode], right, ret);
+      addWinProbabilities(nodeTeams[level - 1][rightNode], right, nodeTeams[level - 1][leftNode], left, ret);
+    }
+    numberOfNodesComputed++;
+    nodeProbabilities[level][node] = ret;
+    return ret;
+  }
+
+  /**
+   * For each team on one side, the probability it comes out of its side times the
+   * probability it beats whoever comes out of the other side.
+   */
+  private void addWinProbabilities(int[] teams, double[] probabilities, int[] opponents,
+      double[] opponentProbabilities, double[] ret) {
+    for (int team : teams) {
+      double probability = probabilities[team];
+      if (probability == 0.0) {
+        continue;
+      }
+      double[] teamWinProbabilities = winProbabilities[team];
+      double winProbability = 0.0;
+      for (int opponent : opponents) {
+        winProbability += opponentProbabilities[opponent] * teamWinProbabilities[opponent];
+      }
+      ret[team] = probability * winProbability;
+    }
+  }
+
+}
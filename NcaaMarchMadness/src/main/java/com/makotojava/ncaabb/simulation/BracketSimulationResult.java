@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.simulation;
+
+/**
+ * The result of simulating a {@link Bracket} over and over: for each team, how many
+ * of the simulated tournaments it made it to each round in.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class BracketSimulationResult {
+
+  /**
+   * The rounds a team can make it to, from the Round of 64 (the First Four winners
+   * and everyone else) to winning the whole thing
+   */
+  public static final String[] ROUND_NAMES =
+      { "ROUND OF 64", "ROUND OF 32", "SWEET 16", "ELITE 8", "FINAL FOUR", "TITLE GAME", "CHAMPION" };
+
+  public static final int NUMBER_OF_ROUNDS = ROUND_NAMES.length;
+
+  private final Bracket bracket;
+
+  /**
+   * [team index][round] -> the number of runs the team made it to the round
+   */
+  private final long[][] roundCounts;
+
+  private final long numberOfRuns;
+
+  private final long elapsedNanos;
+
+  /**
+   * Constructor.
+   *
+   * @param bracket
+   *          The bracket that was simulated.
+   * @param roundCounts
+   *          [team index][round] -> the number of runs the team made it to the round.
+   * @param numberOfRuns
+   *          The number of simulated tournaments.
+   * @param elapsedNanos
+   *          How long it took to run them.
+   */
+  public BracketSimulationResult(Bracket bracket, long[][] roundCounts, long numberOfRuns, long elapsedNanos) {
+    this.bracket = bracket;
+    this.roundCounts = roundCounts;
+    this.numberOfRuns = numberOfRuns;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  public Bracket getBracket() {
+    return bracket;
+  }
+
+  public long getNumberOfRuns() {
+    return numberOfRuns;
+  }
+
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * @return long - the number of runs the specified team made it to the specified round.
+   */
+  public long getRoundCount(int teamIndex, int round) {
+    return roundCounts[teamIndex][round];
+  }
+
+  /**
+   * @return double - the probability (0 to 1) that the specified team makes it to the
+   *         specified round (see {@link #ROUND_NAMES}).
+   */
+  public double getAdvancementProbability(int teamIndex, int round) {
+    return (numberOfRuns == 0) ? 0.0 : (double) roundCounts[teamIndex][round] / numberOfRuns;
+  }
+
+  /**
+   * Derived property: the number of simulated tournaments per second.
+   */
+  public double getRunsPerSecond() {
+    return (elapsedNanos == 0) ? 0.0 : numberOfRuns * 1.0e9 / elapsedNanos;
+  }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+import org.apache.log4j.Logger;
+import org.neuroph.nnet.MultiLayerPerceptron;
+
+/**
+ * Monte Carlo simulation of a {@link Bracket}: plays the whole tournament, game by game,
+ * over and over, picking the winner of each game at random according to the pairwise
+ * win probabilities from the tournament matrix (see {@link TournamentMatrixEngine}), and
+ * counts how far each team gets.
+ * <p>
+ * The runs are split up into tasks of {@link #RUNS_PER_TASK} runs and run on the executor
+ * you provide. Each task gets its own random number generator, split off of the one you
+ * provide before any task starts, so for a given seed the result is the same no matter
+ * how many threads there are or how the tasks get scheduled.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class BracketSimulator {
+
+  private static final Logger log = Logger.getLogger(BracketSimulator.class);
+
+  /**
+   * The number of simulated tournaments per task
+   */
+  static final int RUNS_PER_TASK = 100000;
+
+  private final Bracket bracket;
+
+  private final int numberOfTeams;
+
+  /**
+   * winProbabilities[team1 * numberOfTeams + team2] -> the probability team1 beats team2
+   */
+  private final double[] winProbabilities;
+
+  /**
+   * Constructor.
+   *
+   * @param bracket
+   *          The bracket.
+   * @param winProbabilities
+   *          [team1][team2] -> the probability (0 to 1) that team1 beats team2, by
+   *          bracket team index (see {@link Bracket#getTeamNames()}).
+   */
+  public BracketSimulator(Bracket bracket, double[][] winProbabilities) {
+    this.bracket = bracket;
+    this.numberOfTeams = bracket.getNumberOfTeams();
+    if (winProbabilities.length != numberOfTeams) {
+      throw new IllegalArgumentException("Expected win probabilities for " + numberOfTeams + " teams, not "
+          + winProbabilities.length);
+    }
+    this.winProbabilities = new double[numberOfTeams * numberOfTeams];
+    for (int team1 = 0; team1 < numberOfTeams; team1++) {
+      System.arraycopy(winProbabilities[team1], 0, this.winProbabilities, team1 * numberOfTeams, numberOfTeams);
+    }
+  }
+
+  /**
+   * Gets the win probability of every bracket team against every other bracket team
+   * (see {@link GameSimulationResult#getWinProbability()}), so only the bracket's own
+   * matchups are asked for.
+   *
+   * @param bracket
+   *          The bracket.
+   * @param matchups
+   *          (team name, opponent name) -> the GameSimulationResult of the matchup, from the
+   *          team's point of view (see {@link MatchupPredictor#predict(Integer, String, String)}).
+   *
+   * @return double[][] - [team1][team2] -> the probability that team1 beats team2, by
+   *         bracket team index.
+   */
+  public static double[][] createWinProbabilities(Bracket bracket,
+      BiFunction<String, String, GameSimulationResult<MultiLayerPerceptron>> matchups) {
+    List<String> teamNames = bracket.getTeamNames();
+    double[][] ret = new double[teamNames.size()][teamNames.size()];
+    for (int team1 = 0; team1 < teamNames.size(); team1++) {
+      for (int team2 = 0; team2 < teamNames.size(); team2++) {
+        GameSimulationResult<MultiLayerPerceptron> gameSimulationResult =
+            matchups.apply(teamNames.get(team1), teamNames.get(team2));
+        if (gameSimulationResult == null) {
+          throw new IllegalArgumentException("No result for " + teamNames.get(team1) + " vs. " + teamNames.get(team2));
+        }
+        ret[team1][team2] = gameSimulationResult.getWinProbability();
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Simulates the tournament the specified number of times.
+   *
+   * @param numberOfRuns
+   *          The number of simulated tournaments.
+   * @param executorService
+   *          The ExecutorService to run the simulations on.
+   * @param random
+   *          The random number generator the tasks' generators are split off of.
+   *
+   * @return BracketSimulationResult - how far each team got, and how often.
+   */
+  public BracketSimulationResult simulate(long numberOfRuns, ExecutorService executorService,
+      SplittableRandom random) {
+    long start = System.nanoTime();
+    List<Callable<long[]>> tasks = new ArrayList<>();
+    for (long runsLeft = numberOfRuns; runsLeft > 0; runsLeft -= RUNS_PER_TASK) {
+      final int taskRuns = (int) Math.min(runsLeft, RUNS_PER_TASK);
+      final SplittableRandom taskRandom = random.split();
+      tasks.add(() -> simulateRuns(taskRuns, taskRandom));
+    }
+    long[][] roundCounts = new long[numberOfTeams][BracketSimulationResult.NUMBER_OF_ROUNDS];
+    try {
+      for (Future<long[]> future : executorService.invokeAll(tasks)) {
+        long[] taskRoundCounts = future.get();
+        for (int teamIndex = 0; teamIndex < numberOfTeams; teamIndex++) {
+          for (int round = 0; round < BracketSimulationResult.NUMBER_OF_ROUNDS; round++) {
+            roundCounts[teamIndex][round] +=
+                taskRoundCounts[teamIndex * BracketSimulationResult.NUMBER_OF_ROUNDS + round];
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while simulating the bracket", e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Error simulating the bracket: " + e.getCause().getMessage(), e.getCause());
+    }
+    BracketSimulationResult ret =
+        new BracketSimulationResult(bracket, roundCounts, numberOfRuns, System.nanoTime() - start);
+    log.info("Simulated the bracket " + numberOfRuns + " times in " + tasks.size() + " task(s): "
+        + Math.round(ret.getRunsPerSecond()) + " runs per second");
+    return ret;
+  }
+
+  /**
+   * Simulates the tournament the specified number of times (one task's worth).
+   *
+   * @return long[] - [team index * NUMBER_OF_ROUNDS + round] -> the number of runs the
+   *         team made it to the round.
+   */
+  private long[] simulateRuns(int numberOfRuns, SplittableRandom random) {
+    long[] ret = new long[numberOfTeams * BracketSimulationResult.NUMBER_OF_ROUNDS];
+    int[] slotTeams = bracket.getSlotTeams();
+    int[] slotPlayInTeams = bracket.getSlotPlayInTeams();
+    int[] alive = new int[Bracket.NUMBER_OF_SLOTS];
+    for (int run = 0; run < numberOfRuns; run++) {
+      //
+      // The First Four, then the Round of 64 is set
+      for (int slot = 0; slot < Bracket.NUMBER_OF_SLOTS; slot++) {
+        int team = slotTeams[slot];
+        if (slotPlayInTeams[slot] >= 0) {
+          team = playGame(team, slotPlayInTeams[slot], random);
+        }
+        alive[slot] = team;
+        ret[team * BracketSimulationResult.NUMBER_OF_ROUNDS]++;
+      }
+      //
+      // Every round, the winners of neighboring slots play each other, until
+      /// only the champion is left
+      for (int round = 1, numberAlive = Bracket.NUMBER_OF_SLOTS / 2; numberAlive >= 1; round++, numberAlive /= 2) {
+        for (int aa = 0; aa < numberAlive; aa++) {
+          int winner = playGame(alive[2 * aa], alive[2 * aa + 1], random);
+          alive[aa] = winner;
+          ret[winner * BracketSimulationResult.NUMBER_OF_ROUNDS + round]++;
+        }
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * @return int - the winner (picked at random, according to the win probabilities).
+   */
+  private int playGame(int team1, int team2, SplittableRandom random) {
+    return (random.nextDouble() < winProbabilities[team1 * numberOfTeams + team2]) ? team1 : team2;
+  }
+
+}
@@ -0,0 +1,499 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.simulation;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.neuroph.core.Connection;
+import org.neuroph.core.Layer;
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.Neuron;
+import org.neuroph.core.input.WeightedSum;
+import org.neuroph.core.transfer.Linear;
+import org.neuroph.core.transfer.Sigmoid;
+import org.neuroph.core.transfer.TransferFunction;
+import org.neuroph.nnet.comp.neuron.BiasNeuron;
+import org.neuroph.nnet.comp.neuron.InputNeuron;
+
+/**
+ * A trained, layered, feed-forward Neuroph network (like a MultiLayerPerceptron)
+ * "compiled" down to primitive arrays, so it can be run without going through
+ * Neuroph's object-per-neuron graph.
+ * <p>
+ * Each layer's weights are held in a flat, row-major matrix (one row per neuron,
+ * one column per neuron in the previous layer), so running the network is just a
+ * series of dense matrix-vector loops. Bias neurons stay right where Neuroph put
+ * them (with an output of 1), and the sums are done in the same order Neuroph does
+ * them, so the output is the same as Neuroph's <code>calculate()</code> (to well
+ * within 1e-9, normally to the last bit).
+ * <p>
+ * Instances are never modified after they are created (the activations live in
+ * scratch buffers that belong to each call), so a single instance can be run from
+ * any number of threads at once, which a Neuroph network cannot. Changing the
+ * weights of the original network after compiling it has no effect on the
+ * compiled network.
+ * <p>
+ * The first hidden layer's net input is a sum over the inputs, so it can also be
+ * computed a piece at a time ({@link #computeFirstLayerNetInput(double[], boolean)}),
+ * and the pieces added up and run through the rest of the network
+ * ({@link #calculateFromFirstLayerNetInput(double[])}). See {@link FirstLayerCache}.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class CompiledNetwork {
+
+  /**
+   * Neuron transfer function types supported
+   */
+  private static final byte TRANSFER_FUNCTION_SIGMOID = 0;
+  private static final byte TRANSFER_FUNCTION_LINEAR = 1;
+  /**
+   * Bias neurons: always output 1
+   */
+  private static final byte TRANSFER_FUNCTION_BIAS = 2;
+
+  /**
+   * The number of neurons (including bias neurons) in each layer
+   */
+  private final int[] layerSizes;
+
+  /**
+   * weights[layer][neuron * layerSizes[layer - 1] + previousLayerNeuron].
+   * weights[0] is not used (the input layer has no input connections).
+   */
+  private final double[][] weights;
+
+  /**
+   * The transfer function type for each neuron in each (non-input) layer
+   */
+  private final byte[][] transferFunctions;
+
+  /**
+   * The transfer function slope for each neuron in each (non-input) layer
+   */
+  private final double[][] slopes;
+
+  /**
+   * Where each network input goes in the input layer
+   */
+  private final int[] inputPositions;
+
+  /**
+   * Positions in the input layer that always output 1 (bias neurons)
+   */
+  private final int[] inputBiasPositions;
+
+  /**
+   * Where each network output comes from in the output layer
+   */
+  private final int[] outputPositions;
+
+  /**
+   * The size of the biggest layer (for sizing the scratch buffers)
+   */
+  private final int maxLayerSize;
+
+  private CompiledNetwork(int[] layerSizes, double[][] weights, byte[][] transferFunctions, double[][] slopes,
+      int[] inputPositions, int[] inputBiasPositions, int[] outputPositions) {
+    this.layerSizes = layerSizes;
+    this.weights = weights;
+    this.transferFunctions = transferFunctions;
+    this.slopes = slopes;
+    this.inputPositions = inputPositions;
+    this.inputBiasPositions = inputBiasPositions;
+    this.outputPositions = outputPositions;
+    int max = 0;
+    for (int layerSize : layerSizes) {
+      max = Math.max(max, layerSize);
+    }
+    this.maxLayerSize = max;
+  }
+
+  /**
+   * Compiles the specified network. The network must be a layered, feed-forward
+   * network (each neuron only connected to neurons in the layer before it), with
+   * weighted sum input functions and Sigmoid or Linear transfer functions, which is
+   * what a MultiLayerPerceptron is.
+   *
+   * @param network
+   *          The (trained) network to compile.
+   *
+   * @return CompiledNetwork - the compiled network.
+   *
+   * @throws RuntimeException
+   *           If the network has anything in it that is not supported.
+   */
+  public static CompiledNetwork compile(NeuralNetwork<?> network) {
+    int numberOfLayers = network.getLayersCount();
+    int[] layerSizes = new int[numberOfLayers];
+    double[][] weights = new double[numberOfLayers][];
+    byte[][] transferFunctions = new byte[numberOfLayers][];
+    double[][] slopes = new double[numberOfLayers][];
+    //
+    // Remember where each neuron lives, so the connections can be turned into matrix positions
+    Map<Neuron, Integer> neuronPositions = new IdentityHashMap<>();
+    Map<Neuron, Integer> neuronLayers = new IdentityHashMap<>();
+    for (int layerIndex = 0; layerIndex < numberOfLayers; layerIndex++) {
+      Layer layer = network.getLayerAt(layerIndex);
+      layerSizes[layerIndex] = layer.getNeuronsCount();
+      for (int neuronIndex = 0; neuronIndex < layer.getNeuronsCount(); neuronIndex++) {
+        neuronPositions.put(layer.getNeuronAt(neuronIndex), neuronIndex);
+        neuronLayers.put(layer.getNeuronAt(neuronIndex), layerIndex);
+      }
+    }
+    //
+    // Input layer: only network inputs and bias neurons allowed
+    Layer inputLayer = network.getLayerAt(0);
+    int numberOfInputBiasNeurons = 0;
+    for (int neuronIndex = 0; neuronIndex < inputLayer.getNeuronsCount(); neuronIndex++) {
+      Neuron neuron = inputLayer.getNeuronAt(neuronIndex);
+      if (neuron instanceof BiasNeuron) {
+        numberOfInputBiasNeurons++;
+      } else if (!(neuron instanceof InputNeuron)) {
+        throw new RuntimeException("Cannot compile network: unsupported neuron type in the input layer: "
+            + neuron.getClass().getName());
+      }
+    }
+    int[] inputBiasPositions = new int[numberOfInputBiasNeurons];
+    numberOfInputBiasNeurons = 0;
+    for (int neuronIndex = 0; neuronIndex < inputLayer.getNeuronsCount(); neuronIndex++) {
+      if (inputLayer.getNeuronAt(neuronIndex) instanceof BiasNeuron) {
+        inputBiasPositions[numberOfInputBiasNeurons++] = neuronIndex;
+      }
+    }
+    int[] inputPositions = toPositions(network.getInputNeurons(), neuronPositions, neuronLayers, 0);
+    int[] outputPositions = toPositions(network.getOutputNeurons(), neuronPositions, neuronLayers,
+        numberOfLayers - 1);
+    //
+    // The rest of the layers
+    for (int layerIndex = 1; layerIndex < numberOfLayers; layerIndex++) {
+      Layer layer = network.getLayerAt(layerIndex);
+      int layerSize = layerSizes[layerIndex];
+      int previousLayerSize = layerSizes[layerIndex - 1];
+      weights[layerIndex] = new double[layerSize * previousLayerSize];
+      transferFunctions[layerIndex] = new byte[layerSize];
+      slopes[layerIndex] = new double[layerSize];
+      for (int neuronIndex = 0; neuronIndex < layerSize; neuronIndex++) {
+        Neuron neuron = layer.getNeuronAt(neuronIndex);
+        if (neuron instanceof BiasNeuron) {
+          transferFunctions[layerIndex][neuronIndex] = TRANSFER_FUNCTION_BIAS;
+          continue;
+        }
+        if (!(neuron.getInputFunction() instanceof WeightedSum)) {
+          throw new RuntimeException("Cannot compile network: unsupported input function: "
+              + neuron.getInputFunction().getClass().getName());
+        }
+        TransferFunction transferFunction = neuron.getTransferFunction();
+        if (transferFunction instanceof Sigmoid) {
+          transferFunctions[layerIndex][neuronIndex] = TRANSFER_FUNCTION_SIGMOID;
+          slopes[layerIndex][neuronIndex] = ((Sigmoid) transferFunction).getSlope();
+        } else if (transferFunction instanceof Linear) {
+          transferFunctions[layerIndex][neuronIndex] = TRANSFER_FUNCTION_LINEAR;
+          slopes[layerIndex][neuronIndex] = ((Linear) transferFunction).getSlope();
+        } else {
+          throw new RuntimeException("Cannot compile network: unsupported transfer function: "
+              + transferFunction.getClass().getName());
+        }
+        int rowStart = neuronIndex * previousLayerSize;
+        for (Connection connection : neuron.getInputConnections()) {
+          Neuron fromNeuron = connection.getFromNeuron();
+          Integer fromLayer = neuronLayers.get(fromNeuron);
+          if (fromLayer == null || fromLayer != layerIndex - 1) {
+            throw new RuntimeException("Cannot compile network: neuron #" + neuronIndex + " in layer #" + layerIndex
+                + " is connected to a neuron that is not in the layer before it.");
+          }
+          weights[layerIndex][rowStart + neuronPositions.get(fromNeuron)] += connection.getWeight().value;
+        }
+      }
+    }
+    return new CompiledNetwork(layerSizes, weights, transferFunctions, slopes, inputPositions, inputBiasPositions,
+        outputPositions);
+  }
+
+  /**
+   * @return int - the number of inputs the network expects.
+   */
+  public int getInputsCount() {
+    return inputPositions.length;
+  }
+
+  /**
+   * @return int - the number of outputs the network produces.
+   */
+  public int getOutputsCount() {
+    return outputPositions.length;
+  }
+
+  /**
+   * @return int - the number of neurons (including bias neurons) in the first layer after
+   *         the input layer.
+   */
+  public int getFirstLayerSize() {
+    return layerSizes[1];
+  }
+
+  /**
+   * @return int - the number of neurons in the biggest layer (the size of the scratch
+   *         buffers needed to run the network).
+   */
+  int getMaxLayerSize() {
+    return maxLayerSize;
+  }
+
+  /**
+   * Computes what the specified input contributes to the net input of each neuron in the
+   * first layer after the input layer (the weighted sum of the inputs). Because it is a sum,
+   * the net input for a whole input is the sum of the contributions of its parts (with the
+   * other inputs set to 0), plus the contribution of the input layer's bias neurons, if any.
+   *
+   * @param input
+   *          The (normalized) input data, or part of it (the rest set to 0).
+   * @param includeBias
+   *          Whether or not to add in the contribution of the input layer's bias neurons.
+   *
+   * @return double[] - the net input of each neuron in the layer (0 for bias neurons).
+   */
+  public double[] computeFirstLayerNetInput(double[] input, boolean includeBias) {
+    if (input.length != inputPositions.length) {
+      throw new RuntimeException(
+          "The expected size of " + inputPositions.length + " does not match the actual size of " + input.length);
+    }
+    double[] inputLayer = new double[layerSizes[0]];
+    for (int aa = 0; aa < inputPositions.length; aa++) {
+      inputLayer[inputPositions[aa]] = input[aa];
+    }
+    if (includeBias) {
+      for (int inputBiasPosition : inputBiasPositions) {
+        inputLayer[inputBiasPosition] = 1.0;
+      }
+    }
+    int layerSize = layerSizes[1];
+    int previousLayerSize = layerSizes[0];
+    double[] layerWeights = weights[1];
+    double[] ret = new double[layerSize];
+    for (int neuronIndex = 0; neuronIndex < layerSize; neuronIndex++) {
+      if (transferFunctions[1][neuronIndex] == TRANSFER_FUNCTION_BIAS) {
+        continue;
+      }
+      double netInput = 0.0;
+      int rowStart = neuronIndex * previousLayerSize;
+      for (int aa = 0; aa < previousLayerSize; aa++) {
+        netInput += inputLayer[aa] * layerWeights[rowStart + aa];
+      }
+      ret[neuronIndex] = netInput;
+    }
+    return ret;
+  }
+
+  /**
+   * Runs the network once, starting from the net input of the first layer after the
+   * input layer (see {@link #computeFirstLayerNetInput(double[], boolean)}). The output
+   * is the same as {@link #calculate(double[])} for the same input, except that the net
+   * input may have been summed in a different order (so to within 1e-9, not to the last bit).
+   *
+   * @param firstLayerNetInput
+   *          The net input of each neuron in the first layer after the input layer.
+   *
+   * @return double[] - the network output.
+   */
+  public double[] calculateFromFirstLayerNetInput(double[] firstLayerNetInput) {
+    double[] ret = new double[outputPositions.length];
+    calculateFromFirstLayerNetInput(firstLayerNetInput, ret, new double[maxLayerSize], new double[maxLayerSize]);
+    return ret;
+  }
+
+  /**
+   * Same as {@link #calculateFromFirstLayerNetInput(double[])}, but with the output and
+   * scratch buffers provided (so they can be reused).
+   *
+   * @param firstLayerNetInput
+   *          The net input of each neuron in the first layer after the input layer.
+   * @param output
+   *          Where the network output goes
+   * @param previous
+   *          Scratch buffer, at least as big as the biggest layer
+   * @param current
+   *          Scratch buffer, at least as big as the biggest layer
+   */
+  void calculateFromFirstLayerNetInput(double[] firstLayerNetInput, double[] output, double[] previous,
+      double[] current) {
+    byte[] layerTransferFunctions = transferFunctions[1];
+    double[] layerSlopes = slopes[1];
+    for (int neuronIndex = 0; neuronIndex < layerSizes[1]; neuronIndex++) {
+      previous[neuronIndex] = activate(layerTransferFunctions[neuronIndex], layerSlopes[neuronIndex],
+          firstLayerNetInput[neuronIndex]);
+    }
+    runLayers(2, output, previous, current);
+  }
+
+  /**
+   * Runs the network once.
+   *
+   * @param input
+   *          The (normalized) input data.
+   *
+   * @return double[] - the network output.
+   */
+  public double[] calculate(double[] input) {
+    double[] ret = new double[outputPositions.length];
+    calculate(input, ret, new double[maxLayerSize], new double[maxLayerSize]);
+    return ret;
+  }
+
+  /**
+   * Runs the network for each row of input data.
+   *
+   * @param inputs
+   *          The batch of (normalized) input data, one row per run of the network.
+   *
+   * @return double[][] - the network output, one row for each row of input.
+   */
+  public double[][] calculate(double[][] inputs) {
+    double[][] ret = new double[inputs.length][];
+    //
+    // Scratch buffers for the activations of the current and previous layers,
+    /// allocated once per batch, not once per row.
+    double[] previous = new double[maxLayerSize];
+    double[] current = new double[maxLayerSize];
+    for (int row = 0; row < inputs.length; row++) {
+      ret[row] = new double[outputPositions.length];
+      calculate(inputs[row], ret[row], previous, current);
+    }
+    return ret;
+  }
+
+  /**
+   * Runs the network once.
+   *
+   * @param input
+   *          The input data
+   * @param output
+   *          Where the network output goes
+   * @param previous
+   *          Scratch buffer, at least as big as the biggest layer
+   * @param current
+   *          Scratch buffer, at least as big as the biggest layer
+   */
+  private void calculate(double[] input, double[] output, double[] previous, double[] current) {
+    if (input.length != inputPositions.length) {
+      throw new RuntimeException(
+          "The expected size of " + inputPositions.length + " does not match the actual size of " + input.length);
+    }
+    //
+    // Input layer
+    for (int aa = 0; aa < inputPositions.length; aa++) {
+      previous[inputPositions[aa]] = input[aa];
+    }
+    for (int inputBiasPosition : inputBiasPositions) {
+      previous[inputBiasPosition] = 1.0;
+    }
+    //
+    // Everything else
+    runLayers(1, output, previous, current);
+  }
+
+  /**
+   * Runs the layers from the specified layer on, and copies out the output.
+   *
+   * @param firstLayerIndex
+   *          The first layer to run (the activations of the layer before it are in "previous")
+   * @param output
+   *          Where the network output goes
+   * @param previous
+   *          Scratch buffer, holding the activations of the layer before the first one to run
+   * @param current
+   *          Scratch buffer, at least as big as the biggest layer
+   */
+  private void runLayers(int firstLayerIndex, double[] output, double[] previous, double[] current) {
+    for (int layerIndex = firstLayerIndex; layerIndex < layerSizes.length; layerIndex++) {
+      int layerSize = layerSizes[layerIndex];
+      int previousLayerSize = layerSizes[layerIndex - 1];
+      double[] layerWeights = weights[layerIndex];
+      byte[] layerTransferFunctions = transferFunctions[layerIndex];
+      double[] layerSlopes = slopes[layerIndex];
+      for (int neuronIndex = 0; neuronIndex < layerSize; neuronIndex++) {
+        byte transferFunction = layerTransferFunctions[neuronIndex];
+        if (transferFunction == TRANSFER_FUNCTION_BIAS) {
+          current[neuronIndex] = 1.0;
+          continue;
+        }
+        double netInput = 0.0;
+        int rowStart = neuronIndex * previousLayerSize;
+        for (int aa = 0; aa < previousLayerSize; aa++) {
+          netInput += previous[aa] * layerWeights[rowStart + aa];
+        }
+        current[neuronIndex] = activate(transferFunction, layerSlopes[neuronIndex], netInput);
+      }
+      // This layer's output is the next layer's input
+      double[] temp = previous;
+      previous = current;
+      current = temp;
+    }
+    //
+    // Output layer (which is now in "previous")
+    for (int aa = 0; aa < outputPositions.length; aa++) {
+      output[aa] = previous[outputPositions[aa]];
+    }
+  }
+
+  /**
+   * Runs the specified net input through a neuron's transfer function.
+   */
+  private static double activate(byte transferFunction, double slope, double netInput) {
+    if (transferFunction == TRANSFER_FUNCTION_BIAS) {
+      return 1.0;
+    } else if (transferFunction == TRANSFER_FUNCTION_SIGMOID) {
+      return sigmoid(netInput, slope);
+    }
+    return slope * netInput;
+  }
+
+  /**
+   * Same as Neuroph's Sigmoid, including clamping large inputs (to avoid NaN).
+   */
+  private static double sigmoid(double netInput, double slope) {
+    double ret;
+    if (netInput > 100) {
+      ret = 1.0;
+    } else if (netInput < -100) {
+      ret = 0.0;
+    } else {
+      ret = 1d / (1 + Math.exp(-slope * netInput));
+    }
+    return ret;
+  }
+
+  /**
+   * Turns the specified List of neurons into their positions within the specified layer.
+   */
+  private static int[] toPositions(List<Neuron> neurons, Map<Neuron, Integer> neuronPositions,
+      Map<Neuron, Integer> neuronLayers, int layerIndex) {
+    int[] ret = new int[neurons.size()];
+    for (int aa = 0; aa < ret.length; aa++) {
+      Integer neuronLayer = neuronLayers.get(neurons.get(aa));
+      if (neuronLayer == null || neuronLayer != layerIndex) {
+        throw new RuntimeException("Cannot compile network: network input/output neuron #" + aa
+            + " is not in layer #" + layerIndex);
+      }
+      ret[aa] = neuronPositions.get(neurons.get(aa));
+    }
+    return ret;
+  }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.simulation;
+
+import java.io.File;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.neuroph.nnet.MultiLayerPerceptron;
+
+import com.makotojava.ncaabb.util.NetworkProperties;
+import com.makotojava.ncaabb.util.NetworkUtils;
+
+/**
+ * NetworkRunner that runs each network through its {@link CompiledNetwork}
+ * rather than through Neuroph.
+ * <p>
+ * Neuroph keeps the activations inside the network, so a MultiLayerPerceptron
+ * cannot be run from two threads at the same time. The compiled version can, so
+ * {@link #runNetwork(MultiLayerPerceptron, double[])} is safe to call from any
+ * number of threads, with the same network, without copying it.
+ * <p>
+ * Each network is compiled the first time it is run (or when it is loaded), and
+ * the compiled version is kept from then on. So this is meant for trained networks
+ * only: changing a network's weights after it has been run here has no effect.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class CompiledNetworkRunner implements NetworkRunner<MultiLayerPerceptron> {
+
+  private static final Logger log = Logger.getLogger(CompiledNetworkRunner.class);
+
+  /**
+   * Where the networks live
+   */
+  private final String networkArrayDirectory;
+
+  /**
+   * Network -> compiled network. Networks are matched by identity, not equals().
+   */
+  private final Map<MultiLayerPerceptron, CompiledNetwork> compiledNetworks = new IdentityHashMap<>();
+
+  /**
+   * Constructor. The networks are loaded from the directory dictated by
+   * the NetworkProperties settings.
+   */
+  public CompiledNetworkRunner() {
+    this(NetworkProperties.getBaseDirectory() + File.separator + NetworkProperties.getNetworkDirectoryName());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param networkArrayDirectory
+   *          The directory containing the trained networks.
+   */
+  public CompiledNetworkRunner(String networkArrayDirectory) {
+    this.networkArrayDirectory = networkArrayDirectory;
+  }
+
+  /**
+   * Loads all of the networks in the network directory, and compiles them
+   * so they are ready to run.
+   */
+  @Override
+  public List<MultiLayerPerceptron> loadNetworks() {
+    List<MultiLayerPerceptron> ret = NetworkUtils.loadNetworks(networkArrayDirectory);
+    for (MultiLayerPerceptron network : ret) {
+      getCompiledNetwork(network);
+    }
+    log.info("Compiled " + ret.size() + " networks.");
+    return ret;
+  }
+
+  /**
+   * Runs the compiled version of the specified network using the specified
+   * normalized input data. Thread safe.
+   */
+  @Override
+  public double[] runNetwork(MultiLayerPerceptron network, double[] input) {
+    return getCompiledNetwork(network).calculate(input);
+  }
+
+  /**
+   * Returns the compiled version of the specified network, compiling it
+   * if this is the first time it has been asked for.
+   *
+   * @param network
+   *          The (trained) network.
+   *
+   * @return CompiledNetwork - the compiled network. Can be shared between threads.
+   */
+  public CompiledNetwork getCompiledNetwork(MultiLayerPerceptron network) {
+    synchronized (compiledNetworks) {
+      CompiledNetwork ret = compiledNetworks.get(network);
+      if (ret == null) {
+        ret = CompiledNetwork.compile(network);
+        compiledNetworks.put(network, ret);
+      }
+      return ret;
+    }
+  }
+
+}
@@ -172,6 +172,18 @@ public class GameSimulationResult<T extends NeuralNetwork<BackPropagation>> {
     return opponentAwayResults;
   }
 
+  public Integer getNumberOfWins() {
+    return numberOfWins;
+  }
+
+  public Integer getNumberOfLosses() {
+    return numberOfLosses;
+  }
+
+  public Integer getNumberOfPushes() {
+    return numberOfPushes;
+  }
+
   public void incrementNumberOfWins() {
     this.numberOfWins += 1;
   }
@@ -184,6 +196,20 @@ public class GameSimulationResult<T extends NeuralNetwork<BackPropagation>> {
     this.numberOfPushes += 1;
   }
 
+  /**
+   * Derived property: the probability that the team beats the opponent, according to
+   * the networks. A push counts as half a win (the networks could not decide), so the
+   * opponent's win probability is always 1 minus the team's.
+   * 
+   * @return double - the win probability (0.5 if there are no networks).
+   */
+  public double getWinProbability() {
+    if (getNumberOfNetworks() == 0) {
+      return 0.5;
+    }
+    return (numberOfWins + 0.5 * numberOfPushes) / getNumberOfNetworks();
+  }
+
   /**
    * Derived property: computes the average win percentage across all networks
    * and returns that value.
@@ -0,0 +1,367 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.neuroph.nnet.MultiLayerPerceptron;
+
+import com.makotojava.ncaabb.dao.SeasonAnalyticsDao;
+import com.makotojava.ncaabb.dao.SeasonDataDao;
+import com.makotojava.ncaabb.model.NormalizedFeatureStore;
+import com.makotojava.ncaabb.model.SeasonData;
+
+/**
+ * Predicts matchups on demand: ask for a matchup ({@link #predict(Integer, String, String)}),
+ * or a team's matchups against a batch of opponents ({@link #predictRow(Integer, String, List)}),
+ * and they are simulated (home and away, using every network) the first time they are asked
+ * for, rather than computing the whole tournament matrix up front. The matchups of a row that
+ * are not in the cache are simulated together, as a batch (see {@link TournamentMatrixEngine}).
+ * The whole matrix is just every team's row ({@link #predictMatrix(Integer, Collection, ExecutorService)}).
+ * <p>
+ * The results are kept in a size-bounded cache, keyed by year and (ordered) pair of teams,
+ * that drops the least recently used matchup when it fills up. Simulating a matchup gives
+ * the result from both teams' points of view, so both go into the cache. The cache is locked
+ * twice per row (once to look the row up, once to add what was simulated), never while
+ * simulating. The networks are
+ * compiled once, and each year's teams are normalized once (see {@link NormalizedFeatureStore}),
+ * no matter how many matchups they play in. The season data comes from the SeasonDataDao
+ * (which keeps whole years in memory, see <code>CachingSeasonDataDao</code>).
+ * <p>
+ * Safe to share between threads. The GameSimulationResults handed out are shared, so don't
+ * modify them.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class MatchupPredictor {
+
+  private static final Logger log = Logger.getLogger(MatchupPredictor.class);
+
+  private final List<MultiLayerPerceptron> networks;
+
+  private final List<CompiledNetwork> compiledNetworks;
+
+  private final SeasonDataDao seasonDataDao;
+
+  private final SeasonAnalyticsDao seasonAnalyticsDao;
+
+  private final boolean cacheFirstLayer;
+
+  /**
+   * Year -> the engine that simulates that year's matchups
+   */
+  private final Map<Integer, TournamentMatrixEngine> engines = new ConcurrentHashMap<>();
+
+  /**
+   * Matchup -> result, in least to most recently used order
+   */
+  private final Map<MatchupKey, GameSimulationResult<MultiLayerPerceptron>> matchupCache;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  /**
+   * Constructor.
+   *
+   * @param networks
+   *          The trained networks to be used
+   * @param seasonDataDao
+   *          Where the teams' season data comes from.
+   * @param seasonAnalyticsDao
+   *          Where the SeasonAnalytics (to normalize the season data) come from.
+   * @param maxCachedMatchups
+   *          The maximum number of matchup results to keep in memory at one time.
+   * @param cacheFirstLayer
+   *          Whether or not to cache each team's contribution to each network's first
+   *          layer (see {@link FirstLayerCache}).
+   */
+  public MatchupPredictor(List<MultiLayerPerceptron> networks, SeasonDataDao seasonDataDao,
+      SeasonAnalyticsDao seasonAnalyticsDao, final int maxCachedMatchups, boolean cacheFirstLayer) {
+    if (maxCachedMatchups < 1) {
+      throw new IllegalArgumentException("maxCachedMatchups must be at least 1, was " + maxCachedMatchups);
+    }
+    this.networks = networks;
+    this.compiledNetworks = TournamentMatrixEngine.compileNetworks(networks);
+    this.seasonDataDao = seasonDataDao;
+    this.seasonAnalyticsDao = seasonAnalyticsDao;
+    this.cacheFirstLayer = cacheFirstLayer;
+    this.matchupCache = new LinkedHashMap<MatchupKey, GameSimulationResult<MultiLayerPerceptron>>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<MatchupKey, GameSimulationResult<MultiLayerPerceptron>> eldest) {
+        return size() > maxCachedMatchups;
+      }
+    };
+  }
+
+  /**
+   * Predicts the specified matchup, simulating it if it is not in the cache.
+   *
+   * @param year
+   *          The tournament year.
+   * @param teamName
+   *          The team.
+   * @param opponentName
+   *          The opponent.
+   *
+   * @return GameSimulationResult<MultiLayerPerceptron> - the result, from the team's
+   *         point of view.
+   */
+  public GameSimulationResult<MultiLayerPerceptron> predict(Integer year, String teamName, String opponentName) {
+    return predictRow(year, teamName, Collections.singletonList(opponentName)).get(0);
+  }
+
+  /**
+   * Predicts the specified team's matchups against each of the opponents. The ones that are
+   * not in the cache are simulated together, in one batch.
+   *
+   * @param year
+   *          The tournament year.
+   * @param teamName
+   *          The team.
+   * @param opponentNames
+   *          The opponents.
+   *
+   * @return List<GameSimulationResult<MultiLayerPerceptron>> - the results, from the team's
+   *         point of view, one per opponent (in the same order).
+   */
+  public List<GameSimulationResult<MultiLayerPerceptron>> predictRow(Integer year, String teamName,
+      List<String> opponentNames) {
+    return predictRowBothWays(year, teamName, opponentNames).get(0);
+  }
+
+  /**
+   * Predicts the specified team's matchups against each of the opponents, from both points
+   * of view. A matchup is served from the cache only if both of its results are there, the
+   * others are simulated together, in one batch.
+   *
+   * @param year
+   *          The tournament year.
+   * @param teamName
+   *          The team.
+   * @param opponentNames
+   *          The opponents.
+   *
+   * @return List<List<GameSimulationResult<MultiLayerPerceptron>>> - two Lists of results,
+   *         one per opponent (in the same order): the first from the team's point of view, the
+   *         second from each opponent's.
+   */
+  private List<List<GameSimulationResult<MultiLayerPerceptron>>> predictRowBothWays(Integer year, String teamName,
+      List<String> opponentNames) {
+    List<GameSimulationResult<MultiLayerPerceptron>> teamResults = new ArrayList<>(opponentNames.size());
+    List<GameSimulationResult<MultiLayerPerceptron>> opponentResults = new ArrayList<>(opponentNames.size());
+    List<Integer> missingIndexes = new ArrayList<>();
+    synchronized (matchupCache) {
+      for (int aa = 0; aa < opponentNames.size(); aa++) {
+        GameSimulationResult<MultiLayerPerceptron> teamResult =
+            matchupCache.get(new MatchupKey(year, teamName, opponentNames.get(aa)));
+        GameSimulationResult<MultiLayerPerceptron> opponentResult =
+            matchupCache.get(new MatchupKey(year, opponentNames.get(aa), teamName));
+        teamResults.add(teamResult);
+        opponentResults.add(opponentResult);
+        if (teamResult == null || opponentResult == null) {
+          missingIndexes.add(aa);
+        }
+      }
+    }
+    hitCount.addAndGet(opponentNames.size() - missingIndexes.size());
+    List<List<GameSimulationResult<MultiLayerPerceptron>>> ret = Arrays.asList(teamResults, opponentResults);
+    if (missingIndexes.isEmpty()) {
+      return ret;
+    }
+    missCount.addAndGet(missingIndexes.size());
+    //
+    // Simulate them without holding the lock, so other threads can go on predicting. Every so
+    /// often two threads will simulate the same matchup at once, which is harmless.
+    List<SeasonData> opponents = new ArrayList<>(missingIndexes.size());
+    for (int missingIndex : missingIndexes) {
+      opponents.add(fetchSeasonData(year, opponentNames.get(missingIndex)));
+    }
+    List<List<GameSimulationResult<MultiLayerPerceptron>>> results =
+        getEngine(year).simulateMatchups(fetchSeasonData(year, teamName), opponents);
+    synchronized (matchupCache) {
+      for (int aa = 0; aa < missingIndexes.size(); aa++) {
+        String opponentName = opponentNames.get(missingIndexes.get(aa));
+        GameSimulationResult<MultiLayerPerceptron> teamResult = results.get(0).get(aa);
+        GameSimulationResult<MultiLayerPerceptron> opponentResult = results.get(1).get(aa);
+        matchupCache.put(new MatchupKey(year, opponentName, teamName), opponentResult);
+        matchupCache.put(new MatchupKey(year, teamName, opponentName), teamResult);
+        teamResults.set(missingIndexes.get(aa), teamResult);
+        opponentResults.set(missingIndexes.get(aa), opponentResult);
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Predicts the whole tournament matrix: every team against every team (and itself, which
+   * is always a PUSH, but keeps the matrix square).
+   * <p>
+   * Each team's matchups against itself and every team after it (by name) are predicted,
+   * from both points of view, one task per team, on the executor you provide, so each pair
+   * of teams is only predicted (and counted in the cache statistics) once. Then the rows are
+   * put together straight from the tasks' results.
+   *
+   * @param year
+   *          The tournament year.
+   * @param teamNames
+   *          The teams.
+   * @param executorService
+   *          The ExecutorService to run the simulations on.
+   *
+   * @return Map<String, List<GameSimulationResult<MultiLayerPerceptron>>> - a Map of
+   *         List of GameSimulationResults. The Map is keyed by team name (sorted). The value is
+   *         a List of GameSimulationResult objects, one for each simulated game between that
+   *         team and every team, sorted by opponent name.
+   */
+  public Map<String, List<GameSimulationResult<MultiLayerPerceptron>>> predictMatrix(Integer year,
+      Collection<String> teamNames, ExecutorService executorService) {
+    List<String> sortedTeamNames = new ArrayList<>(teamNames);
+    Collections.sort(sortedTeamNames);
+    //
+    // One task per team. The first team has the most pairs, so it goes first.
+    List<Callable<List<List<GameSimulationResult<MultiLayerPerceptron>>>>> tasks = new ArrayList<>();
+    for (int teamIndex = 0; teamIndex < sortedTeamNames.size(); teamIndex++) {
+      final int currentTeamIndex = teamIndex;
+      tasks.add(() -> predictRowBothWays(year, sortedTeamNames.get(currentTeamIndex),
+          sortedTeamNames.subList(currentTeamIndex, sortedTeamNames.size())));
+    }
+    List<List<List<GameSimulationResult<MultiLayerPerceptron>>>> taskResults = new ArrayList<>(tasks.size());
+    try {
+      for (Future<List<List<GameSimulationResult<MultiLayerPerceptron>>>> future : executorService.invokeAll(tasks)) {
+        taskResults.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while computing the tournament matrix", e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Error computing the tournament matrix: " + e.getCause().getMessage(), e.getCause());
+    }
+    //
+    // Task i holds team i's results against teams i, i+1, ... (first List), and their
+    /// results against team i (second List).
+    Map<String, List<GameSimulationResult<MultiLayerPerceptron>>> ret = new TreeMap<>();
+    for (int teamIndex = 0; teamIndex < sortedTeamNames.size(); teamIndex++) {
+      List<GameSimulationResult<MultiLayerPerceptron>> row = new ArrayList<>(sortedTeamNames.size());
+      for (int opponentIndex = 0; opponentIndex < sortedTeamNames.size(); opponentIndex++) {
+        if (opponentIndex < teamIndex) {
+          row.add(taskResults.get(opponentIndex).get(1).get(teamIndex - opponentIndex));
+        } else {
+          row.add(taskResults.get(teamIndex).get(0).get(opponentIndex - teamIndex));
+        }
+      }
+      ret.put(sortedTeamNames.get(teamIndex), row);
+    }
+    return ret;
+  }
+
+  /**
+   * @return long - the number of predictions served from the cache.
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * @return long - the number of predictions that had to be simulated.
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * Logs the cache hit/miss counts.
+   */
+  public void logStatistics() {
+    long hits = getHitCount();
+    long total = hits + getMissCount();
+    log.info("Matchup cache: " + hits + " hits, " + getMissCount() + " misses ("
+        + ((total > 0) ? (hits * 100 / total) : 0) + "% hit rate)");
+  }
+
+  /**
+   * Creates the NormalizedFeatureStore for the specified year.
+   *
+   * @param year
+   *          The tournament year.
+   *
+   * @return NormalizedFeatureStore - the feature store.
+   */
+  protected NormalizedFeatureStore createFeatureStore(Integer year) {
+    return new NormalizedFeatureStore(seasonAnalyticsDao.fetchByYear(year));
+  }
+
+  private TournamentMatrixEngine getEngine(Integer year) {
+    return engines.computeIfAbsent(year,
+        key -> new TournamentMatrixEngine(networks, compiledNetworks, createFeatureStore(key), cacheFirstLayer));
+  }
+
+  private SeasonData fetchSeasonData(Integer year, String teamName) {
+    SeasonData ret = seasonDataDao.fetchByYearAndTeamName(year, teamName);
+    if (ret == null) {
+      throw new IllegalArgumentException("No season data for team " + teamName + " in " + year);
+    }
+    return ret;
+  }
+
+  /**
+   * Year, team name and opponent name
+   */
+  private static class MatchupKey {
+    private final Integer year;
+    private final String teamName;
+    private final String opponentName;
+
+    private MatchupKey(Integer year, String teamName, String opponentName) {
+      this.year = year;
+      this.teamName = teamName;
+      this.opponentName = opponentName;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof MatchupKey)) {
+        return false;
+      }
+      MatchupKey matchupKey = (MatchupKey) other;
+      return year.equals(matchupKey.year) && teamName.equals(matchupKey.teamName)
+          && opponentName.equals(matchupKey.opponentName);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(year, teamName, opponentName);
+    }
+  }
+
+}
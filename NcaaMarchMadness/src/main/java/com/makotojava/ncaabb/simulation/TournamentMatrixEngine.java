@@ -0,0 +1,294 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.neuroph.nnet.MultiLayerPerceptron;
+
+import com.makotojava.ncaabb.model.NormalizedFeatureStore;
+import com.makotojava.ncaabb.model.SeasonData;
+
+/**
+ * Simulates the matchups for the tournament matrix: a team against a whole batch of
+ * opponents ({@link #simulateMatchups(SeasonData, List)}), using every network, each
+ * network run over the whole batch at once.
+ * <p>
+ * Every matchup is already simulated both ways (home and away) to eliminate
+ * positional bias, so A vs. B and B vs. A use exactly the same network runs.
+ * Each unordered pair only needs to be simulated once: the result comes back from
+ * both teams' points of view. Which pairs get simulated (and when) is up to the
+ * {@link MatchupPredictor}.
+ * <p>
+ * Optionally, each network's first layer can be cached per team (see
+ * {@link FirstLayerCache}), so it is run twice per team instead of twice per pair.
+ * <p>
+ * Safe to share between threads.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class TournamentMatrixEngine {
+
+  private static final Logger log = Logger.getLogger(TournamentMatrixEngine.class);
+
+  private final List<MultiLayerPerceptron> networks;
+
+  private final List<CompiledNetwork> compiledNetworks;
+
+  private final NormalizedFeatureStore featureStore;
+
+  /**
+   * One per network, or null if the first layer is not being cached
+   */
+  private final List<FirstLayerCache> firstLayerCaches;
+
+  /**
+   * Constructor.
+   *
+   * @param networks
+   *          The trained networks to be used
+   * @param featureStore
+   *          The NormalizedFeatureStore for the tournament year.
+   */
+  public TournamentMatrixEngine(List<MultiLayerPerceptron> networks, NormalizedFeatureStore featureStore) {
+    this(networks, featureStore, false);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param networks
+   *          The trained networks to be used
+   * @param featureStore
+   *          The NormalizedFeatureStore for the tournament year.
+   * @param cacheFirstLayer
+   *          Whether or not to cache each team's contribution to each network's first layer.
+   */
+  public TournamentMatrixEngine(List<MultiLayerPerceptron> networks, NormalizedFeatureStore featureStore,
+      boolean cacheFirstLayer) {
+    this(networks, compileNetworks(networks), featureStore, cacheFirstLayer);
+  }
+
+  /**
+   * Constructor, for networks that have already been compiled (so the compiled networks
+   * can be shared by more than one engine, one per year, say).
+   *
+   * @param networks
+   *          The trained networks to be used
+   * @param compiledNetworks
+   *          The same networks, compiled (see {@link #compileNetworks(List)}).
+   * @param featureStore
+   *          The NormalizedFeatureStore for the tournament year.
+   * @param cacheFirstLayer
+   *          Whether or not to cache each team's contribution to each network's first layer.
+   */
+  TournamentMatrixEngine(List<MultiLayerPerceptron> networks, List<CompiledNetwork> compiledNetworks,
+      NormalizedFeatureStore featureStore, boolean cacheFirstLayer) {
+    this.networks = networks;
+    this.featureStore = featureStore;
+    this.compiledNetworks = compiledNetworks;
+    if (cacheFirstLayer) {
+      this.firstLayerCaches = new ArrayList<>();
+      for (CompiledNetwork compiledNetwork : compiledNetworks) {
+        firstLayerCaches.add(new FirstLayerCache(compiledNetwork, featureStore));
+      }
+    } else {
+      this.firstLayerCaches = null;
+    }
+  }
+
+  /**
+   * Compiles the specified networks once, up front, so they can be run a batch at a time
+   * (and from more than one thread).
+   *
+   * @param networks
+   *          The trained networks.
+   *
+   * @return List<CompiledNetwork> - the compiled networks, in the same order.
+   */
+  static List<CompiledNetwork> compileNetworks(List<MultiLayerPerceptron> networks) {
+    List<CompiledNetwork> ret = new ArrayList<>();
+    for (MultiLayerPerceptron network : networks) {
+      ret.add(CompiledNetwork.compile(network));
+    }
+    return ret;
+  }
+
+  /**
+   * Simulates the team against each of the opponents (home and away, using every network).
+   *
+   * @param team
+   *          The team's SeasonData.
+   * @param opponents
+   *          The opponents' SeasonData.
+   *
+   * @return List<List<GameSimulationResult<MultiLayerPerceptron>>> - two Lists of
+   *         GameSimulationResults, one per opponent (in the same order): the first one from the
+   *         team's point of view, the second from the opponents' (where a team playing itself
+   *         is the same object in both).
+   */
+  public List<List<GameSimulationResult<MultiLayerPerceptron>>> simulateMatchups(SeasonData team,
+      List<SeasonData> opponents) {
+    List<GameSimulationResult<MultiLayerPerceptron>> teamResults = new ArrayList<>();
+    List<GameSimulationResult<MultiLayerPerceptron>> opponentResults = new ArrayList<>();
+    for (SeasonData opponent : opponents) {
+      GameSimulationResult<MultiLayerPerceptron> teamResult =
+          new GameSimulationResult<>(team.getTeamName(), opponent.getTeamName());
+      teamResults.add(teamResult);
+      opponentResults.add(team.getTeamName().equals(opponent.getTeamName()) ? teamResult
+          : new GameSimulationResult<>(opponent.getTeamName(), team.getTeamName()));
+    }
+    if (firstLayerCaches == null) {
+      simulateRow(team, opponents, teamResults, opponentResults);
+    } else {
+      simulateRowFromFirstLayerCaches(team, opponents, teamResults, opponentResults);
+    }
+    List<List<GameSimulationResult<MultiLayerPerceptron>>> ret = new ArrayList<>();
+    ret.add(teamResults);
+    ret.add(opponentResults);
+    return ret;
+  }
+
+  /**
+   * Simulates the team against each of the opponents, and fills in both the team's
+   * results, and the opponents'.
+   *
+   * @param team
+   * @param opponents
+   * @param teamResults
+   * @param opponentResults
+   */
+  private void simulateRow(SeasonData team, List<SeasonData> opponents,
+      List<GameSimulationResult<MultiLayerPerceptron>> teamResults,
+      List<GameSimulationResult<MultiLayerPerceptron>> opponentResults) {
+    int numberOfOpponents = opponents.size();
+    //
+    // Home - in this simulation, the team is "home" (LHS), and the opponent is "away" (RHS).
+    /// Away is just the opposite. The input is the same for every network.
+    double[][] homeInputs = new double[numberOfOpponents][];
+    double[][] awayInputs = new double[numberOfOpponents][];
+    for (int aa = 0; aa < numberOfOpponents; aa++) {
+      SeasonData opponentSeasonData = opponents.get(aa);
+      log.debug("Current Team: " + team.getTeamName() + " versus " + opponentSeasonData.getTeamName() + "...");
+      homeInputs[aa] = featureStore.createInput(team, opponentSeasonData);
+      awayInputs[aa] = featureStore.createInput(opponentSeasonData, team);
+    }
+    //
+    // Now run each network against the whole batch
+    for (int networkIndex = 0; networkIndex < networks.size(); networkIndex++) {
+      MultiLayerPerceptron network = networks.get(networkIndex);
+      CompiledNetwork compiledNetwork = compiledNetworks.get(networkIndex);
+      double[][] homeResults = compiledNetwork.calculate(homeInputs);
+      double[][] awayResults = compiledNetwork.calculate(awayInputs);
+      for (int aa = 0; aa < numberOfOpponents; aa++) {
+        SeasonData opponentSeasonData = opponents.get(aa);
+        computeResult(network, homeResults[aa], awayResults[aa], team, teamResults.get(aa), opponentSeasonData);
+        //
+        // The opponent's view of the same game: their home game was our away game, and vice versa
+        if (opponentResults.get(aa) != teamResults.get(aa)) {
+          computeResult(network, awayResults[aa], homeResults[aa], opponentSeasonData, opponentResults.get(aa), team);
+        }
+      }
+    }
+  }
+
+  /**
+   * Same as {@link #simulateRow(SeasonData, List, List, List)}, but using the
+   * FirstLayerCaches, one matchup at a time.
+   *
+   * @param team
+   * @param opponents
+   * @param teamResults
+   * @param opponentResults
+   */
+  private void simulateRowFromFirstLayerCaches(SeasonData team, List<SeasonData> opponents,
+      List<GameSimulationResult<MultiLayerPerceptron>> teamResults,
+      List<GameSimulationResult<MultiLayerPerceptron>> opponentResults) {
+    for (int networkIndex = 0; networkIndex < networks.size(); networkIndex++) {
+      MultiLayerPerceptron network = networks.get(networkIndex);
+      FirstLayerCache firstLayerCache = firstLayerCaches.get(networkIndex);
+      CompiledNetwork compiledNetwork = firstLayerCache.getCompiledNetwork();
+      //
+      // Scratch buffers, reused for every matchup
+      int scratchSize = compiledNetwork.getMaxLayerSize();
+      double[] firstLayerNetInput = new double[scratchSize];
+      double[] previous = new double[scratchSize];
+      double[] current = new double[scratchSize];
+      double[] homeResults = new double[compiledNetwork.getOutputsCount()];
+      double[] awayResults = new double[compiledNetwork.getOutputsCount()];
+      for (int aa = 0; aa < opponents.size(); aa++) {
+        SeasonData opponentSeasonData = opponents.get(aa);
+        firstLayerCache.calculate(team, opponentSeasonData, homeResults, firstLayerNetInput, previous, current);
+        firstLayerCache.calculate(opponentSeasonData, team, awayResults, firstLayerNetInput, previous, current);
+        computeResult(network, homeResults, awayResults, team, teamResults.get(aa), opponentSeasonData);
+        if (opponentResults.get(aa) != teamResults.get(aa)) {
+          computeResult(network, awayResults, homeResults, opponentSeasonData, opponentResults.get(aa), team);
+        }
+      }
+    }
+  }
+
+  /**
+   * Compute the results of a single network simulation (run as home and away to
+   * eliminate positional bias).
+   *
+   * @param network
+   * @param homeResults
+   *          The network output with currentTeam as LHS
+   * @param awayResults
+   *          The network output with currentTeam as RHS
+   * @param currentTeamSeasonData
+   * @param gameSimulationResult
+   * @param opponentTeamSeasonData
+   */
+  private static void computeResult(MultiLayerPerceptron network, double[] homeResults, double[] awayResults,
+      SeasonData currentTeamSeasonData, GameSimulationResult<MultiLayerPerceptron> gameSimulationResult,
+      SeasonData opponentTeamSeasonData) {
+    //
+    // Record the network
+    gameSimulationResult.getNetworks().add(network);
+    //
+    // Home - in this simulation, currentTeam is "home", so their output is index 0,
+    /// and the opponent is "away" so their output is index 1
+    gameSimulationResult.getTeamHomeResults().add(homeResults[0]);
+    gameSimulationResult.getOpponentAwayResults().add(homeResults[1]);
+    boolean homeWin = homeResults[0] > homeResults[1];
+    //
+    // Away - in this simulation, currentTeam is "away", so their output is index 1,
+    /// and the opponent is "home" so their output is index 0
+    gameSimulationResult.getTeamAwayResults().add(awayResults[1]);
+    gameSimulationResult.getOpponentHomeResults().add(awayResults[0]);
+    boolean awayWin = awayResults[1] > awayResults[0];
+    //
+    // Compute results
+    if (homeWin && awayWin) {
+      gameSimulationResult.getNetworkPredictions().add(currentTeamSeasonData.getTeamName());
+      gameSimulationResult.incrementNumberOfWins();
+    } else if (!homeWin && !awayWin) {
+      gameSimulationResult.getNetworkPredictions().add(opponentTeamSeasonData.getTeamName());
+      gameSimulationResult.incrementNumberOfLosses();
+    } else {
+      // Push indicates there is some positional bias in this network.
+      /// We do not want to count this result.
+      gameSimulationResult.getNetworkPredictions().add(GameSimulationResult.PUSH);
+      gameSimulationResult.incrementNumberOfPushes();
+    }
+  }
+
+}
@@ -21,24 +21,22 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
 
 import org.apache.log4j.Logger;
-import org.neuroph.core.data.DataSetRow;
 import org.neuroph.nnet.MultiLayerPerceptron;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
 import com.makotojava.ncaabb.dao.SeasonAnalyticsDao;
 import com.makotojava.ncaabb.dao.SeasonDataDao;
-import com.makotojava.ncaabb.generation.DataCreator;
 import com.makotojava.ncaabb.model.SeasonAnalytics;
 import com.makotojava.ncaabb.model.SeasonData;
 import com.makotojava.ncaabb.springconfig.ApplicationConfig;
@@ -55,6 +53,16 @@ import com.opencsv.CSVWriter;
  * or matchups have been determined, so long as you know who is going to be in
  * the tournament, and have loaded their regular season data into the DB.
  * 
+ * Once the brackets are out, give it the bracket file too, and it will also
+ * simulate the whole tournament (see {@link BracketSimulator}) and write out
+ * each team's odds of making it to each round, along with the exact odds
+ * (see {@link BracketProbabilityEngine}), and the picks with the highest
+ * expected score in a pool (see {@link BracketOptimizer}).
+ * 
+ * Matchups are simulated, and cached, by a {@link MatchupPredictor}, a whole matrix at
+ * a time. The bracket gets its results out of the tournament matrix. Turn the matrix off
+ * (simulation.matrix.write=false) and only the matrix of the bracket's own teams is simulated.
+ * 
  * @author J Steven Perry
  *
  */
@@ -124,13 +132,16 @@ public class TournamentMatrixPredictor implements NetworkRunner<MultiLayerPercep
     // Validate the year
     NetworkUtils.validateYear(year);
     //
+    // The bracket file is optional
+    File bracketFile = (args.length > 1) ? new File(args[1]) : null;
+    //
     // Instantiate the class and handoff
     TournamentMatrixPredictor simulator = new TournamentMatrixPredictor(
         new AnnotationConfigApplicationContext(ApplicationConfig.class));
     //
     // Let's go.
     // simulator.go(networkArrayDirectory, teamsFilename, matrixFilename, year);
-    simulator.go(year);
+    simulator.go(year, bracketFile);
   }
 
   /**
@@ -139,11 +150,12 @@ public class TournamentMatrixPredictor implements NetworkRunner<MultiLayerPercep
   protected static void usage() {
     System.out.println("Usage: ");
     System.out.println("\t" + TournamentMatrixPredictor.class.getSimpleName()
-        + " YEAR");
+        + " YEAR [BRACKET_FILE]");
     System.out.println("\t Where:");
     // System.out.println("\t NETWORK_DIRECTORY is the directory containing the trained networks to run as an array");
     // System.out.println("\t MATRIX_FILENAME is the output file containing the tournament matrix.");
     System.out.println("\t YEAR is the year in which the tournament occurs.");
+    System.out.println("\t BRACKET_FILE (optional) is the seeded bracket (REGION,SEED,TEAM NAME lines) to simulate.");
   }
 
   /**
@@ -176,19 +188,75 @@ public class TournamentMatrixPredictor implements NetworkRunner<MultiLayerPercep
    * @param tournamentYear
    */
   public void go(Integer tournamentYear) {
+    go(tournamentYear, null);
+  }
+
+  /**
+   * Same as {@link #go(Integer)}, and then, if there is a bracket file, simulates
+   * the tournament and writes out the bracket odds (simulated and exact), and the
+   * best picks.
+   * 
+   * @param tournamentYear
+   * @param bracketFile
+   *          The bracket file, or null if there is none (yet).
+   */
+  public void go(Integer tournamentYear, File bracketFile) {
+    //
+    // Read the bracket first, no sense computing the matrix if the bracket file is bad
+    Bracket bracket = (bracketFile == null) ? null : Bracket.fromFile(bracketFile);
     //
-    // Load the networks
-    List<MultiLayerPerceptron> networks = loadNetworks();
-    Set<String> teamNames = fetchTournamentTeams(tournamentYear);
+    // Load the networks. Matchups are predicted when they are asked for.
+    MatchupPredictor matchupPredictor = createMatchupPredictor();
     //
     // Now generate the matrix. Every team in the file against
     /// every other team in the file. This will let us make up
     /// different brackets without having to re-run the simulator.
-    Map<String, List<GameSimulationResult<MultiLayerPerceptron>>> matrix =
-        computeMatrix(tournamentYear, networks, teamNames);
+    Map<String, List<GameSimulationResult<MultiLayerPerceptron>>> matrix = null;
+    if (NetworkProperties.getSimulationMatrixWrite()) {
+      matrix = predictMatrix(matchupPredictor, tournamentYear, fetchTournamentTeams(tournamentYear));
+      writeMatrixFiles(matrix);
+    }
     //
-    // Write the matrix to CSV file (TODO: use POI?)
-    writeMatrixFile(matrix);
+    // Now play out the bracket, if there is one. Its matchups come out of the matrix, or (if
+    /// there is no matrix, or the bracket has a team that's not in it) out of a matrix of just
+    /// the bracket's teams.
+    if (bracket != null) {
+      if (matrix == null || !matrix.keySet().containsAll(bracket.getTeamNames())) {
+        matrix = predictMatrix(matchupPredictor, tournamentYear, new HashSet<>(bracket.getTeamNames()));
+      }
+      double[][] winProbabilities = BracketSimulator.createWinProbabilities(bracket, createMatrixLookup(matrix));
+      BracketSimulationResult bracketSimulationResult = simulateBracket(bracket, winProbabilities);
+      double[][] simulatedOdds = new double[bracket.getNumberOfTeams()][BracketSimulationResult.NUMBER_OF_ROUNDS];
+      for (int teamIndex = 0; teamIndex < bracket.getNumberOfTeams(); teamIndex++) {
+        for (int round = 0; round < BracketSimulationResult.NUMBER_OF_ROUNDS; round++) {
+          simulatedOdds[teamIndex][round] = bracketSimulationResult.getAdvancementProbability(teamIndex, round);
+        }
+      }
+      String[] runsLine = { "RUNS", Long.toString(bracketSimulationResult.getNumberOfRuns()), "RUNS/SEC",
+          Long.toString(Math.round(bracketSimulationResult.getRunsPerSecond())) };
+      writeBracketOddsFile(bracket, simulatedOdds, NetworkUtils.computeSimulationBracketOddsFileName(), runsLine);
+      //
+      // The exact odds (no sampling noise) are cheap enough to always write out, too
+      BracketProbabilityEngine bracketProbabilityEngine = new BracketProbabilityEngine(bracket, winProbabilities);
+      writeBracketOddsFile(bracket, bracketProbabilityEngine.computeAdvancementProbabilities(),
+          NetworkUtils.computeSimulationBracketExactOddsFileName(), null);
+      //
+      // And fill out the bracket
+      writeBracketPicksFile(optimizeBracket(bracketProbabilityEngine));
+    }
+    matchupPredictor.logStatistics();
+  }
+
+  /**
+   * Loads the networks (see {@link #loadNetworks()}), and creates a MatchupPredictor to run
+   * them on demand, holding on to the results of the last <code>simulation.matchup.cache.size</code>
+   * matchups.
+   * 
+   * @return MatchupPredictor - the MatchupPredictor.
+   */
+  public MatchupPredictor createMatchupPredictor() {
+    return new MatchupPredictor(loadNetworks(), seasonDataDao, seasonAnalyticsDao,
+        NetworkProperties.getSimulationMatchupCacheSize(), NetworkProperties.getSimulationFirstLayerCache());
   }
 
   /**
@@ -208,164 +276,229 @@ public class TournamentMatrixPredictor implements NetworkRunner<MultiLayerPercep
   }
 
   /**
-   * Uses the specified List of networks, and team names to compute a matrix of
-   * GameSimulationResults, where each team plays every other team (except itself
-   * of course).
+   * Predicts the matrix of GameSimulationResults, where each team plays every other team
+   * (and itself, which is always a PUSH, but keeps the matrix square).
+   * 
+   * The matchups come from the specified {@link MatchupPredictor}, which simulates them in
+   * batches, one team's row at a time, spread across <code>simulation.thread.count</code>
+   * threads. Each pair of teams is only simulated once.
+   * 
+   * @param matchupPredictor
+   *          The MatchupPredictor.
    * 
    * @param year
    *          The tournament year
    * 
-   * @param networks
-   *          The trained networks to be used
-   * 
    * @param teamNames
    *          The teams participating in the tournament
    * 
-   * @return Map<String, List<GameSimulationResult<MultiLayerPerceptron>>> - a Map of
-   *         List of GameSimulationResults. The Map is keyed by team name. The value is a List
-   *         of GameSimulationResult objects, one for each simulated game between that team
-   *         and every other team (except itself of course).
+   * @return Map<String, List<GameSimulationResult<MultiLayerPerceptron>>> - the matrix (see
+   *         {@link MatchupPredictor#predictMatrix(Integer, java.util.Collection, java.util.concurrent.ExecutorService)}).
    */
-  private Map<String, List<GameSimulationResult<MultiLayerPerceptron>>> computeMatrix(Integer year,
-      List<MultiLayerPerceptron> networks, Set<String> teamNames) {
-    Map<String, List<GameSimulationResult<MultiLayerPerceptron>>> ret = new TreeMap<>();
-    //
-    // We need to iterate over the same list in two different loops, and while
-    /// we are not modifying the list in either loop, it's probably better to work
-    /// on different copies, just to prevent bugs down the road
-    List<String> opponentTeamNames = new ArrayList<>();
-    opponentTeamNames.addAll(teamNames);
-    Collections.sort(opponentTeamNames);
-    SeasonAnalytics seasonAnalytics = pullSeasonAnalytics(year);
-    //
-    // Loop through the list of team names
-    for (String currentTeamName : teamNames) {
-      //
-      // Create the List of GameSimulationResult objects
-      List<GameSimulationResult<MultiLayerPerceptron>> gameSimulationResults = new ArrayList<>();
-      SeasonData currentTeamSeasonData = fetchSeasonDataFromCache(year, currentTeamName);
-      //
-      // Now simulate the current team against every other team
-      for (String opponentTeamName : opponentTeamNames) {
-        log.debug("Current Team: " + currentTeamName + " versus " + opponentTeamName + "...");
-        //
-        // No need to match a team up against itself
-        // if (opponentTeamName.equals(currentTeamName))
-        // continue;
-        //
-        // Create the GameSimulationResult for this matchup
-        GameSimulationResult<MultiLayerPerceptron> gameSimulationResult = new GameSimulationResult<>(currentTeamName,
-            opponentTeamName);
-        //
-        // Loop through the list of networks
-        SeasonData opponentSeasonData = fetchSeasonDataFromCache(year, opponentTeamName);
-        int simulationNumber = 0;
-        for (MultiLayerPerceptron network : networks) {
-          log.trace("Network simulation # " + simulationNumber++ + "...");
-          runNetworkSimulationAndComputeResult(network, seasonAnalytics, currentTeamSeasonData, gameSimulationResult,
-              opponentSeasonData);
-        }
-        gameSimulationResults.add(gameSimulationResult);
-      }
-      //
-      // Sort the list in alphabetical order or we will never be able to find anything
-      gameSimulationResults.sort((simulationResult1, simulationResult2) -> simulationResult1.getOpponentName()
-          .compareTo(simulationResult2.getOpponentName()));
-      //
-      // Add the List to the Map
-      ret.put(currentTeamName, gameSimulationResults);
+  private Map<String, List<GameSimulationResult<MultiLayerPerceptron>>> predictMatrix(
+      MatchupPredictor matchupPredictor, Integer year, Set<String> teamNames) {
+    int threadCount = computeThreadCount();
+    log.info("Computing the tournament matrix for " + teamNames.size() + " teams on " + threadCount
+        + " thread(s)...");
+    ForkJoinPool pool = new ForkJoinPool(threadCount);
+    try {
+      return matchupPredictor.predictMatrix(year, teamNames, pool);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Writes the specified matrix of GameSimulationResults, one CSV file per team.
+   * 
+   * @param matrix
+   *          The matrix (see {@link #predictMatrix(MatchupPredictor, Integer, Set)}).
+   */
+  private void writeMatrixFiles(Map<String, List<GameSimulationResult<MultiLayerPerceptron>>> matrix) {
+    for (Map.Entry<String, List<GameSimulationResult<MultiLayerPerceptron>>> row : matrix.entrySet()) {
+      writeMatrixFile(row.getKey(), row.getValue());
+    }
+  }
+
+  /**
+   * Looks up matchups in the specified matrix, whose rows (and the results in each row) are
+   * sorted by team name.
+   * 
+   * @param matrix
+   *          The matrix (see {@link #predictMatrix(MatchupPredictor, Integer, Set)}).
+   * 
+   * @return BiFunction - the result of a team (first argument) against an opponent (second
+   *         argument), or null if either of them is not in the matrix.
+   */
+  private static BiFunction<String, String, GameSimulationResult<MultiLayerPerceptron>> createMatrixLookup(
+      Map<String, List<GameSimulationResult<MultiLayerPerceptron>>> matrix) {
+    Map<String, Integer> columnIndexes = new HashMap<>();
+    for (String teamName : matrix.keySet()) {
+      columnIndexes.put(teamName, columnIndexes.size());
+    }
+    return (teamName, opponentName) -> {
+      List<GameSimulationResult<MultiLayerPerceptron>> row = matrix.get(teamName);
+      Integer columnIndex = columnIndexes.get(opponentName);
+      return (row == null || columnIndex == null) ? null : row.get(columnIndex);
+    };
+  }
+
+  /**
+   * @return int - the number of threads to simulate on: <code>simulation.thread.count</code>,
+   *         or one per processor if it is not set.
+   */
+  private static int computeThreadCount() {
+    int ret = NetworkProperties.getSimulationThreadCount();
+    if (ret < 1) {
+      ret = Runtime.getRuntime().availableProcessors();
     }
     return ret;
   }
 
   /**
-   * Run a single network simulation (as home and away to eliminate positional bias)
-   * and compute the results.
+   * Simulates the specified bracket <code>simulation.bracket.runs</code> times, using the
+   * win probabilities from the specified matrix, spread across <code>simulation.thread.count</code>
+   * threads. The random number generator is seeded from <code>random.seed</code>, if it is set.
+   * 
+   * @param bracket
+   *          The bracket
+   * @param winProbabilities
+   *          The win probabilities from the tournament matrix (see
+   *          {@link BracketSimulator#createWinProbabilities(Bracket, java.util.function.BiFunction)})
    * 
-   * @param network
-   * @param seasonAnalytics
-   * @param currentTeamSeasonData
-   * @param gameSimulationResult
-   * @param opponentTeamSeasonData
+   * @return BracketSimulationResult - each team's odds of making it to each round.
    */
-  private void runNetworkSimulationAndComputeResult(MultiLayerPerceptron network, SeasonAnalytics seasonAnalytics,
-      SeasonData currentTeamSeasonData, GameSimulationResult<MultiLayerPerceptron> gameSimulationResult,
-      SeasonData opponentTeamSeasonData) {
-    //
-    // Simulate network
-    gameSimulationResult.getNetworks().add(network);
-    //
-    // Home - in this simulation, currentTeam is "home", so their output is index 0,
-    /// and the opponent is "away" so their output is index 1
-    DataSetRow dataHome = DataCreator.processAsDataSetRowForSimulation(seasonAnalytics, currentTeamSeasonData,
-        opponentTeamSeasonData);
-    double[] homeResults = runNetwork(network, dataHome.getInput());
-    gameSimulationResult.getTeamHomeResults().add(homeResults[0]);
-    gameSimulationResult.getOpponentAwayResults().add(homeResults[1]);
-    boolean homeWin = homeResults[0] > homeResults[1];
-    //
-    // Away - in this simulation, currentTeam is "away", so their output is index 1,
-    /// and the opponent is "home" so their output is index 0
-    DataSetRow dataAway = DataCreator.processAsDataSetRowForSimulation(seasonAnalytics, opponentTeamSeasonData,
-        currentTeamSeasonData);
-    double[] awayResults = runNetwork(network, dataAway.getInput());
-    gameSimulationResult.getTeamAwayResults().add(awayResults[1]);
-    gameSimulationResult.getOpponentHomeResults().add(awayResults[0]);
-    boolean awayWin = awayResults[1] > awayResults[0];
-    //
-    // Compute results
-    if (homeWin && awayWin) {
-      gameSimulationResult.getNetworkPredictions().add(currentTeamSeasonData.getTeamName());
-      gameSimulationResult.incrementNumberOfWins();
-    } else if (!homeWin && !awayWin) {
-      gameSimulationResult.getNetworkPredictions().add(opponentTeamSeasonData.getTeamName());
-      gameSimulationResult.incrementNumberOfLosses();
-    } else {
-      // Push indicates there is some positional bias in this network.
-      /// We do not want to count this result.
-      gameSimulationResult.getNetworkPredictions().add(GameSimulationResult.PUSH);
-      gameSimulationResult.incrementNumberOfPushes();
+  private BracketSimulationResult simulateBracket(Bracket bracket, double[][] winProbabilities) {
+    BracketSimulator bracketSimulator = new BracketSimulator(bracket, winProbabilities);
+    long seed = NetworkProperties.getRandomSeed();
+    SplittableRandom random = (seed == 0L) ? new SplittableRandom() : new SplittableRandom(seed);
+    int threadCount = computeThreadCount();
+    long numberOfRuns = NetworkProperties.getSimulationBracketRuns();
+    log.info("Simulating the bracket " + numberOfRuns + " times on " + threadCount + " thread(s)...");
+    ForkJoinPool pool = new ForkJoinPool(threadCount);
+    try {
+      return bracketSimulator.simulate(numberOfRuns, pool, random);
+    } finally {
+      pool.shutdown();
     }
   }
 
   /**
-   * Cache the SeasonData. There is no reason to retrieve it over and over from
-   * the Database. The map is keyed by team name.
+   * Finds the bracket picks with the highest expected score for the
+   * <code>simulation.bracket.scoring</code> scoring table, searching the regions on
+   * <code>simulation.thread.count</code> threads.
+   * 
+   * @param bracketProbabilityEngine
+   *          The engine with each team's (exact) odds of making it to each round.
+   * 
+   * @return BracketPicks - the best picks.
    */
-  private Map<String, SeasonData> seasonDataCache;
+  private BracketPicks optimizeBracket(BracketProbabilityEngine bracketProbabilityEngine) {
+    BracketOptimizer bracketOptimizer = new BracketOptimizer(bracketProbabilityEngine,
+        BracketOptimizer.parseRoundPoints(NetworkProperties.getSimulationBracketScoring()));
+    ForkJoinPool pool = new ForkJoinPool(computeThreadCount());
+    try {
+      return bracketOptimizer.optimize(pool);
+    } finally {
+      pool.shutdown();
+    }
+  }
 
   /**
-   * Retrieves the SeasonData object for the specified year and teamName from
-   * the cache, if it is there, or from the DB if not (then stores it in the cache).
+   * Writes the bracket picks to a CSV file: one line per game, round by round (the First
+   * Four games, then the Round of 64, and so on up to the championship game), with the
+   * team picked to win it, and the odds that it does. The last line has the expected score.
    * 
-   * @param year
-   * @param teamName
-   * @return
+   * @param bracketPicks
+   *          The picks.
    */
-  private SeasonData fetchSeasonDataFromCache(Integer year, String teamName) {
-    SeasonData ret = null;
-    //
-    // Create the cache itself lazily
-    if (seasonDataCache == null) {
-      seasonDataCache = new HashMap<>();
+  private void writeBracketPicksFile(BracketPicks bracketPicks) {
+    Bracket bracket = bracketPicks.getBracket();
+    String bracketPicksFilename = NetworkUtils.computeSimulationBracketPicksFileName();
+    try (CSVWriter csvWriter = new CSVWriter(new BufferedWriter(new FileWriter(bracketPicksFilename)))) {
+      String[] heading = { "PICKED TO MAKE", "TEAM", "REGION", "SEED", "ODDS" };
+      csvWriter.writeNext(heading);
+      for (int round = 0; round < BracketSimulationResult.NUMBER_OF_ROUNDS; round++) {
+        for (int game = 0; game < bracketPicks.getNumberOfGames(round); game++) {
+          //
+          // Only the slots with two teams in them have a First Four game
+          if (round == 0 && bracket.getSlotPlayInTeams()[game] < 0) {
+            continue;
+          }
+          int teamIndex = bracketPicks.getPick(round, game);
+          String[] output = new String[heading.length];
+          output[0] = BracketSimulationResult.ROUND_NAMES[round];
+          output[1] = bracket.getTeamNames().get(teamIndex);
+          output[2] = bracket.getRegionName(teamIndex);
+          output[3] = Integer.toString(bracket.getSeed(teamIndex));
+          output[4] = BigDecimal.valueOf(100.0 * bracketPicks.getPickProbability(round, game))
+              .setScale(2, RoundingMode.HALF_UP).toPlainString() + "%";
+          csvWriter.writeNext(output);
+        }
+      }
+      String[] scoreLine = { "EXPECTED SCORE", BigDecimal.valueOf(bracketPicks.getExpectedScore())
+          .setScale(2, RoundingMode.HALF_UP).toPlainString() };
+      csvWriter.writeNext(scoreLine);
+    } catch (IOException e) {
+      String message = "IOException occurred while writing the bracket picks file => " + bracketPicksFilename;
+      log.error(message, e);
+      throw new RuntimeException(message, e);
     }
-    //
-    // See if the SeasonData object is in the cache
-    ret = seasonDataCache.get(teamName);
-    if (ret == null) {
-      // No it is not, retrieve it from the DB
-      ret = pullSeasonData(year, teamName);
-      // And store it in the cache
-      seasonDataCache.put(teamName, ret);
+    log.info("Wrote bracket picks (champion: " + bracketPicks.getChampion() + ") to " + bracketPicksFilename);
+  }
+
+  /**
+   * Writes the bracket odds to a CSV file: one line per team (in bracket file order), with
+   * its region and seed, and its odds of making it to each round, from the Round of 64 to
+   * winning it all.
+   * 
+   * @param bracket
+   *          The bracket.
+   * @param odds
+   *          [team index][round] -> the probability the team makes it to the round.
+   * @param bracketOddsFilename
+   *          The file to write.
+   * @param lastLine
+   *          A line to write after the teams (for example, the number of simulation runs), or null.
+   */
+  private void writeBracketOddsFile(Bracket bracket, double[][] odds, String bracketOddsFilename,
+      String[] lastLine) {
+    try (CSVWriter csvWriter = new CSVWriter(new BufferedWriter(new FileWriter(bracketOddsFilename)))) {
+      int BASE_INDEX = 3;
+      String[] heading = new String[BASE_INDEX + BracketSimulationResult.NUMBER_OF_ROUNDS];
+      heading[0] = "TEAM";
+      heading[1] = "REGION";
+      heading[2] = "SEED";
+      System.arraycopy(BracketSimulationResult.ROUND_NAMES, 0, heading, BASE_INDEX,
+          BracketSimulationResult.NUMBER_OF_ROUNDS);
+      csvWriter.writeNext(heading);
+      for (int teamIndex = 0; teamIndex < bracket.getNumberOfTeams(); teamIndex++) {
+        String[] output = new String[heading.length];
+        output[0] = bracket.getTeamNames().get(teamIndex);
+        output[1] = bracket.getRegionName(teamIndex);
+        output[2] = Integer.toString(bracket.getSeed(teamIndex));
+        for (int round = 0; round < BracketSimulationResult.NUMBER_OF_ROUNDS; round++) {
+          output[BASE_INDEX + round] =
+              BigDecimal.valueOf(100.0 * odds[teamIndex][round])
+                  .setScale(2, RoundingMode.HALF_UP).toPlainString() + "%";
+        }
+        csvWriter.writeNext(output);
+      }
+      if (lastLine != null) {
+        csvWriter.writeNext(lastLine);
+      }
+    } catch (IOException e) {
+      String message = "IOException occurred while writing the bracket odds file => " + bracketOddsFilename;
+      log.error(message, e);
+      throw new RuntimeException(message, e);
     }
-    return ret;
+    log.info("Wrote bracket odds for " + bracket.getNumberOfTeams() + " teams to " + bracketOddsFilename);
   }
 
   /**
-   * Writes the specified matrix of GameSimulationResult to a CSV file.
-   * The file contains the results of a simulated matchup of each team against every other
-   * team in the tournament, in the form of a matrix (implemented as a Map of List of
-   * GameResultSimulation, may is keyed by team name).
+   * Writes the specified team's row of the matrix of GameSimulationResult to a CSV file.
+   * The file contains the results of a simulated matchup of the team against every other
+   * team in the tournament.
    * 
    * Of course, tournaments aren't played this way, but especially for bracket-style
    * tournaments (like the NCAA Men's Basketball Tournament, a.k.a., March Madness),having
@@ -373,77 +506,77 @@ public class TournamentMatrixPredictor implements NetworkRunner<MultiLayerPercep
    * at the team CSV file for the home team, locate their opponent, and see what they
    * network array predicted, and fill in that game. Then move to the next game, etc.
    * 
-   * @param matrix
-   *          A Map (keyed by team name) of List of GameSimulationResult objects.
+   * @param teamName
+   *          The team.
+   * @param gameSimulationResults
+   *          The team's GameSimulationResults against every team, sorted by opponent name.
    */
-  private void writeMatrixFile(Map<String, List<GameSimulationResult<MultiLayerPerceptron>>> matrix) {
+  private void writeMatrixFile(String teamName,
+      List<GameSimulationResult<MultiLayerPerceptron>> gameSimulationResults) {
     //
     //
     String[] EMPTY_LINE = { "" };
-    for (String teamName : matrix.keySet()) {
-      String teamPredictionFilename = NetworkUtils.fetchSimulationDirectoryAndCreateIfNecessary() +
-          File.separator + teamName + ".csv";
+    String teamPredictionFilename = NetworkUtils.fetchSimulationDirectoryAndCreateIfNecessary() +
+        File.separator + teamName + ".csv";
+    //
+    // Write out the file for the current team (teamName)
+    try (BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(teamPredictionFilename))) {
+      CSVWriter csvWriter = new CSVWriter(bufferedWriter);
+      csvWriter.writeNext(EMPTY_LINE);
+      if (log.isDebugEnabled()) {
+        log.debug("**** TEAM -> " + teamName + ", file:  " + teamPredictionFilename + "***");
+      }
+      String[] teamSeparatorLine = { "", teamName.toUpperCase() + " VS", "NETWORK PREDICTED:", "NETWORK PREDICTED:",
+          "NETWORK PREDICTED:" };
+      csvWriter.writeNext(teamSeparatorLine);
+      String[] heading = generateHeading(gameSimulationResults);
+      csvWriter.writeNext(heading);
+      int index = 0;
       //
-      // Write out the file for the current team (teamName)
-      try (BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(teamPredictionFilename))) {
-        CSVWriter csvWriter = new CSVWriter(bufferedWriter);
-        csvWriter.writeNext(EMPTY_LINE);
-        if (log.isDebugEnabled()) {
-          log.debug("**** TEAM -> " + teamName + ", file:  " + teamPredictionFilename + "***");
-        }
-        String[] teamSeparatorLine = { "", teamName.toUpperCase() + " VS", "NETWORK PREDICTED:", "NETWORK PREDICTED:",
-            "NETWORK PREDICTED:" };
-        csvWriter.writeNext(teamSeparatorLine);
-        List<GameSimulationResult<MultiLayerPerceptron>> gameSimulationResults = matrix.get(teamName);
-        String[] heading = generateHeading(gameSimulationResults);
-        csvWriter.writeNext(heading);
-        int index = 0;
+      // Write out the game simulation data for teamName against every other team
+      /// in the tournament.
+      for (GameSimulationResult<MultiLayerPerceptron> gsr : gameSimulationResults) {
         //
-        // Write out the game simulation data for teamName against every other team
-        /// in the tournament.
-        for (GameSimulationResult<MultiLayerPerceptron> gsr : gameSimulationResults) {
-          //
-          // Output contains:
-          // Team, Opponent name, percent wins, percent losses, percent push, plus
-          // Network predictions for each participant
-          int BASE_INDEX = 5;
-          String[] output = new String[BASE_INDEX + gsr.getNumberOfNetworks()];
-          if (index++ == 0) {
-            output[0] = gsr.getTeamName();
-          }
-          output[1] = gsr.getOpponentName();
-          output[2] = gsr.getPercentWins().setScale(2, RoundingMode.HALF_UP).toPlainString() + "%";
-          output[3] = gsr.getPercentLosses().setScale(2, RoundingMode.HALF_UP).toPlainString() + "%";
-          output[4] = gsr.getPercentPushes().setScale(2, RoundingMode.HALF_UP).toPlainString() + "%";
-          StringBuilder sb = new StringBuilder();
-          for (int aa = 0; aa < gsr.getNumberOfNetworks(); aa++) {
-            if (aa > 0)
-              sb.append(" | ");
-            sb.append(gsr.getNetworkPredictions().get(aa));
-            output[aa + BASE_INDEX] = gsr.getNetworkPredictions().get(aa);
-            sb.append(" (H->");
-            sb.append(BigDecimal.valueOf(gsr.getTeamHomeResults().get(aa)).setScale(3, RoundingMode.HALF_UP));
-            sb.append(":");
-            sb.append(BigDecimal.valueOf(gsr.getOpponentAwayResults().get(aa)).setScale(3, RoundingMode.HALF_UP));
-            sb.append(" | A->");
-            sb.append(BigDecimal.valueOf(gsr.getOpponentHomeResults().get(aa)).setScale(3, RoundingMode.HALF_UP));
-            sb.append(":");
-            sb.append(BigDecimal.valueOf(gsr.getTeamAwayResults().get(aa)).setScale(3, RoundingMode.HALF_UP));
-            sb.append(")");
-          }
-          if (log.isDebugEnabled()) {
-            log.debug("Opponent: " + gsr.getOpponentName() +
-                " | Win % " + gsr.getPercentWins() +
-                " | Loss %" + gsr.getPercentLosses() +
-                " | Push % " + gsr.getPercentPushes() +
-                ((log.isDebugEnabled()) ? " | Network Results -> " + sb.toString() : ""));
-          }
-          csvWriter.writeNext(output);
+        // Output contains:
+        // Team, Opponent name, percent wins, percent losses, percent push, plus
+        // Network predictions for each participant
+        int BASE_INDEX = 5;
+        String[] output = new String[BASE_INDEX + gsr.getNumberOfNetworks()];
+        if (index++ == 0) {
+          output[0] = gsr.getTeamName();
         }
-        csvWriter.close();
-      } catch (IOException e) {
-
+        output[1] = gsr.getOpponentName();
+        output[2] = gsr.getPercentWins().setScale(2, RoundingMode.HALF_UP).toPlainString() + "%";
+        output[3] = gsr.getPercentLosses().setScale(2, RoundingMode.HALF_UP).toPlainString() + "%";
+        output[4] = gsr.getPercentPushes().setScale(2, RoundingMode.HALF_UP).toPlainString() + "%";
+        StringBuilder sb = new StringBuilder();
+        for (int aa = 0; aa < gsr.getNumberOfNetworks(); aa++) {
+          if (aa > 0)
+            sb.append(" | ");
+          sb.append(gsr.getNetworkPredictions().get(aa));
+          output[aa + BASE_INDEX] = gsr.getNetworkPredictions().get(aa);
+          sb.append(" (H->");
+          sb.append(BigDecimal.valueOf(gsr.getTeamHomeResults().get(aa)).setScale(3, RoundingMode.HALF_UP));
+          sb.append(":");
+          sb.append(BigDecimal.valueOf(gsr.getOpponentAwayResults().get(aa)).setScale(3, RoundingMode.HALF_UP));
+          sb.append(" | A->");
+          sb.append(BigDecimal.valueOf(gsr.getOpponentHomeResults().get(aa)).setScale(3, RoundingMode.HALF_UP));
+          sb.append(":");
+          sb.append(BigDecimal.valueOf(gsr.getTeamAwayResults().get(aa)).setScale(3, RoundingMode.HALF_UP));
+          sb.append(")");
+        }
+        if (log.isDebugEnabled()) {
+          log.debug("Opponent: " + gsr.getOpponentName() +
+              " | Win % " + gsr.getPercentWins() +
+              " | Loss %" + gsr.getPercentLosses() +
+              " | Push % " + gsr.getPercentPushes() +
+              ((log.isDebugEnabled()) ? " | Network Results -> " + sb.toString() : ""));
+        }
+        csvWriter.writeNext(output);
       }
+      csvWriter.close();
+    } catch (IOException e) {
+
     }
 
   }
@@ -23,6 +23,7 @@ import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import com.makotojava.ncaabb.dao.CachingSeasonDataDao;
 import com.makotojava.ncaabb.dao.SeasonAnalyticsDao;
 import com.makotojava.ncaabb.dao.SeasonAnalyticsJdbcDao;
 import com.makotojava.ncaabb.dao.SeasonDataDao;
@@ -59,7 +60,15 @@ public class ApplicationConfig {
 
   @Bean(name = "seasonDataDao")
   public SeasonDataDao getSeasonDataDao() {
-    return new SeasonDataJdbcDao(getDataSource());
+    SeasonDataDao ret = new SeasonDataJdbcDao(getDataSource());
+    //
+    // Season data is read over and over again (once per game per network per iteration),
+    /// so keep whole years of it in memory unless told not to.
+    int maxYears = NetworkProperties.getSeasonDataCacheMaxYears();
+    if (maxYears > 0) {
+      ret = new CachingSeasonDataDao(ret, maxYears);
+    }
+    return ret;
   }
 
   @Bean(name = "tournamentResultDao")
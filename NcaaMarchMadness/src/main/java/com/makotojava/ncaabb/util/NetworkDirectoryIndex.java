@@ -0,0 +1,199 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+import org.neuroph.core.NeuralNetwork;
+
+/**
+ * Index of the network (.ann) files in a network directory, and the compact
+ * weight file (see {@link NetworkWeightFile}) kept for each of them.
+ * <p>
+ * The weight files and the index itself live in a <code>.weights</code> directory
+ * under the network directory. The index remembers the size and last modified time
+ * of each network file when its weight file was written, so a network file that has
+ * not changed since then can be loaded from its weight file instead of being
+ * deserialized again.
+ * <p>
+ * Safe to use from more than one thread, except for {@link #save(File[])}, which
+ * should be called once everything is loaded.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class NetworkDirectoryIndex {
+
+  private static final Logger log = Logger.getLogger(NetworkDirectoryIndex.class);
+
+  /**
+   * The directory (under the network directory) where the weight files and index live
+   */
+  public static final String WEIGHTS_DIRECTORY_NAME = ".weights";
+
+  private static final String INDEX_FILE_NAME = "index.properties";
+
+  private final File weightsDirectory;
+
+  /**
+   * Network file name -> signature of the network file its weight file was written from
+   */
+  private final Map<String, String> entries = new ConcurrentHashMap<>();
+
+  private volatile boolean dirty;
+
+  private NetworkDirectoryIndex(File networkDirectory) {
+    this.weightsDirectory = new File(networkDirectory, WEIGHTS_DIRECTORY_NAME);
+  }
+
+  /**
+   * Loads the index for the specified network directory. If there is no index
+   * yet (or it cannot be read), an empty one is returned.
+   *
+   * @param networkDirectory
+   *          The directory containing the network (.ann) files.
+   *
+   * @return NetworkDirectoryIndex - the index.
+   */
+  public static NetworkDirectoryIndex load(File networkDirectory) {
+    NetworkDirectoryIndex ret = new NetworkDirectoryIndex(networkDirectory);
+    File indexFile = new File(ret.weightsDirectory, INDEX_FILE_NAME);
+    if (indexFile.exists()) {
+      try (BufferedInputStream inputStream = new BufferedInputStream(new FileInputStream(indexFile))) {
+        Properties properties = new Properties();
+        properties.load(inputStream);
+        for (String networkFileName : properties.stringPropertyNames()) {
+          ret.entries.put(networkFileName, properties.getProperty(networkFileName));
+        }
+        log.info("Loaded network weight index with " + ret.entries.size() + " entries.");
+      } catch (IOException e) {
+        log.warn("Could not read network weight index '" + indexFile.getPath() + "', starting over.", e);
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Returns the weight file for the specified network file, if there is one, and
+   * the network file has not changed since it was written.
+   *
+   * @param networkFile
+   *          The network (.ann) file.
+   *
+   * @return File - the weight file, or null if the network file must be loaded instead.
+   */
+  public File getWeightFile(File networkFile) {
+    File ret = null;
+    String signature = entries.get(networkFile.getName());
+    if (signature != null && signature.equals(computeSignature(networkFile))) {
+      File weightFile = toWeightFile(networkFile);
+      if (weightFile.exists()) {
+        ret = weightFile;
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Writes the weight file for the specified network (just loaded from the specified
+   * network file) and records it in the index. If the weight file cannot be written,
+   * the network file is simply left out of the index.
+   *
+   * @param networkFile
+   *          The network (.ann) file.
+   * @param network
+   *          The network loaded from it.
+   */
+  public void update(File networkFile, NeuralNetwork<?> network) {
+    String signature = computeSignature(networkFile);
+    boolean written = false;
+    try {
+      weightsDirectory.mkdirs();
+      written = NetworkWeightFile.write(network, toWeightFile(networkFile));
+    } catch (RuntimeException e) {
+      log.warn("Could not write weight file for network file '" + networkFile.getName() + "'.", e);
+    }
+    if (written) {
+      entries.put(networkFile.getName(), signature);
+    } else {
+      entries.remove(networkFile.getName());
+    }
+    dirty = true;
+  }
+
+  /**
+   * Drops the entries (and weight files) for network files that are no longer
+   * around, and writes the index if anything changed.
+   *
+   * @param networkFiles
+   *          All of the network (.ann) files currently in the network directory.
+   */
+  public void save(File[] networkFiles) {
+    Set<String> networkFileNames = new HashSet<>();
+    for (File networkFile : networkFiles) {
+      networkFileNames.add(networkFile.getName());
+    }
+    for (String networkFileName : new HashSet<>(entries.keySet())) {
+      if (!networkFileNames.contains(networkFileName)) {
+        entries.remove(networkFileName);
+        new File(weightsDirectory, networkFileName + NetworkWeightFile.FILE_EXTENSION).delete();
+        dirty = true;
+      }
+    }
+    if (dirty) {
+      Properties properties = new Properties();
+      properties.putAll(entries);
+      File indexFile = new File(weightsDirectory, INDEX_FILE_NAME);
+      File tempFile = new File(weightsDirectory, INDEX_FILE_NAME + ".tmp");
+      weightsDirectory.mkdirs();
+      try (BufferedOutputStream outputStream = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+        properties.store(outputStream, "Network file -> length,lastModified when its weight file was written");
+      } catch (IOException e) {
+        log.warn("Could not write network weight index '" + indexFile.getPath() + "'.", e);
+        return;
+      }
+      try {
+        Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+        dirty = false;
+      } catch (IOException e) {
+        log.warn("Could not write network weight index '" + indexFile.getPath() + "'.", e);
+      }
+    }
+  }
+
+  private File toWeightFile(File networkFile) {
+    return new File(weightsDirectory, networkFile.getName() + NetworkWeightFile.FILE_EXTENSION);
+  }
+
+  private static String computeSignature(File networkFile) {
+    return networkFile.length() + "," + networkFile.lastModified();
+  }
+
+}
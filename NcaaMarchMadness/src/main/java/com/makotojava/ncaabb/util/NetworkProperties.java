@@ -101,6 +101,14 @@ public class NetworkProperties {
     return propertiesFile;
   }
 
+  /**
+   * Forgets the loaded properties, so they are loaded again (from the file named by
+   * {@link #NETWORK_PROPERTIES_FILE}, if it is set) the next time one is asked for.
+   */
+  public static void reload() {
+    propertiesFile = null;
+  }
+
   /**
    * The base directory. Used a LOT by the application. You MUST PROVIDE A
    * VALUE IN THE PROPERTIES FILE FOR THIS PROPERTY!
@@ -133,10 +141,30 @@ public class NetworkProperties {
     return getStringPropertyValue("header.rank", "Rank");
   }
 
+  public static Double getLearningCurveAbortMargin() {
+    return getDoublePropertyValue("learning.curve.abort.margin", 1.5);
+  }
+
+  public static Boolean getLearningCurveEarlyAbort() {
+    return getBooleanPropertyValue("learning.curve.early.abort", false);
+  }
+
+  public static Integer getLearningCurveMinPoints() {
+    return getIntegerPropertyValue("learning.curve.min.points", 3);
+  }
+
+  public static Integer getLearningRuleBatchSize() {
+    return getIntegerPropertyValue("learning.rule.batch.size", 0);
+  }
+
   public static Boolean getLearningRuleIsBatchMode() {
     return getBooleanPropertyValue("learning.rule.is.batch.mode", false);
   }
 
+  public static Boolean getLearningRuleIsDense() {
+    return getBooleanPropertyValue("learning.rule.is.dense", false);
+  }
+
   public static Double getLearningRuleLearningRate() {
     return getDoublePropertyValue("learning.rule.learning.rate", 0.05);
   }
@@ -149,6 +177,10 @@ public class NetworkProperties {
     return getDoublePropertyValue("learning.rule.momentum.min", 0.1);
   }
 
+  public static Integer getLearningRuleWorkerCount() {
+    return getIntegerPropertyValue("learning.rule.worker.count", 0);
+  }
+
   public static Integer getMaxLearningIterations() {
     return getIntegerPropertyValue("max.learning.iterations", 20000);
   }
@@ -181,6 +213,10 @@ public class NetworkProperties {
     return getDoublePropertyValue("min.weight", -1.0);
   }
 
+  public static Long getRandomSeed() {
+    return getLongPropertyValue("random.seed", 0L);
+  }
+
   public static Double getMomentumDefaultValue() {
     return getDoublePropertyValue("momentum.default.value", 0.10);
   }
@@ -197,6 +233,14 @@ public class NetworkProperties {
     return getStringPropertyValue("network.file.extension", ".ann");
   }
 
+  public static Integer getNetworkLoaderThreadCount() {
+    return getIntegerPropertyValue("network.loader.thread.count", 0);
+  }
+
+  public static Boolean getNetworkWeightCache() {
+    return getBooleanPropertyValue("network.weight.cache", false);
+  }
+
   public static String getNetworksFileName() {
     return getStringPropertyValue("networks.file.name", "networks.txt");
   }
@@ -219,10 +263,50 @@ public class NetworkProperties {
     return BigDecimal.valueOf(performanceThreshold).setScale(0, RoundingMode.HALF_UP);
   }
 
+  public static Integer getSeasonDataCacheMaxYears() {
+    return getIntegerPropertyValue("season.data.cache.max.years", 10);
+  }
+
+  public static String getSimulationBracketExactOddsFileName() {
+    return getStringPropertyValue("simulation.bracket.exact.odds.file.name", "bracket-odds-exact.csv");
+  }
+
+  public static String getSimulationBracketOddsFileName() {
+    return getStringPropertyValue("simulation.bracket.odds.file.name", "bracket-odds.csv");
+  }
+
+  public static String getSimulationBracketPicksFileName() {
+    return getStringPropertyValue("simulation.bracket.picks.file.name", "bracket-picks.csv");
+  }
+
+  public static Long getSimulationBracketRuns() {
+    return getLongPropertyValue("simulation.bracket.runs", 1000000L);
+  }
+
+  public static String getSimulationBracketScoring() {
+    return getStringPropertyValue("simulation.bracket.scoring", "0,10,20,40,80,160,320");
+  }
+
   public static String getSimulationDirectoryName() {
     return getStringPropertyValue("simulation.directory.name", "Simulation");
   }
 
+  public static Boolean getSimulationFirstLayerCache() {
+    return getBooleanPropertyValue("simulation.first.layer.cache", false);
+  }
+
+  public static Integer getSimulationMatchupCacheSize() {
+    return getIntegerPropertyValue("simulation.matchup.cache.size", 100000);
+  }
+
+  public static Boolean getSimulationMatrixWrite() {
+    return getBooleanPropertyValue("simulation.matrix.write", true);
+  }
+
+  public static Integer getSimulationThreadCount() {
+    return getIntegerPropertyValue("simulation.thread.count", 0);
+  }
+
   public static String getStatcatHeader() {
     return getStringPropertyValue("statcat.header", "NCAA Men's Basketball");
   }
@@ -239,6 +323,70 @@ public class NetworkProperties {
     return getStringPropertyValue("team.matrix.file.name", "all-vs");
   }
 
+  public static Boolean getTrainerCheckpoint() {
+    return getBooleanPropertyValue("trainer.checkpoint", false);
+  }
+
+  public static String getTrainerCheckpointFileName() {
+    return getStringPropertyValue("trainer.checkpoint.file.name", "trainer.checkpoint");
+  }
+
+  public static Integer getTrainerCheckpointInterval() {
+    return getIntegerPropertyValue("trainer.checkpoint.interval", 0);
+  }
+
+  public static Boolean getTrainerEvolution() {
+    return getBooleanPropertyValue("trainer.evolution", false);
+  }
+
+  public static Integer getTrainerEvolutionGenerations() {
+    return getIntegerPropertyValue("trainer.evolution.generations", 5);
+  }
+
+  public static String getTrainerEvolutionLeaderboardFileName() {
+    return getStringPropertyValue("trainer.evolution.leaderboard.file.name", "leaderboard.csv");
+  }
+
+  public static Integer getTrainerEvolutionMaxNeurons() {
+    return getIntegerPropertyValue("trainer.evolution.max.neurons", 100);
+  }
+
+  public static Double getTrainerEvolutionMutationRate() {
+    return getDoublePropertyValue("trainer.evolution.mutation.rate", 0.2);
+  }
+
+  public static Integer getTrainerEvolutionPopulationSize() {
+    return getIntegerPropertyValue("trainer.evolution.population.size", 10);
+  }
+
+  public static Integer getTrainerSweepMinEpochs() {
+    return getIntegerPropertyValue("trainer.sweep.min.epochs", 250);
+  }
+
+  public static Integer getTrainerSweepReductionFactor() {
+    return getIntegerPropertyValue("trainer.sweep.reduction.factor", 3);
+  }
+
+  public static Boolean getTrainerSweepSuccessiveHalving() {
+    return getBooleanPropertyValue("trainer.sweep.successive.halving", false);
+  }
+
+  public static Integer getTrainerThreadCount() {
+    return getIntegerPropertyValue("trainer.thread.count", 1);
+  }
+
+  public static Boolean getTrainerWarmStart() {
+    return getBooleanPropertyValue("trainer.warm.start", false);
+  }
+
+  public static Double getTrainerWarmStartNoise() {
+    return getDoublePropertyValue("trainer.warm.start.noise", 0.01);
+  }
+
+  public static String getTrainingDataBinaryFileExtension() {
+    return getStringPropertyValue("training.data.binary.file.extension", ".tdb");
+  }
+
   public static String getTrainingDataFileBase() {
     return getStringPropertyValue("training.data.file.base", "NCAA-BB-TRAINING_DATA");
   }
@@ -247,6 +395,10 @@ public class NetworkProperties {
     return getStringPropertyValue("training.data.file.extension", ".trn");
   }
 
+  public static Boolean getTrainingDataUseBinaryFormat() {
+    return getBooleanPropertyValue("training.data.use.binary.format", false);
+  }
+
   public static String getTrainingDirectoryName() {
     return getStringPropertyValue("training.directory", "TrainingData");
   }
@@ -255,6 +407,18 @@ public class NetworkProperties {
     return getBooleanPropertyValue("use.bias.neurons", Boolean.TRUE);
   }
 
+  public static Boolean getValidationEarlyStopping() {
+    return getBooleanPropertyValue("validation.early.stopping", false);
+  }
+
+  public static Integer getValidationEarlyStoppingInterval() {
+    return getIntegerPropertyValue("validation.early.stopping.interval", 500);
+  }
+
+  public static Integer getValidationEarlyStoppingPatience() {
+    return getIntegerPropertyValue("validation.early.stopping.patience", 5);
+  }
+
   // ****************************
   // * HELPER METHODS - PRIVATE *
   // ****************************
@@ -358,6 +522,40 @@ public class NetworkProperties {
     return ret;
   }
 
+  /**
+   * Returns the value found in the underlying properties file, converted
+   * to a Long, or the specified defaultValue if the property value
+   * could not be found.
+   * 
+   * @param propertyName
+   *          The name of the property.
+   * @param defaultValue
+   *          If the defaultValue is <code>null</code>, then the property is
+   *          considered to be <em>required</em> and if not found, a <code>RuntimeException</code>
+   *          is thrown.
+   * @return Long - the value of the specified property, converted to a
+   *         long.
+   * @throws NumberFormatException
+   *           If the property value cannot be parsed, or is not assignable
+   *           to a long value
+   * @throws RuntimeException
+   *           If the <code>defaultValue</code> is null, then the
+   *           property is considered to be <em>required</em> and if it cannot be located in the
+   *           properties file, this exception is thrown.
+   */
+  private static Long getLongPropertyValue(String propertyName, Long defaultValue) {
+    Long ret = defaultValue;
+    String propertyValue = getPropertiesFile().getProperty(propertyName);
+    if (propertyValue != null) {
+      ret = Long.valueOf(propertyValue);
+    }
+    if (ret == null) {
+      throw new RuntimeException(
+          "You must specify a value for property '" + propertyName + "' in " + PROPERTIES_FILE_NAME + "!");
+    }
+    return ret;
+  }
+
   /**
    * Returns the value found in the underlying properties file,
    * or the specified <code>defaultValue</code> if the property value
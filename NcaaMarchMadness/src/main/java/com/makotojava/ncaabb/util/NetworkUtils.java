@@ -24,6 +24,10 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
@@ -93,6 +97,12 @@ public class NetworkUtils {
   /**
    * Loads all networks from the specified directory and returns them in a List.
    * 
+   * The networks are loaded in parallel (<code>network.loader.thread.count</code>
+   * threads), and come back in the same order the directory lists them. If the
+   * <code>network.weight.cache</code> property is set, networks whose file has not
+   * changed since the last run are loaded from their compact weight file instead
+   * (see {@link NetworkDirectoryIndex}).
+   * 
    * @param networkArrayDirectory
    * @return
    */
@@ -111,16 +121,35 @@ public class NetworkUtils {
         }
       });
       log.info("Found " + networkFiles.length + " networks in directory '" + arrayDirectory.getPath() + "'...");
-      for (File networkFile : networkFiles) {
-        try {
-          log.info("Loading network file '" + networkFile.getName() + "'...");
-          @SuppressWarnings("unchecked")
-          T network = (T) NeuralNetwork.createFromFile(networkFile);
-          ret.add(network);
-        } catch (Exception e) {
-          String message = "Could not load file '" + networkFile.getName() + "'. Skipping...";
-          log.warn(message, e);
+      NetworkDirectoryIndex index = (NetworkProperties.getNetworkWeightCache())
+          ? NetworkDirectoryIndex.load(arrayDirectory) : null;
+      int threadCount = NetworkProperties.getNetworkLoaderThreadCount();
+      if (threadCount < 1) {
+        threadCount = Runtime.getRuntime().availableProcessors();
+      }
+      ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, Math.min(threadCount,
+          networkFiles.length)));
+      try {
+        List<Future<T>> futures = new ArrayList<>();
+        for (File networkFile : networkFiles) {
+          futures.add(executorService.submit(() -> NetworkUtils.<T> loadNetwork(networkFile, index)));
+        }
+        for (Future<T> future : futures) {
+          T network = future.get();
+          if (network != null) {
+            ret.add(network);
+          }
         }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted while loading networks", e);
+      } catch (ExecutionException e) {
+        throw new RuntimeException("Error loading networks: " + e.getCause().getMessage(), e.getCause());
+      } finally {
+        executorService.shutdown();
+      }
+      if (index != null) {
+        index.save(networkFiles);
       }
     } else {
       String message = "** ERROR: directory '" + networkArrayDirectory
@@ -131,6 +160,62 @@ public class NetworkUtils {
     return ret;
   }
 
+  /**
+   * Loads a single network from its network (.ann) file.
+   * 
+   * @param networkFile
+   *          The network file.
+   * 
+   * @return T - the network, or null if it could not be loaded.
+   */
+  public static <T extends NeuralNetwork<BackPropagation>> T loadNetwork(File networkFile) {
+    return loadNetwork(networkFile, null);
+  }
+
+  /**
+   * Loads a single network, from its weight file if the index has an up to date one,
+   * or from the network file itself if not (in which case the index is updated).
+   * 
+   * @param networkFile
+   *          The network (.ann) file.
+   * @param index
+   *          The NetworkDirectoryIndex, or null if the weight cache is not being used.
+   * 
+   * @return T - the network, or null if it could not be loaded.
+   */
+  private static <T extends NeuralNetwork<BackPropagation>> T loadNetwork(File networkFile,
+      NetworkDirectoryIndex index) {
+    T ret = null;
+    if (index != null) {
+      File weightFile = index.getWeightFile(networkFile);
+      if (weightFile != null) {
+        try {
+          log.info("Loading network file '" + networkFile.getName() + "' (from its weight file)...");
+          @SuppressWarnings("unchecked")
+          T network = (T) NetworkWeightFile.read(weightFile);
+          ret = network;
+        } catch (RuntimeException e) {
+          log.warn("Could not load weight file for '" + networkFile.getName() + "', loading the network file.", e);
+        }
+      }
+    }
+    if (ret == null) {
+      try {
+        log.info("Loading network file '" + networkFile.getName() + "'...");
+        @SuppressWarnings("unchecked")
+        T network = (T) NeuralNetwork.createFromFile(networkFile);
+        ret = network;
+        if (index != null) {
+          index.update(networkFile, network);
+        }
+      } catch (Exception e) {
+        String message = "Could not load file '" + networkFile.getName() + "'. Skipping...";
+        log.warn(message, e);
+      }
+    }
+    return ret;
+  }
+
   /**
    * Runs the specified network using the Neuroph API.
    * 
@@ -166,6 +251,78 @@ public class NetworkUtils {
     return filename;
   }
 
+  /**
+   * Computes the binary training data file name (see {@link TrainingDataFile}) based on
+   * the year and the NetworkProperties settings. Same as {@link #computeTrainingDataFileName(Integer)},
+   * but with the binary file extension.
+   * 
+   * @param year
+   * @return
+   */
+  public static String computeTrainingDataBinaryFileName(Integer year) {
+    String filename =
+        NetworkProperties.getBaseDirectory() + File.separator + NetworkProperties.getTrainingDirectoryName()
+            + File.separator +
+            NetworkProperties.getTrainingDataFileBase() + "-" + year
+            + NetworkProperties.getTrainingDataBinaryFileExtension();
+    return filename;
+  }
+
+  /**
+   * Computes the name of the file the trainer writes its checkpoints to (see
+   * <code>MlpNetworkTrainer</code>), which lives in the network directory.
+   * 
+   * @return
+   */
+  public static String computeTrainerCheckpointFileName() {
+    return fetchNetworkDirectoryAndCreateIfNecessary() + File.separator
+        + NetworkProperties.getTrainerCheckpointFileName();
+  }
+
+  /**
+   * Computes the name of the file the topology evolution leaderboard is written to (see
+   * <code>MlpRandomNetworkTrainer</code>), which lives in the network directory.
+   * 
+   * @return
+   */
+  public static String computeTrainerEvolutionLeaderboardFileName() {
+    return fetchNetworkDirectoryAndCreateIfNecessary() + File.separator
+        + NetworkProperties.getTrainerEvolutionLeaderboardFileName();
+  }
+
+  /**
+   * Computes the name of the file the bracket odds (see <code>BracketSimulator</code>) are
+   * written to, which lives in the simulation directory.
+   * 
+   * @return
+   */
+  public static String computeSimulationBracketOddsFileName() {
+    return fetchSimulationDirectoryAndCreateIfNecessary() + File.separator
+        + NetworkProperties.getSimulationBracketOddsFileName();
+  }
+
+  /**
+   * Computes the name of the file the exact bracket odds (see <code>BracketProbabilityEngine</code>)
+   * are written to, which lives in the simulation directory.
+   * 
+   * @return
+   */
+  public static String computeSimulationBracketExactOddsFileName() {
+    return fetchSimulationDirectoryAndCreateIfNecessary() + File.separator
+        + NetworkProperties.getSimulationBracketExactOddsFileName();
+  }
+
+  /**
+   * Computes the name of the file the best bracket picks (see <code>BracketOptimizer</code>)
+   * are written to, which lives in the simulation directory.
+   * 
+   * @return
+   */
+  public static String computeSimulationBracketPicksFileName() {
+    return fetchSimulationDirectoryAndCreateIfNecessary() + File.separator
+        + NetworkProperties.getSimulationBracketPicksFileName();
+  }
+
   /**
    * Fetches the name of the network directory using NetworkProperties settings
    * and returns that name to the caller.
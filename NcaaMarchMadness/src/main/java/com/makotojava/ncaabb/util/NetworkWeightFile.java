@@ -0,0 +1,251 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.neuroph.core.Layer;
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.Neuron;
+import org.neuroph.core.input.WeightedSum;
+import org.neuroph.core.transfer.Sigmoid;
+import org.neuroph.core.transfer.TransferFunction;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.nnet.comp.neuron.BiasNeuron;
+import org.neuroph.util.NeuronProperties;
+import org.neuroph.util.TransferFunctionType;
+
+/**
+ * A compact binary file format for the weights of a trained MultiLayerPerceptron,
+ * as created by the trainer (Sigmoid neurons, weighted sum inputs, with or without
+ * bias neurons).
+ * <p>
+ * Rather than the whole serialized object graph (which is what a .ann file is),
+ * the file contains just enough to rebuild the network:
+ * <ul>
+ * <li>A magic number and format version (int, int)</li>
+ * <li>Whether or not the network uses bias neurons (byte, 1 = yes)</li>
+ * <li>The number of layers, then the number of neurons in each layer, not
+ * counting bias neurons (int, int...)</li>
+ * <li>The number of weights, then the weights, in the order Neuroph's
+ * <code>getWeights()</code> returns them (int, double...)</li>
+ * </ul>
+ * Reading a file memory-maps it and rebuilds the network from the layer
+ * structure and weights, which is a lot faster than Java deserialization.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class NetworkWeightFile {
+
+  private static final Logger log = Logger.getLogger(NetworkWeightFile.class);
+
+  /**
+   * The file extension for network weight files
+   */
+  public static final String FILE_EXTENSION = ".wts";
+
+  private static final int MAGIC_NUMBER = 0x4E43414E; // "NCAN"
+  private static final int FORMAT_VERSION = 1;
+
+  /**
+   * Writes the weights of the specified network to the specified file. The file is
+   * written under a temporary name first, then renamed, so a reader never sees
+   * half a file.
+   *
+   * @param network
+   *          The (trained) network.
+   * @param file
+   *          The file to write.
+   *
+   * @return boolean - true if the file was written, false if the network cannot
+   *         be rebuilt from its weights (it was not created the way the trainer
+   *         creates networks), in which case nothing is written.
+   *
+   * @throws RuntimeException
+   *           If something goes wrong writing the file.
+   */
+  public static boolean write(NeuralNetwork<?> network, File file) {
+    boolean useBias = usesBiasNeurons(network);
+    List<Integer> neuronLayerDescriptor = createNeuronLayerDescriptor(network);
+    //
+    // Make sure the network we would get back is the same one we have
+    if (!hasSameStructure(network, createNetwork(neuronLayerDescriptor, useBias))) {
+      log.debug("Network with layers " + neuronLayerDescriptor
+          + " cannot be stored as a weight file, it is not a standard MultiLayerPerceptron.");
+      return false;
+    }
+    Double[] weights = network.getWeights();
+    ByteBuffer buffer = ByteBuffer.allocate(
+        Integer.BYTES * (4 + neuronLayerDescriptor.size()) + 1 + Double.BYTES * weights.length);
+    buffer.putInt(MAGIC_NUMBER);
+    buffer.putInt(FORMAT_VERSION);
+    buffer.put((byte) (useBias ? 1 : 0));
+    buffer.putInt(neuronLayerDescriptor.size());
+    for (Integer neuronCount : neuronLayerDescriptor) {
+      buffer.putInt(neuronCount);
+    }
+    buffer.putInt(weights.length);
+    for (Double weight : weights) {
+      buffer.putDouble(weight);
+    }
+    buffer.flip();
+    Path target = file.toPath();
+    Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING)) {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      String message = "Could not write network weight file '" + file.getPath() + "': " + e.getMessage();
+      log.error(message, e);
+      throw new RuntimeException(message, e);
+    }
+    return true;
+  }
+
+  /**
+   * Reads the specified weight file, and rebuilds the network it was written from.
+   *
+   * @param file
+   *          The weight file to read.
+   *
+   * @return MultiLayerPerceptron - the network.
+   *
+   * @throws RuntimeException
+   *           If the file cannot be read, or is not a (valid) weight file.
+   */
+  public static MultiLayerPerceptron read(File file) {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getInt() != MAGIC_NUMBER || buffer.getInt() != FORMAT_VERSION) {
+        throw new RuntimeException(
+            "File '" + file.getPath() + "' is not a network weight file (or is the wrong version).");
+      }
+      boolean useBias = buffer.get() == 1;
+      int numberOfLayers = buffer.getInt();
+      List<Integer> neuronLayerDescriptor = new ArrayList<>();
+      for (int aa = 0; aa < numberOfLayers; aa++) {
+        neuronLayerDescriptor.add(buffer.getInt());
+      }
+      double[] weights = new double[buffer.getInt()];
+      buffer.asDoubleBuffer().get(weights);
+      MultiLayerPerceptron ret = createNetwork(neuronLayerDescriptor, useBias);
+      if (ret.getWeights().length != weights.length) {
+        throw new RuntimeException("File '" + file.getPath() + "' is corrupt: expected " + ret.getWeights().length
+            + " weights, found " + weights.length);
+      }
+      ret.setWeights(weights);
+      return ret;
+    } catch (IOException | BufferUnderflowException e) {
+      String message = "Could not read network weight file '" + file.getPath() + "': " + e.getMessage();
+      log.error(message, e);
+      throw new RuntimeException(message, e);
+    }
+  }
+
+  /**
+   * Creates an (untrained) network just like the trainer does.
+   */
+  private static MultiLayerPerceptron createNetwork(List<Integer> neuronLayerDescriptor, boolean useBias) {
+    NeuronProperties neuronProperties = new NeuronProperties();
+    neuronProperties.setProperty("transferFunction", TransferFunctionType.SIGMOID);
+    neuronProperties.setProperty("inputFunction", WeightedSum.class);
+    neuronProperties.setProperty("useBias", useBias);
+    return new MultiLayerPerceptron(neuronLayerDescriptor, neuronProperties);
+  }
+
+  /**
+   * The number of neurons in each layer, not counting bias neurons.
+   */
+  private static List<Integer> createNeuronLayerDescriptor(NeuralNetwork<?> network) {
+    List<Integer> ret = new ArrayList<>();
+    for (Layer layer : network.getLayers()) {
+      int neuronCount = 0;
+      for (Neuron neuron : layer.getNeurons()) {
+        if (!(neuron instanceof BiasNeuron)) {
+          neuronCount++;
+        }
+      }
+      ret.add(neuronCount);
+    }
+    return ret;
+  }
+
+  private static boolean usesBiasNeurons(NeuralNetwork<?> network) {
+    for (Layer layer : network.getLayers()) {
+      for (Neuron neuron : layer.getNeurons()) {
+        if (neuron instanceof BiasNeuron) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Compares the two networks neuron by neuron (neuron type, input and transfer
+   * functions, and number of input connections). Weights are not compared.
+   */
+  private static boolean hasSameStructure(NeuralNetwork<?> network, NeuralNetwork<?> other) {
+    if (network.getLayersCount() != other.getLayersCount()) {
+      return false;
+    }
+    for (int layerIndex = 0; layerIndex < network.getLayersCount(); layerIndex++) {
+      Layer layer = network.getLayerAt(layerIndex);
+      Layer otherLayer = other.getLayerAt(layerIndex);
+      if (layer.getNeuronsCount() != otherLayer.getNeuronsCount()) {
+        return false;
+      }
+      for (int neuronIndex = 0; neuronIndex < layer.getNeuronsCount(); neuronIndex++) {
+        Neuron neuron = layer.getNeuronAt(neuronIndex);
+        Neuron otherNeuron = otherLayer.getNeuronAt(neuronIndex);
+        if (neuron.getClass() != otherNeuron.getClass()
+            || neuron.getInputFunction().getClass() != otherNeuron.getInputFunction().getClass()
+            || !isSameTransferFunction(neuron.getTransferFunction(), otherNeuron.getTransferFunction())
+            || neuron.getInputConnections().size() != otherNeuron.getInputConnections().size()) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static boolean isSameTransferFunction(TransferFunction transferFunction, TransferFunction other) {
+    boolean ret = transferFunction.getClass() == other.getClass();
+    if (ret && transferFunction instanceof Sigmoid) {
+      ret = ((Sigmoid) transferFunction).getSlope() == ((Sigmoid) other).getSlope();
+    }
+    return ret;
+  }
+
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.util;
+
+import java.util.List;
+import java.util.Random;
+
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+
+/**
+ * The training data for one or more years, packed into one contiguous (row-major) buffer
+ * of inputs and one of outputs. Each year goes straight into its own slice of the buffers,
+ * so the years are never merged into (and copied out of) an intermediate DataSet.
+ * <p>
+ * Never modified once it is created, so one copy can be shared by every network being
+ * trained, on every thread. Rather than shuffling the data, a training run visits the rows
+ * in the order of a permutation of row indexes ({@link #createRowOrder(Random)}), drawn from
+ * the run's own random number generator, and reshuffled ({@link #shuffle(int[], Random)})
+ * for each epoch if the learning rule can work off of the buffers (see
+ * <code>DenseMomentumBackpropagation</code>).
+ * <p>
+ * Neuroph's learning rules need DataSetRow objects, so the rows are also available as a
+ * DataSet ({@link #getDataSet()}), created (once) the first time it is asked for, so the
+ * rows are never copied out of the buffers unless a Neuroph learning rule actually needs them.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class PackedTrainingData {
+
+  private final int inputSize;
+  private final int outputSize;
+  private final int rowCount;
+
+  /**
+   * inputs[row * inputSize + column] and outputs[row * outputSize + column]
+   */
+  private final double[] inputs;
+  private final double[] outputs;
+
+  /**
+   * The rows as a DataSet, in order (created the first time it is asked for)
+   */
+  private DataSet dataSet;
+
+  private PackedTrainingData(int inputSize, int outputSize, int rowCount) {
+    this.inputSize = inputSize;
+    this.outputSize = outputSize;
+    this.rowCount = rowCount;
+    this.inputs = new double[rowCount * inputSize];
+    this.outputs = new double[rowCount * outputSize];
+  }
+
+  /**
+   * Packs the specified (binary) training data files, one after another.
+   *
+   * @param trainingDataFiles
+   *          The training data files (normally, one per year).
+   * @param inputSize
+   *          The number of inputs every file must have.
+   * @param outputSize
+   *          The number of outputs every file must have.
+   *
+   * @return PackedTrainingData - the packed training data.
+   */
+  public static PackedTrainingData fromTrainingDataFiles(List<TrainingDataFile> trainingDataFiles, int inputSize,
+      int outputSize) {
+    int rowCount = 0;
+    for (TrainingDataFile trainingDataFile : trainingDataFiles) {
+      checkSizes(trainingDataFile.getInputSize(), trainingDataFile.getOutputSize(), inputSize, outputSize);
+      rowCount += trainingDataFile.getRowCount();
+    }
+    PackedTrainingData ret = new PackedTrainingData(inputSize, outputSize, rowCount);
+    int firstRow = 0;
+    for (TrainingDataFile trainingDataFile : trainingDataFiles) {
+      trainingDataFile.copyRowsTo(ret.inputs, ret.outputs, firstRow);
+      firstRow += trainingDataFile.getRowCount();
+    }
+    return ret;
+  }
+
+  /**
+   * Packs the specified DataSets, one after another. If there is only one, it is used
+   * as the DataSet of the packed training data (see {@link #getDataSet()}).
+   *
+   * @param dataSets
+   *          The DataSets (normally, one per year).
+   * @param inputSize
+   *          The number of inputs every DataSet must have.
+   * @param outputSize
+   *          The number of outputs every DataSet must have.
+   *
+   * @return PackedTrainingData - the packed training data.
+   */
+  public static PackedTrainingData fromDataSets(List<DataSet> dataSets, int inputSize, int outputSize) {
+    int rowCount = 0;
+    for (DataSet dataSet : dataSets) {
+      checkSizes(dataSet.getInputSize(), dataSet.getOutputSize(), inputSize, outputSize);
+      rowCount += dataSet.size();
+    }
+    PackedTrainingData ret = new PackedTrainingData(inputSize, outputSize, rowCount);
+    int row = 0;
+    for (DataSet dataSet : dataSets) {
+      for (DataSetRow dataSetRow : dataSet.getRows()) {
+        System.arraycopy(dataSetRow.getInput(), 0, ret.inputs, row * inputSize, inputSize);
+        System.arraycopy(dataSetRow.getDesiredOutput(), 0, ret.outputs, row * outputSize, outputSize);
+        row++;
+      }
+    }
+    if (dataSets.size() == 1) {
+      ret.dataSet = dataSets.get(0);
+    }
+    return ret;
+  }
+
+  private static void checkSizes(int actualInputSize, int actualOutputSize, int inputSize, int outputSize) {
+    if (actualInputSize != inputSize || actualOutputSize != outputSize) {
+      throw new IllegalArgumentException("Training data has " + actualInputSize + " inputs and " + actualOutputSize
+          + " outputs, expected " + inputSize + " and " + outputSize);
+    }
+  }
+
+  public int getInputSize() {
+    return inputSize;
+  }
+
+  public int getOutputSize() {
+    return outputSize;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * @return double[] - the inputs, row after row. Shared: do not modify.
+   */
+  public double[] getInputs() {
+    return inputs;
+  }
+
+  /**
+   * @return double[] - the (desired) outputs, row after row. Shared: do not modify.
+   */
+  public double[] getOutputs() {
+    return outputs;
+  }
+
+  /**
+   * @return DataSet - every row, in order. Shared: do not modify (see
+   *         {@link #createDataSet(int[])}).
+   */
+  public synchronized DataSet getDataSet() {
+    if (dataSet == null) {
+      dataSet = copyRows(0, rowCount);
+    }
+    return dataSet;
+  }
+
+  /**
+   * Copies the specified rows out of the buffers, into a new DataSet (with new DataSetRow
+   * objects, not the ones in {@link #getDataSet()}).
+   *
+   * @param firstRow
+   *          The first row to copy.
+   * @param numberOfRows
+   *          The number of rows to copy.
+   *
+   * @return DataSet - the copied rows, in order.
+   */
+  public DataSet copyRows(int firstRow, int numberOfRows) {
+    DataSet ret = new DataSet(inputSize, outputSize);
+    for (int row = firstRow; row < firstRow + numberOfRows; row++) {
+      double[] input = new double[inputSize];
+      double[] output = new double[outputSize];
+      System.arraycopy(inputs, row * inputSize, input, 0, inputSize);
+      System.arraycopy(outputs, row * outputSize, output, 0, outputSize);
+      ret.addRow(new DataSetRow(input, output));
+    }
+    return ret;
+  }
+
+  /**
+   * Creates a DataSet of the rows in the specified order. The rows are the same (shared)
+   * DataSetRow objects as in {@link #getDataSet()}, only the List that holds them is new.
+   *
+   * @param rowOrder
+   *          The row indexes, in the order the rows are to be in.
+   *
+   * @return DataSet - the rows, in the specified order.
+   */
+  public DataSet createDataSet(int[] rowOrder) {
+    List<DataSetRow> rows = getDataSet().getRows();
+    DataSet ret = new DataSet(inputSize, outputSize);
+    for (int row : rowOrder) {
+      ret.addRow(rows.get(row));
+    }
+    return ret;
+  }
+
+  /**
+   * @return int[] - a random permutation of the row indexes.
+   */
+  public int[] createRowOrder(Random random) {
+    int[] ret = new int[rowCount];
+    for (int row = 0; row < rowCount; row++) {
+      ret[row] = row;
+    }
+    shuffle(ret, random);
+    return ret;
+  }
+
+  /**
+   * Shuffles the specified row indexes (Fisher-Yates, in place).
+   */
+  public static void shuffle(int[] rowOrder, Random random) {
+    for (int aa = rowOrder.length - 1; aa > 0; aa--) {
+      int bb = random.nextInt(aa + 1);
+      int row = rowOrder[aa];
+      rowOrder[aa] = rowOrder[bb];
+      rowOrder[bb] = row;
+    }
+  }
+
+}
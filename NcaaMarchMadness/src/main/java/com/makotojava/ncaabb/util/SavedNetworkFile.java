@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.util;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * What the name of a network (.ann) file saved by the trainer says about the network:
+ * the years it was validated against, whether it uses bias neurons, its layer structure,
+ * and its winning percentage.
+ * <p>
+ * The name looks like this (see <code>MlpNetworkTrainer.saveNetworkToFile()</code>):
+ *
+ * <pre>
+ * NCAA-BB-MLP-Network-SimYrs_2015_2016-bias_true-NmInp_46-46x46x23x2-NmTrRows_4000-MxErr_0.059-Dt_20170316-TotErr_5.83-winpct_74.62687_0.ann
+ * </pre>
+ *
+ * @author J Steven Perry
+ *
+ */
+public class SavedNetworkFile {
+
+  private static final Pattern FILE_NAME_PATTERN =
+      Pattern.compile("-SimYrs_([0-9_]+)-bias_(true|false)-NmInp_[0-9]+-([0-9x]+)-.*-winpct_([0-9.]+)_[0-9]+$");
+
+  private final File file;
+  private final Integer[] simulationYears;
+  private final boolean useBias;
+  private final String layerStructure;
+  private final double winningPercentage;
+
+  private SavedNetworkFile(File file, Integer[] simulationYears, boolean useBias, String layerStructure,
+      double winningPercentage) {
+    this.file = file;
+    this.simulationYears = simulationYears;
+    this.useBias = useBias;
+    this.layerStructure = layerStructure;
+    this.winningPercentage = winningPercentage;
+  }
+
+  /**
+   * Parses the name of the specified network file.
+   *
+   * @param file
+   *          The network file.
+   *
+   * @return SavedNetworkFile - what the name says, or null if it is not the name of a
+   *         network file saved by the trainer.
+   */
+  public static SavedNetworkFile parse(File file) {
+    String name = file.getName();
+    String fileBase = NetworkProperties.getNetworkFileBase();
+    String fileExtension = NetworkProperties.getNetworkFileExtension();
+    if (!name.startsWith(fileBase) || !name.endsWith(fileExtension)) {
+      return null;
+    }
+    Matcher matcher =
+        FILE_NAME_PATTERN.matcher(name.substring(fileBase.length(), name.length() - fileExtension.length()));
+    if (!matcher.matches()) {
+      return null;
+    }
+    try {
+      Integer[] simulationYears = Arrays.stream(matcher.group(1).split("_")).map(Integer::valueOf)
+          .toArray(Integer[]::new);
+      return new SavedNetworkFile(file, simulationYears, Boolean.parseBoolean(matcher.group(2)), matcher.group(3),
+          Double.parseDouble(matcher.group(4)));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Finds the best (highest winning percentage) saved network among the specified
+   * files that has the specified layer structure, bias setting and simulation years.
+   *
+   * @param files
+   *          The files (normally, the contents of the network directory).
+   * @param layerStructure
+   *          The NxNxN layer structure string.
+   * @param useBias
+   *          Whether or not the network uses bias neurons.
+   * @param simulationYears
+   *          The years the network was validated against.
+   *
+   * @return SavedNetworkFile - the best match, or null if nothing matches.
+   */
+  public static SavedNetworkFile findBest(File[] files, String layerStructure, boolean useBias,
+      Integer[] simulationYears) {
+    SavedNetworkFile ret = null;
+    for (File file : files) {
+      SavedNetworkFile savedNetworkFile = parse(file);
+      if (savedNetworkFile != null && savedNetworkFile.layerStructure.equals(layerStructure)
+          && savedNetworkFile.useBias == useBias && Arrays.equals(savedNetworkFile.simulationYears, simulationYears)
+          && (ret == null || savedNetworkFile.winningPercentage > ret.winningPercentage)) {
+        ret = savedNetworkFile;
+      }
+    }
+    return ret;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  public Integer[] getSimulationYears() {
+    return simulationYears.clone();
+  }
+
+  public boolean isUseBias() {
+    return useBias;
+  }
+
+  public String getLayerStructure() {
+    return layerStructure;
+  }
+
+  public double getWinningPercentage() {
+    return winningPercentage;
+  }
+
+}
@@ -30,10 +30,29 @@ public class StatsUtils {
 
   public static final double MAX_ALLOWABLE_VALUE = 0.99999;
 
+  /**
+   * 10^SCALE, the number of "units" in 1.0 at SCALE
+   */
+  private static final long SCALE_FACTOR = 100000L;
+
+  private static final long MIN_ALLOWABLE_UNITS = 1L;
+
+  private static final long MAX_ALLOWABLE_UNITS = SCALE_FACTOR - 1L;
+
   private StatsUtils() {
     // Can't touch this
   }
   
+  /**
+   * Normalizes the specified value to the range between MIN_ALLOWABLE_VALUE and
+   * MAX_ALLOWABLE_VALUE using exact decimal arithmetic. This is the reference version,
+   * see {@link #normalize(double, double, double)} for the one to use in a loop.
+   * 
+   * @param value
+   * @param minValue
+   * @param maxValue
+   * @return
+   */
   public static BigDecimal normalize(BigDecimal value, BigDecimal minValue, BigDecimal maxValue) {
     BigDecimal ret;
     //
@@ -49,7 +68,10 @@ public class StatsUtils {
       ret = BigDecimal.valueOf(MIN_ALLOWABLE_VALUE);
     }
     //
-    log.trace("Normalized value: " + ret + " = " + "(" + value + " - " + minValue + ") / (" + maxValue + " - " + minValue + ")");
+    if (log.isTraceEnabled()) {
+      log.trace("Normalized value: " + ret + " = " + "(" + value + " - " + minValue + ") / (" + maxValue + " - "
+          + minValue + ")");
+    }
     return ret;
   }
   
@@ -69,8 +91,90 @@ public class StatsUtils {
     BigDecimal one = BigDecimal.ONE.setScale(normalizedValue.scale(), RoundingMode.HALF_UP);
     // Return 1 - normalizedValue
     ret = one.subtract(normalizedValue);
-    log.trace("Returning Inverted value: " + ret);
+    if (log.isTraceEnabled()) {
+      log.trace("Returning Inverted value: " + ret);
+    }
+    return ret;
+  }
+
+  /**
+   * Same as {@link #normalize(BigDecimal, BigDecimal, BigDecimal)} followed by rounding
+   * to SCALE (which is what happens when the result is stored in a SeasonData object),
+   * only using primitive arithmetic. The result is bit-for-bit the same <code>double</code>
+   * so long as <code>value</code>, <code>minValue</code> and <code>maxValue</code> have
+   * no more than SCALE decimal places (all SeasonData values do). If they have more, this
+   * falls back to the BigDecimal version.
+   * 
+   * @param value
+   *          The value to normalize, treated as having SCALE decimal places.
+   * @param minValue
+   * @param maxValue
+   * @return double - the normalized value, rounded (HALF_UP) to SCALE decimal places,
+   *         and never less than MIN_ALLOWABLE_VALUE or more than MAX_ALLOWABLE_VALUE.
+   * @throws ArithmeticException
+   *           If minValue and maxValue are the same.
+   */
+  public static double normalize(double value, double minValue, double maxValue) {
+    return toDouble(normalizeToUnits(value, minValue, maxValue));
+  }
+
+  /**
+   * Same as {@link #normalizeInverted(BigDecimal, BigDecimal, BigDecimal)}, only using
+   * primitive arithmetic. See {@link #normalize(double, double, double)}.
+   * 
+   * @param value
+   * @param minValue
+   * @param maxValue
+   * @return double - 1 - the normalized value.
+   */
+  public static double normalizeInverted(double value, double minValue, double maxValue) {
+    return toDouble(SCALE_FACTOR - normalizeToUnits(value, minValue, maxValue));
+  }
+
+  /**
+   * Does the normalization in units of 10^-SCALE (so 0.12345 is 12345 units), which
+   * means the division can be done (and rounded HALF_UP) exactly with longs.
+   */
+  private static long normalizeToUnits(double value, double minValue, double maxValue) {
+    long ret;
+    long valueUnits = toUnits(value);
+    long minUnits = toUnits(minValue);
+    long maxUnits = toUnits(maxValue);
+    if (toDouble(valueUnits) != value || toDouble(minUnits) != minValue || toDouble(maxUnits) != maxValue) {
+      //
+      // More decimal places than SCALE. Can't do it with longs, so do it the slow way.
+      ret = toUnits(normalize(BigDecimal.valueOf(value).setScale(SCALE, RoundingMode.HALF_UP),
+          BigDecimal.valueOf(minValue), BigDecimal.valueOf(maxValue)).setScale(SCALE, RoundingMode.HALF_UP)
+          .doubleValue());
+    } else {
+      long numerator = (valueUnits - minUnits) * SCALE_FACTOR;
+      long denominator = maxUnits - minUnits;
+      if (denominator < 0) {
+        numerator = -numerator;
+        denominator = -denominator;
+      }
+      // Throws ArithmeticException if denominator is zero, just like BigDecimal
+      ret = numerator / denominator;
+      long remainder = numerator % denominator;
+      // HALF_UP (negative results get clamped, so only positive ones need rounding)
+      if (remainder > 0 && remainder >= denominator - remainder) {
+        ret++;
+      }
+      if (ret >= SCALE_FACTOR) {
+        ret = MAX_ALLOWABLE_UNITS;
+      } else if (ret <= 0) {
+        ret = MIN_ALLOWABLE_UNITS;
+      }
+    }
     return ret;
   }
+
+  private static long toUnits(double value) {
+    return Math.round(value * SCALE_FACTOR);
+  }
+
+  private static double toDouble(long units) {
+    return units / (double) SCALE_FACTOR;
+  }
   
 }
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+
+/**
+ * A compact, columnar, binary training data file (one per year), and a reader
+ * for it that works directly off of the memory-mapped file.
+ * <p>
+ * The file layout (everything little-endian) is:
+ * <ul>
+ * <li>A {@value #HEADER_SIZE} byte header: magic number, format version, number
+ * of inputs, number of outputs, number of rows (all int), then padding, so the
+ * data starts on an 8 byte boundary.</li>
+ * <li>The data: one column of <code>rowCount</code> float64 values for each input,
+ * followed by one column for each output.</li>
+ * </ul>
+ * This replaces Java serialization of the Neuroph DataSet (DataSet.save()/load()),
+ * which is big and slow to read. Use {@link #write(DataSet, File)} and
+ * {@link #toDataSet()} to convert to and from the DataSet format, or run
+ * {@link #main(String[])} to convert existing training data files.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class TrainingDataFile {
+
+  private static final Logger log = Logger.getLogger(TrainingDataFile.class);
+
+  private static final int MAGIC_NUMBER = 0x4E434154; // "NCAT"
+  private static final int FORMAT_VERSION = 1;
+
+  /**
+   * Size of the header, in bytes
+   */
+  public static final int HEADER_SIZE = 32;
+
+  private final int inputSize;
+  private final int outputSize;
+  private final int rowCount;
+
+  /**
+   * The data, straight from the mapped file, one column after another
+   */
+  private final DoubleBuffer data;
+
+  private TrainingDataFile(int inputSize, int outputSize, int rowCount, DoubleBuffer data) {
+    this.inputSize = inputSize;
+    this.outputSize = outputSize;
+    this.rowCount = rowCount;
+    this.data = data;
+  }
+
+  /**
+   * Opens (memory-maps) the specified training data file. Nothing is copied: the
+   * values are read straight out of the mapped file as they are asked for.
+   *
+   * @param file
+   *          The training data file.
+   *
+   * @return TrainingDataFile - the reader.
+   *
+   * @throws RuntimeException
+   *           If the file cannot be read, or is not a (valid) training data file.
+   */
+  public static TrainingDataFile open(File file) {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      // The mapping stays valid after the channel is closed
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      if (channel.size() < HEADER_SIZE || buffer.getInt() != MAGIC_NUMBER || buffer.getInt() != FORMAT_VERSION) {
+        throw new RuntimeException(
+            "File '" + file.getPath() + "' is not a training data file (or is the wrong version).");
+      }
+      int inputSize = buffer.getInt();
+      int outputSize = buffer.getInt();
+      int rowCount = buffer.getInt();
+      long expectedSize = HEADER_SIZE + (long) Double.BYTES * rowCount * (inputSize + outputSize);
+      if (channel.size() != expectedSize) {
+        throw new RuntimeException("File '" + file.getPath() + "' is corrupt: expected " + expectedSize
+            + " bytes, found " + channel.size());
+      }
+      buffer.position(HEADER_SIZE);
+      return new TrainingDataFile(inputSize, outputSize, rowCount, buffer.slice().order(ByteOrder.LITTLE_ENDIAN)
+          .asDoubleBuffer());
+    } catch (IOException e) {
+      String message = "Could not read training data file '" + file.getPath() + "': " + e.getMessage();
+      log.error(message, e);
+      throw new RuntimeException(message, e);
+    }
+  }
+
+  /**
+   * Writes the specified DataSet to the specified file. The file is written under a
+   * temporary name first, then renamed, so a reader never sees half a file.
+   *
+   * @param dataSet
+   *          The training data.
+   * @param file
+   *          The file to write.
+   *
+   * @throws RuntimeException
+   *           If something goes wrong writing the file.
+   */
+  public static void write(DataSet dataSet, File file) {
+    List<DataSetRow> rows = dataSet.getRows();
+    int inputSize = dataSet.getInputSize();
+    int outputSize = dataSet.getOutputSize();
+    int rowCount = rows.size();
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + Double.BYTES * rowCount * (inputSize + outputSize))
+        .order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(MAGIC_NUMBER);
+    buffer.putInt(FORMAT_VERSION);
+    buffer.putInt(inputSize);
+    buffer.putInt(outputSize);
+    buffer.putInt(rowCount);
+    buffer.position(HEADER_SIZE);
+    //
+    // One column at a time
+    for (int column = 0; column < inputSize; column++) {
+      for (DataSetRow row : rows) {
+        buffer.putDouble(row.getInput()[column]);
+      }
+    }
+    for (int column = 0; column < outputSize; column++) {
+      for (DataSetRow row : rows) {
+        buffer.putDouble(row.getDesiredOutput()[column]);
+      }
+    }
+    buffer.flip();
+    Path target = file.toPath();
+    Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING)) {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      String message = "Could not write training data file '" + file.getPath() + "': " + e.getMessage();
+      log.error(message, e);
+      throw new RuntimeException(message, e);
+    }
+  }
+
+  public int getInputSize() {
+    return inputSize;
+  }
+
+  public int getOutputSize() {
+    return outputSize;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * @return double - the value of the specified input column for the specified row.
+   */
+  public double getInput(int row, int column) {
+    return data.get(column * rowCount + row);
+  }
+
+  /**
+   * @return double - the value of the specified output column for the specified row.
+   */
+  public double getOutput(int row, int column) {
+    return data.get((inputSize + column) * rowCount + row);
+  }
+
+  /**
+   * Copies the inputs for the specified row into the specified array.
+   */
+  public void copyInputRow(int row, double[] input) {
+    for (int column = 0; column < inputSize; column++) {
+      input[column] = getInput(row, column);
+    }
+  }
+
+  /**
+   * Copies the outputs for the specified row into the specified array.
+   */
+  public void copyOutputRow(int row, double[] output) {
+    for (int column = 0; column < outputSize; column++) {
+      output[column] = getOutput(row, column);
+    }
+  }
+
+  /**
+   * Copies every row in the file into the specified (row-major) arrays, starting at
+   * the specified row. This is how the trainer gets its data: straight from the mapped
+   * file into its slice of the combined training data (see {@link PackedTrainingData}).
+   *
+   * @param inputs
+   *          The inputs array (<code>inputSize</code> values per row).
+   * @param outputs
+   *          The outputs array (<code>outputSize</code> values per row).
+   * @param firstRow
+   *          The row (in the arrays) to copy the first row of the file to.
+   */
+  public void copyRowsTo(double[] inputs, double[] outputs, int firstRow) {
+    for (int column = 0; column < inputSize; column++) {
+      for (int row = 0; row < rowCount; row++) {
+        inputs[(firstRow + row) * inputSize + column] = getInput(row, column);
+      }
+    }
+    for (int column = 0; column < outputSize; column++) {
+      for (int row = 0; row < rowCount; row++) {
+        outputs[(firstRow + row) * outputSize + column] = getOutput(row, column);
+      }
+    }
+  }
+
+  /**
+   * Adds every row in the file to the specified DataSet, in order.
+   *
+   * @param dataSet
+   *          The DataSet to add the rows to.
+   */
+  public void addRowsTo(DataSet dataSet) {
+    for (int row = 0; row < rowCount; row++) {
+      double[] input = new double[inputSize];
+      double[] output = new double[outputSize];
+      copyInputRow(row, input);
+      copyOutputRow(row, output);
+      dataSet.addRow(new DataSetRow(input, output));
+    }
+  }
+
+  /**
+   * Converts the file to a Neuroph DataSet.
+   *
+   * @return DataSet - every row in the file.
+   */
+  public DataSet toDataSet() {
+    DataSet ret = new DataSet(inputSize, outputSize);
+    addRowsTo(ret);
+    return ret;
+  }
+
+  /**
+   * Converts training data files for the specified years from one format to the other.
+   *
+   * @param args
+   *          <code>toBinary</code> or <code>toDataSet</code>, followed by one or more years.
+   */
+  public static void main(String[] args) {
+    if (args.length < 2 || !("toBinary".equals(args[0]) || "toDataSet".equals(args[0]))) {
+      usage();
+      System.exit(-1);
+    }
+    for (int aa = 1; aa < args.length; aa++) {
+      Integer year = Integer.valueOf(args[aa]);
+      NetworkUtils.validateYear(year);
+      String dataSetFilename = NetworkUtils.computeTrainingDataFileName(year);
+      File binaryFile = new File(NetworkUtils.computeTrainingDataBinaryFileName(year));
+      if ("toBinary".equals(args[0])) {
+        DataSet dataSet = DataSet.load(dataSetFilename);
+        write(dataSet, binaryFile);
+        log.info("Converted " + dataSet.size() + " rows from '" + dataSetFilename + "' to '" + binaryFile + "'");
+      } else {
+        DataSet dataSet = open(binaryFile).toDataSet();
+        dataSet.save(dataSetFilename);
+        log.info("Converted " + dataSet.size() + " rows from '" + binaryFile + "' to '" + dataSetFilename + "'");
+      }
+    }
+  }
+
+  /**
+   * Usage message. Pretty self-explanatory.
+   */
+  protected static void usage() {
+    System.out.println("Usage: ");
+    System.out.println("\t" + TrainingDataFile.class.getSimpleName() + " toBinary|toDataSet YEAR [YEAR...]");
+    System.out.println("\t Where:");
+    System.out.println("\t toBinary converts the DataSet training data files for the years to binary files.");
+    System.out.println("\t toDataSet converts the binary training data files for the years to DataSet files.");
+  }
+
+}
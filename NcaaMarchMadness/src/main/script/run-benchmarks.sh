@@ -0,0 +1,34 @@
+#! 
+#
+# Script to run the JMH benchmarks (see benchmarks/pom.xml).
+#
+# Build the benchmarks first:
+#   mvn -f benchmarks/pom.xml clean package
+#
+# Any arguments are passed along to JMH, for example, to run just the inference benchmarks:
+#   ./run-benchmarks.sh InferenceBenchmark
+# Run with -h to see all of the JMH options.
+#
+# Every benchmark reports throughput (ops/time) and sample time (with the p50/p90/p99/... latency
+# percentiles). The GC profiler is always on, and reports the allocation rate (gc.alloc.rate, and
+# gc.alloc.rate.norm, which is bytes allocated per operation).
+
+# Below is an example that works on my Mac.
+# Change this to match your source location.
+ROOT_DIR=/Users/sperry/home/development/projects/IBM-Developer/NcaaMarchMadness
+
+# Make sure ROOT_DIR is set or bail out
+if [[ -z "$ROOT_DIR" ]]
+then
+  echo "ROOT_DIR is not set! This variable should be set to the source root of your project."
+  exit 1
+fi
+
+BENCHMARKS_JAR=$ROOT_DIR/benchmarks/target/benchmarks.jar
+if [[ ! -f "$BENCHMARKS_JAR" ]]
+then
+  echo "$BENCHMARKS_JAR does not exist. Build it first: mvn -f benchmarks/pom.xml clean package"
+  exit 1
+fi
+
+java $JAVA_OPTS -jar $BENCHMARKS_JAR -prof gc $@
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.makotojava.ncaabb.model.SeasonData;
+
+public class CachingSeasonDataDaoTest {
+
+  private CountingSeasonDataDao delegate;
+  private CachingSeasonDataDao classUnderTest;
+
+  @Before
+  public void setUp() throws Exception {
+    delegate = new CountingSeasonDataDao();
+    classUnderTest = new CachingSeasonDataDao(delegate, 2);
+  }
+
+  @Test
+  public void testFetchByYearAndTeamName_LoadsYearOnce() {
+    SeasonData duke = classUnderTest.fetchByYearAndTeamName(2011, "Duke");
+    assertEquals("Duke", duke.getTeamName());
+    assertSame(duke, classUnderTest.fetchByYearAndTeamName(2011, "Duke"));
+    assertEquals("Kansas", classUnderTest.fetchByYearAndTeamName(2011, "Kansas").getTeamName());
+    assertNull(classUnderTest.fetchByYearAndTeamName(2011, "Nobody"));
+    assertEquals(2, classUnderTest.fetchAllByYear(2011).size());
+    assertEquals(1, delegate.numberOfCalls);
+    assertEquals(1, classUnderTest.getMissCount());
+    assertEquals(4, classUnderTest.getHitCount());
+  }
+
+  @Test
+  public void testFetchAllByYear_EvictsLeastRecentlyUsedYear() {
+    classUnderTest.fetchAllByYear(2011);
+    classUnderTest.fetchAllByYear(2012);
+    classUnderTest.fetchAllByYear(2011);
+    // 2012 is the least recently used, so it goes
+    classUnderTest.fetchAllByYear(2013);
+    assertEquals(3, delegate.numberOfCalls);
+    classUnderTest.fetchAllByYear(2011);
+    assertEquals(3, delegate.numberOfCalls);
+    classUnderTest.fetchAllByYear(2012);
+    assertEquals(4, delegate.numberOfCalls);
+  }
+
+  /**
+   * Stands in for the DB, and counts how many times it gets asked for a year.
+   */
+  private static class CountingSeasonDataDao implements SeasonDataDao {
+    private int numberOfCalls;
+
+    @Override
+    public List<SeasonData> fetchAllByYear(Integer year) {
+      numberOfCalls++;
+      List<SeasonData> ret = new ArrayList<>();
+      ret.add(createSeasonData(year, "Duke"));
+      ret.add(createSeasonData(year, "Kansas"));
+      return ret;
+    }
+
+    @Override
+    public SeasonData fetchByYearAndTeamName(Integer year, String teamName) {
+      throw new UnsupportedOperationException("Should be served from the cache");
+    }
+
+    private static SeasonData createSeasonData(Integer year, String teamName) {
+      SeasonData ret = new SeasonData();
+      ret.setYear(year);
+      ret.setTeamName(teamName);
+      return ret;
+    }
+  }
+
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.generation;
+
+import static com.makotojava.ncaabb.util.NetworkFixtures.createNetwork;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.events.LearningEvent;
+import org.neuroph.nnet.MultiLayerPerceptron;
+
+import com.makotojava.ncaabb.simulation.CompiledNetwork;
+import com.makotojava.ncaabb.util.PackedTrainingData;
+
+@RunWith(JUnitPlatform.class)
+public class DenseMomentumBackpropagationTest {
+
+  @Test
+  public void testLearn_Xor() {
+    MultiLayerPerceptron network = createNetwork(true, 2, 4, 1);
+    DenseMomentumBackpropagation classUnderTest = createLearningRule(network, false);
+    network.learn(createXorData());
+    assertTrue(classUnderTest.getTotalNetworkError() < 0.001,
+        "Network error too high: " + classUnderTest.getTotalNetworkError());
+    assertTrue(classUnderTest.getNumberOfEpochs() < 20000);
+    assertEquals(classUnderTest.getNumberOfEpochs(), classUnderTest.getCurrentIteration().intValue());
+    //
+    // The trained weights must be in the network
+    assertEquals(0.0, runNetwork(network, 0.0, 0.0), 0.1);
+    assertEquals(1.0, runNetwork(network, 0.0, 1.0), 0.1);
+    assertEquals(1.0, runNetwork(network, 1.0, 0.0), 0.1);
+    assertEquals(0.0, runNetwork(network, 1.0, 1.0), 0.1);
+  }
+
+  @Test
+  public void testLearn_BatchMode() {
+    MultiLayerPerceptron network = createNetwork(true, 2, 4, 1);
+    DenseMomentumBackpropagation classUnderTest = createLearningRule(network, true);
+    classUnderTest.setMaxIterations(500);
+    DataSet trainingData = createXorData();
+    network.learn(trainingData);
+    double firstError = classUnderTest.getTotalNetworkError();
+    network.learn(trainingData);
+    assertTrue(classUnderTest.getTotalNetworkError() < firstError);
+  }
+
+  @Test
+  public void testLearn_BatchModeSumsGradient() {
+    DataSet trainingData = createTrainingData(512);
+    MultiLayerPerceptron batchNetwork = createNetwork(true, 46, 23, 2);
+    DenseMomentumBackpropagation batchMode = createLearningRule(batchNetwork, true);
+    batchMode.setMaxIterations(3);
+    batchNetwork.learn(trainingData);
+    //
+    // The same as one mini-batch of every row, with the learning rate times the number of rows
+    MultiLayerPerceptron miniBatchNetwork = createNetwork(true, 46, 23, 2);
+    DenseMomentumBackpropagation miniBatch = createLearningRule(miniBatchNetwork, false);
+    miniBatch.setLearningRate(batchMode.getLearningRate() * 512);
+    miniBatch.setBatchSize(512);
+    miniBatch.setMaxIterations(3);
+    miniBatchNetwork.learn(trainingData);
+    assertArrayEquals(batchNetwork.getWeights(), miniBatchNetwork.getWeights());
+  }
+
+  @Test
+  public void testLearn_WeightsCopiedToNetwork() {
+    MultiLayerPerceptron network = createNetwork(false, 46, 23, 2);
+    DenseMomentumBackpropagation classUnderTest = createLearningRule(network, false);
+    classUnderTest.setMaxIterations(10);
+    DataSet trainingData = createTrainingData(100);
+    double errorBefore = computeNetworkError(network, trainingData);
+    network.learn(trainingData);
+    assertEquals(10, classUnderTest.getNumberOfEpochs());
+    double errorAfter = computeNetworkError(network, trainingData);
+    assertTrue(errorAfter < errorBefore, "Error before: " + errorBefore + ", after: " + errorAfter);
+  }
+
+  @Test
+  public void testLearn_MiniBatch() {
+    DataSet trainingData = createTrainingData(500);
+    Double[] serialWeights = trainMiniBatch(trainingData, 1);
+    Double[] parallelWeights = trainMiniBatch(trainingData, 4);
+    //
+    // The shards' gradients are added up in a different order, so not to the last bit
+    for (int aa = 0; aa < serialWeights.length; aa++) {
+      assertEquals(serialWeights[aa], parallelWeights[aa], 1e-9);
+    }
+    // But the same number of workers always gets the same answer
+    assertArrayEquals(parallelWeights, trainMiniBatch(trainingData, 4));
+  }
+
+  @Test
+  public void testLearn_StopLearningReleasesWorkers() {
+    MultiLayerPerceptron network = createNetwork(true, 46, 23, 2);
+    DenseMomentumBackpropagation classUnderTest = createLearningRule(network, false);
+    classUnderTest.setBatchSize(100);
+    classUnderTest.setWorkerCount(4);
+    classUnderTest.addListener(event -> {
+      if (event.getEventType() == LearningEvent.Type.EPOCH_ENDED) {
+        assertTrue(classUnderTest.isExecutorServiceRunning());
+        // Stop early, the way the trainer's early stopping does
+        if (classUnderTest.getCurrentIteration() >= 3) {
+          classUnderTest.stopLearning();
+        }
+      }
+    });
+    network.learn(createTrainingData(500));
+    assertEquals(3, classUnderTest.getNumberOfEpochs());
+    assertFalse(classUnderTest.isExecutorServiceRunning());
+  }
+
+  @Test
+  public void testLearn_NoMaxIterations() {
+    MultiLayerPerceptron network = createNetwork(true, 46, 23, 2);
+    DenseMomentumBackpropagation classUnderTest = createLearningRule(network, false);
+    // 0 means no max, so only the listener stops it
+    classUnderTest.setMaxIterations(0);
+    classUnderTest.setMaxError(0.0);
+    classUnderTest.addListener(event -> {
+      if (event.getEventType() == LearningEvent.Type.EPOCH_ENDED && classUnderTest.getCurrentIteration() >= 30) {
+        classUnderTest.stopLearning();
+      }
+    });
+    network.learn(createTrainingData(50));
+    assertEquals(30, classUnderTest.getNumberOfEpochs());
+  }
+
+  @Test
+  public void testLearn_MinErrorChange() {
+    MultiLayerPerceptron network = createNetwork(true, 46, 23, 2);
+    DenseMomentumBackpropagation classUnderTest = createLearningRule(network, false);
+    classUnderTest.setMaxError(0.0);
+    // Any change at all counts as too small
+    classUnderTest.setMinErrorChange(1.0);
+    classUnderTest.setMinErrorChangeIterationsLimit(5);
+    network.learn(createTrainingData(50));
+    assertEquals(5, classUnderTest.getNumberOfEpochs());
+  }
+
+  @Test
+  public void testLearn_PackedTrainingData() {
+    DataSet trainingData = createTrainingData(500);
+    PackedTrainingData packedTrainingData =
+        PackedTrainingData.fromDataSets(Collections.singletonList(trainingData), 46, 2);
+    Double[] weights = trainPacked(packedTrainingData, new Random(23));
+    // The same seed visits the rows in the same orders
+    assertArrayEquals(weights, trainPacked(packedTrainingData, new Random(23)));
+    // The shared data is never modified
+    assertArrayEquals(trainingData.getRowAt(0).getInput(), Arrays.copyOfRange(packedTrainingData.getInputs(), 0, 46));
+  }
+
+  @Test
+  public void testLearn_PackedTrainingDataWrongSize() {
+    PackedTrainingData packedTrainingData =
+        PackedTrainingData.fromDataSets(Collections.singletonList(createTrainingData(10)), 46, 2);
+    MultiLayerPerceptron network = createNetwork(true, 40, 23, 2);
+    DenseMomentumBackpropagation classUnderTest = createLearningRule(network, false);
+    classUnderTest.setTrainingData(packedTrainingData, new Random(23));
+    assertThrows(RuntimeException.class, () -> network.learn(new DataSet(40, 2)));
+    assertFalse(classUnderTest.isExecutorServiceRunning());
+  }
+
+  @Test
+  public void testLearn_ResumeFrom() {
+    PackedTrainingData packedTrainingData =
+        PackedTrainingData.fromDataSets(Collections.singletonList(createTrainingData(500)), 46, 2);
+    MultiLayerPerceptron network = createNetwork(true, 46, 23, 2);
+    trainResumable(network, packedTrainingData, new Random(23), 10, null);
+    // Interrupted part of the way through, and picked back up by a new learning rule
+    Random random = new Random(23);
+    MultiLayerPerceptron interruptedNetwork = createNetwork(true, 46, 23, 2);
+    DenseMomentumBackpropagation interrupted =
+        trainResumable(interruptedNetwork, packedTrainingData, random, 5, null);
+    MultiLayerPerceptron resumedNetwork = createNetwork(true, 46, 23, 2);
+    resumedNetwork.setWeights(toDoubles(interruptedNetwork.getWeights()));
+    trainResumable(resumedNetwork, packedTrainingData, random, 5, interrupted);
+    assertArrayEquals(network.getWeights(), resumedNetwork.getWeights());
+  }
+
+  private DenseMomentumBackpropagation trainResumable(MultiLayerPerceptron network,
+      PackedTrainingData packedTrainingData, Random random, int epochs, DenseMomentumBackpropagation resumeFrom) {
+    DenseMomentumBackpropagation ret = createLearningRule(network, false);
+    ret.setBatchSize(50);
+    ret.setMaxIterations(epochs);
+    ret.setTrainingData(packedTrainingData, random);
+    if (resumeFrom != null) {
+      ret.resumeFrom(resumeFrom.getPreviousWeightChanges(), resumeFrom.getRowOrder());
+    }
+    network.learn(new DataSet(46, 2));
+    assertEquals(epochs, ret.getNumberOfEpochs());
+    return ret;
+  }
+
+  private double[] toDoubles(Double[] weights) {
+    double[] ret = new double[weights.length];
+    for (int aa = 0; aa < weights.length; aa++) {
+      ret[aa] = weights[aa];
+    }
+    return ret;
+  }
+
+  private Double[] trainPacked(PackedTrainingData packedTrainingData, Random random) {
+    MultiLayerPerceptron network = createNetwork(true, 46, 23, 2);
+    DenseMomentumBackpropagation classUnderTest = createLearningRule(network, false);
+    classUnderTest.setBatchSize(50);
+    classUnderTest.setMaxIterations(20);
+    classUnderTest.setTrainingData(packedTrainingData, random);
+    double errorBefore = computeNetworkError(network, packedTrainingData.getDataSet());
+    // Straight out of the buffers: the DataSet passed to learn() is not used
+    network.learn(new DataSet(46, 2));
+    assertEquals(20, classUnderTest.getNumberOfEpochs());
+    assertTrue(classUnderTest.getTotalNetworkError() < errorBefore);
+    return network.getWeights();
+  }
+
+  private Double[] trainMiniBatch(DataSet trainingData, int workerCount) {
+    MultiLayerPerceptron network = createNetwork(true, 46, 23, 2);
+    DenseMomentumBackpropagation classUnderTest = createLearningRule(network, false);
+    classUnderTest.setBatchSize(100);
+    classUnderTest.setWorkerCount(workerCount);
+    classUnderTest.setMaxIterations(20);
+    double errorBefore = computeNetworkError(network, trainingData);
+    network.learn(trainingData);
+    assertEquals(20, classUnderTest.getNumberOfEpochs());
+    assertEquals(computeNetworkError(network, trainingData), classUnderTest.getTotalNetworkError(), 0.01);
+    assertTrue(classUnderTest.getTotalNetworkError() < errorBefore);
+    return network.getWeights();
+  }
+
+  /**
+   * Random inputs, where the "home team" wins if the first input is bigger than the second.
+   */
+  private DataSet createTrainingData(int numberOfRows) {
+    Random random = new Random(46);
+    DataSet ret = new DataSet(46, 2);
+    for (int row = 0; row < numberOfRows; row++) {
+      double[] input = new double[46];
+      for (int aa = 0; aa < input.length; aa++) {
+        input[aa] = random.nextDouble();
+      }
+      boolean homeTeamWins = input[0] > input[1];
+      ret.addRow(input, new double[] { homeTeamWins ? 1.0 : 0.0, homeTeamWins ? 0.0 : 1.0 });
+    }
+    return ret;
+  }
+
+  /**
+   * Runs the network (both as is, and compiled) over the data, and returns the
+   * mean squared error, computed the same way the learning rule computes it.
+   */
+  private double computeNetworkError(MultiLayerPerceptron network, DataSet dataSet) {
+    CompiledNetwork compiledNetwork = CompiledNetwork.compile(network);
+    double totalSquaredError = 0.0;
+    for (int row = 0; row < dataSet.size(); row++) {
+      double[] output = compiledNetwork.calculate(dataSet.getRowAt(row).getInput());
+      network.setInput(dataSet.getRowAt(row).getInput());
+      network.calculate();
+      assertArrayEquals(network.getOutput(), output, 1e-9);
+      for (int aa = 0; aa < output.length; aa++) {
+        double error = dataSet.getRowAt(row).getDesiredOutput()[aa] - output[aa];
+        totalSquaredError += error * error;
+      }
+    }
+    return totalSquaredError / (2 * dataSet.size());
+  }
+
+  private DenseMomentumBackpropagation createLearningRule(MultiLayerPerceptron network, boolean batchMode) {
+    DenseMomentumBackpropagation ret = new DenseMomentumBackpropagation();
+    ret.setLearningRate(batchMode ? 0.5 : 0.3);
+    ret.setMomentum(0.7);
+    ret.setMaxError(0.001);
+    ret.setMaxIterations(20000);
+    ret.setBatchMode(batchMode);
+    network.setLearningRule(ret);
+    return ret;
+  }
+
+  private DataSet createXorData() {
+    DataSet ret = new DataSet(2, 1);
+    ret.addRow(new double[] { 0.0, 0.0 }, new double[] { 0.0 });
+    ret.addRow(new double[] { 0.0, 1.0 }, new double[] { 1.0 });
+    ret.addRow(new double[] { 1.0, 0.0 }, new double[] { 1.0 });
+    ret.addRow(new double[] { 1.0, 1.0 }, new double[] { 0.0 });
+    return ret;
+  }
+
+  private double runNetwork(MultiLayerPerceptron network, double... input) {
+    network.setInput(input);
+    network.calculate();
+    return network.getOutput()[0];
+  }
+
+}
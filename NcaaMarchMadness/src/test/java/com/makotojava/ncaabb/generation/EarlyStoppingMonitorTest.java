@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.generation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class EarlyStoppingMonitorTest {
+
+  @Test
+  public void testAddCheck_KeepsBestWeights() {
+    EarlyStoppingMonitor classUnderTest = new EarlyStoppingMonitor();
+    assertFalse(classUnderTest.hasBest());
+    assertTrue(classUnderTest.addCheck(500, 60.0, 0.05, new Double[] { 1.0, 2.0 }));
+    Double[] weights = new Double[] { 3.0, 4.0 };
+    assertTrue(classUnderTest.addCheck(1000, 65.0, 0.04, weights));
+    // Changing the network's weights afterwards must not change the best weights
+    weights[0] = 5.0;
+    // A tie is no better (the earlier weights are kept)
+    assertFalse(classUnderTest.addCheck(1500, 65.0, 0.03, new Double[] { 6.0, 7.0 }));
+    assertFalse(classUnderTest.addCheck(2000, 62.0, 0.02, new Double[] { 8.0, 9.0 }));
+    assertEquals(1000, classUnderTest.getBestEpoch());
+    assertEquals(65.0, classUnderTest.getBestScore());
+    assertEquals(0.04, classUnderTest.getBestNetworkError());
+    assertArrayEquals(new double[] { 3.0, 4.0 }, classUnderTest.getBestWeights());
+    assertEquals(2000, classUnderTest.getLastEpoch());
+    assertEquals(2, classUnderTest.getChecksWithoutImprovement());
+  }
+
+  @Test
+  public void testIsOutOfPatience() {
+    EarlyStoppingMonitor classUnderTest = new EarlyStoppingMonitor();
+    assertFalse(classUnderTest.isOutOfPatience(0));
+    classUnderTest.addCheck(500, 60.0, 0.05, new Double[] { 1.0 });
+    classUnderTest.addCheck(1000, 59.0, 0.05, new Double[] { 1.0 });
+    classUnderTest.addCheck(1500, 58.0, 0.05, new Double[] { 1.0 });
+    assertFalse(classUnderTest.isOutOfPatience(3));
+    classUnderTest.addCheck(2000, 57.0, 0.05, new Double[] { 1.0 });
+    assertTrue(classUnderTest.isOutOfPatience(3));
+    // Getting better starts the count over
+    classUnderTest.addCheck(2500, 61.0, 0.05, new Double[] { 1.0 });
+    assertFalse(classUnderTest.isOutOfPatience(3));
+  }
+
+  @Test
+  public void testReset() {
+    EarlyStoppingMonitor classUnderTest = new EarlyStoppingMonitor();
+    classUnderTest.addCheck(500, 60.0, 0.05, new Double[] { 1.0 });
+    classUnderTest.reset();
+    assertFalse(classUnderTest.hasBest());
+    assertNull(classUnderTest.getBestWeights());
+    assertEquals(0, classUnderTest.getLastEpoch());
+    assertTrue(classUnderTest.addCheck(500, 10.0, 0.05, new Double[] { 1.0 }));
+  }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.generation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class LearningCurvePredictorTest {
+
+  @Test
+  public void testProjectError_PowerLaw() {
+    LearningCurvePredictor classUnderTest = new LearningCurvePredictor();
+    // error = 0.5 * epoch^-0.3
+    for (int epoch = 1; epoch <= 10000; epoch += 2500) {
+      classUnderTest.addPoint(epoch, 0.5 * Math.pow(epoch, -0.3));
+    }
+    assertEquals(4, classUnderTest.getNumberOfPoints());
+    assertEquals(0.5 * Math.pow(20000, -0.3), classUnderTest.projectError(20000), 1e-12);
+  }
+
+  @Test
+  public void testProjectError_NotGoingDown() {
+    LearningCurvePredictor classUnderTest = new LearningCurvePredictor();
+    assertTrue(Double.isNaN(classUnderTest.projectError(20000)));
+    classUnderTest.addPoint(2500, 0.04);
+    assertEquals(0.04, classUnderTest.projectError(20000));
+    classUnderTest.addPoint(5000, 0.05);
+    assertEquals(0.05, classUnderTest.projectError(20000));
+  }
+
+  @Test
+  public void testReset() {
+    LearningCurvePredictor classUnderTest = new LearningCurvePredictor();
+    classUnderTest.addPoint(2500, 0.04);
+    classUnderTest.addPoint(5000, 0.03);
+    classUnderTest.addPoint(7500, 0.0);
+    assertEquals(2, classUnderTest.getNumberOfPoints());
+    classUnderTest.reset();
+    assertEquals(0, classUnderTest.getNumberOfPoints());
+    classUnderTest.addPoint(2500, 0.02);
+    assertEquals(0.02, classUnderTest.projectError(20000));
+  }
+
+}
@@ -16,14 +16,49 @@
 package com.makotojava.ncaabb.generation;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
 import org.junit.platform.runner.JUnitPlatform;
 import org.junit.runner.RunWith;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.springframework.context.support.StaticApplicationContext;
+
+import com.makotojava.ncaabb.dao.SeasonAnalyticsDao;
+import com.makotojava.ncaabb.dao.SeasonDataDao;
+import com.makotojava.ncaabb.dao.TournamentResultDao;
+import com.makotojava.ncaabb.model.SeasonData;
+import com.makotojava.ncaabb.model.TournamentResult;
+import com.makotojava.ncaabb.util.NetworkProperties;
+import com.makotojava.ncaabb.util.PackedTrainingData;
 
 @RunWith(JUnitPlatform.class)
 public class MlpNetworkTrainerTest {
 
+  private static final Integer[] YEARS_FOR_TRAINING_DATA = { 2015 };
+  private static final Integer[] YEARS_TO_SIMULATE = { 2016, 2017 };
+
+  /**
+   * Each team is described by this many features, so a matchup has twice as many inputs
+   */
+  private static final int NUMBER_OF_FEATURES = 2;
+
   @Test
   public void testComputeYearsToTrain() {
     //
@@ -50,4 +85,170 @@ public class MlpNetworkTrainerTest {
     assertArrayEquals(expectedYearsToSimulate, actualYearsToSimulate);
   }
 
+  @Test
+  public void testTrainNetworks_ParallelSameAsSerial() throws IOException {
+    List<List<Integer>> networks = Arrays.asList(
+        Arrays.asList(2 * NUMBER_OF_FEATURES, 3, 2),
+        Arrays.asList(2 * NUMBER_OF_FEATURES, 5, 2));
+    List<NetworkMetrics> expectedMetrics = trainNetworks(networks, 1);
+    List<NetworkMetrics> actualMetrics = trainNetworks(networks, 2);
+    for (int networkIndex = 0; networkIndex < networks.size(); networkIndex++) {
+      NetworkMetrics expected = expectedMetrics.get(networkIndex);
+      NetworkMetrics actual = actualMetrics.get(networkIndex);
+      assertEquals(3, actual.getNumberOfIterationsSoFar());
+      assertTrue(actual.getTotalNumberOfGames() > 0);
+      assertEquals(expected.getNumberOfIterationsSoFar(), actual.getNumberOfIterationsSoFar());
+      assertEquals(expected.getNumberOfAbortedRuns(), actual.getNumberOfAbortedRuns());
+      assertEquals(expected.getTotalNumberOfGames(), actual.getTotalNumberOfGames());
+      assertEquals(expected.getTotalNumberOfWins(), actual.getTotalNumberOfWins());
+      assertEquals(expected.getTotalNumberOfSymmetricWins(), actual.getTotalNumberOfSymmetricWins());
+      assertEquals(expected.getTotalNumberOfSymmetricLosses(), actual.getTotalNumberOfSymmetricLosses());
+      assertEquals(expected.getTotalNumberOfAsymmetricWins(), actual.getTotalNumberOfAsymmetricWins());
+      assertEquals(expected.getBestNetworkWinPercentage(), actual.getBestNetworkWinPercentage());
+      assertEquals(expected.getWorstNetworkWinPercentage(), actual.getWorstNetworkWinPercentage());
+      assertEquals(expected.getNumberOfWinsThisIteration(), actual.getNumberOfWinsThisIteration());
+      assertEquals(getIncorrectPickIds(expected), getIncorrectPickIds(actual));
+    }
+  }
+
+  /**
+   * Sweeps the specified networks (three CTV iterations each, with a fixed random seed)
+   * using the specified number of trainer threads.
+   *
+   * @return List - the metrics of each network, in the same order as the networks.
+   */
+  private List<NetworkMetrics> trainNetworks(List<List<Integer>> networks, int threadCount) throws IOException {
+    Properties properties = new Properties();
+    properties.setProperty(NetworkProperties.BASE_DIRECTORY, System.getProperty("java.io.tmpdir"));
+    properties.setProperty("trainer.thread.count", Integer.toString(threadCount));
+    properties.setProperty("random.seed", "2017");
+    properties.setProperty("max.network.iterations", "3");
+    properties.setProperty("max.learning.iterations", "50");
+    properties.setProperty("max.network.error", "0.5");
+    properties.setProperty("learning.rule.is.dense", "true");
+    properties.setProperty("learning.rule.worker.count", "1");
+    File propertiesFile = File.createTempFile("network", ".properties");
+    try {
+      try (OutputStream outputStream = new FileOutputStream(propertiesFile)) {
+        properties.store(outputStream, null);
+      }
+      System.setProperty(NetworkProperties.NETWORK_PROPERTIES_FILE, propertiesFile.getAbsolutePath());
+      NetworkProperties.reload();
+      TestMlpNetworkTrainer classUnderTest = new TestMlpNetworkTrainer();
+      classUnderTest.trainNetworks(networks, createTrainingData(), YEARS_FOR_TRAINING_DATA, YEARS_TO_SIMULATE);
+      List<NetworkMetrics> ret = new ArrayList<>();
+      for (List<Integer> neuronLayerDescriptor : networks) {
+        ret.add(classUnderTest.getNetworkMetrics(neuronLayerDescriptor));
+      }
+      return ret;
+    } finally {
+      System.clearProperty(NetworkProperties.NETWORK_PROPERTIES_FILE);
+      NetworkProperties.reload();
+      propertiesFile.delete();
+    }
+  }
+
+  private static List<Integer> getIncorrectPickIds(NetworkMetrics metrics) {
+    return metrics.getIncorrectPicks().stream().map(TournamentResult::getId).sorted().collect(Collectors.toList());
+  }
+
+  /**
+   * Training data where the team whose features add up to more wins.
+   */
+  private static PackedTrainingData createTrainingData() {
+    Random random = new Random(YEARS_FOR_TRAINING_DATA[0]);
+    DataSet dataSet = new DataSet(2 * NUMBER_OF_FEATURES, 2);
+    for (int row = 0; row < 40; row++) {
+      double[] input = createMatchupInput(createTeam(random), createTeam(random));
+      double[] output = (sum(input, 0) > sum(input, NUMBER_OF_FEATURES)) ? new double[] { 1.0, 0.0 }
+          : new double[] { 0.0, 1.0 };
+      dataSet.addRow(new DataSetRow(input, output));
+    }
+    return PackedTrainingData.fromDataSets(Collections.singletonList(dataSet), 2 * NUMBER_OF_FEATURES, 2);
+  }
+
+  private static double[] createTeam(Random random) {
+    double[] ret = new double[NUMBER_OF_FEATURES];
+    for (int feature = 0; feature < NUMBER_OF_FEATURES; feature++) {
+      ret[feature] = random.nextDouble();
+    }
+    return ret;
+  }
+
+  private static double[] createMatchupInput(double[] lhsTeam, double[] rhsTeam) {
+    double[] ret = new double[2 * NUMBER_OF_FEATURES];
+    System.arraycopy(lhsTeam, 0, ret, 0, NUMBER_OF_FEATURES);
+    System.arraycopy(rhsTeam, 0, ret, NUMBER_OF_FEATURES, NUMBER_OF_FEATURES);
+    return ret;
+  }
+
+  private static double sum(double[] values, int offset) {
+    double ret = 0.0;
+    for (int aa = offset; aa < offset + NUMBER_OF_FEATURES; aa++) {
+      ret += values[aa];
+    }
+    return ret;
+  }
+
+  /**
+   * A trainer that validates against made up tournament games (the team whose features add
+   * up to more usually, but not always, wins), and never saves a network.
+   */
+  private static class TestMlpNetworkTrainer extends MlpNetworkTrainer {
+
+    private static final int NUMBER_OF_GAMES = 16;
+
+    TestMlpNetworkTrainer() {
+      super(createApplicationContext());
+    }
+
+    private static StaticApplicationContext createApplicationContext() {
+      StaticApplicationContext ret = new StaticApplicationContext();
+      ret.getBeanFactory().registerSingleton("seasonDataDao", new SeasonDataDao() {
+        @Override
+        public List<SeasonData> fetchAllByYear(Integer year) {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SeasonData fetchByYearAndTeamName(Integer year, String teamName) {
+          throw new UnsupportedOperationException();
+        }
+      });
+      ret.getBeanFactory().registerSingleton("tournamentResultDao", (TournamentResultDao) year -> {
+        throw new UnsupportedOperationException();
+      });
+      ret.getBeanFactory().registerSingleton("seasonAnalyticsDao", (SeasonAnalyticsDao) year -> {
+        throw new UnsupportedOperationException();
+      });
+      ret.refresh();
+      return ret;
+    }
+
+    @Override
+    protected ValidationSet fetchValidationSet(Integer year) {
+      Random random = new Random(year);
+      List<TournamentResult> tournamentResults = new ArrayList<>();
+      double[][] inputs = new double[2 * NUMBER_OF_GAMES][];
+      for (int game = 0; game < NUMBER_OF_GAMES; game++) {
+        TournamentResult tournamentResult = new TournamentResult();
+        tournamentResult.setId(year * 100 + game);
+        tournamentResult.setGameDate(new Date(year * 1000L + game));
+        tournamentResult.setWinningTeamName("Winner " + game);
+        tournamentResult.setLosingTeamName("Loser " + game);
+        tournamentResults.add(tournamentResult);
+        double[] winner = createTeam(random);
+        double[] loser = createTeam(random);
+        inputs[2 * game] = createMatchupInput(winner, loser);
+        inputs[2 * game + 1] = createMatchupInput(loser, winner);
+      }
+      return new ValidationSet(year, tournamentResults, inputs);
+    }
+
+    @Override
+    protected boolean networkShouldBeSaved(MultiLayerPerceptron network) {
+      return false;
+    }
+  }
+
 }
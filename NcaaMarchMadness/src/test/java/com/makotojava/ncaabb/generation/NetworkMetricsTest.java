@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.generation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class NetworkMetricsTest {
+
+  @Test
+  public void testMerge() {
+    NetworkMetrics first = createMetrics(1, 40, 100, 1000L, 61.0);
+    NetworkMetrics second = createMetrics(2, 50, 100, 3000L, 72.5);
+    second.setNumberOfAbortedRuns(1);
+    first.setNumberOfEarlyAbortedRuns(1);
+    first.setTotalSavedLearnTime(500L);
+    second.setNumberOfEarlyAbortedRuns(2);
+    second.setTotalSavedLearnTime(1500L);
+    first.setNumberOfValidationStoppedRuns(2);
+    second.setNumberOfValidationStoppedRuns(1);
+
+    first.merge(second);
+
+    assertEquals(2, first.getNumberOfIterationsSoFar());
+    assertEquals(90, first.getTotalNumberOfWins());
+    assertEquals(200, first.getTotalNumberOfGames());
+    assertEquals(4000L, first.getTotalLearnTime());
+    assertEquals(1000L, first.getBestLearnTime());
+    assertEquals(3000L, first.getWorstLearnTime());
+    assertEquals(72.5, first.getBestNetworkWinPercentage());
+    assertEquals(61.0, first.getWorstNetworkWinPercentage());
+    assertEquals(1, first.getNumberOfAbortedRuns());
+    assertEquals(3, first.getNumberOfEarlyAbortedRuns());
+    assertEquals(2000L, first.getTotalSavedLearnTime());
+    assertEquals(3, first.getNumberOfValidationStoppedRuns());
+    // The current iteration is now the merged one
+    assertEquals(50, first.getNumberOfWinsThisIteration());
+    assertEquals(3000L, first.getIterationLearnTime());
+  }
+
+  private NetworkMetrics createMetrics(int iterationNumber, int wins, int games, long learnTime,
+      double winPercentage) {
+    NetworkMetrics ret = new NetworkMetrics();
+    ret.setLayerStructure("46x92x23x2");
+    ret.setNumberOfIterationsSoFar(iterationNumber);
+    ret.setNumberOfWinsThisIteration(wins);
+    ret.setNumberOfGamesThisIteration(games);
+    ret.setTotalNumberOfWins(wins);
+    ret.setTotalNumberOfGames(games);
+    ret.setIterationLearnTime(learnTime);
+    ret.setTotalLearnTime(learnTime);
+    ret.setBestNetworkWinPercentage(winPercentage);
+    ret.setWorstNetworkWinPercentage(winPercentage);
+    return ret;
+  }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.generation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class SuccessiveHalvingSchedulerTest {
+
+  @Test
+  public void testComputeRungBudgets() {
+    assertEquals(Arrays.asList(250, 750, 2250, 6750, 20000),
+        new SuccessiveHalvingScheduler(250, 20000, 3).computeRungBudgets());
+    assertEquals(Arrays.asList(100, 200, 400), new SuccessiveHalvingScheduler(100, 400, 2).computeRungBudgets());
+    assertEquals(Arrays.asList(500), new SuccessiveHalvingScheduler(500, 500, 3).computeRungBudgets());
+  }
+
+  @Test
+  public void testRun() {
+    int[] epochsTrained = new int[10];
+    SuccessiveHalvingScheduler classUnderTest = new SuccessiveHalvingScheduler(100, 900, 3);
+    //
+    // Candidate #7 is the best, then #3, then the rest (in reverse order)
+    List<SuccessiveHalvingScheduler.Result> results = classUnderTest.run(10, (candidateIndex, fromEpochs, toEpochs) -> {
+      assertEquals(epochsTrained[candidateIndex], fromEpochs);
+      epochsTrained[candidateIndex] = toEpochs;
+      return (candidateIndex == 7) ? 100.0 : (candidateIndex == 3) ? 99.0 : candidateIndex;
+    });
+    assertEquals(10, results.size());
+    // 10 candidates at 100 epochs, 4 at 300, 2 at 900
+    assertEquals(7, results.get(0).getCandidateIndex());
+    assertEquals(900, results.get(0).getEpochs());
+    assertEquals(2, results.get(0).getRung());
+    assertEquals(3, results.get(1).getCandidateIndex());
+    assertEquals(900, results.get(1).getEpochs());
+    assertEquals(9, results.get(2).getCandidateIndex());
+    assertEquals(300, results.get(2).getEpochs());
+    assertEquals(8, results.get(3).getCandidateIndex());
+    assertEquals(300, results.get(3).getEpochs());
+    assertEquals(6, results.get(4).getCandidateIndex());
+    assertEquals(100, results.get(4).getEpochs());
+    assertEquals(0, results.get(9).getCandidateIndex());
+    assertEquals(100 * 6 + 300 * 2 + 900 * 2, Arrays.stream(epochsTrained).sum());
+  }
+
+  @Test
+  public void testRun_ExecutorService() {
+    SuccessiveHalvingScheduler classUnderTest = new SuccessiveHalvingScheduler(100, 900, 3);
+    SuccessiveHalvingScheduler.CandidateTrainer candidateTrainer =
+        (candidateIndex, fromEpochs, toEpochs) -> (candidateIndex * 37 % 10) + toEpochs / 1000.0;
+    List<SuccessiveHalvingScheduler.Result> expected = classUnderTest.run(10, candidateTrainer);
+    ExecutorService executorService = Executors.newFixedThreadPool(3);
+    try {
+      // Same results as the serial run, in the same order
+      assertEquals(expected.toString(), classUnderTest.run(10, candidateTrainer, executorService).toString());
+      assertThrows(RuntimeException.class, () -> classUnderTest.run(10, (candidateIndex, fromEpochs, toEpochs) -> {
+        throw new IllegalStateException("Training failed");
+      }, executorService));
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testConstructor_InvalidSettings() {
+    assertThrows(IllegalArgumentException.class, () -> new SuccessiveHalvingScheduler(0, 100, 3));
+    assertThrows(IllegalArgumentException.class, () -> new SuccessiveHalvingScheduler(200, 100, 3));
+    assertThrows(IllegalArgumentException.class, () -> new SuccessiveHalvingScheduler(100, 1000, 1));
+  }
+
+}
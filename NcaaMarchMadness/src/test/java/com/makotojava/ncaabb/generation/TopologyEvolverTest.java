@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.generation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.makotojava.ncaabb.util.NetworkUtils;
+
+@RunWith(JUnitPlatform.class)
+public class TopologyEvolverTest {
+
+  private static final int NUMBER_OF_INPUTS = 24;
+  private static final int NUMBER_OF_OUTPUTS = 2;
+
+  /**
+   * The closer the hidden layers are to a single layer of 30 neurons, the better.
+   */
+  private static double fitness(List<Integer> neuronLayerDescriptor) {
+    double ret = -Math.abs(neuronLayerDescriptor.get(1) - 30);
+    return ret - 10.0 * (neuronLayerDescriptor.size() - 3);
+  }
+
+  private static List<List<Integer>> createInitialPopulation() {
+    List<List<Integer>> ret = new ArrayList<>();
+    ret.add(Arrays.asList(NUMBER_OF_INPUTS, 10, NUMBER_OF_OUTPUTS));
+    ret.add(Arrays.asList(NUMBER_OF_INPUTS, 50, 20, NUMBER_OF_OUTPUTS));
+    ret.add(Arrays.asList(NUMBER_OF_INPUTS, 5, 5, 5, NUMBER_OF_OUTPUTS));
+    ret.add(Arrays.asList(NUMBER_OF_INPUTS, 10, NUMBER_OF_OUTPUTS));
+    ret.add(Arrays.asList(NUMBER_OF_INPUTS, 80, 40, NUMBER_OF_OUTPUTS));
+    ret.add(Arrays.asList(NUMBER_OF_INPUTS, 15, 15, NUMBER_OF_OUTPUTS));
+    return ret;
+  }
+
+  @Test
+  public void testEvolve_ScoresEachTopologyOnce() {
+    TopologyEvolver classUnderTest =
+        new TopologyEvolver(NUMBER_OF_INPUTS, NUMBER_OF_OUTPUTS, 3, 100, 0.5, new Random(42L));
+    Map<List<Integer>, AtomicInteger> evaluations = new ConcurrentHashMap<>();
+    List<TopologyEvolver.Entry> leaderboard =
+        classUnderTest.evolve(createInitialPopulation(), 8, (neuronLayerDescriptor, generation, candidateIndex) -> {
+          evaluations.computeIfAbsent(neuronLayerDescriptor, key -> new AtomicInteger()).incrementAndGet();
+          return fitness(neuronLayerDescriptor);
+        }, 4, null);
+    for (Map.Entry<List<Integer>, AtomicInteger> evaluation : evaluations.entrySet()) {
+      assertEquals(1, evaluation.getValue().get(), "Scored more than once: " + evaluation.getKey());
+    }
+    assertEquals(evaluations.size(), leaderboard.size());
+    // Best first
+    for (int aa = 1; aa < leaderboard.size(); aa++) {
+      assertTrue(leaderboard.get(aa - 1).getFitness() >= leaderboard.get(aa).getFitness());
+    }
+    // Evolution beats the best of the initial population (24x10x2, -20.0)
+    assertTrue(leaderboard.get(0).getFitness() > -20.0);
+    for (TopologyEvolver.Entry entry : leaderboard) {
+      List<Integer> neuronLayerDescriptor = entry.getNeuronLayerDescriptor();
+      assertEquals(NUMBER_OF_INPUTS, neuronLayerDescriptor.get(0).intValue());
+      assertEquals(NUMBER_OF_OUTPUTS, neuronLayerDescriptor.get(neuronLayerDescriptor.size() - 1).intValue());
+      assertTrue(neuronLayerDescriptor.size() >= 3 && neuronLayerDescriptor.size() <= 5);
+    }
+  }
+
+  @Test
+  public void testEvolve_WritesLeaderboard() throws Exception {
+    File file = File.createTempFile("leaderboard", ".csv");
+    try {
+      TopologyEvolver classUnderTest =
+          new TopologyEvolver(NUMBER_OF_INPUTS, NUMBER_OF_OUTPUTS, 3, 100, 0.2, new Random(7L));
+      List<TopologyEvolver.Entry> leaderboard = classUnderTest.evolve(createInitialPopulation(), 2,
+          (neuronLayerDescriptor, generation, candidateIndex) -> fitness(neuronLayerDescriptor), 2, file);
+      assertFalse(new File(file.getPath() + ".tmp").exists());
+      List<String> lines = Files.readAllLines(file.toPath());
+      assertEquals(leaderboard.size() + 1, lines.size());
+      TopologyEvolver.Entry best = leaderboard.get(0);
+      assertEquals("1," + best.getFitness() + ","
+          + NetworkUtils.generateLayerStructureString(best.getNeuronLayerDescriptor()) + "," + best.getGeneration(),
+          lines.get(1));
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testMutate_StaysWithinLimits() {
+    TopologyEvolver classUnderTest =
+        new TopologyEvolver(NUMBER_OF_INPUTS, NUMBER_OF_OUTPUTS, 2, 40, 1.0, new Random(1L));
+    List<Integer> neuronLayerDescriptor = Arrays.asList(NUMBER_OF_INPUTS, 30, 30, NUMBER_OF_OUTPUTS);
+    for (int aa = 0; aa < 100; aa++) {
+      neuronLayerDescriptor = classUnderTest.mutate(neuronLayerDescriptor);
+      assertTrue(neuronLayerDescriptor.size() == 3 || neuronLayerDescriptor.size() == 4);
+      for (Integer neuronCount : neuronLayerDescriptor.subList(1, neuronLayerDescriptor.size() - 1)) {
+        assertTrue(neuronCount >= 1 && neuronCount <= 40);
+      }
+    }
+  }
+
+  @Test
+  public void testEvolve_RejectsTopologyWithoutHiddenLayers() {
+    TopologyEvolver classUnderTest =
+        new TopologyEvolver(NUMBER_OF_INPUTS, NUMBER_OF_OUTPUTS, 2, 40, 0.2, new Random(1L));
+    List<List<Integer>> population = new ArrayList<>();
+    population.add(Arrays.asList(NUMBER_OF_INPUTS, NUMBER_OF_OUTPUTS));
+    assertThrows(IllegalArgumentException.class, () -> classUnderTest.evolve(population, 1,
+        (neuronLayerDescriptor, generation, candidateIndex) -> 0.0, 1, null));
+  }
+
+}
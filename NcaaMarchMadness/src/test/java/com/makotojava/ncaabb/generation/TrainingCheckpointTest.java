@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.generation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.makotojava.ncaabb.model.TournamentResult;
+
+@RunWith(JUnitPlatform.class)
+public class TrainingCheckpointTest {
+
+  private static final Integer[] YEARS_FOR_TRAINING_DATA = { 2010, 2011, 2012 };
+  private static final Integer[] YEARS_TO_SIMULATE = { 2013 };
+  private static final List<List<Integer>> NETWORKS =
+      Arrays.asList(Arrays.asList(46, 23, 2), Arrays.asList(46, 46, 23, 2));
+
+  @Test
+  public void testWriteRead_RoundTrip() throws IOException {
+    TrainingCheckpoint classUnderTest = new TrainingCheckpoint(YEARS_FOR_TRAINING_DATA, YEARS_TO_SIMULATE, NETWORKS);
+    classUnderTest.setIterationNumber(3);
+    classUnderTest.setNetworkIndex(1);
+    NetworkMetrics metrics = new NetworkMetrics();
+    metrics.setNumberOfIterationsSoFar(3);
+    metrics.setTotalNumberOfWins(100);
+    metrics.setRandom(new Random(46));
+    metrics.getLearningCurve().addPoint(3000, 0.05);
+    metrics.getEarlyStoppingMonitor().addCheck(500, 65.0, 0.05, new Double[] { 0.25, -0.5 });
+    TournamentResult incorrectPick = new TournamentResult();
+    incorrectPick.setId(23);
+    incorrectPick.setGameDate(new Date());
+    incorrectPick.setWinningTeamName("Duke");
+    incorrectPick.setLosingTeamName("Mercer");
+    metrics.getIncorrectPicks().add(incorrectPick);
+    classUnderTest.getNetworkMetrics().put(NETWORKS.get(1), metrics);
+    classUnderTest.getNetworkSequenceNumbers().put("46x46x23x2", 2);
+    classUnderTest.setInFlight(new Double[] { 0.5, -1.0, 2.0 }, new double[] { 0.01, 0.0, -0.02 },
+        new int[] { 2, 0, 1 }, 1500, 20500, 0.2);
+    File file = File.createTempFile("training", ".checkpoint");
+    try {
+      classUnderTest.write(file);
+      assertFalse(new File(file.getPath() + ".tmp").exists());
+      TrainingCheckpoint actual = TrainingCheckpoint.read(file);
+      assertTrue(actual.isForSweep(YEARS_FOR_TRAINING_DATA, YEARS_TO_SIMULATE, NETWORKS));
+      assertEquals(2, actual.getNumberOfNetworks());
+      assertEquals(3, actual.getIterationNumber());
+      assertEquals(1, actual.getNetworkIndex());
+      assertEquals(Collections.singletonMap("46x46x23x2", 2), actual.getNetworkSequenceNumbers());
+      NetworkMetrics actualMetrics = actual.getNetworkMetrics().get(NETWORKS.get(1));
+      assertEquals(3, actualMetrics.getNumberOfIterationsSoFar());
+      assertEquals(100, actualMetrics.getTotalNumberOfWins());
+      assertEquals(new Random(46).nextLong(), actualMetrics.getRandom().nextLong());
+      assertEquals(0.05, actualMetrics.getLearningCurve().projectError(20000));
+      assertArrayEquals(new double[] { 0.25, -0.5 }, actualMetrics.getEarlyStoppingMonitor().getBestWeights());
+      assertEquals(1, actualMetrics.getIncorrectPicks().size());
+      assertTrue(actual.isInFlight());
+      assertArrayEquals(new double[] { 0.5, -1.0, 2.0 }, actual.getInFlightWeights());
+      assertArrayEquals(new double[] { 0.01, 0.0, -0.02 }, actual.getInFlightPreviousWeightChanges());
+      assertArrayEquals(new int[] { 2, 0, 1 }, actual.getInFlightRowOrder());
+      assertEquals(1500, actual.getInFlightEpochs());
+      assertEquals(20500, actual.getInFlightMaxIterations());
+      assertEquals(0.2, actual.getInFlightMomentum());
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testIsForSweep() {
+    TrainingCheckpoint classUnderTest = new TrainingCheckpoint(YEARS_FOR_TRAINING_DATA, YEARS_TO_SIMULATE, NETWORKS);
+    assertTrue(classUnderTest.isForSweep(YEARS_FOR_TRAINING_DATA, YEARS_TO_SIMULATE, NETWORKS));
+    assertFalse(classUnderTest.isForSweep(new Integer[] { 2010, 2011 }, YEARS_TO_SIMULATE, NETWORKS));
+    assertFalse(classUnderTest.isForSweep(YEARS_FOR_TRAINING_DATA, new Integer[] { 2014 }, NETWORKS));
+    assertFalse(classUnderTest.isForSweep(YEARS_FOR_TRAINING_DATA, YEARS_TO_SIMULATE, NETWORKS.subList(0, 1)));
+  }
+
+  @Test
+  public void testRead_NotACheckpoint() throws IOException {
+    File file = File.createTempFile("training", ".checkpoint");
+    try {
+      Files.write(file.toPath(), "This is definitely not a training checkpoint".getBytes());
+      assertThrows(RuntimeException.class, () -> TrainingCheckpoint.read(file));
+    } finally {
+      file.delete();
+    }
+  }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.generation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.neuroph.core.input.WeightedSum;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.util.NeuronProperties;
+import org.neuroph.util.TransferFunctionType;
+
+import com.makotojava.ncaabb.model.TournamentResult;
+import com.makotojava.ncaabb.simulation.CompiledNetwork;
+
+@RunWith(JUnitPlatform.class)
+public class ValidationSetTest {
+
+  @Test
+  public void testCountCorrectPicksByGame() {
+    List<TournamentResult> tournamentResults = createTournamentResults(4);
+    ValidationSet classUnderTest = new ValidationSet(2017, tournamentResults, new double[][] {
+        // Picked right both times (symmetric win)
+        { 1.0, 0.0 }, { 0.0, 1.0 },
+        // Picked wrong both times (symmetric loss)
+        { 0.0, 1.0 }, { 1.0, 0.0 },
+        // Picked right as LHS only (asymmetric win)
+        { 1.0, 0.0 }, { 1.0, 0.0 },
+        // A tie goes to the RHS team
+        { 0.5, 0.5 }, { 0.5, 0.5 },
+    });
+    CompiledNetwork compiledNetwork = CompiledNetwork.compile(createNetwork());
+    assertArrayEquals(new int[] { 2, 0, 1, 1 }, classUnderTest.countCorrectPicksByGame(compiledNetwork));
+    assertArrayEquals(new boolean[] { true, true, false, false, true, false, false, true },
+        classUnderTest.computeCorrectPicks(compiledNetwork));
+    assertEquals(4, classUnderTest.countCorrectPicks(compiledNetwork));
+    assertEquals(4, classUnderTest.getNumberOfGames());
+    assertEquals(tournamentResults, classUnderTest.getTournamentResults());
+  }
+
+  @Test
+  public void testConstructor_WrongNumberOfRows() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new ValidationSet(2017, createTournamentResults(2), new double[][] { { 1.0, 0.0 } }));
+  }
+
+  private List<TournamentResult> createTournamentResults(int numberOfGames) {
+    List<TournamentResult> ret = new ArrayList<>();
+    for (int game = 0; game < numberOfGames; game++) {
+      TournamentResult tournamentResult = new TournamentResult();
+      tournamentResult.setId(game);
+      ret.add(tournamentResult);
+    }
+    return ret;
+  }
+
+  /**
+   * A 2x2 network whose LHS output is higher exactly when its first input is higher.
+   */
+  private MultiLayerPerceptron createNetwork() {
+    NeuronProperties neuronProperties = new NeuronProperties();
+    neuronProperties.setProperty("transferFunction", TransferFunctionType.SIGMOID);
+    neuronProperties.setProperty("inputFunction", WeightedSum.class);
+    neuronProperties.setProperty("useBias", false);
+    MultiLayerPerceptron ret = new MultiLayerPerceptron(Arrays.asList(2, 2), neuronProperties);
+    ret.setWeights(new double[] { 1.0, -1.0, -1.0, 1.0 });
+    return ret;
+  }
+
+}
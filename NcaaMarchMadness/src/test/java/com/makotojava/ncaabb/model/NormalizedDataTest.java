@@ -0,0 +1,264 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.makotojava.ncaabb.util.StatsUtils;
+
+/**
+ * Pins the network input built from the normalized feature slices to what the
+ * original NormalizedData produced: every value normalized with the BigDecimal
+ * StatsUtils methods, stored (rounded HALF_UP to StatsUtils.SCALE) in a SeasonData,
+ * and laid out LHS, RHS, LHS, RHS, ... in {@link #FEATURES} order, outputs last.
+ *
+ * @author J Steven Perry
+ *
+ */
+@RunWith(JUnitPlatform.class)
+public class NormalizedDataTest {
+
+  /**
+   * The features, in the order the original asInputAndOutput() laid them out.
+   */
+  private static final List<Feature> FEATURES = Arrays.asList(
+      // Defense
+      new Feature(SeasonData::getAvgOpponentPointsPerGame, SeasonAnalytics::getMinAvgOpponentPointsPg,
+          SeasonAnalytics::getMaxAvgOpponentPointsPg, true),
+      new Feature(SeasonData::getBlocksPerGame, SeasonAnalytics::getMinBlocksPg, SeasonAnalytics::getMaxBlocksPg,
+          false),
+      new Feature(SeasonData::getNumOpp3pAttemptsPerGame, SeasonAnalytics::getMinNumOpp3pAttemptsPg,
+          SeasonAnalytics::getMaxNumOpp3pAttemptsPg, true),
+      new Feature(SeasonData::getOpp3pPercentage, SeasonAnalytics::getMinOpp3pPercentage,
+          SeasonAnalytics::getMaxOpp3pPercentage, true),
+      new Feature(SeasonData::getNumOppFgAttemptsPerGame, SeasonAnalytics::getMinNumOppFgAttemptsPg,
+          SeasonAnalytics::getMaxNumOppFgAttemptsPg, true),
+      new Feature(SeasonData::getOppFgPercentage, SeasonAnalytics::getMinOppFgPercentage,
+          SeasonAnalytics::getMaxOppFgPercentage, true),
+      new Feature(SeasonData::getTurnoversPerGame, SeasonAnalytics::getMinTurnoversPg,
+          SeasonAnalytics::getMaxTurnoversPg, true),
+      new Feature(SeasonData::getReboundMargin, SeasonAnalytics::getMinReboundMargin,
+          SeasonAnalytics::getMaxReboundMargin, false),
+      new Feature(SeasonData::getStealsPerGame, SeasonAnalytics::getMinStealsPg, SeasonAnalytics::getMaxStealsPg,
+          false),
+      // Errors
+      new Feature(SeasonData::getFoulsPerGame, SeasonAnalytics::getMinFoulsPg, SeasonAnalytics::getMaxFoulsPg, true),
+      new Feature(SeasonData::getNumDq, SeasonAnalytics::getMinNumDq, SeasonAnalytics::getMaxNumDq, true),
+      new Feature(SeasonData::getOppTurnoversPerGame, SeasonAnalytics::getMinOppTurnoversPg,
+          SeasonAnalytics::getMaxOppTurnoversPg, false),
+      // Offense
+      new Feature(SeasonData::getAvgPointsPerGame, SeasonAnalytics::getMinAvgPointsPg,
+          SeasonAnalytics::getMaxAvgPointsPg, false),
+      new Feature(SeasonData::getScoringMarginPerGame, SeasonAnalytics::getMinScoringMarginPg,
+          SeasonAnalytics::getMaxScoringMarginPg, false),
+      new Feature(SeasonData::getNumFgAttemptsPerGame, SeasonAnalytics::getMinNumFgAttemptsPg,
+          SeasonAnalytics::getMaxNumFgAttemptsPg, false),
+      new Feature(SeasonData::getFgPercentage, SeasonAnalytics::getMinFgPercentage,
+          SeasonAnalytics::getMaxFgPercentage, false),
+      new Feature(SeasonData::getNumFtAttemptsPerGame, SeasonAnalytics::getMinNumFtAttemptsPg,
+          SeasonAnalytics::getMaxNumFtAttemptsPg, false),
+      new Feature(SeasonData::getFtPercentage, SeasonAnalytics::getMinFtPercentage,
+          SeasonAnalytics::getMaxFtPercentage, false),
+      new Feature(SeasonData::getNum3pAttemptsPerGame, SeasonAnalytics::getMinNum3pAttemptsPg,
+          SeasonAnalytics::getMaxNum3pAttemptsPg, false),
+      new Feature(SeasonData::getNum3pPerGame, SeasonAnalytics::getMinNum3pPerGame,
+          SeasonAnalytics::getMaxNum3pPerGame, false),
+      new Feature(SeasonData::getT3pPercentage, SeasonAnalytics::getMinT3pPercentage,
+          SeasonAnalytics::getMaxT3pPercentage, false),
+      new Feature(SeasonData::getAssistsPerGame, SeasonAnalytics::getMinAssistsPg, SeasonAnalytics::getMaxAssistsPg,
+          false),
+      new Feature(SeasonData::getAtoRatio, SeasonAnalytics::getMinAtoRatio, SeasonAnalytics::getMaxAtoRatio, false));
+
+  @Test
+  public void testAsInputAndOutput_RandomRows() {
+    Random random = new Random(2017);
+    SeasonAnalytics seasonAnalytics = createSeasonAnalytics(random);
+    NormalizedFeatureStore featureStore = new NormalizedFeatureStore(seasonAnalytics);
+    for (int row = 0; row < 5; row++) {
+      SeasonData team1 = createTeam("Team " + row, random, 5);
+      SeasonData team2 = createTeam("Team " + (row + 5), random, 5);
+      assertRow(seasonAnalytics, featureStore, team1, team2);
+    }
+  }
+
+  @Test
+  public void testAsInputAndOutput_RoundingTies() {
+    //
+    // With a min of 0 and a max of 2, a value with an odd last (5th) decimal place is
+    /// exactly half way between two normalized values, so every feature rounds HALF_UP
+    SeasonAnalytics seasonAnalytics = new SeasonAnalytics();
+    for (Method method : SeasonAnalytics.class.getMethods()) {
+      if (isBigDecimalSetter(method)) {
+        invoke(method, seasonAnalytics, new BigDecimal(method.getName().startsWith("setMin") ? "0" : "2"));
+      }
+    }
+    NormalizedFeatureStore featureStore = new NormalizedFeatureStore(seasonAnalytics);
+    String[][] tiedValues = {
+        { "0.00001", "1.99999" },
+        { "0.50001", "1.23457" },
+        { "1.00003", "0.99995" },
+    };
+    for (String[] values : tiedValues) {
+      SeasonData team1 = createTeam(values[0], new BigDecimal(values[0]));
+      SeasonData team2 = createTeam(values[1], new BigDecimal(values[1]));
+      assertRow(seasonAnalytics, featureStore, team1, team2);
+    }
+    //
+    // 0.50001 / 2 = 0.250005, which rounds up (and is inverted for the first feature)
+    double[] inputAndOutput = new NormalizedData(seasonAnalytics, createTeam("a", new BigDecimal("0.50001")),
+        createTeam("b", new BigDecimal("0.50001"))).asInputAndOutput();
+    assertEquals(0.74999, inputAndOutput[0]);
+    assertEquals(0.25001, inputAndOutput[2]);
+  }
+
+  @Test
+  public void testNormalize_RoundingBoundary() {
+    //
+    // Values with more decimal places than SeasonData keeps, just either side of (and on)
+    /// a 1e-5 rounding boundary of the stored value
+    Random random = new Random(46);
+    SeasonAnalytics seasonAnalytics = createSeasonAnalytics(random);
+    NormalizedFeatureStore featureStore = new NormalizedFeatureStore(seasonAnalytics);
+    String[] values = { "42.123445", "42.123449999", "42.12345", "42.1234500001", "42.123455" };
+    for (int aa = 0; aa < values.length; aa++) {
+      SeasonData team1 = createTeam(values[aa], new BigDecimal(values[aa]));
+      SeasonData team2 = createTeam("Team " + aa, random, 7);
+      assertRow(seasonAnalytics, featureStore, team1, team2);
+    }
+  }
+
+  /**
+   * The feature store and NormalizedData must both produce the row the original
+   * NormalizedData did, bit for bit.
+   */
+  private void assertRow(SeasonAnalytics seasonAnalytics, NormalizedFeatureStore featureStore, SeasonData team1,
+      SeasonData team2) {
+    double[] expected = createExpectedInputAndOutput(seasonAnalytics, team1, team2);
+    double[] actual = new NormalizedData(seasonAnalytics, team1, team2).asInputAndOutput();
+    assertArrayEquals(expected, actual, team1.getTeamName() + " vs " + team2.getTeamName());
+    assertArrayEquals(Arrays.copyOf(expected, NormalizedFeatureStore.NUMBER_OF_INPUTS),
+        featureStore.createInput(team1, team2));
+    // Each team is normalized once
+    assertSame(featureStore.getFeatureSlice(team1), featureStore.getFeatureSlice(team1));
+  }
+
+  /**
+   * The original NormalizedData: each value normalized with the BigDecimal methods, then
+   * stored in a SeasonData (whose setters round it to SCALE), then interleaved.
+   */
+  private double[] createExpectedInputAndOutput(SeasonAnalytics seasonAnalytics, SeasonData team1,
+      SeasonData team2) {
+    double[] ret = new double[2 * FEATURES.size() + 2];
+    for (int aa = 0; aa < FEATURES.size(); aa++) {
+      ret[2 * aa] = FEATURES.get(aa).normalize(seasonAnalytics, team1);
+      ret[2 * aa + 1] = FEATURES.get(aa).normalize(seasonAnalytics, team2);
+    }
+    return ret;
+  }
+
+  private SeasonAnalytics createSeasonAnalytics(Random random) {
+    SeasonAnalytics ret = new SeasonAnalytics();
+    for (Method method : SeasonAnalytics.class.getMethods()) {
+      if (isBigDecimalSetter(method)) {
+        double value = (method.getName().startsWith("setMin")) ? random.nextDouble() * 30.0
+            : 70.0 + random.nextDouble() * 30.0;
+        invoke(method, ret, BigDecimal.valueOf(value).setScale(3, RoundingMode.HALF_UP));
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Creates a team whose every stat is somewhere in [0, 100), with the specified number
+   * of decimal places (the SeasonData setters keep no more than SCALE of them).
+   */
+  private SeasonData createTeam(String teamName, Random random, int scale) {
+    SeasonData ret = new SeasonData();
+    ret.setTeamName(teamName);
+    for (Method method : SeasonData.class.getMethods()) {
+      if (isBigDecimalSetter(method)) {
+        invoke(method, ret, BigDecimal.valueOf(random.nextDouble() * 100.0).setScale(scale, RoundingMode.HALF_UP));
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Creates a team whose every stat is the specified value.
+   */
+  private SeasonData createTeam(String teamName, BigDecimal value) {
+    SeasonData ret = new SeasonData();
+    ret.setTeamName(teamName);
+    for (Method method : SeasonData.class.getMethods()) {
+      if (isBigDecimalSetter(method)) {
+        invoke(method, ret, value);
+      }
+    }
+    return ret;
+  }
+
+  private boolean isBigDecimalSetter(Method method) {
+    return method.getName().startsWith("set") && method.getParameterCount() == 1
+        && method.getParameterTypes()[0] == BigDecimal.class;
+  }
+
+  private void invoke(Method setter, Object target, BigDecimal value) {
+    try {
+      setter.invoke(target, value);
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new RuntimeException("Could not call " + setter.getName(), e);
+    }
+  }
+
+  private static class Feature {
+    private final Function<SeasonData, BigDecimal> value;
+    private final Function<SeasonAnalytics, BigDecimal> minValue;
+    private final Function<SeasonAnalytics, BigDecimal> maxValue;
+    private final boolean inverted;
+
+    Feature(Function<SeasonData, BigDecimal> value, Function<SeasonAnalytics, BigDecimal> minValue,
+        Function<SeasonAnalytics, BigDecimal> maxValue, boolean inverted) {
+      this.value = value;
+      this.minValue = minValue;
+      this.maxValue = maxValue;
+      this.inverted = inverted;
+    }
+
+    double normalize(SeasonAnalytics seasonAnalytics, SeasonData team) {
+      BigDecimal ret = inverted
+          ? StatsUtils.normalizeInverted(value.apply(team), minValue.apply(seasonAnalytics),
+              maxValue.apply(seasonAnalytics))
+          : StatsUtils.normalize(value.apply(team), minValue.apply(seasonAnalytics), maxValue.apply(seasonAnalytics));
+      return ret.setScale(StatsUtils.SCALE, RoundingMode.HALF_UP).doubleValue();
+    }
+  }
+
+}
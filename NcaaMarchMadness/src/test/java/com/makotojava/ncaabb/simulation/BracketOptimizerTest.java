@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class BracketOptimizerTest {
+
+  private static final double[] ROUND_POINTS = { 0, 10, 20, 40, 80, 160, 320 };
+
+  private static final int CHAMPIONSHIP = BracketSimulationResult.NUMBER_OF_ROUNDS - 1;
+
+  @Test
+  public void testOptimize_ConsistentAndScored() {
+    Bracket bracket = Bracket.fromLines(BracketTest.createBracketLines());
+    BracketProbabilityEngine engine = new BracketProbabilityEngine(bracket, createWinProbabilities(bracket, 11));
+    BracketPicks picks = optimize(engine, ROUND_POINTS);
+    double[][] odds = engine.computeAdvancementProbabilities();
+    assertEquals(computeExpectedScore(picks, odds), picks.getExpectedScore(), 1.0e-9);
+    //
+    // The winner of every game was picked to win one of the two games under it
+    for (int round = 1; round < BracketSimulationResult.NUMBER_OF_ROUNDS; round++) {
+      for (int game = 0; game < picks.getNumberOfGames(round); game++) {
+        int pick = picks.getPick(round, game);
+        assertTrue(pick == picks.getPick(round - 1, 2 * game) || pick == picks.getPick(round - 1, 2 * game + 1));
+      }
+    }
+  }
+
+  @Test
+  public void testOptimize_BeatsRandomBrackets() {
+    Bracket bracket = Bracket.fromLines(BracketTest.createBracketLines());
+    BracketProbabilityEngine engine = new BracketProbabilityEngine(bracket, createWinProbabilities(bracket, 13));
+    BracketPicks picks = optimize(engine, ROUND_POINTS);
+    double[][] odds = engine.computeAdvancementProbabilities();
+    Random random = new Random(13);
+    for (int aa = 0; aa < 1000; aa++) {
+      assertTrue(picks.getExpectedScore() >= computeRandomBracketScore(bracket, odds, random) - 1.0e-9);
+    }
+  }
+
+  @Test
+  public void testOptimize_ForcedChampion() {
+    Bracket bracket = Bracket.fromLines(BracketTest.createBracketLines());
+    BracketProbabilityEngine engine = new BracketProbabilityEngine(bracket, createWinProbabilities(bracket, 17));
+    int underdog = bracket.getTeamNames().indexOf("Midwest 16b");
+    engine.forceWin(underdog, CHAMPIONSHIP);
+    BracketPicks picks = optimize(engine, ROUND_POINTS);
+    assertEquals("Midwest 16b", picks.getChampion());
+    assertEquals(1.0, picks.getPickProbability(CHAMPIONSHIP, 0), 1.0e-12);
+  }
+
+  @Test
+  public void testParseRoundPoints() {
+    assertArrayEquals(ROUND_POINTS, BracketOptimizer.parseRoundPoints("0, 10,20,40,80,160,320"));
+    assertThrows(IllegalArgumentException.class, () -> BracketOptimizer.parseRoundPoints("1,2,x"));
+    BracketProbabilityEngine engine = new BracketProbabilityEngine(
+        Bracket.fromLines(BracketTest.createBracketLines()), new double[68][68]);
+    assertThrows(IllegalArgumentException.class, () -> new BracketOptimizer(engine, new double[] { 1, 2, 4 }));
+  }
+
+  private static BracketPicks optimize(BracketProbabilityEngine engine, double[] roundPoints) {
+    ExecutorService executorService = Executors.newFixedThreadPool(2);
+    try {
+      return new BracketOptimizer(engine, roundPoints).optimize(executorService);
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  private static double computeExpectedScore(BracketPicks picks, double[][] odds) {
+    double ret = 0.0;
+    for (int round = 0; round < BracketSimulationResult.NUMBER_OF_ROUNDS; round++) {
+      for (int game = 0; game < picks.getNumberOfGames(round); game++) {
+        ret += ROUND_POINTS[round] * odds[picks.getPick(round, game)][round];
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Fills out a bracket by flipping a coin for every game, and returns its expected score.
+   */
+  private static double computeRandomBracketScore(Bracket bracket, double[][] odds, Random random) {
+    double ret = 0.0;
+    int[] alive = new int[Bracket.NUMBER_OF_SLOTS];
+    for (int slot = 0; slot < Bracket.NUMBER_OF_SLOTS; slot++) {
+      int playInTeam = bracket.getSlotPlayInTeams()[slot];
+      alive[slot] = (playInTeam >= 0 && random.nextBoolean()) ? playInTeam : bracket.getSlotTeams()[slot];
+      ret += ROUND_POINTS[0] * odds[alive[slot]][0];
+    }
+    for (int round = 1, numberOfGames = Bracket.NUMBER_OF_SLOTS / 2; numberOfGames >= 1; round++, numberOfGames /= 2) {
+      for (int game = 0; game < numberOfGames; game++) {
+        alive[game] = random.nextBoolean() ? alive[2 * game] : alive[2 * game + 1];
+        ret += ROUND_POINTS[round] * odds[alive[game]][round];
+      }
+    }
+    return ret;
+  }
+
+  private static double[][] createWinProbabilities(Bracket bracket, long seed) {
+    Random random = new Random(seed);
+    int numberOfTeams = bracket.getNumberOfTeams();
+    double[][] ret = new double[numberOfTeams][numberOfTeams];
+    for (int team1 = 0; team1 < numberOfTeams; team1++) {
+      ret[team1][team1] = 0.5;
+      for (int team2 = team1 + 1; team2 < numberOfTeams; team2++) {
+        ret[team1][team2] = random.nextDouble();
+        ret[team2][team1] = 1.0 - ret[team1][team2];
+      }
+    }
+    return ret;
+  }
+
+}
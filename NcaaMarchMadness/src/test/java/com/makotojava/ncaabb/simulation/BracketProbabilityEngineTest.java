@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class BracketProbabilityEngineTest {
+
+  private static final double TOLERANCE = 1.0e-12;
+
+  private static final int CHAMPION = BracketSimulationResult.NUMBER_OF_ROUNDS - 1;
+
+  @Test
+  public void testComputeAdvancementProbabilities_CoinFlips() {
+    Bracket bracket = Bracket.fromLines(BracketTest.createBracketLines());
+    BracketProbabilityEngine classUnderTest =
+        new BracketProbabilityEngine(bracket, createWinProbabilities(bracket, new Random(1), 0.0));
+    double[][] odds = classUnderTest.computeAdvancementProbabilities();
+    assertRoundTotals(odds);
+    assertEquals(1.0 / 64, odds[bracket.getTeamNames().indexOf("East 1")][CHAMPION], TOLERANCE);
+    assertEquals(1.0 / 128, odds[bracket.getTeamNames().indexOf("East 16b")][CHAMPION], TOLERANCE);
+  }
+
+  @Test
+  public void testComputeAdvancementProbabilities_SameAsSimulation() {
+    Bracket bracket = Bracket.fromLines(BracketTest.createBracketLines());
+    double[][] winProbabilities = createWinProbabilities(bracket, new Random(7), 0.4);
+    double[][] odds = new BracketProbabilityEngine(bracket, winProbabilities).computeAdvancementProbabilities();
+    assertRoundTotals(odds);
+    ExecutorService executorService = Executors.newFixedThreadPool(2);
+    try {
+      BracketSimulationResult result = new BracketSimulator(bracket, winProbabilities).simulate(200000,
+          executorService, new SplittableRandom(7));
+      for (int teamIndex = 0; teamIndex < bracket.getNumberOfTeams(); teamIndex++) {
+        for (int round = 0; round < BracketSimulationResult.NUMBER_OF_ROUNDS; round++) {
+          assertEquals(odds[teamIndex][round], result.getAdvancementProbability(teamIndex, round), 0.01);
+        }
+      }
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  @Test
+  public void testForceWin() {
+    Bracket bracket = Bracket.fromLines(BracketTest.createBracketLines());
+    BracketProbabilityEngine classUnderTest =
+        new BracketProbabilityEngine(bracket, createWinProbabilities(bracket, new Random(3), 0.4));
+    double[][] before = classUnderTest.computeAdvancementProbabilities();
+    long nodesComputed = classUnderTest.getNumberOfNodesComputed();
+    //
+    // South 16b makes it to the Elite 8
+    int underdog = bracket.getTeamNames().indexOf("South 16b");
+    int topSeed = bracket.getTeamNames().indexOf("South 1");
+    classUnderTest.forceWin(underdog, 3);
+    double[][] after = classUnderTest.computeAdvancementProbabilities();
+    assertRoundTotals(after);
+    for (int round = 0; round <= 3; round++) {
+      assertEquals(1.0, after[underdog][round], TOLERANCE);
+    }
+    assertEquals(0.0, after[topSeed][2], TOLERANCE);
+    // Only the path from the underdog's slot to the championship game was recomputed
+    assertEquals(nodesComputed + BracketSimulationResult.NUMBER_OF_ROUNDS, classUnderTest.getNumberOfNodesComputed());
+    // The other regions' early rounds are untouched
+    int eastOneSeed = bracket.getTeamNames().indexOf("East 1");
+    assertEquals(before[eastOneSeed][3], after[eastOneSeed][3]);
+    //
+    // Now the top seed makes it to the Final Four, which rules out the underdog's Elite 8
+    classUnderTest.forceWin(topSeed, 4);
+    after = classUnderTest.computeAdvancementProbabilities();
+    assertRoundTotals(after);
+    assertEquals(1.0, after[topSeed][4], TOLERANCE);
+    assertEquals(0.0, after[underdog][1], TOLERANCE);
+    //
+    // And back to where it started
+    classUnderTest.clearForcedWins();
+    after = classUnderTest.computeAdvancementProbabilities();
+    for (int teamIndex = 0; teamIndex < bracket.getNumberOfTeams(); teamIndex++) {
+      for (int round = 0; round < BracketSimulationResult.NUMBER_OF_ROUNDS; round++) {
+        assertEquals(before[teamIndex][round], after[teamIndex][round], TOLERANCE);
+      }
+    }
+  }
+
+  @Test
+  public void testSetWinProbability() {
+    Bracket bracket = Bracket.fromLines(BracketTest.createBracketLines());
+    BracketProbabilityEngine classUnderTest =
+        new BracketProbabilityEngine(bracket, createWinProbabilities(bracket, new Random(5), 0.4));
+    classUnderTest.computeAdvancementProbabilities();
+    long nodesComputed = classUnderTest.getNumberOfNodesComputed();
+    //
+    // The 8 vs. 9 game in the West is a sure thing
+    int eightSeed = bracket.getTeamNames().indexOf("West 8");
+    int nineSeed = bracket.getTeamNames().indexOf("West 9");
+    classUnderTest.setWinProbability(eightSeed, nineSeed, 1.0);
+    double[][] after = classUnderTest.computeAdvancementProbabilities();
+    assertRoundTotals(after);
+    assertEquals(0.0, after[nineSeed][1], TOLERANCE);
+    // The game is at level 1, so levels 1 through 6 are recomputed
+    assertEquals(nodesComputed + BracketSimulationResult.NUMBER_OF_ROUNDS - 1,
+        classUnderTest.getNumberOfNodesComputed());
+  }
+
+  /**
+   * Every round has half as many teams in it as the round before.
+   */
+  private static void assertRoundTotals(double[][] odds) {
+    for (int round = 0; round < BracketSimulationResult.NUMBER_OF_ROUNDS; round++) {
+      double total = 0.0;
+      for (double[] teamOdds : odds) {
+        total += teamOdds[round];
+      }
+      assertEquals(Bracket.NUMBER_OF_SLOTS >> round, total, 1.0e-9);
+    }
+  }
+
+  /**
+   * Random win probabilities, from 0.5 - spread to 0.5 + spread (and 1 minus that the
+   * other way).
+   */
+  private static double[][] createWinProbabilities(Bracket bracket, Random random, double spread) {
+    int numberOfTeams = bracket.getNumberOfTeams();
+    double[][] ret = new double[numberOfTeams][numberOfTeams];
+    for (int team1 = 0; team1 < numberOfTeams; team1++) {
+      ret[team1][team1] = 0.5;
+      for (int team2 = team1 + 1; team2 < numberOfTeams; team2++) {
+        ret[team1][team2] = 0.5 + spread * (2.0 * random.nextDouble() - 1.0);
+        ret[team2][team1] = 1.0 - ret[team1][team2];
+      }
+    }
+    return ret;
+  }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.neuroph.nnet.MultiLayerPerceptron;
+
+@RunWith(JUnitPlatform.class)
+public class BracketSimulatorTest {
+
+  private static final long NUMBER_OF_RUNS = 250000;
+
+  @Test
+  public void testSimulate_CoinFlips() {
+    Bracket bracket = Bracket.fromLines(BracketTest.createBracketLines());
+    BracketSimulationResult result = simulate(bracket, createWinProbabilities(bracket, 0.5), 12345L);
+    assertEquals(NUMBER_OF_RUNS, result.getNumberOfRuns());
+    //
+    // Each round has half as many teams as the one before it
+    for (int round = 0; round < BracketSimulationResult.NUMBER_OF_ROUNDS; round++) {
+      double total = 0.0;
+      for (int teamIndex = 0; teamIndex < bracket.getNumberOfTeams(); teamIndex++) {
+        total += result.getAdvancementProbability(teamIndex, round);
+      }
+      assertEquals(Bracket.NUMBER_OF_SLOTS >> round, total, 1.0e-9);
+    }
+    //
+    // With coin flips, a team with no First Four game wins it all 1 time in 64,
+    /// and a First Four team makes it to the Round of 64 half the time
+    int oneSeed = bracket.getTeamNames().indexOf("East 1");
+    int playInTeam = bracket.getTeamNames().indexOf("East 16b");
+    assertEquals(1.0, result.getAdvancementProbability(oneSeed, 0));
+    assertEquals(1.0 / 64, result.getAdvancementProbability(oneSeed, 6), 0.002);
+    assertEquals(0.5, result.getAdvancementProbability(playInTeam, 0), 0.005);
+  }
+
+  @Test
+  public void testSimulate_Favorite() {
+    Bracket bracket = Bracket.fromLines(BracketTest.createBracketLines());
+    double[][] winProbabilities = createWinProbabilities(bracket, 0.5);
+    int favorite = bracket.getTeamNames().indexOf("West 1");
+    for (int teamIndex = 0; teamIndex < bracket.getNumberOfTeams(); teamIndex++) {
+      winProbabilities[favorite][teamIndex] = 1.0;
+      winProbabilities[teamIndex][favorite] = 0.0;
+    }
+    BracketSimulationResult result = simulate(bracket, winProbabilities, 12345L);
+    assertEquals(1.0, result.getAdvancementProbability(favorite, 6));
+    // West 1's first-round opponent never gets past the Round of 64
+    assertEquals(0.0, result.getAdvancementProbability(bracket.getTeamNames().indexOf("West 16"), 1));
+  }
+
+  @Test
+  public void testSimulate_SameSeedSameResult() {
+    Bracket bracket = Bracket.fromLines(BracketTest.createBracketLines());
+    double[][] winProbabilities = createWinProbabilities(bracket, 0.6);
+    BracketSimulationResult result1 = simulate(bracket, winProbabilities, 42L);
+    BracketSimulationResult result2 = simulate(bracket, winProbabilities, 42L);
+    for (int teamIndex = 0; teamIndex < bracket.getNumberOfTeams(); teamIndex++) {
+      for (int round = 0; round < BracketSimulationResult.NUMBER_OF_ROUNDS; round++) {
+        assertEquals(result1.getRoundCount(teamIndex, round), result2.getRoundCount(teamIndex, round));
+      }
+    }
+  }
+
+  @Test
+  public void testCreateWinProbabilities() {
+    Bracket bracket = Bracket.fromLines(BracketTest.createBracketLines());
+    double[][] winProbabilities = BracketSimulator.createWinProbabilities(bracket, (teamName, opponentName) -> {
+      GameSimulationResult<MultiLayerPerceptron> gameSimulationResult =
+          new GameSimulationResult<>(teamName, opponentName);
+      // Two networks: the "smaller" name always wins one, and the other is a push
+      gameSimulationResult.getNetworks().add(null);
+      gameSimulationResult.getNetworks().add(null);
+      if (teamName.compareTo(opponentName) < 0) {
+        gameSimulationResult.incrementNumberOfWins();
+        gameSimulationResult.incrementNumberOfPushes();
+      } else if (teamName.compareTo(opponentName) > 0) {
+        gameSimulationResult.incrementNumberOfLosses();
+        gameSimulationResult.incrementNumberOfPushes();
+      } else {
+        gameSimulationResult.incrementNumberOfPushes();
+        gameSimulationResult.incrementNumberOfPushes();
+      }
+      return gameSimulationResult;
+    });
+    int east1 = bracket.getTeamNames().indexOf("East 1");
+    int west1 = bracket.getTeamNames().indexOf("West 1");
+    assertEquals(0.75, winProbabilities[east1][west1]);
+    assertEquals(0.25, winProbabilities[west1][east1]);
+    assertEquals(0.5, winProbabilities[east1][east1]);
+  }
+
+  private static double[][] createWinProbabilities(Bracket bracket, double lowerIndexWinProbability) {
+    int numberOfTeams = bracket.getNumberOfTeams();
+    double[][] ret = new double[numberOfTeams][numberOfTeams];
+    for (int team1 = 0; team1 < numberOfTeams; team1++) {
+      for (int team2 = 0; team2 < numberOfTeams; team2++) {
+        ret[team1][team2] = (team1 < team2) ? lowerIndexWinProbability
+            : (team1 > team2) ? 1.0 - lowerIndexWinProbability : 0.5;
+      }
+    }
+    return ret;
+  }
+
+  private static BracketSimulationResult simulate(Bracket bracket, double[][] winProbabilities, long seed) {
+    ExecutorService executorService = Executors.newFixedThreadPool(2);
+    try {
+      return new BracketSimulator(bracket, winProbabilities).simulate(NUMBER_OF_RUNS, executorService,
+          new SplittableRandom(seed));
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+}
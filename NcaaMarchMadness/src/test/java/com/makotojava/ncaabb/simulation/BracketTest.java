@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class BracketTest {
+
+  private static final String[] REGIONS = { "East", "West", "Midwest", "South" };
+
+  /**
+   * Creates the lines of a 68-team bracket file: in each region, seed #16 is shared
+   * by two teams (the First Four).
+   */
+  static List<String[]> createBracketLines() {
+    List<String[]> ret = new ArrayList<>();
+    for (String region : REGIONS) {
+      for (int seed = 1; seed <= Bracket.NUMBER_OF_SEEDS; seed++) {
+        ret.add(new String[] { region, Integer.toString(seed), region + " " + seed });
+      }
+      ret.add(new String[] { region, "16", region + " 16b" });
+    }
+    return ret;
+  }
+
+  @Test
+  public void testFromLines() {
+    Bracket classUnderTest = Bracket.fromLines(createBracketLines());
+    assertEquals(68, classUnderTest.getNumberOfTeams());
+    assertEquals(Arrays.asList(REGIONS), classUnderTest.getRegionNames());
+    //
+    // 1 vs. 16 (a First Four game) and 8 vs. 9, first thing in the first region
+    int[] slotTeams = classUnderTest.getSlotTeams();
+    int[] slotPlayInTeams = classUnderTest.getSlotPlayInTeams();
+    List<String> teamNames = classUnderTest.getTeamNames();
+    assertEquals("East 1", teamNames.get(slotTeams[0]));
+    assertEquals("East 16", teamNames.get(slotTeams[1]));
+    assertEquals("East 16b", teamNames.get(slotPlayInTeams[1]));
+    assertEquals("East 8", teamNames.get(slotTeams[2]));
+    assertEquals("East 9", teamNames.get(slotTeams[3]));
+    assertEquals(-1, slotPlayInTeams[0]);
+    // Last slot of the last region is the 15 seed
+    assertEquals("South 15", teamNames.get(slotTeams[Bracket.NUMBER_OF_SLOTS - 1]));
+    int teamIndex = teamNames.indexOf("Midwest 16b");
+    assertEquals(16, classUnderTest.getSeed(teamIndex));
+    assertEquals("Midwest", classUnderTest.getRegionName(teamIndex));
+  }
+
+  @Test
+  public void testFromFile() throws IOException {
+    File bracketFile = File.createTempFile("bracket", ".csv");
+    try {
+      try (PrintWriter printWriter = new PrintWriter(new FileWriter(bracketFile))) {
+        printWriter.println("# REGION,SEED,TEAM NAME");
+        for (String[] line : createBracketLines()) {
+          printWriter.println(line[0] + "," + line[1] + ",\"" + line[2] + "\"");
+        }
+        printWriter.println();
+      }
+      Bracket classUnderTest = Bracket.fromFile(bracketFile);
+      assertEquals(68, classUnderTest.getNumberOfTeams());
+      assertEquals("East 1", classUnderTest.getTeamNames().get(0));
+    } finally {
+      bracketFile.delete();
+    }
+  }
+
+  @Test
+  public void testFromLines_MissingSeed() {
+    List<String[]> lines = createBracketLines();
+    lines.remove(0);
+    assertThrows(IllegalArgumentException.class, () -> Bracket.fromLines(lines));
+  }
+
+  @Test
+  public void testFromLines_TooManyTeamsInSlot() {
+    List<String[]> lines = createBracketLines();
+    lines.add(new String[] { "East", "16", "East 16c" });
+    assertThrows(IllegalArgumentException.class, () -> Bracket.fromLines(lines));
+  }
+
+  @Test
+  public void testFromLines_TooManyRegions() {
+    List<String[]> lines = createBracketLines();
+    lines.add(new String[] { "North", "1", "North 1" });
+    assertThrows(IllegalArgumentException.class, () -> Bracket.fromLines(lines));
+  }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.simulation;
+
+import static com.makotojava.ncaabb.util.NetworkFixtures.createNetwork;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.neuroph.nnet.MultiLayerPerceptron;
+
+import com.makotojava.ncaabb.util.NetworkUtils;
+
+@RunWith(JUnitPlatform.class)
+public class CompiledNetworkTest {
+
+  private static final double TOLERANCE = 1.0e-9;
+
+  @Test
+  public void testCalculate_WithBias() {
+    assertSameOutput(createNetwork(true, 46, 92, 23, 2));
+  }
+
+  @Test
+  public void testCalculate_WithoutBias() {
+    assertSameOutput(createNetwork(false, 46, 30, 2));
+  }
+
+  @Test
+  public void testRunNetwork_SharedAcrossThreads() throws Exception {
+    MultiLayerPerceptron network = createNetwork(true, 46, 50, 2);
+    CompiledNetworkRunner classUnderTest = new CompiledNetworkRunner("unused");
+    double[][] inputs = createInputs(200, network.getInputsCount());
+    double[][] expected = CompiledNetwork.compile(network).calculate(inputs);
+    //
+    // Every thread runs the same network over the same inputs, at the same time
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<double[][]>> futures = new ArrayList<>();
+      for (int aa = 0; aa < 8; aa++) {
+        futures.add(executorService.submit(() -> {
+          double[][] ret = new double[inputs.length][];
+          for (int row = 0; row < inputs.length; row++) {
+            ret[row] = classUnderTest.runNetwork(network, inputs[row]);
+          }
+          return ret;
+        }));
+      }
+      for (Future<double[][]> future : futures) {
+        double[][] actual = future.get();
+        for (int row = 0; row < inputs.length; row++) {
+          assertArrayEquals(expected[row], actual[row]);
+        }
+      }
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  private void assertSameOutput(MultiLayerPerceptron network) {
+    CompiledNetwork classUnderTest = CompiledNetwork.compile(network);
+    double[][] inputs = createInputs(50, network.getInputsCount());
+    double[][] outputs = classUnderTest.calculate(inputs);
+    for (int row = 0; row < inputs.length; row++) {
+      double[] expected = NetworkUtils.runNetwork(network, inputs[row]);
+      assertEquals(expected.length, outputs[row].length);
+      for (int aa = 0; aa < expected.length; aa++) {
+        assertEquals(expected[aa], outputs[row][aa], TOLERANCE);
+      }
+    }
+  }
+
+  private double[][] createInputs(int numberOfRows, int numberOfInputs) {
+    Random random = new Random(17);
+    double[][] ret = new double[numberOfRows][numberOfInputs];
+    for (double[] input : ret) {
+      for (int aa = 0; aa < input.length; aa++) {
+        input[aa] = random.nextDouble();
+      }
+    }
+    return ret;
+  }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.simulation;
+
+import static com.makotojava.ncaabb.util.NetworkFixtures.createNetwork;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.neuroph.nnet.MultiLayerPerceptron;
+
+import com.makotojava.ncaabb.model.NormalizedFeatureStore;
+import com.makotojava.ncaabb.model.SeasonData;
+
+@RunWith(JUnitPlatform.class)
+public class FirstLayerCacheTest {
+
+  private static final double TOLERANCE = 1.0e-9;
+
+  @Test
+  public void testCalculate_WithBias() {
+    assertSameOutput(createNetwork(true, NormalizedFeatureStore.NUMBER_OF_INPUTS, 92, 23, 2));
+  }
+
+  @Test
+  public void testCalculate_WithoutBias() {
+    assertSameOutput(createNetwork(false, NormalizedFeatureStore.NUMBER_OF_INPUTS, 30, 2));
+  }
+
+  @Test
+  public void testCalculate_NoHiddenLayer() {
+    assertSameOutput(createNetwork(true, NormalizedFeatureStore.NUMBER_OF_INPUTS, 2));
+  }
+
+  private void assertSameOutput(MultiLayerPerceptron network) {
+    CompiledNetwork compiledNetwork = CompiledNetwork.compile(network);
+    NormalizedFeatureStore featureStore = new RandomFeatureStore();
+    FirstLayerCache classUnderTest = new FirstLayerCache(compiledNetwork, featureStore);
+    List<SeasonData> teams = new ArrayList<>();
+    for (int aa = 0; aa < 5; aa++) {
+      SeasonData team = new SeasonData();
+      team.setTeamName("Team " + aa);
+      teams.add(team);
+    }
+    //
+    // Every pair, both ways (and every team against itself)
+    for (SeasonData team1 : teams) {
+      for (SeasonData team2 : teams) {
+        double[] expected = compiledNetwork.calculate(featureStore.createInput(team1, team2));
+        double[] actual = classUnderTest.calculate(team1, team2);
+        assertEquals(expected.length, actual.length);
+        for (int aa = 0; aa < expected.length; aa++) {
+          assertEquals(expected[aa], actual[aa], TOLERANCE);
+        }
+      }
+    }
+  }
+
+  /**
+   * A feature store whose feature slices are random (but the same for a given team name),
+   * so the test does not need any SeasonAnalytics.
+   */
+  private static class RandomFeatureStore extends NormalizedFeatureStore {
+
+    RandomFeatureStore() {
+      super(null);
+    }
+
+    @Override
+    public double[] getFeatureSlice(SeasonData teamSeasonData) {
+      Random random = new Random(teamSeasonData.getTeamName().hashCode());
+      double[] ret = new double[NormalizedFeatureStore.NUMBER_OF_INPUTS / 2];
+      for (int aa = 0; aa < ret.length; aa++) {
+        ret[aa] = random.nextDouble();
+      }
+      return ret;
+    }
+  }
+
+}
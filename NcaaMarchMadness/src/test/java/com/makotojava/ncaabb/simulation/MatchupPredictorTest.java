@@ -0,0 +1,338 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.neuroph.nnet.MultiLayerPerceptron;
+
+import com.makotojava.ncaabb.dao.SeasonDataDao;
+import com.makotojava.ncaabb.model.NormalizedFeatureStore;
+import com.makotojava.ncaabb.model.SeasonData;
+import com.makotojava.ncaabb.util.NetworkFixtures;
+
+@RunWith(JUnitPlatform.class)
+public class MatchupPredictorTest {
+
+  private static final Integer YEAR = 2017;
+
+  private static final int NUMBER_OF_NETWORKS = 3;
+
+  /**
+   * Neuroph adds up each neuron's inputs in a different order than CompiledNetwork does
+   */
+  private static final double TOLERANCE = 1.0e-9;
+
+  @Test
+  public void testPredict_SameAsEngine() {
+    List<MultiLayerPerceptron> networks = createNetworks();
+    MatchupPredictor classUnderTest = new TestMatchupPredictor(networks, 100);
+    TournamentMatrixEngine engine = new TournamentMatrixEngine(networks, new RandomFeatureStore(), false);
+    List<List<GameSimulationResult<MultiLayerPerceptron>>> expected =
+        engine.simulateMatchups(createSeasonData("Team A"), Collections.singletonList(createSeasonData("Team B")));
+    assertSameResult(expected.get(0).get(0), classUnderTest.predict(YEAR, "Team A", "Team B"));
+    assertSameResult(expected.get(1).get(0), classUnderTest.predict(YEAR, "Team B", "Team A"));
+  }
+
+  @Test
+  public void testPredictRow_SimulatesOnlyMisses() {
+    List<MultiLayerPerceptron> networks = createNetworks();
+    MatchupPredictor classUnderTest = new TestMatchupPredictor(networks, 100);
+    GameSimulationResult<MultiLayerPerceptron> ac = classUnderTest.predict(YEAR, "Team A", "Team C");
+    List<GameSimulationResult<MultiLayerPerceptron>> row =
+        classUnderTest.predictRow(YEAR, "Team A", Arrays.asList("Team B", "Team C", "Team A"));
+    assertEquals(3, row.size());
+    assertSame(ac, row.get(1));
+    assertEquals(1, classUnderTest.getHitCount());
+    assertEquals(3, classUnderTest.getMissCount());
+    TournamentMatrixEngine engine = new TournamentMatrixEngine(networks, new RandomFeatureStore(), false);
+    assertSameResult(engine.simulateMatchups(createSeasonData("Team A"),
+        Collections.singletonList(createSeasonData("Team B"))).get(0).get(0), row.get(0));
+    assertEquals(NUMBER_OF_NETWORKS, row.get(2).getNumberOfPushes().intValue());
+    //
+    // The other teams' points of view came along with them
+    assertSameResult(engine.simulateMatchups(createSeasonData("Team B"),
+        Collections.singletonList(createSeasonData("Team A"))).get(0).get(0),
+        classUnderTest.predict(YEAR, "Team B", "Team A"));
+    assertEquals(2, classUnderTest.getHitCount());
+    assertEquals(3, classUnderTest.getMissCount());
+  }
+
+  @Test
+  public void testPredictMatrix() throws Exception {
+    List<String> teamNames = Arrays.asList("Team C", "Team A", "Team B", "Team D");
+    MatchupPredictor classUnderTest = new TestMatchupPredictor(createNetworks(), 100);
+    ExecutorService executorService = Executors.newFixedThreadPool(2);
+    Map<String, List<GameSimulationResult<MultiLayerPerceptron>>> matrix;
+    try {
+      matrix = classUnderTest.predictMatrix(YEAR, teamNames, executorService);
+    } finally {
+      executorService.shutdown();
+    }
+    assertEquals(Arrays.asList("Team A", "Team B", "Team C", "Team D"), new ArrayList<>(matrix.keySet()));
+    //
+    // Each pair of teams (and each team against itself) is only simulated (and counted) once
+    assertEquals(0, classUnderTest.getHitCount());
+    assertEquals(4 * 5 / 2, classUnderTest.getMissCount());
+    for (String teamName : matrix.keySet()) {
+      List<GameSimulationResult<MultiLayerPerceptron>> row = matrix.get(teamName);
+      assertEquals(4, row.size());
+      int opponentIndex = 0;
+      for (String opponentName : matrix.keySet()) {
+        GameSimulationResult<MultiLayerPerceptron> result = row.get(opponentIndex++);
+        assertEquals(teamName, result.getTeamName());
+        assertEquals(opponentName, result.getOpponentName());
+        GameSimulationResult<MultiLayerPerceptron> mirror =
+            matrix.get(opponentName).get(new ArrayList<>(matrix.keySet()).indexOf(teamName));
+        assertEquals(result.getNumberOfWins(), mirror.getNumberOfLosses());
+      }
+    }
+  }
+
+  @Test
+  public void testPredictMatrix_SmallCache() throws Exception {
+    List<String> teamNames = Arrays.asList("Team A", "Team B", "Team C", "Team D");
+    MatchupPredictor classUnderTest = new TestMatchupPredictor(createNetworks(), 2);
+    ExecutorService executorService = Executors.newFixedThreadPool(2);
+    Map<String, List<GameSimulationResult<MultiLayerPerceptron>>> matrix;
+    try {
+      matrix = classUnderTest.predictMatrix(YEAR, teamNames, executorService);
+    } finally {
+      executorService.shutdown();
+    }
+    //
+    // The rows do not come out of the cache, so nothing it dropped is simulated again
+    assertEquals(0, classUnderTest.getHitCount());
+    assertEquals(4 * 5 / 2, classUnderTest.getMissCount());
+    for (String teamName : teamNames) {
+      List<GameSimulationResult<MultiLayerPerceptron>> row = matrix.get(teamName);
+      assertEquals(4, row.size());
+      for (int aa = 0; aa < teamNames.size(); aa++) {
+        assertEquals(teamName, row.get(aa).getTeamName());
+        assertEquals(teamNames.get(aa), row.get(aa).getOpponentName());
+      }
+    }
+  }
+
+  @Test
+  public void testPredictMatrix_SameAsNeuroph() throws Exception {
+    List<MultiLayerPerceptron> networks = Arrays.asList(
+        NetworkFixtures.createNetwork(true, NormalizedFeatureStore.NUMBER_OF_INPUTS, 20, 2),
+        NetworkFixtures.createNetwork(true, NormalizedFeatureStore.NUMBER_OF_INPUTS, 8, 4, 2),
+        NetworkFixtures.createNetwork(false, NormalizedFeatureStore.NUMBER_OF_INPUTS, 2));
+    List<String> teamNames = Arrays.asList("Team A", "Team B", "Team C", "Team D", "Team E");
+    for (boolean cacheFirstLayer : new boolean[] { false, true }) {
+      MatchupPredictor classUnderTest = new TestMatchupPredictor(networks, 100, cacheFirstLayer);
+      ExecutorService executorService = Executors.newFixedThreadPool(2);
+      Map<String, List<GameSimulationResult<MultiLayerPerceptron>>> matrix;
+      try {
+        matrix = classUnderTest.predictMatrix(YEAR, teamNames, executorService);
+      } finally {
+        executorService.shutdown();
+      }
+      for (String teamName : teamNames) {
+        List<GameSimulationResult<MultiLayerPerceptron>> row = matrix.get(teamName);
+        for (int aa = 0; aa < teamNames.size(); aa++) {
+          assertSameAsNeuroph(networks, teamName, teamNames.get(aa), row.get(aa));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testPredict_CachesBothWays() {
+    MatchupPredictor classUnderTest = new TestMatchupPredictor(createNetworks(), 100);
+    GameSimulationResult<MultiLayerPerceptron> result = classUnderTest.predict(YEAR, "Team A", "Team B");
+    assertEquals(0, classUnderTest.getHitCount());
+    assertEquals(1, classUnderTest.getMissCount());
+    assertSame(result, classUnderTest.predict(YEAR, "Team A", "Team B"));
+    //
+    // The other team's point of view came along with it
+    GameSimulationResult<MultiLayerPerceptron> mirror = classUnderTest.predict(YEAR, "Team B", "Team A");
+    assertEquals("Team B", mirror.getTeamName());
+    assertEquals("Team A", mirror.getOpponentName());
+    assertEquals(result.getNumberOfWins(), mirror.getNumberOfLosses());
+    assertEquals(2, classUnderTest.getHitCount());
+    assertEquals(1, classUnderTest.getMissCount());
+    //
+    // A different year is a different matchup
+    classUnderTest.predict(YEAR + 1, "Team A", "Team B");
+    assertEquals(2, classUnderTest.getMissCount());
+  }
+
+  @Test
+  public void testPredict_EvictsLeastRecentlyUsed() {
+    MatchupPredictor classUnderTest = new TestMatchupPredictor(createNetworks(), 4);
+    GameSimulationResult<MultiLayerPerceptron> ab = classUnderTest.predict(YEAR, "Team A", "Team B");
+    classUnderTest.predict(YEAR, "Team C", "Team D");
+    //
+    // Use A vs. B both ways, so C vs. D (and D vs. C) are the least recently used
+    assertSame(ab, classUnderTest.predict(YEAR, "Team A", "Team B"));
+    classUnderTest.predict(YEAR, "Team B", "Team A");
+    classUnderTest.predict(YEAR, "Team E", "Team F");
+    assertEquals(3, classUnderTest.getMissCount());
+    assertSame(ab, classUnderTest.predict(YEAR, "Team A", "Team B"));
+    assertEquals(3, classUnderTest.getMissCount());
+    assertNotNull(classUnderTest.predict(YEAR, "Team C", "Team D"));
+    assertEquals(4, classUnderTest.getMissCount());
+  }
+
+  @Test
+  public void testPredict_UnknownTeam() {
+    MatchupPredictor classUnderTest = new TestMatchupPredictor(createNetworks(), 100);
+    assertThrows(IllegalArgumentException.class, () -> classUnderTest.predict(YEAR, "Team A", "Nobody"));
+  }
+
+  @Test
+  public void testConstructor_BadCacheSize() {
+    assertThrows(IllegalArgumentException.class, () -> new TestMatchupPredictor(createNetworks(), 0));
+  }
+
+  private static void assertSameResult(GameSimulationResult<MultiLayerPerceptron> expected,
+      GameSimulationResult<MultiLayerPerceptron> actual) {
+    assertEquals(expected.getTeamName(), actual.getTeamName());
+    assertEquals(expected.getOpponentName(), actual.getOpponentName());
+    assertEquals(expected.getNumberOfWins(), actual.getNumberOfWins());
+    assertEquals(expected.getNumberOfLosses(), actual.getNumberOfLosses());
+    assertEquals(expected.getNumberOfPushes(), actual.getNumberOfPushes());
+    assertEquals(expected.getTeamHomeResults(), actual.getTeamHomeResults());
+    assertEquals(expected.getTeamAwayResults(), actual.getTeamAwayResults());
+  }
+
+  /**
+   * Runs each network the way the Neuroph-based simulators do (setInput(), calculate(),
+   * getOutput()), home and away, and checks the result matches, network by network.
+   */
+  private static void assertSameAsNeuroph(List<MultiLayerPerceptron> networks, String teamName,
+      String opponentName, GameSimulationResult<MultiLayerPerceptron> actual) {
+    NormalizedFeatureStore featureStore = new RandomFeatureStore();
+    double[] homeInput = featureStore.createInput(createSeasonData(teamName), createSeasonData(opponentName));
+    double[] awayInput = featureStore.createInput(createSeasonData(opponentName), createSeasonData(teamName));
+    assertEquals(teamName, actual.getTeamName());
+    assertEquals(opponentName, actual.getOpponentName());
+    assertEquals(networks, actual.getNetworks());
+    int numberOfWins = 0;
+    int numberOfLosses = 0;
+    for (int aa = 0; aa < networks.size(); aa++) {
+      double[] homeResults = runNetwork(networks.get(aa), homeInput);
+      double[] awayResults = runNetwork(networks.get(aa), awayInput);
+      assertEquals(homeResults[0], actual.getTeamHomeResults().get(aa), TOLERANCE);
+      assertEquals(homeResults[1], actual.getOpponentAwayResults().get(aa), TOLERANCE);
+      assertEquals(awayResults[1], actual.getTeamAwayResults().get(aa), TOLERANCE);
+      assertEquals(awayResults[0], actual.getOpponentHomeResults().get(aa), TOLERANCE);
+      boolean homeWin = homeResults[0] > homeResults[1];
+      boolean awayWin = awayResults[1] > awayResults[0];
+      String prediction = (homeWin == awayWin) ? (homeWin ? teamName : opponentName) : GameSimulationResult.PUSH;
+      assertEquals(prediction, actual.getNetworkPredictions().get(aa));
+      numberOfWins += (homeWin && awayWin) ? 1 : 0;
+      numberOfLosses += (!homeWin && !awayWin) ? 1 : 0;
+    }
+    assertEquals(numberOfWins, actual.getNumberOfWins().intValue());
+    assertEquals(numberOfLosses, actual.getNumberOfLosses().intValue());
+    assertEquals(networks.size() - numberOfWins - numberOfLosses, actual.getNumberOfPushes().intValue());
+  }
+
+  private static double[] runNetwork(MultiLayerPerceptron network, double[] input) {
+    network.setInput(input);
+    network.calculate();
+    return network.getOutput().clone();
+  }
+
+  private static SeasonData createSeasonData(String teamName) {
+    SeasonData ret = new SeasonData();
+    ret.setTeamName(teamName);
+    return ret;
+  }
+
+  private static List<MultiLayerPerceptron> createNetworks() {
+    List<MultiLayerPerceptron> ret = new ArrayList<>();
+    for (int aa = 0; aa < NUMBER_OF_NETWORKS; aa++) {
+      ret.add(NetworkFixtures.createNetwork(new Random(aa), NormalizedFeatureStore.NUMBER_OF_INPUTS, 20, 2));
+    }
+    return ret;
+  }
+
+  /**
+   * A MatchupPredictor whose teams are "Team A" through "Team F" (every year), and whose
+   * feature store is a {@link RandomFeatureStore}, so the test does not need a DB.
+   */
+  private static class TestMatchupPredictor extends MatchupPredictor {
+
+    TestMatchupPredictor(List<MultiLayerPerceptron> networks, int maxCachedMatchups) {
+      this(networks, maxCachedMatchups, false);
+    }
+
+    TestMatchupPredictor(List<MultiLayerPerceptron> networks, int maxCachedMatchups, boolean cacheFirstLayer) {
+      super(networks, new SeasonDataDao() {
+        @Override
+        public List<SeasonData> fetchAllByYear(Integer year) {
+          List<SeasonData> ret = new ArrayList<>();
+          for (char team = 'A'; team <= 'F'; team++) {
+            ret.add(createSeasonData("Team " + team));
+          }
+          return ret;
+        }
+
+        @Override
+        public SeasonData fetchByYearAndTeamName(Integer year, String teamName) {
+          return teamName.matches("Team [A-F]") ? createSeasonData(teamName) : null;
+        }
+      }, null, maxCachedMatchups, cacheFirstLayer);
+    }
+
+    @Override
+    protected NormalizedFeatureStore createFeatureStore(Integer year) {
+      return new RandomFeatureStore();
+    }
+  }
+
+  /**
+   * A feature store whose feature slices are random (but the same for a given team name),
+   * so the test does not need any SeasonAnalytics.
+   */
+  private static class RandomFeatureStore extends NormalizedFeatureStore {
+
+    RandomFeatureStore() {
+      super(null);
+    }
+
+    @Override
+    public double[] getFeatureSlice(SeasonData teamSeasonData) {
+      Random random = new Random(teamSeasonData.getTeamName().hashCode());
+      double[] ret = new double[NormalizedFeatureStore.NUMBER_OF_INPUTS / 2];
+      for (int aa = 0; aa < ret.length; aa++) {
+        ret[aa] = random.nextDouble();
+      }
+      return ret;
+    }
+  }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.neuroph.core.input.WeightedSum;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.util.NeuronProperties;
+import org.neuroph.util.TransferFunctionType;
+
+/**
+ * Networks for the tests (and benchmarks), created the way the trainer creates them
+ * (weighted sum inputs, with or without bias neurons), with random weights in [-1, 1).
+ * No DB, no training, and the same arguments always produce the same network.
+ *
+ * @author J Steven Perry
+ *
+ */
+public class NetworkFixtures {
+
+  private NetworkFixtures() {
+    // Utility class
+  }
+
+  /**
+   * Creates a Sigmoid network whose weights are drawn from a random number generator
+   * seeded with the layer structure, so the same layers always get the same weights.
+   *
+   * @param useBias
+   *          Whether or not the layers have bias neurons.
+   * @param layers
+   *          Number of neurons in each layer, input layer first.
+   */
+  public static MultiLayerPerceptron createNetwork(boolean useBias, Integer... layers) {
+    return createNetwork(TransferFunctionType.SIGMOID, useBias, new Random(Arrays.hashCode(layers)), layers);
+  }
+
+  /**
+   * Creates a Sigmoid network (with bias neurons) whose weights are drawn from the
+   * specified random number generator.
+   *
+   * @param random
+   *          Where the weights come from.
+   * @param layers
+   *          Number of neurons in each layer, input layer first.
+   */
+  public static MultiLayerPerceptron createNetwork(Random random, Integer... layers) {
+    return createNetwork(TransferFunctionType.SIGMOID, true, random, layers);
+  }
+
+  /**
+   * Creates a network with the specified transfer function, whose weights are drawn from
+   * the specified random number generator.
+   *
+   * @param transferFunctionType
+   *          The neurons' transfer function.
+   * @param useBias
+   *          Whether or not the layers have bias neurons.
+   * @param random
+   *          Where the weights come from.
+   * @param layers
+   *          Number of neurons in each layer, input layer first.
+   */
+  public static MultiLayerPerceptron createNetwork(TransferFunctionType transferFunctionType, boolean useBias,
+      Random random, Integer... layers) {
+    NeuronProperties neuronProperties = new NeuronProperties();
+    neuronProperties.setProperty("transferFunction", transferFunctionType);
+    neuronProperties.setProperty("inputFunction", WeightedSum.class);
+    neuronProperties.setProperty("useBias", useBias);
+    MultiLayerPerceptron ret = new MultiLayerPerceptron(Arrays.asList(layers), neuronProperties);
+    double[] weights = new double[ret.getWeights().length];
+    for (int aa = 0; aa < weights.length; aa++) {
+      weights[aa] = random.nextDouble() * 2.0 - 1.0;
+    }
+    ret.setWeights(weights);
+    return ret;
+  }
+
+}
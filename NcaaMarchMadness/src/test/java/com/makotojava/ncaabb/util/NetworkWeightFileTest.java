@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.util.TransferFunctionType;
+
+@RunWith(JUnitPlatform.class)
+public class NetworkWeightFileTest {
+
+  @Test
+  public void testWriteRead_WithBias() throws IOException {
+    assertRoundTrip(NetworkFixtures.createNetwork(true, 46, 30, 10, 2));
+  }
+
+  @Test
+  public void testWriteRead_WithoutBias() throws IOException {
+    assertRoundTrip(NetworkFixtures.createNetwork(false, 46, 23, 2));
+  }
+
+  @Test
+  public void testWrite_UnsupportedNetwork() throws IOException {
+    File file = File.createTempFile("network", NetworkWeightFile.FILE_EXTENSION);
+    file.delete();
+    assertFalse(NetworkWeightFile.write(NetworkFixtures.createNetwork(TransferFunctionType.TANH, true, new Random(46), 46, 23, 2), file));
+    assertFalse(file.exists());
+  }
+
+  @Test
+  public void testRead_NotAWeightFile() throws IOException {
+    File file = File.createTempFile("network", NetworkWeightFile.FILE_EXTENSION);
+    try {
+      Files.write(file.toPath(), "This is not a weight file".getBytes());
+      assertThrows(RuntimeException.class, () -> NetworkWeightFile.read(file));
+    } finally {
+      file.delete();
+    }
+  }
+
+  private void assertRoundTrip(MultiLayerPerceptron network) throws IOException {
+    File file = File.createTempFile("network", NetworkWeightFile.FILE_EXTENSION);
+    try {
+      assertTrue(NetworkWeightFile.write(network, file));
+      MultiLayerPerceptron classUnderTest = NetworkWeightFile.read(file);
+      assertEquals(NetworkUtils.getNetworkStructure(network), NetworkUtils.getNetworkStructure(classUnderTest));
+      assertArrayEquals(network.getWeights(), classUnderTest.getWeights());
+      double[] input = new double[network.getInputsCount()];
+      Arrays.fill(input, 0.5);
+      assertArrayEquals(NetworkUtils.runNetwork(network, input), NetworkUtils.runNetwork(classUnderTest, input));
+    } finally {
+      file.delete();
+    }
+  }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.neuroph.core.data.DataSet;
+
+@RunWith(JUnitPlatform.class)
+public class PackedTrainingDataTest {
+
+  /**
+   * Row n of the DataSet has inputs (first + n, first + n + 0.5) and outputs (first + n, 0)
+   */
+  private static DataSet createDataSet(int first, int numberOfRows) {
+    DataSet ret = new DataSet(2, 2);
+    for (int row = 0; row < numberOfRows; row++) {
+      ret.addRow(new double[] { first + row, first + row + 0.5 }, new double[] { first + row, 0.0 });
+    }
+    return ret;
+  }
+
+  @Test
+  public void testFromDataSets_Concatenates() {
+    PackedTrainingData classUnderTest =
+        PackedTrainingData.fromDataSets(Arrays.asList(createDataSet(0, 3), createDataSet(3, 2)), 2, 2);
+    assertEquals(5, classUnderTest.getRowCount());
+    assertArrayEquals(new double[] { 0.0, 0.5, 1.0, 1.5, 2.0, 2.5, 3.0, 3.5, 4.0, 4.5 }, classUnderTest.getInputs());
+    assertArrayEquals(new double[] { 0.0, 0.0, 1.0, 0.0, 2.0, 0.0, 3.0, 0.0, 4.0, 0.0 }, classUnderTest.getOutputs());
+    DataSet dataSet = classUnderTest.getDataSet();
+    assertSame(dataSet, classUnderTest.getDataSet());
+    assertEquals(5, dataSet.size());
+    assertArrayEquals(new double[] { 4.0, 4.5 }, dataSet.getRowAt(4).getInput());
+  }
+
+  @Test
+  public void testFromDataSets_SingleDataSetIsUsedAsIs() {
+    DataSet dataSet = createDataSet(0, 3);
+    assertSame(dataSet, PackedTrainingData.fromDataSets(Collections.singletonList(dataSet), 2, 2).getDataSet());
+  }
+
+  @Test
+  public void testFromDataSets_WrongSize() {
+    assertThrows(IllegalArgumentException.class,
+        () -> PackedTrainingData.fromDataSets(Collections.singletonList(createDataSet(0, 3)), 3, 2));
+  }
+
+  @Test
+  public void testFromTrainingDataFiles() throws IOException {
+    File firstFile = File.createTempFile("training", ".tdb");
+    File secondFile = File.createTempFile("training", ".tdb");
+    try {
+      TrainingDataFile.write(createDataSet(0, 3), firstFile);
+      TrainingDataFile.write(createDataSet(3, 2), secondFile);
+      PackedTrainingData classUnderTest = PackedTrainingData.fromTrainingDataFiles(
+          Arrays.asList(TrainingDataFile.open(firstFile), TrainingDataFile.open(secondFile)), 2, 2);
+      PackedTrainingData expected =
+          PackedTrainingData.fromDataSets(Arrays.asList(createDataSet(0, 3), createDataSet(3, 2)), 2, 2);
+      assertArrayEquals(expected.getInputs(), classUnderTest.getInputs());
+      assertArrayEquals(expected.getOutputs(), classUnderTest.getOutputs());
+    } finally {
+      firstFile.delete();
+      secondFile.delete();
+    }
+  }
+
+  @Test
+  public void testCopyRows() {
+    PackedTrainingData classUnderTest =
+        PackedTrainingData.fromDataSets(Arrays.asList(createDataSet(0, 3), createDataSet(3, 2)), 2, 2);
+    DataSet dataSet = classUnderTest.copyRows(1, 3);
+    assertEquals(3, dataSet.size());
+    assertArrayEquals(new double[] { 1.0, 1.5 }, dataSet.getRowAt(0).getInput());
+    assertArrayEquals(new double[] { 3.0, 0.0 }, dataSet.getRowAt(2).getDesiredOutput());
+    // New rows, not the DataSet's
+    assertNotSame(classUnderTest.getDataSet().getRowAt(1), dataSet.getRowAt(0));
+  }
+
+  @Test
+  public void testCreateRowOrder() {
+    PackedTrainingData classUnderTest =
+        PackedTrainingData.fromDataSets(Collections.singletonList(createDataSet(0, 100)), 2, 2);
+    int[] rowOrder = classUnderTest.createRowOrder(new Random(46));
+    // The same seed gives the same order
+    assertArrayEquals(rowOrder, classUnderTest.createRowOrder(new Random(46)));
+    int[] sorted = rowOrder.clone();
+    Arrays.sort(sorted);
+    int[] identity = new int[100];
+    for (int row = 0; row < identity.length; row++) {
+      identity[row] = row;
+    }
+    // A permutation, and actually shuffled
+    assertArrayEquals(identity, sorted);
+    assertFalse(Arrays.equals(identity, rowOrder));
+    //
+    // The DataSet for the order shares the rows
+    DataSet dataSet = classUnderTest.createDataSet(rowOrder);
+    for (int aa = 0; aa < rowOrder.length; aa++) {
+      assertSame(classUnderTest.getDataSet().getRowAt(rowOrder[aa]), dataSet.getRowAt(aa));
+    }
+  }
+
+}
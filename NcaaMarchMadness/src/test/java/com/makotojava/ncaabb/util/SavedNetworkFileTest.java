@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class SavedNetworkFileTest {
+
+  private static final Integer[] SIMULATION_YEARS = { 2015, 2016 };
+
+  private static File createFile(String simulationYears, boolean useBias, String layerStructure,
+      String winningPercentage, int sequenceNumber) {
+    return new File("networks", NetworkProperties.getNetworkFileBase() + "-SimYrs_" + simulationYears + "-bias_"
+        + useBias + "-NmInp_46-" + layerStructure + "-NmTrRows_4000-MxErr_0.059-Dt_20170316-TotErr_5.83-winpct_"
+        + winningPercentage + "_" + sequenceNumber + NetworkProperties.getNetworkFileExtension());
+  }
+
+  @Test
+  public void testParse() {
+    SavedNetworkFile classUnderTest =
+        SavedNetworkFile.parse(createFile("2015_2016", true, "46x46x23x2", "74.62687", 0));
+    assertArrayEquals(SIMULATION_YEARS, classUnderTest.getSimulationYears());
+    assertTrue(classUnderTest.isUseBias());
+    assertEquals("46x46x23x2", classUnderTest.getLayerStructure());
+    assertEquals(74.62687, classUnderTest.getWinningPercentage());
+  }
+
+  @Test
+  public void testParse_NotASavedNetwork() {
+    assertNull(SavedNetworkFile.parse(new File("networks", "trainer.checkpoint")));
+    assertNull(SavedNetworkFile.parse(new File("networks",
+        NetworkProperties.getNetworkFileBase() + "-something-else" + NetworkProperties.getNetworkFileExtension())));
+  }
+
+  @Test
+  public void testFindBest() {
+    File[] files = {
+        createFile("2015_2016", true, "46x46x23x2", "70.14925", 0),
+        createFile("2015_2016", true, "46x46x23x2", "74.62687", 1),
+        // Better, but not a match
+        createFile("2015_2016", true, "46x46x2", "80.59701", 0),
+        createFile("2015_2016", false, "46x46x23x2", "80.59701", 0),
+        createFile("2016", true, "46x46x23x2", "80.59701", 0),
+        new File("networks", "trainer.checkpoint")
+    };
+    SavedNetworkFile best = SavedNetworkFile.findBest(files, "46x46x23x2", true, SIMULATION_YEARS);
+    assertEquals(files[1], best.getFile());
+    assertNull(SavedNetworkFile.findBest(files, "46x23x2", true, SIMULATION_YEARS));
+    assertFalse(SavedNetworkFile.findBest(files, "46x46x23x2", false, SIMULATION_YEARS).isUseBias());
+  }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class StatsUtilsTest {
+
+  @Test
+  public void testNormalize_MatchesBigDecimal() {
+    String[][] cases = {
+        // value, min, max
+        { "72.45000", "58.1", "91.3" },
+        { "0.43210", "0.38", "0.52" },
+        // Exactly half way at the 6th decimal place (rounds up)
+        { "0.50001", "0", "2" },
+        { "-3.25000", "-10.75", "12.5" },
+        // Clamped to the min and max allowable values
+        { "58.10000", "58.1", "91.3" },
+        { "50.00000", "58.1", "91.3" },
+        { "91.30000", "58.1", "91.3" },
+        { "99.99999", "58.1", "91.3" },
+        // Rounds to 1.00000, which is clamped
+        { "99.99950", "0", "100" },
+        // More decimal places than SCALE
+        { "12.34567", "1.2345678", "40.1111111" },
+    };
+    for (String[] testCase : cases) {
+      BigDecimal value = new BigDecimal(testCase[0]);
+      BigDecimal minValue = new BigDecimal(testCase[1]);
+      BigDecimal maxValue = new BigDecimal(testCase[2]);
+      assertEquals(
+          StatsUtils.normalize(value, minValue, maxValue).setScale(StatsUtils.SCALE, RoundingMode.HALF_UP)
+              .doubleValue(),
+          StatsUtils.normalize(value.doubleValue(), minValue.doubleValue(), maxValue.doubleValue()),
+          Double.toString(value.doubleValue()));
+      assertEquals(
+          StatsUtils.normalizeInverted(value, minValue, maxValue).setScale(StatsUtils.SCALE, RoundingMode.HALF_UP)
+              .doubleValue(),
+          StatsUtils.normalizeInverted(value.doubleValue(), minValue.doubleValue(), maxValue.doubleValue()),
+          Double.toString(value.doubleValue()));
+    }
+  }
+
+  @Test
+  public void testNormalize_Clamped() {
+    assertEquals(StatsUtils.MIN_ALLOWABLE_VALUE, StatsUtils.normalize(1.0, 2.0, 3.0));
+    assertEquals(StatsUtils.MAX_ALLOWABLE_VALUE, StatsUtils.normalize(4.0, 2.0, 3.0));
+    assertEquals(StatsUtils.MAX_ALLOWABLE_VALUE, StatsUtils.normalizeInverted(1.0, 2.0, 3.0));
+    assertEquals(StatsUtils.MIN_ALLOWABLE_VALUE, StatsUtils.normalizeInverted(4.0, 2.0, 3.0));
+  }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Makoto Consulting Group, Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.makotojava.ncaabb.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.neuroph.core.data.DataSet;
+
+@RunWith(JUnitPlatform.class)
+public class TrainingDataFileTest {
+
+  @Test
+  public void testWriteOpen_RoundTrip() throws IOException {
+    DataSet dataSet = new DataSet(46, 2);
+    Random random = new Random(23);
+    for (int row = 0; row < 67; row++) {
+      double[] input = new double[46];
+      for (int aa = 0; aa < input.length; aa++) {
+        input[aa] = random.nextDouble();
+      }
+      dataSet.addRow(input, new double[] { random.nextDouble(), random.nextDouble() });
+    }
+    File file = File.createTempFile("training", ".tdb");
+    try {
+      TrainingDataFile.write(dataSet, file);
+      assertEquals(TrainingDataFile.HEADER_SIZE + Double.BYTES * 67 * 48, file.length());
+      TrainingDataFile classUnderTest = TrainingDataFile.open(file);
+      assertEquals(46, classUnderTest.getInputSize());
+      assertEquals(2, classUnderTest.getOutputSize());
+      assertEquals(67, classUnderTest.getRowCount());
+      DataSet actual = classUnderTest.toDataSet();
+      assertEquals(dataSet.size(), actual.size());
+      for (int row = 0; row < dataSet.size(); row++) {
+        assertArrayEquals(dataSet.getRowAt(row).getInput(), actual.getRowAt(row).getInput());
+        assertArrayEquals(dataSet.getRowAt(row).getDesiredOutput(), actual.getRowAt(row).getDesiredOutput());
+        assertEquals(dataSet.getRowAt(row).getInput()[45], classUnderTest.getInput(row, 45));
+        assertEquals(dataSet.getRowAt(row).getDesiredOutput()[1], classUnderTest.getOutput(row, 1));
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testOpen_NotATrainingDataFile() throws IOException {
+    File file = File.createTempFile("training", ".tdb");
+    try {
+      Files.write(file.toPath(), "This is definitely not a training data file".getBytes());
+      assertThrows(RuntimeException.class, () -> TrainingDataFile.open(file));
+    } finally {
+      file.delete();
+    }
+  }
+
+}